@@ -5,14 +5,24 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.AbstractCollection;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.tuple.Pair;
+
+import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
 
 import ws.palladian.helper.collection.CollectionHelper.Order;
 import ws.palladian.helper.functional.Factory;
@@ -23,8 +33,9 @@ import ws.palladian.helper.functional.Factory;
  * to retrieve the occurrence count of an item. It is also often referred to as a <a
  * href="http://en.wikipedia.org/wiki/Multiset">multiset</a>. A typical use case for this class is a bag of words model
  * of a text document, where the counts in this bag represent the frequencies of tokens within the document. The
- * implementation of this class uses a {@link Map} to store the items and their counts. This class mostly adheres to the
- * interface definition of a {@link Collection}. Keep in mind the following peculiarities:
+ * implementation of this class uses an open addressing hash map with primitive <code>int</code> values to store the
+ * items and their counts, so that counting does not create any {@link Integer} objects. This class mostly adheres to
+ * the interface definition of a {@link Collection}. Keep in mind the following peculiarities:
  * <ul>
  * <li>No <code>null</code> entries are allowed.
  * <li>{@link #size()} represents the sum of all counts within this bag; in contrast, to retrieve the number of
@@ -34,7 +45,8 @@ import ws.palladian.helper.functional.Factory;
  * <li>For items which are not present in this bag, {@link #count(Object)} returns a value of zero.
  * <li>Items, which counts are set to zero are removed from the bag.
  * <li>Items with biggest/smallest count can be retrieved using {@link #getMax()} and {@link #getMin()}.
- * <li>You can retrieve a copy of this map, where entries are sorted by their counts using {@link #createSorted(Order)}.
+ * <li>You can retrieve a copy of this map, where entries are sorted by their counts using {@link #createSorted(Order)};
+ * in case you only need the items with the highest counts, use {@link #getTopK(int)}, which avoids sorting all entries.
  * </ul>
  * </p>
  * 
@@ -65,7 +77,7 @@ public class Bag<T> extends AbstractCollection<T> implements Serializable {
     }
 
     /** The internal map keeping the data. */
-    private transient Map<T, Integer> map;
+    private transient Object2IntMap<T> map;
 
     /** The sum of all counts in the map. */
     private transient int size;
@@ -80,7 +92,7 @@ public class Bag<T> extends AbstractCollection<T> implements Serializable {
      */
     @Deprecated
     public static <T> Bag<T> create() {
-        return new Bag<>(new HashMap<>());
+        return new Bag<>();
     }
 
     /**
@@ -112,14 +124,14 @@ public class Bag<T> extends AbstractCollection<T> implements Serializable {
     @Deprecated
     public static <T> Bag<T> create(Map<? extends T, ? extends Integer> map) {
         Validate.notNull(map, "map must not be null");
-        return new Bag<>(new HashMap<>(map));
+        return new Bag<>(map);
     }
     
     /**
      * Creates an empty Bag.
      */
     public Bag() {
-    	this(new HashMap<T, Integer>());
+        this.map = new Object2IntOpenHashMap<>();
     }
 
     /**
@@ -129,7 +141,7 @@ public class Bag<T> extends AbstractCollection<T> implements Serializable {
      */
     public Bag(Map<? extends T, ? extends Integer> map) {
     	Validate.notNull(map, "map must not be null");
-        this.map = new HashMap<>();
+        this.map = new Object2IntOpenHashMap<>(map.size());
         for (Entry<? extends T, ? extends Integer> item : map.entrySet()) {
         		add(item.getKey(), item.getValue());
         }
@@ -139,7 +151,7 @@ public class Bag<T> extends AbstractCollection<T> implements Serializable {
 	 * Internal constructor, which does not copy the map. Only by
 	 * {@link #createSorted(Order)}.
 	 */
-	private Bag(Map<T, Integer> map, int size) {
+	private Bag(Object2IntMap<T> map, int size) {
 		this.map = map;
 		this.size = size;
 	}
@@ -171,8 +183,8 @@ public class Bag<T> extends AbstractCollection<T> implements Serializable {
 
         return new AbstractIterator<T>() {
 
-            final Iterator<Entry<T, Integer>> entryIterator = map.entrySet().iterator();
-            Entry<T, Integer> currentEntry = null;
+            final Iterator<Object2IntMap.Entry<T>> entryIterator = map.object2IntEntrySet().iterator();
+            Object2IntMap.Entry<T> currentEntry = null;
             int currentCount;
 
             @Override
@@ -183,7 +195,7 @@ public class Bag<T> extends AbstractCollection<T> implements Serializable {
                 }
                 if (entryIterator.hasNext()) {
                     currentEntry = entryIterator.next();
-                    currentCount = currentEntry.getValue() - 1;
+                    currentCount = currentEntry.getIntValue() - 1;
                     return currentEntry.getKey();
                 }
                 throw FINISHED;
@@ -194,7 +206,7 @@ public class Bag<T> extends AbstractCollection<T> implements Serializable {
                 if (currentEntry == null) {
                     throw new IllegalStateException();
                 }
-                int newValue = currentEntry.getValue() - 1;
+                int newValue = currentEntry.getIntValue() - 1;
                 size--;
                 if (newValue == 0) {
                     entryIterator.remove();
@@ -224,12 +236,30 @@ public class Bag<T> extends AbstractCollection<T> implements Serializable {
      */
 	public int add(T item, int increment) {
 		Validate.notNull(item, "item must not be null");
-		int newCount = count(item) + increment;
+		int newCount = map.getInt(item) + increment;
 		map.put(item, newCount);
 		size += increment;
 		return newCount;
 	}
 
+    /**
+     * <p>
+     * Add all counts from the given Bag to this Bag.
+     * </p>
+     * 
+     * @param other The Bag with the counts to add, not <code>null</code>.
+     * @return This instance, to allow method chaining.
+     */
+    public Bag<T> merge(Bag<? extends T> other) {
+        Validate.notNull(other, "other must not be null");
+        for (Object2IntMap.Entry<? extends T> entry : other.map.object2IntEntrySet()) {
+            T item = entry.getKey();
+            map.put(item, map.getInt(item) + entry.getIntValue());
+        }
+        size += other.size;
+        return this;
+    }
+
     /**
      * <p>
      * Remove all entries of the specified item from this Bag.
@@ -253,12 +283,9 @@ public class Bag<T> extends AbstractCollection<T> implements Serializable {
      */
     public int set(T item, int count) {
         Validate.notNull(item, "item must not be null");
-        Integer oldValue = (count == 0) ? map.remove(item) : map.put(item, count);
-        if (oldValue != null) {
-            size -= oldValue;
-        }
-        size += count;
-        return oldValue != null ? oldValue : 0;
+        int oldValue = (count == 0) ? map.removeInt(item) : map.put(item, count);
+        size += count - oldValue;
+        return oldValue;
     }
 
     /**
@@ -271,8 +298,7 @@ public class Bag<T> extends AbstractCollection<T> implements Serializable {
      */
     public int count(T item) {
         Validate.notNull(item, "item must not be null");
-        Integer count = map.get(item);
-        return count == null ? 0 : count;
+        return map.getInt(item);
     }
 
     /**
@@ -290,29 +316,35 @@ public class Bag<T> extends AbstractCollection<T> implements Serializable {
     }
 
     /**
-     * @return The {@link Entry} with the highest count, or <code>null</code> in case no entry exists.
+     * @return An immutable snapshot of the {@link Entry} with the highest count, or <code>null</code> in case no entry
+     *         exists.
      */
     public Entry<T, Integer> getMax() {
-        Entry<T, Integer> max = null;
-        for (Entry<T, Integer> entry : unique()) {
-            if (max == null || max.getValue() < entry.getValue()) {
-                max = entry;
+        T maxItem = null;
+        int maxCount = 0;
+        for (Object2IntMap.Entry<T> entry : map.object2IntEntrySet()) {
+            if (maxItem == null || maxCount < entry.getIntValue()) {
+                maxItem = entry.getKey();
+                maxCount = entry.getIntValue();
             }
         }
-        return max;
+        return maxItem != null ? Pair.of(maxItem, maxCount) : null;
     }
 
     /**
-     * @return The {@link Entry} with the lowest count, or <code>null</code> in case no entry exists.
+     * @return An immutable snapshot of the {@link Entry} with the lowest count, or <code>null</code> in case no entry
+     *         exists.
      */
     public Entry<T, Integer> getMin() {
-        Entry<T, Integer> min = null;
-        for (Entry<T, Integer> entry : unique()) {
-            if (min == null || min.getValue() > entry.getValue()) {
-                min = entry;
+        T minItem = null;
+        int minCount = 0;
+        for (Object2IntMap.Entry<T> entry : map.object2IntEntrySet()) {
+            if (minItem == null || minCount > entry.getIntValue()) {
+                minItem = entry.getKey();
+                minCount = entry.getIntValue();
             }
         }
-        return min;
+        return minItem != null ? Pair.of(minItem, minCount) : null;
     }
 
     /**
@@ -326,7 +358,33 @@ public class Bag<T> extends AbstractCollection<T> implements Serializable {
     public Bag<T> createSorted(Order order) {
         Validate.notNull(order, "order must not be null");
         Map<T, Integer> sorted = CollectionHelper.sortByValue(map, order);
-        return new Bag<>(sorted, size);
+        return new Bag<>(new Object2IntLinkedOpenHashMap<>(sorted), size);
+    }
+
+    /**
+     * <p>
+     * Get the entries with the highest counts. In contrast to {@link #createSorted(Order)}, this only keeps the
+     * <code>k</code> best entries in a heap while iterating, instead of sorting all entries.
+     * </p>
+     * 
+     * @param k The number of entries to retrieve, greater zero.
+     * @return A list with (at most) <code>k</code> entries, sorted descending by their counts.
+     */
+    public List<Entry<T, Integer>> getTopK(int k) {
+        Validate.isTrue(k > 0, "k must be greater zero");
+        Comparator<Entry<T, Integer>> comparator = new Comparator<Entry<T, Integer>>() {
+            @Override
+            public int compare(Entry<T, Integer> e1, Entry<T, Integer> e2) {
+                return Integer.compare(e1.getValue(), e2.getValue());
+            }
+        };
+        FixedSizePriorityQueue<Entry<T, Integer>> queue = new FixedSizePriorityQueue<>(k, comparator);
+        for (Object2IntMap.Entry<T> entry : map.object2IntEntrySet()) {
+            queue.add(Pair.of(entry.getKey(), entry.getIntValue()));
+        }
+        List<Entry<T, Integer>> topK = new ArrayList<>(queue.asList());
+        Collections.sort(topK, Collections.reverseOrder(comparator));
+        return topK;
     }
 
     /**
@@ -366,22 +424,32 @@ public class Bag<T> extends AbstractCollection<T> implements Serializable {
 
     @Override
     public String toString() {
-        return map.toString();
+        // same format as java.util.Map
+        StringBuilder builder = new StringBuilder("{");
+        for (ObjectIterator<Object2IntMap.Entry<T>> iterator = map.object2IntEntrySet().iterator(); iterator
+                .hasNext();) {
+            Object2IntMap.Entry<T> entry = iterator.next();
+            builder.append(entry.getKey()).append('=').append(entry.getIntValue());
+            if (iterator.hasNext()) {
+                builder.append(", ");
+            }
+        }
+        return builder.append('}').toString();
     }
 
     // serialization code; in case you change the internals of this class, make sure, serialization still works
 
     private void writeObject(ObjectOutputStream out) throws IOException {
         out.writeInt(map.size());
-        for (Entry<T, Integer> entry : map.entrySet()) {
+        for (Object2IntMap.Entry<T> entry : map.object2IntEntrySet()) {
             out.writeObject(entry.getKey());
-            out.writeInt(entry.getValue());
+            out.writeInt(entry.getIntValue());
         }
     }
 
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
-        map = new HashMap<>();
         int numEntries = in.readInt();
+        map = new Object2IntOpenHashMap<>(numEntries);
         for (int i = 0; i < numEntries; i++) {
             @SuppressWarnings("unchecked")
             T item = (T)in.readObject();
@@ -1,8 +1,12 @@
 package ws.palladian.helper.collection;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
@@ -17,7 +21,9 @@ import ws.palladian.helper.functional.Factory;
 /**
  * <p>
  * A trie data structure. This can make string-based retrieval faster and more space efficient than using e.g. a
- * HashMap. This implementations does <i>not</i> allow <code>null</code> or empty values as keys.
+ * HashMap. This implementations does <i>not</i> allow <code>null</code> or empty values as keys. The children of each
+ * node are kept sorted by their characters, so that they can be looked up through a binary search; lookups iterate over
+ * the key's characters and do not create any intermediate objects. Iteration happens in lexicographic key order.
  * 
  * @author Philipp Katz
  * @author David Urbansky
@@ -32,12 +38,18 @@ public class Trie<V> implements Map.Entry<String, V>, Iterable<Map.Entry<String,
 
     private static final Trie[] EMPTY_ARRAY = new Trie[0];
 
+    private static final char[] EMPTY_CHARACTERS = new char[0];
+
     private final char character;
 
     private final Trie<V> parent;
 
+    /** The child nodes, sorted by their characters. */
     private Trie[] children = EMPTY_ARRAY;
 
+    /** The characters of the child nodes, for binary searching without dereferencing the child nodes. */
+    private transient char[] childCharacters = EMPTY_CHARACTERS;
+
     private V value;
 
     public Trie() {
@@ -55,30 +67,45 @@ public class Trie<V> implements Map.Entry<String, V>, Iterable<Map.Entry<String,
     }
 
     private Trie<V> getNode(CharSequence key, boolean create) {
-        if (key == null || key.length() == 0) {
+        if (key == null) {
             return this;
         }
-        char head = key.charAt(0);
-        CharSequence tail = tail(key);
-        for (Trie<V> node : children) {
-            if (head == node.character) {
-                return node.getNode(tail, create);
-            }
-        }
-        if (create) {
-            Trie<V> newNode = new Trie<>(head, this);
-            if (children == EMPTY_ARRAY) {
-                children = new Trie[] {newNode};
+        Trie<V> node = this;
+        for (int i = 0; i < key.length(); i++) {
+            char character = key.charAt(i);
+            int index = Arrays.binarySearch(node.childCharacters, character);
+            if (index >= 0) {
+                node = node.children[index];
+            } else if (create) {
+                node = node.insertChild(-(index + 1), character);
             } else {
-                Trie<V>[] newArray = new Trie[children.length + 1];
-                System.arraycopy(children, 0, newArray, 0, children.length);
-                newArray[children.length] = newNode;
-                children = newArray;
+                return null;
             }
-            return newNode.getNode(tail, true);
-        } else {
-            return null;
         }
+        return node;
+    }
+
+    /**
+     * Insert a new child node at the given position, so that the children stay sorted by their characters.
+     * 
+     * @param index The insertion index.
+     * @param character The character of the new node.
+     * @return The new node.
+     */
+    private Trie<V> insertChild(int index, char character) {
+        Trie<V> newNode = new Trie<>(character, this);
+        int length = children.length;
+        Trie[] newChildren = new Trie[length + 1];
+        char[] newChildCharacters = new char[length + 1];
+        System.arraycopy(children, 0, newChildren, 0, index);
+        System.arraycopy(childCharacters, 0, newChildCharacters, 0, index);
+        newChildren[index] = newNode;
+        newChildCharacters[index] = character;
+        System.arraycopy(children, index, newChildren, index + 1, length - index);
+        System.arraycopy(childCharacters, index, newChildCharacters, index + 1, length - index);
+        children = newChildren;
+        childCharacters = newChildCharacters;
+        return newNode;
     }
 
     public V put(String key, V value) {
@@ -89,7 +116,7 @@ public class Trie<V> implements Map.Entry<String, V>, Iterable<Map.Entry<String,
         return oldValue;
     }
 
-    public V get(String key) {
+    public V get(CharSequence key) {
         Validate.notEmpty(key, "key must not be empty");
         Trie<V> node = getNode(key);
         return node != null ? node.value : null;
@@ -122,10 +149,6 @@ public class Trie<V> implements Map.Entry<String, V>, Iterable<Map.Entry<String,
         return oldValue;
     }
 
-    private CharSequence tail(CharSequence seq) {
-        return seq.length() > 1 ? seq.subSequence(1, seq.length()) : null;
-    }
-
     private Iterator<Trie<V>> children() {
         return new ArrayIterator<Trie<V>>(children);
     }
@@ -136,13 +159,15 @@ public class Trie<V> implements Map.Entry<String, V>, Iterable<Map.Entry<String,
 
     @Override
     public String getKey() {
-        StringBuilder builder = new StringBuilder().append(character);
-        for (Trie<V> current = parent; current != null; current = current.parent) {
-            if (current.character != EMPTY_CHARACTER) {
-                builder.append(current.character);
-            }
+        int length = 0;
+        for (Trie<V> current = this; current.parent != null; current = current.parent) {
+            length++;
+        }
+        char[] key = new char[length];
+        for (Trie<V> current = this; current.parent != null; current = current.parent) {
+            key[--length] = current.character;
         }
-        return builder.reverse().toString();
+        return new String(key);
     }
 
     /**
@@ -160,12 +185,29 @@ public class Trie<V> implements Map.Entry<String, V>, Iterable<Map.Entry<String,
             }
             clean &= childClean;
         }
-        int childCount = temp.size();
-        children = childCount > 0 ? temp.toArray(new Trie[childCount]) : EMPTY_ARRAY;
+        setChildren(temp.toArray(new Trie[temp.size()]));
         clean &= !hasData();
         return clean;
     }
 
+    /**
+     * Set the children of this node and update the lookup array with their characters.
+     * 
+     * @param newChildren The children, sorted by their characters.
+     */
+    private void setChildren(Trie[] newChildren) {
+        if (newChildren.length == 0) {
+            children = EMPTY_ARRAY;
+            childCharacters = EMPTY_CHARACTERS;
+        } else {
+            children = newChildren;
+            childCharacters = new char[newChildren.length];
+            for (int i = 0; i < newChildren.length; i++) {
+                childCharacters[i] = newChildren[i].character;
+            }
+        }
+    }
+
     @Override
     public Iterator<Map.Entry<String, V>> iterator() {
         return new TrieEntryIterator<>(this);
@@ -180,6 +222,23 @@ public class Trie<V> implements Map.Entry<String, V>, Iterable<Map.Entry<String,
         return getKey() + '=' + getValue();
     }
 
+    // serialization code
+
+    // Implementation note: Children of serialized instances created by former versions are not necessarily sorted,
+    // therefore, we sort them here.
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        Trie[] sortedChildren = children.clone();
+        Arrays.sort(sortedChildren, new Comparator<Trie>() {
+            @Override
+            public int compare(Trie t1, Trie t2) {
+                return Character.compare(t1.character, t2.character);
+            }
+        });
+        setChildren(sortedChildren);
+    }
+
     // iterator over all entries
 
     private static final class TrieEntryIterator<V> extends AbstractIterator<Map.Entry<String, V>> {
@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -195,11 +196,19 @@ public final class DateParser {
      */
     public static List<ExtractedDate> findDates(String text, DateFormat... formats) {
         List<ExtractedDate> result = new ArrayList<>();
+        // the normalized text and its windows are shared by all formats, until dates are masked out
+        String normalizedText = null;
+        int[] windows = null;
         for (DateFormat format : formats) {
-            List<ExtractedDate> dates = findDates(text, format);
+            if (normalizedText == null) {
+                normalizedText = StringHelper.removeDoubleWhitespaces(text);
+                windows = DateScanner.getWindows(normalizedText);
+            }
+            List<ExtractedDate> dates = findDates(normalizedText, format, windows);
             for (ExtractedDate date : dates) {
                 String dateString = date.getDateString();
                 text = text.replaceFirst(dateString, StringUtils.repeat('x', dateString.length()));
+                normalizedText = null;
                 result.add(date);
             }
 
@@ -218,11 +227,20 @@ public final class DateParser {
      *         never <code>null</code>.
      */
     public static List<ExtractedDate> findDates(String text, DateFormat format) {
-        StopWatch stopWatch = new StopWatch();
         text = StringHelper.removeDoubleWhitespaces(text);
+        return findDates(text, format, DateScanner.getWindows(text));
+    }
+
+    /**
+     * <p>
+     * Find all dates matching the given {@link DateFormat} in a text with normalized whitespace; the format is only
+     * matched within the given windows (see {@link DateScanner}).
+     * </p>
+     */
+    private static List<ExtractedDate> findDates(String text, DateFormat format, int[] windows) {
+        StopWatch stopWatch = new StopWatch();
         List<ExtractedDate> result = new ArrayList<>();
-        Matcher matcher = format.getPattern().matcher(text);
-        while (matcher.find()) {
+        for (MatchResult matcher : DateScanner.findMatches(text, format, windows)) {
 
             // Determine, if the found potential date string is directly surrounded by digits or periods.
             // In this case, we skip the pattern and advance to the next one.
@@ -0,0 +1,132 @@
+package ws.palladian.helper.date;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+
+import org.apache.commons.lang3.Validate;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import ws.palladian.helper.constants.DateFormat;
+import ws.palladian.helper.constants.RegExp;
+
+/**
+ * <p>
+ * Prefilter for finding dates in long texts. Each of the {@link DateFormat}s in {@link RegExp#ALL_DATE_FORMATS}
+ * requires at least one digit, and the runs of non-digit characters within a date (e.g.
+ * <code>Wednesday, </code>, <code>th September, </code>, or <code> PM GMT +</code>) are short. Therefore, the text is
+ * scanned once for digits, and the dates can only occur in windows around clusters of digits (see
+ * {@link #getWindows(String)}). The regular expressions are only applied to these windows instead of the whole text,
+ * which avoids most of the work for texts with few dates (like typical web pages). The matches are exactly the same
+ * as when applying the expressions to the whole text, as the region is matched with transparent bounds.
+ * </p>
+ *
+ * <p>
+ * This only holds for formats for which we know that they fulfill the constraints described above; these are the
+ * formats in {@link RegExp#ALL_DATE_FORMATS} and {@link RegExp#DATE_CONTEXT_YYYY}. Other formats are matched against
+ * the whole text.
+ * </p>
+ *
+ * @author Philipp Katz
+ */
+public final class DateScanner {
+
+    /**
+     * The maximum number of consecutive non-digit characters within a date, and before the first or after the last
+     * digit of a date. The longest runs in the supported formats are about 15 characters, so this leaves a safety
+     * margin.
+     */
+    static final int MAX_NON_DIGIT_RUN = 32;
+
+    /** The formats for which {@link #MAX_NON_DIGIT_RUN} holds and which require at least one digit. */
+    private static final Set<DateFormat> SUPPORTED_FORMATS;
+
+    static {
+        Set<DateFormat> supportedFormats = Collections.newSetFromMap(new IdentityHashMap<DateFormat, Boolean>());
+        Collections.addAll(supportedFormats, RegExp.ALL_DATE_FORMATS);
+        supportedFormats.add(RegExp.DATE_CONTEXT_YYYY);
+        SUPPORTED_FORMATS = Collections.unmodifiableSet(supportedFormats);
+    }
+
+    private DateScanner() {
+        // utility class, no instances.
+    }
+
+    /**
+     * @param format The format, not <code>null</code>.
+     * @return <code>true</code> in case the format can be matched within the windows.
+     */
+    public static boolean isSupported(DateFormat format) {
+        Validate.notNull(format, "format must not be null");
+        return SUPPORTED_FORMATS.contains(format);
+    }
+
+    /**
+     * <p>
+     * Determine the windows of the text which can contain dates: the digits of the text are clustered (two digits
+     * belong to the same cluster if at most {@link #MAX_NON_DIGIT_RUN} characters are in between), and each cluster
+     * is extended by {@link #MAX_NON_DIGIT_RUN} characters in both directions. Overlapping windows are merged.
+     * </p>
+     *
+     * @param text The text, not <code>null</code>.
+     * @return The windows as [start, end, start, end, ...], sorted and non-overlapping; empty in case the text
+     *         contains no digits.
+     */
+    public static int[] getWindows(String text) {
+        Validate.notNull(text, "text must not be null");
+        IntArrayList windows = new IntArrayList();
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                continue;
+            }
+            int start = Math.max(0, i - MAX_NON_DIGIT_RUN);
+            int end = Math.min(text.length(), i + 1 + MAX_NON_DIGIT_RUN);
+            int size = windows.size();
+            if (size > 0 && start <= windows.getInt(size - 1)) {
+                windows.set(size - 1, end); // extend the current window
+            } else {
+                windows.add(start);
+                windows.add(end);
+            }
+        }
+        return windows.toIntArray();
+    }
+
+    /**
+     * <p>
+     * Find all matches of a format in a text; equal to calling {@link Matcher#find()} on the whole text repeatedly.
+     * </p>
+     *
+     * @param text The text, not <code>null</code>.
+     * @param format The format, not <code>null</code>.
+     * @param windows The windows of the text, as determined by {@link #getWindows(String)}.
+     * @return The matches, sorted by position.
+     */
+    public static List<MatchResult> findMatches(String text, DateFormat format, int[] windows) {
+        Validate.notNull(text, "text must not be null");
+        Validate.notNull(format, "format must not be null");
+        List<MatchResult> matches = new ArrayList<>();
+        Matcher matcher = format.getPattern().matcher(text);
+        if (!isSupported(format)) {
+            while (matcher.find()) {
+                matches.add(matcher.toMatchResult());
+            }
+            return matches;
+        }
+        matcher.useTransparentBounds(true);
+        matcher.useAnchoringBounds(false);
+        for (int w = 0; w < windows.length; w += 2) {
+            matcher.region(windows[w], windows[w + 1]);
+            while (matcher.find()) {
+                matches.add(matcher.toMatchResult());
+            }
+        }
+        return matches;
+    }
+
+}
@@ -24,29 +24,18 @@ public class Spatial2dIdMap {
     private List<IdCoordinate> lngIds = new ObjectArrayList<>();
 
     public Set<IdCoordinate> findInBox(double lat1, double lng1, double lat2, double lng2) {
-
-//        StopWatch stopWatch = new StopWatch();
-
-        Set<IdCoordinate> latitudeMatches;
+        // take the latitude range from the sorted list and check the longitudes directly, instead of intersecting
+        // the latitude and longitude ranges through hash sets
         int i1 = CollectionHelper.findIndexBefore(lat1, latValues);
         int i2 = CollectionHelper.findIndexBefore(lat2, latValues);
-
-//        System.out.println("latitude matches in " + stopWatch.getElapsedTimeStringAndIncrement());
-        List<IdCoordinate> subList = latIds.subList(i1, i2);
-//        System.out.println("sublist in " + stopWatch.getElapsedTimeStringAndIncrement());
-        latitudeMatches = new HashSet<>(subList);
-//        System.out.println("to set in " + stopWatch.getElapsedTimeStringAndIncrement());
-
-        Set<IdCoordinate> longitudeMatches;
-        i1 = CollectionHelper.findIndexBefore(lng1, lngValues);
-        i2 = CollectionHelper.findIndexBefore(lng2, lngValues);
-//        System.out.println("longitude matches in " + stopWatch.getElapsedTimeStringAndIncrement());
-
-        subList = lngIds.subList(i1, i2);
-        longitudeMatches = subList.stream().filter(latitudeMatches::contains).collect(Collectors.toSet());
-//        System.out.println("longitude matches stream in " + stopWatch.getElapsedTimeStringAndIncrement());
-
-        return longitudeMatches;
+        Set<IdCoordinate> matches = new HashSet<>();
+        for (IdCoordinate idCoordinate : latIds.subList(i1, i2)) {
+            double lng = idCoordinate.getCoordinate().getLongitude();
+            if (lng1 <= lng && lng <= lng2) {
+                matches.add(idCoordinate);
+            }
+        }
+        return matches;
     }
 
     public void put(double lat, double lng, int id) {
@@ -81,7 +70,7 @@ public class Spatial2dIdMap {
         ImmutableGeoCoordinate sourceCoordinate = new ImmutableGeoCoordinate(lat, lng);
 
         double[] boundingBox = sourceCoordinate.getBoundingBox(distanceMeters / 1000.);
-        List<IdCoordinate> inBox = new ArrayList<>(findInBox(boundingBox[0], boundingBox[1], boundingBox[2], boundingBox[2]));
+        List<IdCoordinate> inBox = new ArrayList<>(findInBox(boundingBox[0], boundingBox[1], boundingBox[2], boundingBox[3]));
 
         // now sort them by distance to given coordinate
         Collections.sort(inBox,
@@ -0,0 +1,378 @@
+package ws.palladian.helper.geo;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.cos;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.sqrt;
+import static java.lang.Math.toRadians;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.commons.lang3.Validate;
+
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+/**
+ * <p>
+ * A static spatial index over coordinates which are identified by integer IDs. The index is a packed Hilbert R-tree:
+ * The coordinates are sorted along a Hilbert curve and grouped bottom up into nodes with a fixed number of children,
+ * so that the whole tree is stored in a few primitive arrays. It supports queries for bounding boxes, for all
+ * coordinates within a distance, and for the k nearest coordinates. Distances are calculated with
+ * {@link GeoUtils#approximateDistance(double, double, double, double)} (taking the antimeridian into account); nodes
+ * are pruned with a lower bound of this distance.
+ * </p>
+ *
+ * <p>
+ * Instances are immutable and thread-safe; they are created using a {@link Builder}.
+ * </p>
+ *
+ * @author Philipp Katz
+ */
+public final class SpatialIndex {
+
+    /**
+     * <p>
+     * Builder for a {@link SpatialIndex}.
+     * </p>
+     */
+    public static final class Builder {
+
+        private final IntArrayList ids = new IntArrayList();
+
+        private final DoubleArrayList coordinates = new DoubleArrayList();
+
+        /**
+         * Add a coordinate.
+         *
+         * @param id The ID which is returned by the queries.
+         * @param lat The latitude, in range [-90,90].
+         * @param lng The longitude, in range [-180,180].
+         * @return This builder, for method chaining.
+         */
+        public Builder add(int id, double lat, double lng) {
+            GeoUtils.validateCoordinateRange(lat, lng);
+            ids.add(id);
+            coordinates.add(lat);
+            coordinates.add(lng);
+            return this;
+        }
+
+        /**
+         * Add a coordinate.
+         *
+         * @param id The ID which is returned by the queries.
+         * @param coordinate The coordinate, not <code>null</code>.
+         * @return This builder, for method chaining.
+         */
+        public Builder add(int id, GeoCoordinate coordinate) {
+            Validate.notNull(coordinate, "coordinate must not be null");
+            return add(id, coordinate.getLatitude(), coordinate.getLongitude());
+        }
+
+        /**
+         * @return The index with all added coordinates.
+         */
+        public SpatialIndex create() {
+            return new SpatialIndex(ids.toIntArray(), coordinates.toDoubleArray());
+        }
+
+    }
+
+    /** A node (or item) with its distance to the query coordinate. */
+    private static final class Candidate {
+        final int node;
+        final double distance;
+
+        Candidate(int node, double distance) {
+            this.node = node;
+            this.distance = distance;
+        }
+    }
+
+    private static final Comparator<Candidate> CANDIDATE_ORDER = new Comparator<Candidate>() {
+        @Override
+        public int compare(Candidate c1, Candidate c2) {
+            return Double.compare(c1.distance, c2.distance);
+        }
+    };
+
+    /** The maximum number of children of each node. */
+    private static final int NODE_SIZE = 16;
+
+    /** The order of the Hilbert curve, i.e. the number of cells is 2^(2*order). */
+    private static final int HILBERT_ORDER = 15;
+
+    private final int numItems;
+
+    /** The IDs of the items in the order of the leaves. */
+    private final int[] ids;
+
+    /**
+     * The boxes of all nodes as minLat, minLng, maxLat, maxLng. The first numItems entries are the items themselves,
+     * followed by the nodes of each level, the root being the last node.
+     */
+    private final double[] boxes;
+
+    /** For each node the index of its first child; its children are stored consecutively. */
+    private final int[] firstChildren;
+
+    /** For each node the index after its last child. */
+    private final int[] endChildren;
+
+    private SpatialIndex(int[] ids, double[] coordinates) {
+        this.numItems = ids.length;
+
+        // sort the items along the Hilbert curve; the curve's value is packed into the upper bits
+        long[] order = new long[numItems];
+        int cells = 1 << HILBERT_ORDER;
+        for (int i = 0; i < numItems; i++) {
+            int y = (int)((coordinates[2 * i] + 90) / 180 * (cells - 1));
+            int x = (int)((coordinates[2 * i + 1] + 180) / 360 * (cells - 1));
+            order[i] = hilbert(x, y) << 32 | i;
+        }
+        Arrays.sort(order);
+
+        int numNodes = numItems;
+        for (int levelSize = numItems; levelSize > 1;) {
+            levelSize = (levelSize + NODE_SIZE - 1) / NODE_SIZE;
+            numNodes += levelSize;
+        }
+        this.ids = new int[numItems];
+        this.boxes = new double[4 * numNodes];
+        this.firstChildren = new int[numNodes];
+        this.endChildren = new int[numNodes];
+        for (int i = 0; i < numItems; i++) {
+            int item = (int)order[i];
+            this.ids[i] = ids[item];
+            double lat = coordinates[2 * item];
+            double lng = coordinates[2 * item + 1];
+            setBox(i, lat, lng, lat, lng);
+        }
+
+        // build the levels bottom up
+        int levelStart = 0;
+        int levelEnd = numItems;
+        int node = numItems;
+        while (levelEnd - levelStart > 1) {
+            for (int first = levelStart; first < levelEnd; first += NODE_SIZE) {
+                int end = min(first + NODE_SIZE, levelEnd);
+                double minLat = Double.POSITIVE_INFINITY;
+                double minLng = Double.POSITIVE_INFINITY;
+                double maxLat = Double.NEGATIVE_INFINITY;
+                double maxLng = Double.NEGATIVE_INFINITY;
+                for (int child = first; child < end; child++) {
+                    minLat = min(minLat, boxes[4 * child]);
+                    minLng = min(minLng, boxes[4 * child + 1]);
+                    maxLat = max(maxLat, boxes[4 * child + 2]);
+                    maxLng = max(maxLng, boxes[4 * child + 3]);
+                }
+                setBox(node, minLat, minLng, maxLat, maxLng);
+                firstChildren[node] = first;
+                endChildren[node] = end;
+                node++;
+            }
+            levelStart = levelEnd;
+            levelEnd = node;
+        }
+    }
+
+    private void setBox(int node, double minLat, double minLng, double maxLat, double maxLng) {
+        boxes[4 * node] = minLat;
+        boxes[4 * node + 1] = minLng;
+        boxes[4 * node + 2] = maxLat;
+        boxes[4 * node + 3] = maxLng;
+    }
+
+    /**
+     * Calculate the position of a cell on the Hilbert curve (see <a
+     * href="https://en.wikipedia.org/wiki/Hilbert_curve">Wikipedia: Hilbert curve</a>).
+     */
+    static long hilbert(int x, int y) {
+        int n = 1 << HILBERT_ORDER;
+        long d = 0;
+        for (int s = n / 2; s > 0; s /= 2) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            d += (long)s * s * ((3 * rx) ^ ry);
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = n - 1 - x;
+                    y = n - 1 - y;
+                }
+                int temp = x;
+                x = y;
+                y = temp;
+            }
+        }
+        return d;
+    }
+
+    private int getRoot() {
+        return firstChildren.length - 1;
+    }
+
+    /**
+     * <p>
+     * Get all coordinates within a bounding box. In case the first longitude is greater than the second one, the box
+     * is assumed to span the antimeridian.
+     * </p>
+     *
+     * @param lat1 The southern latitude of the box.
+     * @param lng1 The western longitude of the box.
+     * @param lat2 The northern latitude of the box.
+     * @param lng2 The eastern longitude of the box.
+     * @return The IDs of the coordinates within the box, in no specific order.
+     */
+    public int[] findInBox(double lat1, double lng1, double lat2, double lng2) {
+        IntArrayList result = new IntArrayList();
+        if (lng1 <= lng2) {
+            findInBox(lat1, lng1, lat2, lng2, result);
+        } else {
+            findInBox(lat1, lng1, lat2, 180, result);
+            findInBox(lat1, -180, lat2, lng2, result);
+        }
+        return result.toIntArray();
+    }
+
+    private void findInBox(double lat1, double lng1, double lat2, double lng2, IntArrayList result) {
+        if (numItems == 0) {
+            return;
+        }
+        IntArrayList stack = new IntArrayList();
+        stack.add(getRoot());
+        while (!stack.isEmpty()) {
+            int node = stack.popInt();
+            if (boxes[4 * node] > lat2 || boxes[4 * node + 2] < lat1 || boxes[4 * node + 1] > lng2
+                    || boxes[4 * node + 3] < lng1) {
+                continue;
+            }
+            if (node < numItems) {
+                result.add(ids[node]);
+            } else {
+                for (int child = firstChildren[node]; child < endChildren[node]; child++) {
+                    stack.add(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Get all coordinates within a given distance.
+     * </p>
+     *
+     * @param lat The latitude of the center.
+     * @param lng The longitude of the center.
+     * @param distance The maximum distance in kilometers, greater/equal zero.
+     * @return The IDs of the coordinates within the distance, ordered by distance (closest first).
+     */
+    public int[] findWithin(double lat, double lng, double distance) {
+        Validate.isTrue(distance >= 0, "distance must be greater/equal zero");
+        List<Candidate> candidates = new ArrayList<>();
+        if (numItems > 0) {
+            IntArrayList stack = new IntArrayList();
+            stack.add(getRoot());
+            while (!stack.isEmpty()) {
+                int node = stack.popInt();
+                double minDistance = minDistance(lat, lng, node);
+                if (minDistance > distance) {
+                    continue;
+                }
+                if (node < numItems) {
+                    candidates.add(new Candidate(node, minDistance));
+                } else {
+                    for (int child = firstChildren[node]; child < endChildren[node]; child++) {
+                        stack.add(child);
+                    }
+                }
+            }
+        }
+        Collections.sort(candidates, CANDIDATE_ORDER);
+        return toIds(candidates);
+    }
+
+    /**
+     * <p>
+     * Get the k nearest coordinates.
+     * </p>
+     *
+     * @param lat The latitude of the center.
+     * @param lng The longitude of the center.
+     * @param k The number of coordinates to retrieve, greater zero.
+     * @return The IDs of the at most k nearest coordinates, ordered by distance (closest first).
+     */
+    public int[] findNearest(double lat, double lng, int k) {
+        Validate.isTrue(k > 0, "k must be greater zero");
+        List<Candidate> result = new ArrayList<>();
+        if (numItems > 0) {
+            // best first search; as the distances of nodes are lower bounds, items are dequeued in order
+            PriorityQueue<Candidate> queue = new PriorityQueue<>(64, CANDIDATE_ORDER);
+            queue.add(new Candidate(getRoot(), 0));
+            while (!queue.isEmpty() && result.size() < k) {
+                Candidate candidate = queue.poll();
+                if (candidate.node < numItems) {
+                    result.add(candidate);
+                } else {
+                    for (int child = firstChildren[candidate.node]; child < endChildren[candidate.node]; child++) {
+                        queue.add(new Candidate(child, minDistance(lat, lng, child)));
+                    }
+                }
+            }
+        }
+        return toIds(result);
+    }
+
+    private int[] toIds(List<Candidate> candidates) {
+        int[] result = new int[candidates.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids[candidates.get(i).node];
+        }
+        return result;
+    }
+
+    /**
+     * Calculate a lower bound for the approximate distance between the given coordinate and any coordinate within the
+     * node's box; for items, this is the distance itself.
+     */
+    private double minDistance(double lat, double lng, int node) {
+        double minLat = boxes[4 * node];
+        double minLng = boxes[4 * node + 1];
+        double maxLat = boxes[4 * node + 2];
+        double maxLng = boxes[4 * node + 3];
+        if (node < numItems) {
+            double deltaLng = GeoUtils.normalizeLongitude(minLng - lng);
+            return GeoUtils.approximateDistance(lat, lng, minLat, lng + deltaLng);
+        }
+        double deltaLat = max(0, max(minLat - lat, lat - maxLat));
+        double deltaLng = 0;
+        if (lng < minLng || lng > maxLng) {
+            deltaLng = min(abs(GeoUtils.normalizeLongitude(minLng - lng)),
+                    abs(GeoUtils.normalizeLongitude(maxLng - lng)));
+        }
+        // the approximation scales the longitude by the cosine of the mean latitude, which is smallest at the edges
+        double minCos = min(cos(toRadians((lat + minLat) / 2)), cos(toRadians((lat + maxLat) / 2)));
+        double x = toRadians(deltaLng) * minCos;
+        double y = toRadians(deltaLat);
+        return sqrt(x * x + y * y) * GeoUtils.EARTH_RADIUS_KM;
+    }
+
+    /**
+     * @return The number of coordinates in this index.
+     */
+    public int size() {
+        return numItems;
+    }
+
+    @Override
+    public String toString() {
+        return "SpatialIndex [size=" + numItems + ", numNodes=" + firstChildren.length + "]";
+    }
+
+}
@@ -0,0 +1,178 @@
+package ws.palladian.helper.io;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * <p>
+ * Read-only, memory-mapped view on a region of a file, which is addressed through <code>long</code> offsets. Java's NIO
+ * only allows to map up to 2 GB into one {@link MappedByteBuffer}, therefore this class maps the region in chunks of
+ * {@value #CHUNK_SIZE} bytes and translates the offsets. Values which straddle a chunk boundary are assembled byte by
+ * byte. All values are read in {@link ByteOrder#BIG_ENDIAN} order.
+ *
+ * <p>
+ * Instances are safe for concurrent reads, as only absolute get methods are used, which do not modify the buffers'
+ * positions. Because the data is accessed through the operating system's page cache, several JVMs which map the same
+ * file share the same physical memory.
+ *
+ * @author Philipp Katz
+ */
+public final class LargeMappedBuffer {
+
+    /** The size of one mapped chunk, 1 GB. */
+    static final int CHUNK_SIZE = 1 << 30;
+
+    private static final int CHUNK_SHIFT = 30;
+
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final MappedByteBuffer[] chunks;
+
+    private final long size;
+
+    /**
+     * Map a region of a file. The channel can be closed after mapping, the mapping stays valid until the buffer is
+     * garbage collected.
+     *
+     * @param channel The file channel, not <code>null</code>.
+     * @param offset The offset in the file where the region starts, greater/equal zero.
+     * @param size The size of the region in bytes, greater/equal zero.
+     * @return The mapped buffer.
+     * @throws IOException In case mapping fails.
+     */
+    public static LargeMappedBuffer map(FileChannel channel, long offset, long size) throws IOException {
+        Validate.notNull(channel, "channel must not be null");
+        Validate.isTrue(offset >= 0, "offset must be greater/equal zero");
+        Validate.isTrue(size >= 0, "size must be greater/equal zero");
+        Validate.isTrue(offset + size <= channel.size(), "region exceeds file size");
+        int numChunks = (int)((size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+        MappedByteBuffer[] chunks = new MappedByteBuffer[numChunks];
+        for (int i = 0; i < numChunks; i++) {
+            long chunkOffset = (long)i << CHUNK_SHIFT;
+            long chunkSize = Math.min(CHUNK_SIZE, size - chunkOffset);
+            chunks[i] = channel.map(READ_ONLY, offset + chunkOffset, chunkSize);
+            chunks[i].order(ByteOrder.BIG_ENDIAN);
+        }
+        return new LargeMappedBuffer(chunks, size);
+    }
+
+    private LargeMappedBuffer(MappedByteBuffer[] chunks, long size) {
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    /**
+     * @return The size of the mapped region in bytes.
+     */
+    public long size() {
+        return size;
+    }
+
+    public byte get(long index) {
+        return chunks[(int)(index >>> CHUNK_SHIFT)].get((int)(index & CHUNK_MASK));
+    }
+
+    public short getShort(long index) {
+        int position = (int)(index & CHUNK_MASK);
+        if (position <= CHUNK_SIZE - 2) {
+            return chunks[(int)(index >>> CHUNK_SHIFT)].getShort(position);
+        }
+        return (short)((get(index) & 0xff) << 8 | get(index + 1) & 0xff);
+    }
+
+    public int getInt(long index) {
+        int position = (int)(index & CHUNK_MASK);
+        if (position <= CHUNK_SIZE - 4) {
+            return chunks[(int)(index >>> CHUNK_SHIFT)].getInt(position);
+        }
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = value << 8 | get(index + i) & 0xff;
+        }
+        return value;
+    }
+
+    public long getLong(long index) {
+        int position = (int)(index & CHUNK_MASK);
+        if (position <= CHUNK_SIZE - 8) {
+            return chunks[(int)(index >>> CHUNK_SHIFT)].getLong(position);
+        }
+        return (long)getInt(index) << 32 | getInt(index + 4) & 0xffffffffL;
+    }
+
+    public float getFloat(long index) {
+        return Float.intBitsToFloat(getInt(index));
+    }
+
+    public double getDouble(long index) {
+        return Double.longBitsToDouble(getLong(index));
+    }
+
+    /**
+     * Copy bytes from the buffer into the given array.
+     *
+     * @param index The start index in this buffer.
+     * @param destination The destination array, not <code>null</code>.
+     * @param offset The offset in the destination array.
+     * @param length The number of bytes to copy.
+     */
+    public void get(long index, byte[] destination, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            destination[offset + i] = get(index + i);
+        }
+    }
+
+    /**
+     * Copy floats from the buffer into the given array.
+     *
+     * @param index The start index (in bytes) in this buffer.
+     * @param destination The destination array, not <code>null</code>.
+     * @param offset The offset in the destination array.
+     * @param length The number of floats to copy.
+     */
+    public void getFloats(long index, float[] destination, int offset, int length) {
+        int position = (int)(index & CHUNK_MASK);
+        if ((long)position + 4L * length <= CHUNK_SIZE) {
+            MappedByteBuffer chunk = chunks[(int)(index >>> CHUNK_SHIFT)];
+            for (int i = 0; i < length; i++) {
+                destination[offset + i] = chunk.getFloat(position + 4 * i);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                destination[offset + i] = getFloat(index + 4L * i);
+            }
+        }
+    }
+
+    /**
+     * Compare the given bytes lexicographically (unsigned) with a byte sequence in this buffer.
+     *
+     * @param index The start index of the sequence in this buffer.
+     * @param length The length of the sequence in this buffer.
+     * @param other The bytes to compare, not <code>null</code>.
+     * @return A negative value, zero, or a positive value, in case the sequence in this buffer is smaller, equal, or
+     *         greater than the given bytes.
+     */
+    public int compare(long index, int length, byte[] other) {
+        int minLength = Math.min(length, other.length);
+        for (int i = 0; i < minLength; i++) {
+            int result = (get(index + i) & 0xff) - (other[i] & 0xff);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return length - other.length;
+    }
+
+    @Override
+    public String toString() {
+        return "LargeMappedBuffer [size=" + size + ", #chunks=" + chunks.length + "]";
+    }
+
+}
@@ -8,7 +8,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
+import org.apache.commons.lang3.Validate;
+
 import ws.palladian.helper.collection.CountMatrix;
+import ws.palladian.helper.collection.CountMatrix.IntegerMatrixVector;
+import ws.palladian.helper.collection.Vector.VectorEntry;
 
 /**
  * <p>
@@ -57,6 +61,23 @@ public class ConfusionMatrix {
         confusionMatrix.add(predictedCategory, realCategory, count);
     }
 
+    /**
+     * <p>
+     * Add all classification results from another confusion matrix to this confusion matrix, e.g. to merge the
+     * results of the individual folds of a cross validation.
+     * </p>
+     *
+     * @param other The other confusion matrix, not <code>null</code>.
+     */
+    public void add(ConfusionMatrix other) {
+        Validate.notNull(other, "other must not be null");
+        for (IntegerMatrixVector<String> row : other.confusionMatrix.rows()) {
+            for (VectorEntry<String, Integer> entry : row) {
+                confusionMatrix.add(entry.key(), row.key(), entry.value());
+            }
+        }
+    }
+
     /**
      * <p>
      * Get the accuracy which is defined as <code>accuracy = |correctlyClassified| / |totalDocuments|</code>.
@@ -100,6 +100,45 @@ public class SlimStats extends AbstractStats {
         return this;
     }
 
+    /**
+     * <p>
+     * Merge the values of another {@link SlimStats} into this instance (using the pairwise update by Chan et al.). This
+     * allows to accumulate partial stats, e.g. in different threads, and combine them at the end. The result is equal
+     * to adding all values to one instance, except for floating point rounding.
+     * </p>
+     *
+     * @param other The stats to merge into this instance, not <code>null</code>.
+     * @return This instance, to allow method chaining.
+     */
+    public SlimStats merge(SlimStats other) {
+        Validate.notNull(other, "other must not be null");
+        if (other.count == 0) {
+            return this;
+        }
+        if (count == 0) {
+            count = other.count;
+            mean = other.mean;
+            min = other.min;
+            max = other.max;
+            sum = other.sum;
+            m = other.m;
+            s = other.s;
+            mse = other.mse;
+            return this;
+        }
+        int newCount = count + other.count;
+        double delta = other.m - m;
+        m += delta * other.count / newCount;
+        s += other.s + delta * delta * ((double)count * other.count / newCount);
+        mean += (other.mean - mean) * other.count / newCount;
+        mse += (other.mse - mse) * other.count / newCount;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sum += other.sum;
+        count = newCount;
+        return this;
+    }
+
     @Override
     public double getMean() {
         return count == 0 ? Double.NaN : mean;
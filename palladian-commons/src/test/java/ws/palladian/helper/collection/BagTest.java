@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -67,6 +68,22 @@ public class BagTest {
         assertEquals(ELEMENT2, bag1.getMax().getKey());
     }
 
+    @Test
+    public void testMinMaxSnapshot() {
+        Entry<String, Integer> max = bag2.getMax();
+        Entry<String, Integer> min = bag2.getMin();
+        // modifications and rehashing must not affect the returned entries
+        for (int i = 0; i < 100; i++) {
+            bag2.add("element" + i);
+        }
+        bag2.removeAll(ELEMENT4);
+        assertEquals(ELEMENT4, max.getKey());
+        assertEquals(7, (int) max.getValue());
+        assertEquals(ELEMENT3, min.getKey());
+        assertEquals(1, (int) min.getValue());
+        assertEquals(null, new Bag<String>().getMax());
+    }
+
     @Test
     public void testIteratorIteration() {
         Iterator<String> iterator = bag1.iterator();
@@ -181,4 +198,24 @@ public class BagTest {
 		assertEquals(3, bag.size());
 	}
 
+    @Test
+    public void testMerge() {
+        bag1.merge(bag2);
+        assertEquals(8, bag1.count(ELEMENT1));
+        assertEquals(8, bag1.count(ELEMENT2));
+        assertEquals(3, bag1.count(ELEMENT3));
+        assertEquals(7, bag1.count(ELEMENT4));
+        assertEquals(26, bag1.size());
+    }
+
+    @Test
+    public void testGetTopK() {
+        List<Entry<String, Integer>> topK = bag2.getTopK(2);
+        assertEquals(2, topK.size());
+        assertEquals(ELEMENT4, topK.get(0).getKey());
+        assertEquals(7, (int)topK.get(0).getValue());
+        assertEquals(ELEMENT1, topK.get(1).getKey());
+        assertEquals(4, bag2.getTopK(10).size());
+    }
+
 }
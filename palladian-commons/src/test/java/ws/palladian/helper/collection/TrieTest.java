@@ -3,6 +3,15 @@ package ws.palladian.helper.collection;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
 import org.junit.Test;
 
 public class TrieTest {
@@ -32,4 +41,41 @@ public class TrieTest {
         trie.put(null, 1);
     }
 
+    @Test
+    public void testManyChildren() throws IOException, ClassNotFoundException {
+        Trie<Integer> trie = new Trie<Integer>();
+        for (char c = 'z'; c >= 'a'; c--) {
+            trie.put(String.valueOf(c), (int)c);
+            trie.put("x" + c, (int)c);
+        }
+        trie.put("\u4e2d\u6587", 1);
+        assertEquals(53, trie.size());
+        assertEquals((Integer)(int)'q', trie.get("q"));
+        assertEquals((Integer)(int)'b', trie.get(new StringBuilder("xb")));
+        assertEquals((Integer)1, trie.get("\u4e2d\u6587"));
+        assertNull(trie.get("xx1"));
+        assertNull(trie.get("\u4e2d"));
+
+        // iteration in lexicographic order
+        List<String> keys = new ArrayList<>();
+        for (Entry<String, Integer> entry : trie) {
+            keys.add(entry.getKey());
+        }
+        assertEquals("a", keys.get(0));
+        assertEquals("x", keys.get(23));
+        assertEquals("xa", keys.get(24));
+        assertEquals("\u4e2d\u6587", keys.get(52));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(trie);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            @SuppressWarnings("unchecked")
+            Trie<Integer> deserialized = (Trie<Integer>)in.readObject();
+            assertEquals(53, deserialized.size());
+            assertEquals((Integer)(int)'m', deserialized.get("xm"));
+        }
+    }
+
 }
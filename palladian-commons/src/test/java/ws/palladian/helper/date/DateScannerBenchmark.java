@@ -0,0 +1,48 @@
+package ws.palladian.helper.date;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import ws.palladian.helper.StopWatch;
+import ws.palladian.helper.constants.RegExp;
+import ws.palladian.helper.io.FileHelper;
+
+/**
+ * Compares {@link DateParser#findDates(String, ws.palladian.helper.constants.DateFormat...)} with the previous
+ * implementation, which applied each format's expression to the whole text. Pass a directory with (HTML) pages as
+ * argument.
+ *
+ * @author Philipp Katz
+ */
+class DateScannerBenchmark {
+
+    private static final int NUM_RUNS = 10;
+
+    public static void main(String[] args) {
+        List<String> texts = new ArrayList<>();
+        for (File file : FileHelper.getFiles(args[0])) {
+            texts.add(FileHelper.tryReadFileToString(file));
+        }
+        System.out.println("read " + texts.size() + " texts");
+
+        StopWatch stopWatch = new StopWatch();
+        int numDates = 0;
+        for (int i = 0; i < NUM_RUNS; i++) {
+            for (String text : texts) {
+                numDates += DateScannerTest.findDatesFullScan(text, RegExp.ALL_DATE_FORMATS).size();
+            }
+        }
+        System.out.println("full scan: " + stopWatch + " (" + numDates + " dates)");
+
+        stopWatch = new StopWatch();
+        numDates = 0;
+        for (int i = 0; i < NUM_RUNS; i++) {
+            for (String text : texts) {
+                numDates += DateParser.findDates(text, RegExp.ALL_DATE_FORMATS).size();
+            }
+        }
+        System.out.println("windowed scan: " + stopWatch + " (" + numDates + " dates)");
+    }
+
+}
@@ -0,0 +1,108 @@
+package ws.palladian.helper.date;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+import ws.palladian.helper.constants.DateFormat;
+import ws.palladian.helper.constants.RegExp;
+import ws.palladian.helper.io.FileHelper;
+import ws.palladian.helper.io.ResourceHelper;
+import ws.palladian.helper.nlp.StringHelper;
+
+public class DateScannerTest {
+
+    private static final String[] RESOURCES = { "longSampleText.txt", "wikipedia_2011_Egyptian_revolution.txt",
+            "removeHtmlTest.html", "w3c_xhtml_strict.html" };
+
+    private static final String SYNTHETIC_TEXT = "Posted on Wednesday, 17th September, 2008 at 10:33 PM GMT +1. "
+            + "Updated 2010-07-02T19:07:49.123+02:00, see also 7/23/2010 3:35:58 PM and the issue of July 23rd, 2010. "
+            + "Page 12 of 345, version 1.2.3, copyright 1999-2012, call 0351/123456 or visit us on 23. Juli 2010; "
+            + "the next meeting is on Tue, 20 Jul 2010 00:00:00 Z and the archive starts in 2005-W12-3, or 20100723.";
+
+    @Test
+    public void testGetWindows() {
+        assertArrayEquals(new int[0], DateScanner.getWindows("no digits here"));
+        String text = StringUtils.repeat('x', 100) + "1" + StringUtils.repeat('x', 100) + "2" + StringUtils.repeat('x', 20)
+                + "3";
+        int[] windows = DateScanner.getWindows(text);
+        int run = DateScanner.MAX_NON_DIGIT_RUN;
+        assertArrayEquals(new int[] { 100 - run, 101 + run, 201 - run, text.length() }, windows);
+    }
+
+    @Test
+    public void testFindDates() throws FileNotFoundException {
+        List<String> texts = new ArrayList<>();
+        texts.add(SYNTHETIC_TEXT);
+        for (String resource : RESOURCES) {
+            texts.add(FileHelper.tryReadFileToString(ResourceHelper.getResourceFile(resource)));
+        }
+        for (String text : texts) {
+            assertEquivalent(findDatesFullScan(text, RegExp.ALL_DATE_FORMATS),
+                    DateParser.findDates(text, RegExp.ALL_DATE_FORMATS));
+            for (DateFormat format : RegExp.ALL_DATE_FORMATS) {
+                assertEquivalent(findDatesFullScan(text, format), DateParser.findDates(text, format));
+            }
+        }
+        assertTrue(DateParser.findDates(SYNTHETIC_TEXT, RegExp.ALL_DATE_FORMATS).size() > 5);
+    }
+
+    private static void assertEquivalent(List<ExtractedDate> expected, List<ExtractedDate> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getDateString(), actual.get(i).getDateString());
+            assertEquals(expected.get(i).getFormat(), actual.get(i).getFormat());
+        }
+    }
+
+    /** The previous implementation of {@link DateParser#findDates(String, DateFormat...)} as reference. */
+    static List<ExtractedDate> findDatesFullScan(String text, DateFormat... formats) {
+        List<ExtractedDate> result = new ArrayList<>();
+        for (DateFormat format : formats) {
+            List<ExtractedDate> dates = findDatesFullScan(text, format);
+            for (ExtractedDate date : dates) {
+                String dateString = date.getDateString();
+                text = text.replaceFirst(dateString, StringUtils.repeat('x', dateString.length()));
+                result.add(date);
+            }
+        }
+        return result;
+    }
+
+    /** The previous implementation of {@link DateParser#findDates(String, DateFormat)} as reference. */
+    static List<ExtractedDate> findDatesFullScan(String text, DateFormat format) {
+        text = StringHelper.removeDoubleWhitespaces(text);
+        List<ExtractedDate> result = new ArrayList<>();
+        Matcher matcher = format.getPattern().matcher(text);
+        while (matcher.find()) {
+            boolean digitNeighbor = false;
+            int start = matcher.start();
+            if (start > 0 && text.charAt(start - 1) == '.') {
+                continue;
+            }
+            if (start > 0) {
+                digitNeighbor = Character.isDigit(text.charAt(start - 1));
+            }
+            int end = matcher.end();
+            if (end < text.length() && text.charAt(end - 1) != '/') {
+                digitNeighbor = Character.isDigit(text.charAt(end));
+            }
+            if (!digitNeighbor) {
+                ExtractedDate extractedDate = DateParser.parseDate(matcher.group(), format);
+                if (extractedDate != null) {
+                    result.add(extractedDate);
+                }
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,120 @@
+package ws.palladian.helper.geo;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SpatialIndexTest {
+
+    private static final int NUM_COORDINATES = 5000;
+
+    private static double[] lats;
+    private static double[] lngs;
+    private static SpatialIndex index;
+
+    @BeforeClass
+    public static void createIndex() {
+        Random random = new Random(123);
+        lats = new double[NUM_COORDINATES];
+        lngs = new double[NUM_COORDINATES];
+        SpatialIndex.Builder builder = new SpatialIndex.Builder();
+        for (int i = 0; i < NUM_COORDINATES; i++) {
+            lats[i] = 180 * random.nextDouble() - 90;
+            lngs[i] = 360 * random.nextDouble() - 180;
+            builder.add(i, lats[i], lngs[i]);
+        }
+        index = builder.create();
+    }
+
+    @Test
+    public void testFindInBox() {
+        assertEquals(NUM_COORDINATES, index.size());
+        assertArrayEquals(findInBoxFullScan(10, 20, 30, 40), sorted(index.findInBox(10, 20, 30, 40)));
+        assertArrayEquals(findInBoxFullScan(-90, -180, 90, 180), sorted(index.findInBox(-90, -180, 90, 180)));
+        // box spanning the antimeridian
+        assertArrayEquals(findInBoxFullScan(-10, 170, 10, -170), sorted(index.findInBox(-10, 170, 10, -170)));
+        assertEquals(0, index.findInBox(10, 20, 10, 20).length);
+    }
+
+    @Test
+    public void testFindWithin() {
+        double[][] centers = { { 52.52437, 13.41053 }, { -16.5, 179.9 }, { 89.5, 0 }, { 0, 0 } };
+        for (double[] center : centers) {
+            for (double distance : new double[] { 0, 100, 1000, 5000 }) {
+                int[] result = index.findWithin(center[0], center[1], distance);
+                assertArrayEquals(findWithinFullScan(center[0], center[1], distance), sorted(result));
+                assertOrdered(center[0], center[1], result);
+            }
+        }
+    }
+
+    @Test
+    public void testFindNearest() {
+        double[][] centers = { { 52.52437, 13.41053 }, { -16.5, -179.9 }, { -89, 45 } };
+        for (double[] center : centers) {
+            int[] result = index.findNearest(center[0], center[1], 10);
+            assertEquals(10, result.length);
+            assertOrdered(center[0], center[1], result);
+            // all other coordinates must be further away than the tenth
+            double maxDistance = distance(center[0], center[1], result[9]);
+            assertEquals(10, findWithinFullScan(center[0], center[1], maxDistance).length);
+        }
+        assertEquals(NUM_COORDINATES, index.findNearest(0, 0, 2 * NUM_COORDINATES).length);
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        SpatialIndex emptyIndex = new SpatialIndex.Builder().create();
+        assertEquals(0, emptyIndex.findInBox(-90, -180, 90, 180).length);
+        assertEquals(0, emptyIndex.findWithin(0, 0, 1000).length);
+        assertEquals(0, emptyIndex.findNearest(0, 0, 1).length);
+        SpatialIndex singleIndex = new SpatialIndex.Builder().add(7, 52.52437, 13.41053).create();
+        assertArrayEquals(new int[] { 7 }, singleIndex.findNearest(0, 0, 5));
+    }
+
+    private static int[] findInBoxFullScan(double lat1, double lng1, double lat2, double lng2) {
+        int[] result = new int[NUM_COORDINATES];
+        int size = 0;
+        for (int i = 0; i < NUM_COORDINATES; i++) {
+            boolean lngMatch = lng1 <= lng2 ? lng1 <= lngs[i] && lngs[i] <= lng2 : lng1 <= lngs[i] || lngs[i] <= lng2;
+            if (lat1 <= lats[i] && lats[i] <= lat2 && lngMatch) {
+                result[size++] = i;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static int[] findWithinFullScan(double lat, double lng, double distance) {
+        int[] result = new int[NUM_COORDINATES];
+        int size = 0;
+        for (int i = 0; i < NUM_COORDINATES; i++) {
+            if (distance(lat, lng, i) <= distance) {
+                result[size++] = i;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static double distance(double lat, double lng, int id) {
+        double deltaLng = GeoUtils.normalizeLongitude(lngs[id] - lng);
+        return GeoUtils.approximateDistance(lat, lng, lats[id], lng + deltaLng);
+    }
+
+    private static void assertOrdered(double lat, double lng, int[] ids) {
+        for (int i = 1; i < ids.length; i++) {
+            assertEquals(true, distance(lat, lng, ids[i - 1]) <= distance(lat, lng, ids[i]));
+        }
+    }
+
+    private static int[] sorted(int[] ids) {
+        int[] result = ids.clone();
+        Arrays.sort(result);
+        return result;
+    }
+
+}
@@ -173,6 +173,24 @@ public class ConfusionMatrixTest {
 		assertEquals(confusionMatrix.getMatthewsCorrelationCoefficient(), 0.2087, 0.0001);
 	}
 	
+	@Test
+	public void testAddConfusionMatrix() {
+		ConfusionMatrix confusionMatrix = new ConfusionMatrix();
+		confusionMatrix.add("true", "true", 37);
+		confusionMatrix.add("true", "false", 8);
+		ConfusionMatrix other = new ConfusionMatrix();
+		other.add("true", "true", 3);
+		other.add("false", "false", 15);
+		other.add("false", "true", 3);
+		confusionMatrix.add(other);
+		assertEquals(66, confusionMatrix.getTotalDocuments());
+		assertEquals(40, confusionMatrix.getConfusions("true", "true"));
+		assertEquals(8, confusionMatrix.getConfusions("true", "false"));
+		assertEquals(15, confusionMatrix.getConfusions("false", "false"));
+		assertEquals(3, confusionMatrix.getConfusions("false", "true"));
+		assertEquals(2, confusionMatrix.getCategories().size());
+	}
+
 	@Test
 	public void testCalculateMcc() {
 		int tp = 5363;
@@ -58,4 +58,21 @@ public class SlimStatsTest {
         assertEquals(10000, stats.getCount());
     }
 
+    @Test
+    public void testMerge() {
+        SlimStats stats1 = new SlimStats();
+        stats1.add(2., 1., 6.);
+        SlimStats stats2 = new SlimStats();
+        stats2.add(10., 23., 7.);
+        Stats stats = stats1.merge(stats2).merge(new SlimStats());
+        assertEquals(6, stats.getCount());
+        assertEquals(8.167, stats.getMean(), 0.001);
+        assertEquals(23, stats.getMax(), 0);
+        assertEquals(1, stats.getMin(), 0);
+        assertEquals(7.985, stats.getStandardDeviation(), 0.001);
+        assertEquals(119.833, stats.getMse(), 0.001);
+        assertEquals(49, stats.getSum(), 0.001);
+        assertEquals(8.167, new SlimStats().merge(stats1).getMean(), 0.001);
+    }
+
 }
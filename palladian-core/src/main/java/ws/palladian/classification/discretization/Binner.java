@@ -6,15 +6,16 @@ import static ws.palladian.helper.math.MathHelper.log2;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import ws.palladian.classification.text.CountingCategoryEntriesBuilder;
 import ws.palladian.core.CategoryEntries;
 import ws.palladian.core.Instance;
 import ws.palladian.core.value.AbstractValue;
@@ -75,19 +76,6 @@ public final class Binner implements Iterable<Binner.Interval> {
 
     }
     
-    private static final class ValueCategory implements Comparable<ValueCategory> {
-    	private final double value;
-    	private final String category;
-		ValueCategory(double value, String category) {
-			this.value = value;
-			this.category = category;
-		}
-		@Override
-		public int compareTo(ValueCategory o) {
-			return Double.compare(value, o.value);
-		}
-    }
-
     private final List<Double> boundaries;
 
     private final String featureName;
@@ -105,62 +93,74 @@ public final class Binner implements Iterable<Binner.Interval> {
     public Binner(Iterable<? extends Instance> dataset, String featureName) {
         Validate.notNull(dataset, "dataset must not be null");
         Validate.notEmpty(featureName, "featureName must not be empty");
-        List<ValueCategory> sortedData = new ArrayList<>();
-        
+        Map<String, Integer> categoryIds = new HashMap<>();
+        NumericColumn column = new NumericColumn();
         for (Instance instance : dataset) {
-        	Value value = instance.getVector().get(featureName);
-        	if (!value.isNull()) {
-        		double doubleValue = ((NumericValue) value).getDouble();
-        		sortedData.add(new ValueCategory(doubleValue, instance.getCategory()));
-        	}
+            Value value = instance.getVector().get(featureName);
+            if (!value.isNull()) {
+                double doubleValue = ((NumericValue) value).getDouble();
+                column.add(doubleValue, Discretization.getCategoryId(categoryIds, instance.getCategory()));
+            }
         }
-        
-        Collections.sort(sortedData);
-        this.boundaries = findBoundaries(sortedData, featureName);
+        column.sort();
+        this.boundaries = findBoundaries(column, 0, column.size(), categoryIds.size());
         this.featureName = featureName;
     }
 
     /**
-     * Find all the boundary points within the provided dataset.
+     * Create a new {@link Binner} from the collected values of a numeric feature.
      * 
-     * @param dataset The dataset, not <code>null</code>.
+     * @param featureName The name of the numeric feature.
+     * @param column The values and category ids of the feature, sorted.
+     * @param numCategories The number of distinct category ids.
+     */
+    Binner(String featureName, NumericColumn column, int numCategories) {
+        this.boundaries = findBoundaries(column, 0, column.size(), numCategories);
+        this.featureName = featureName;
+    }
+
+    /**
+     * Find all the boundary points within the provided range of the sorted data.
+     * 
+     * @param data The sorted data.
+     * @param start The start of the range, inclusive.
+     * @param end The end of the range, exclusive.
+     * @param numCategories The number of distinct category ids.
      * @return The values of the boundary points, each value denotes the beginning of a new bin, empty list in case no
      *         boundary points were found.
      */
-    private static List<Double> findBoundaries(List<ValueCategory> data, String featureName) {
+    private static List<Double> findBoundaries(NumericColumn data, int start, int end, int numCategories) {
 
-    	CountingCategoryEntriesBuilder categoryEntriesBuilder = new CountingCategoryEntriesBuilder();
-        for (ValueCategory valueCategory : data) {
-        	categoryEntriesBuilder.add(valueCategory.category, 1);
+        // the counts which are constantly updated during the split iterations
+        int[] counts1 = new int[numCategories];
+        int[] counts2 = new int[numCategories];
+        for (int i = start; i < end; i++) {
+            counts2[data.getCategory(i)]++;
         }
-        CategoryEntries categoryPriors = categoryEntriesBuilder.create();
-        double entS = categoryPriors.getEntropy();
-        int k = categoryPriors.size();
-        int n = data.size();
+        int n = end - start;
+        double entS = entropy(counts2, n);
+        int k = countNonZero(counts2);
 
         double maxGain = 0;
         double currentBoundary = 0;
         int boundaryIdx = -1;
 
-        // the counts which are constantly updated during the split iterations
-        CountingCategoryEntriesBuilder b1 = new CountingCategoryEntriesBuilder();
-        CountingCategoryEntriesBuilder b2 = new CountingCategoryEntriesBuilder().add(categoryPriors);
-
         for (int i = 1; i < n; i++) {
-            ValueCategory previousInstance = data.get(i - 1);
-            String previousCategory = previousInstance.category;
-            double previousValue = previousInstance.value;
-            double currentValue = data.get(i).value;
+            int previousCategory = data.getCategory(start + i - 1);
+            double previousValue = data.getValue(start + i - 1);
+            double currentValue = data.getValue(start + i);
 
-            CategoryEntries c1 = b1.add(previousCategory, 1).create();
-            CategoryEntries c2 = b2.subtract(previousCategory, 1).create();
+            counts1[previousCategory]++;
+            counts2[previousCategory]--;
 
             if (previousValue < currentValue) {
-                double entS1 = c1.getEntropy();
-                double entS2 = c2.getEntropy();
+                double entS1 = entropy(counts1, i);
+                double entS2 = entropy(counts2, n - i);
                 double ent = (double)i / n * entS1 + (double)(n - i) / n * entS2;
                 double gain = entS - ent;
-                double delta = log2(pow(3, k) - 2) - (k * entS - c1.size() * entS1 - c2.size() * entS2);
+                int k1 = countNonZero(counts1);
+                int k2 = countNonZero(counts2);
+                double delta = log2(pow(3, k) - 2) - (k * entS - k1 * entS1 - k2 * entS2);
                 boolean mdlpcCriterion = gain > (log2(n - 1) + delta) / n;
 
                 if (mdlpcCriterion && gain > maxGain) {
@@ -179,12 +179,34 @@ public final class Binner implements Iterable<Binner.Interval> {
 
         // search boundaries recursive; result: find[leftSplit], currentBoundary, find[rightSplit]
         List<Double> boundaries = new ArrayList<>();
-        boundaries.addAll(findBoundaries(data.subList(0, boundaryIdx), featureName));
+        boundaries.addAll(findBoundaries(data, start, start + boundaryIdx, numCategories));
         boundaries.add(currentBoundary);
-        boundaries.addAll(findBoundaries(data.subList(boundaryIdx, n), featureName));
+        boundaries.addAll(findBoundaries(data, start + boundaryIdx, end, numCategories));
         return boundaries;
     }
 
+    /** Calculate the entropy of the given category counts, like {@link CategoryEntries#getEntropy()}. */
+    private static double entropy(int[] counts, int totalCount) {
+        double entropy = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                double probability = (double)count / totalCount;
+                entropy -= probability * log2(probability);
+            }
+        }
+        return entropy;
+    }
+
+    private static int countNonZero(int[] counts) {
+        int nonZero = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                nonZero++;
+            }
+        }
+        return nonZero;
+    }
+
     /**
      * Get the bin index for the given value.
      * 
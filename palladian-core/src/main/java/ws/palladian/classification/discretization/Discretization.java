@@ -1,8 +1,13 @@
 package ws.palladian.classification.discretization;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
@@ -10,6 +15,7 @@ import org.slf4j.LoggerFactory;
 
 import ws.palladian.classification.discretization.Binner.Interval;
 import ws.palladian.core.FeatureVector;
+import ws.palladian.core.Instance;
 import ws.palladian.core.InstanceBuilder;
 import ws.palladian.core.dataset.AbstractDatasetFeatureVectorTransformer;
 import ws.palladian.core.dataset.Dataset;
@@ -45,19 +51,75 @@ public final class Discretization extends AbstractDatasetFeatureVectorTransforme
     	this(dataset, NoProgress.INSTANCE);
     }
     
+    /**
+     * Create a discretization for all numeric features in the given dataset. The values of all numeric features are
+     * collected in one pass over the dataset; the bins for the individual features are then calculated in parallel.
+     * 
+     * @param dataset The dataset, not <code>null</code>.
+     * @param progress The progress reporter, not <code>null</code>.
+     */
     public Discretization(Dataset dataset, ProgressReporter progress) {
     	Validate.notNull(dataset, "dataset must not be null");
     	Validate.notNull(progress, "progress must not be null");
-    	Set<String> numericFeatureNames = dataset.getFeatureInformation().getFeatureNamesOfType(NumericValue.class);
+    	final List<String> numericFeatureNames = new ArrayList<>(
+    			dataset.getFeatureInformation().getFeatureNamesOfType(NumericValue.class));
     	progress.startTask("Discretizing", numericFeatureNames.size());
-    	for (String featureName : numericFeatureNames) {
-    		LOGGER.debug("Discretizing {}", featureName);
-    		binners.put(featureName, new Binner(dataset, featureName));
-    		progress.increment();
+    	LOGGER.debug("Collecting values of {} features", numericFeatureNames.size());
+    	final NumericColumn[] columns = new NumericColumn[numericFeatureNames.size()];
+    	for (int i = 0; i < columns.length; i++) {
+    		columns[i] = new NumericColumn();
+    	}
+    	final Map<String, Integer> categoryIds = new HashMap<>();
+    	for (Instance instance : dataset) {
+    		int categoryId = getCategoryId(categoryIds, instance.getCategory());
+    		FeatureVector featureVector = instance.getVector();
+    		for (int i = 0; i < columns.length; i++) {
+    			Value value = featureVector.get(numericFeatureNames.get(i));
+    			if (!value.isNull()) {
+    				columns[i].add(((NumericValue) value).getDouble(), categoryId);
+    			}
+    		}
+    	}
+    	List<Callable<Binner>> tasks = new ArrayList<>();
+    	for (int i = 0; i < columns.length; i++) {
+    		final int index = i;
+    		tasks.add(new Callable<Binner>() {
+    			@Override
+    			public Binner call() {
+    				String featureName = numericFeatureNames.get(index);
+    				LOGGER.debug("Discretizing {}", featureName);
+    				NumericColumn column = columns[index];
+    				columns[index] = null; // release the values as soon as possible
+    				column.sort();
+    				return new Binner(featureName, column, categoryIds.size());
+    			}
+    		});
+    	}
+    	try {
+    		List<Future<Binner>> futures = ForkJoinPool.commonPool().invokeAll(tasks);
+    		for (int i = 0; i < futures.size(); i++) {
+    			binners.put(numericFeatureNames.get(i), futures.get(i).get());
+    			progress.increment();
+    		}
+    	} catch (InterruptedException e) {
+    		Thread.currentThread().interrupt();
+    		throw new IllegalStateException(e);
+    	} catch (ExecutionException e) {
+    		throw new IllegalStateException(e.getCause());
     	}
     	progress.finishTask();
     }
 
+    /** Get the integer id for the given category; new categories are assigned consecutive ids starting at zero. */
+    static int getCategoryId(Map<String, Integer> categoryIds, String category) {
+    	Integer categoryId = categoryIds.get(category);
+    	if (categoryId == null) {
+    		categoryId = categoryIds.size();
+    		categoryIds.put(category, categoryId);
+    	}
+    	return categoryId;
+    }
+
     @Override
 	public FeatureVector apply(FeatureVector featureVector) {
         Validate.notNull(featureVector, "featureVector must not be null");
@@ -0,0 +1,67 @@
+package ws.palladian.classification.discretization;
+
+import java.util.Arrays;
+
+/**
+ * The (non-null) values of one numeric feature together with the category ids of their instances, stored in primitive
+ * arrays, so that all numeric features of a dataset can be collected in one pass.
+ *
+ * @author Philipp Katz
+ */
+final class NumericColumn {
+
+    private double[] values = new double[16];
+
+    private int[] categories = new int[16];
+
+    private int size;
+
+    void add(double value, int category) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            categories = Arrays.copyOf(categories, size * 2);
+        }
+        values[size] = value;
+        categories[size] = category;
+        size++;
+    }
+
+    /**
+     * Sort the entries by value (following the order of {@link Double#compare(double, double)}), and equal values by
+     * category id.
+     */
+    void sort() {
+        double[] distinctValues = Arrays.copyOf(values, size);
+        Arrays.sort(distinctValues);
+        int numDistinct = 0;
+        for (int i = 0; i < distinctValues.length; i++) {
+            if (i == 0 || Double.compare(distinctValues[i - 1], distinctValues[i]) != 0) {
+                distinctValues[numDistinct++] = distinctValues[i];
+            }
+        }
+        // encode the rank of the value and the category into one key, which can be sorted primitively
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            long rank = Arrays.binarySearch(distinctValues, 0, numDistinct, values[i]);
+            keys[i] = rank << 32 | categories[i];
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < size; i++) {
+            values[i] = distinctValues[(int) (keys[i] >>> 32)];
+            categories[i] = (int) keys[i];
+        }
+    }
+
+    double getValue(int index) {
+        return values[index];
+    }
+
+    int getCategory(int index) {
+        return categories[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+}
@@ -0,0 +1,330 @@
+package ws.palladian.classification.dt;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import quickdt.Attributes;
+import quickdt.Branch;
+import quickdt.CategoricalBranch;
+import quickdt.HashMapAttributes;
+import quickdt.Leaf;
+import quickdt.Node;
+import quickdt.NumericBranch;
+import quickdt.PredictiveModel;
+import quickdt.Tree;
+import quickdt.randomForest.RandomForest;
+import ws.palladian.core.CategoryIndex;
+import ws.palladian.core.FeatureVector;
+import ws.palladian.core.value.NominalValue;
+import ws.palladian.core.value.NumericValue;
+import ws.palladian.core.value.Value;
+
+/**
+ * <p>
+ * A flattened representation of quickdt's {@link Tree}s and {@link RandomForest}s for fast classification. The nodes
+ * of all trees are stored in parallel arrays (feature index, threshold or category set, child indices), and the leaf
+ * probabilities for all categories are precomputed into one array. Feature vectors are converted into an array of
+ * values by {@link #encode(FeatureVector)} (nominal values are mapped to integers), so that walking the trees requires
+ * no map lookups or object allocations. The probabilities are equal to those calculated by the quickdt model.
+ * </p>
+ *
+ * @author Philipp Katz
+ */
+final class CompiledForest {
+
+    /** Type marker for values which are not present (or neither nominal nor numeric). */
+    private static final byte MISSING = 0;
+
+    private static final byte NUMERIC = 1;
+
+    private static final byte NOMINAL = 2;
+
+    /** Marker for a nominal value which does not occur in any of the trees. */
+    private static final int UNKNOWN_VALUE = -1;
+
+    /** Markers for the decisions of branches on missing values. */
+    private static final byte MISSING_FALSE = 0;
+
+    private static final byte MISSING_TRUE = 1;
+
+    private static final byte MISSING_DELEGATE = 2;
+
+    private final CategoryIndex categoryIndex;
+
+    /** The names of the features which are used by the trees. */
+    private final String[] featureNames;
+
+    /** For each feature, the integer ids of the nominal values which are used by the trees. */
+    private final List<Map<String, Integer>> nominalIds;
+
+    /** The node indices of the tree roots. */
+    private final int[] roots;
+
+    /** The feature index for branches, or <code>-1</code> for leaves. */
+    private final int[] features;
+
+    /** The threshold for numeric branches. */
+    private final double[] thresholds;
+
+    /** Whether numeric branches decide true for values equal to the threshold. */
+    private final boolean[] inclusive;
+
+    /** The contained nominal value ids for categorical branches, <code>null</code> otherwise. */
+    private final BitSet[] categorySets;
+
+    /** The decision in case the value for the branch's feature is missing, see {@link #decideMissing(Branch)}. */
+    private final byte[] missingDecisions;
+
+    /** The child index for branches; the offset in {@link #leafProbabilities} for leaves. */
+    private final int[] trueChildren;
+
+    private final int[] falseChildren;
+
+    /** The original branches, which are used for values with a type which does not match the branch. */
+    private final Branch[] branches;
+
+    private final double[] leafProbabilities;
+
+    /**
+     * <p>
+     * Compile the given model.
+     * </p>
+     *
+     * @param model The model, must be a {@link Tree} or {@link RandomForest}.
+     * @param categoryIndex The index of the categories.
+     * @return The compiled model, or <code>null</code> in case the type of the model is not supported.
+     */
+    static CompiledForest compile(PredictiveModel model, CategoryIndex categoryIndex) {
+        if (model instanceof Tree) {
+            return new CompiledForest(Collections.singletonList((Tree)model), categoryIndex);
+        } else if (model instanceof RandomForest) {
+            return new CompiledForest(((RandomForest)model).trees, categoryIndex);
+        }
+        return null;
+    }
+
+    private CompiledForest(List<Tree> trees, CategoryIndex categoryIndex) {
+        this.categoryIndex = categoryIndex;
+        Compiler compiler = new Compiler();
+        roots = new int[trees.size()];
+        for (int t = 0; t < trees.size(); t++) {
+            roots[t] = compiler.addNode(trees.get(t).node);
+        }
+        int numNodes = compiler.nodes.size();
+        featureNames = new String[compiler.featureIndices.size()];
+        for (Map.Entry<String, Integer> entry : compiler.featureIndices.entrySet()) {
+            featureNames[entry.getValue()] = entry.getKey();
+        }
+        nominalIds = compiler.nominalIds;
+        features = new int[numNodes];
+        thresholds = new double[numNodes];
+        inclusive = new boolean[numNodes];
+        categorySets = new BitSet[numNodes];
+        missingDecisions = new byte[numNodes];
+        trueChildren = new int[numNodes];
+        falseChildren = new int[numNodes];
+        branches = new Branch[numNodes];
+        List<Double> probabilities = new ArrayList<>();
+        for (int n = 0; n < numNodes; n++) {
+            Node node = compiler.nodes.get(n);
+            if (node instanceof Branch) {
+                Branch branch = (Branch)node;
+                int featureIdx = compiler.featureIndices.get(branch.attribute);
+                branches[n] = branch;
+                features[n] = featureIdx;
+                missingDecisions[n] = decideMissing(branch);
+                trueChildren[n] = compiler.nodeIndices.get(branch.trueChild);
+                falseChildren[n] = compiler.nodeIndices.get(branch.falseChild);
+                if (branch instanceof NumericBranch) {
+                    thresholds[n] = ((NumericBranch)branch).threshold;
+                    // determine how the branch treats values equal to the threshold
+                    inclusive[n] = branch.decide(HashMapAttributes.create(branch.attribute, thresholds[n]));
+                } else {
+                    BitSet categorySet = new BitSet();
+                    for (Serializable value : ((CategoricalBranch)branch).inSet) {
+                        if (value instanceof String) {
+                            categorySet.set(compiler.nominalIds.get(featureIdx).get(value));
+                        }
+                    }
+                    categorySets[n] = categorySet;
+                }
+            } else {
+                Leaf leaf = (Leaf)node;
+                features[n] = -1;
+                trueChildren[n] = probabilities.size();
+                for (String category : categoryIndex) {
+                    probabilities.add(leaf.getProbability(category));
+                }
+            }
+        }
+        leafProbabilities = new double[probabilities.size()];
+        for (int i = 0; i < leafProbabilities.length; i++) {
+            leafProbabilities[i] = probabilities.get(i);
+        }
+    }
+
+    /**
+     * Determine how a branch decides in case the value is missing.
+     * 
+     * @param branch The branch.
+     * @return {@link #MISSING_TRUE} or {@link #MISSING_FALSE}, or {@link #MISSING_DELEGATE} in case the branch does
+     *         not support missing values (in this case, the branch is invoked during classification, so that we give
+     *         the same error).
+     */
+    private static byte decideMissing(Branch branch) {
+        try {
+            return branch.decide(HashMapAttributes.create()) ? MISSING_TRUE : MISSING_FALSE;
+        } catch (RuntimeException e) {
+            return MISSING_DELEGATE;
+        }
+    }
+
+    /** Assigns indices to the nodes, features and nominal values during compilation. */
+    private static final class Compiler {
+        final List<Node> nodes = new ArrayList<>();
+        final Map<Node, Integer> nodeIndices = new IdentityHashMap<>();
+        final Map<String, Integer> featureIndices = new HashMap<>();
+        final List<Map<String, Integer>> nominalIds = new ArrayList<>();
+
+        int addNode(Node node) {
+            // iteratively in pre-order, as the trees might be deep
+            List<Node> stack = new ArrayList<>();
+            stack.add(node);
+            while (!stack.isEmpty()) {
+                Node current = stack.remove(stack.size() - 1);
+                nodeIndices.put(current, nodes.size());
+                nodes.add(current);
+                if (current instanceof Branch) {
+                    Branch branch = (Branch)current;
+                    Integer featureIdx = featureIndices.get(branch.attribute);
+                    if (featureIdx == null) {
+                        featureIdx = featureIndices.size();
+                        featureIndices.put(branch.attribute, featureIdx);
+                        nominalIds.add(new HashMap<String, Integer>());
+                    }
+                    if (branch instanceof CategoricalBranch) {
+                        Map<String, Integer> ids = nominalIds.get(featureIdx);
+                        for (Serializable value : ((CategoricalBranch)branch).inSet) {
+                            if (value instanceof String && !ids.containsKey(value)) {
+                                ids.put((String)value, ids.size());
+                            }
+                        }
+                    }
+                    stack.add(branch.falseChild);
+                    stack.add(branch.trueChild);
+                }
+            }
+            return nodeIndices.get(node);
+        }
+    }
+
+    /**
+     * An encoded feature vector; contains the values of the features used by the trees, indexed like
+     * {@link CompiledForest#featureNames}.
+     */
+    static final class EncodedVector {
+        final FeatureVector featureVector;
+        final byte[] types;
+        /** Numeric values, or the ids of nominal values. */
+        final double[] values;
+        /** The vector in quickdt's format, created on demand for type mismatches. */
+        Attributes attributes;
+
+        EncodedVector(FeatureVector featureVector, int numFeatures) {
+            this.featureVector = featureVector;
+            this.types = new byte[numFeatures];
+            this.values = new double[numFeatures];
+        }
+
+        Attributes getAttributes() {
+            if (attributes == null) {
+                attributes = HashMapAttributes.create(QuickDtLearner.getInput(featureVector));
+            }
+            return attributes;
+        }
+    }
+
+    /**
+     * <p>
+     * Convert a feature vector into the array representation used by the trees.
+     * </p>
+     *
+     * @param featureVector The feature vector.
+     * @return The encoded feature vector.
+     */
+    EncodedVector encode(FeatureVector featureVector) {
+        EncodedVector encoded = new EncodedVector(featureVector, featureNames.length);
+        for (int f = 0; f < featureNames.length; f++) {
+            Value value = featureVector.get(featureNames[f]);
+            if (value instanceof NumericValue) {
+                encoded.types[f] = NUMERIC;
+                encoded.values[f] = ((NumericValue)value).getDouble();
+            } else if (value instanceof NominalValue) {
+                Integer id = nominalIds.get(f).get(((NominalValue)value).getString());
+                encoded.types[f] = NOMINAL;
+                encoded.values[f] = id != null ? id : UNKNOWN_VALUE;
+            }
+        }
+        return encoded;
+    }
+
+    /**
+     * <p>
+     * Calculate the probabilities for all categories; for random forests, this is the average over all trees.
+     * </p>
+     *
+     * @param featureVector The feature vector to classify.
+     * @return The probabilities, by category index.
+     */
+    double[] getProbabilities(FeatureVector featureVector) {
+        EncodedVector encoded = encode(featureVector);
+        int numCategories = categoryIndex.size();
+        double[] probabilities = new double[numCategories];
+        for (int root : roots) {
+            int leafOffset = getLeaf(root, encoded);
+            for (int c = 0; c < numCategories; c++) {
+                probabilities[c] += leafProbabilities[leafOffset + c];
+            }
+        }
+        if (roots.length > 1) {
+            for (int c = 0; c < numCategories; c++) {
+                probabilities[c] /= roots.length;
+            }
+        }
+        return probabilities;
+    }
+
+    /** @return The offset of the leaf probabilities in {@link #leafProbabilities}. */
+    private int getLeaf(int node, EncodedVector encoded) {
+        while (features[node] >= 0) {
+            node = decide(node, encoded) ? trueChildren[node] : falseChildren[node];
+        }
+        return trueChildren[node];
+    }
+
+    private boolean decide(int node, EncodedVector encoded) {
+        int featureIdx = features[node];
+        byte type = encoded.types[featureIdx];
+        if (type == MISSING && missingDecisions[node] != MISSING_DELEGATE) {
+            return missingDecisions[node] == MISSING_TRUE;
+        }
+        BitSet categorySet = categorySets[node];
+        if (categorySet == null && type == NUMERIC) {
+            double value = encoded.values[featureIdx];
+            return inclusive[node] ? value >= thresholds[node] : value > thresholds[node];
+        }
+        if (categorySet != null && type == NOMINAL) {
+            int id = (int)encoded.values[featureIdx];
+            return id != UNKNOWN_VALUE && categorySet.get(id);
+        }
+        // type does not match the branch (or the value is missing), let quickdt decide
+        return branches[node].decide(encoded.getAttributes());
+    }
+
+}
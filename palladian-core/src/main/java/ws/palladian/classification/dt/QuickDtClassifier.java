@@ -4,9 +4,10 @@ import quickdt.Attributes;
 import quickdt.HashMapAttributes;
 import quickdt.PredictiveModel;
 import ws.palladian.core.CategoryEntries;
-import ws.palladian.core.CategoryEntriesBuilder;
+import ws.palladian.core.CategoryIndex;
 import ws.palladian.core.Classifier;
 import ws.palladian.core.FeatureVector;
+import ws.palladian.core.IndexedCategoryEntriesBuilder;
 
 /**
  * <p>
@@ -19,11 +20,20 @@ public class QuickDtClassifier implements Classifier<QuickDtModel> {
 
     @Override
     public CategoryEntries classify(FeatureVector featureVector, QuickDtModel model) {
+        CategoryIndex categoryIndex = model.getCategoryIndex();
+        IndexedCategoryEntriesBuilder builder = new IndexedCategoryEntriesBuilder(categoryIndex);
+        CompiledForest compiledForest = model.getCompiledForest();
+        if (compiledForest != null) {
+            double[] probabilities = compiledForest.getProbabilities(featureVector);
+            for (int categoryIdx = 0; categoryIdx < probabilities.length; categoryIdx++) {
+                builder.set(categoryIdx, probabilities[categoryIdx]);
+            }
+            return builder.create();
+        }
         PredictiveModel pm = model.getModel();
         Attributes attributes = HashMapAttributes.create(QuickDtLearner.getInput(featureVector));
-        CategoryEntriesBuilder builder = new CategoryEntriesBuilder();
-        for (String targetClass : model.getCategories()) {
-            builder.set(targetClass, pm.getProbability(attributes, targetClass));
+        for (int categoryIdx = 0; categoryIdx < categoryIndex.size(); categoryIdx++) {
+            builder.set(categoryIdx, pm.getProbability(attributes, categoryIndex.getName(categoryIdx)));
         }
         return builder.create();
     }
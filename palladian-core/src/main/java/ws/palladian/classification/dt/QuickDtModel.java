@@ -9,6 +9,7 @@ import org.apache.commons.lang3.StringUtils;
 import quickdt.PredictiveModel;
 import quickdt.Tree;
 import quickdt.randomForest.RandomForest;
+import ws.palladian.core.CategoryIndex;
 import ws.palladian.core.Model;
 
 /**
@@ -26,6 +27,12 @@ public class QuickDtModel implements Model {
 
     private final Set<String> classes;
 
+    /** Cached index of the categories; not serialized to stay compatible to existing models. */
+    private transient CategoryIndex categoryIndex;
+
+    /** Cached flattened form of the trees; not serialized to stay compatible to existing models. */
+    private transient volatile CompiledForest compiledForest;
+
     /** Package visibility, as it is to be instantiated by the QuickDtClassifier only. */
     QuickDtModel(PredictiveModel tree, Set<String> classes) {
         this.model = tree;
@@ -41,6 +48,29 @@ public class QuickDtModel implements Model {
         return classes;
     }
 
+    /**
+     * @return The index of the trained categories.
+     */
+    public CategoryIndex getCategoryIndex() {
+        if (categoryIndex == null) {
+            categoryIndex = new CategoryIndex(classes);
+        }
+        return categoryIndex;
+    }
+
+    /**
+     * @return The flattened form of the trees for fast classification, or <code>null</code> in case the type of the
+     *         predictive model is not supported.
+     */
+    CompiledForest getCompiledForest() {
+        CompiledForest compiledForest = this.compiledForest;
+        if (compiledForest == null) {
+            compiledForest = CompiledForest.compile(model, getCategoryIndex());
+            this.compiledForest = compiledForest;
+        }
+        return compiledForest;
+    }
+
     @Override
     public String toString() {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
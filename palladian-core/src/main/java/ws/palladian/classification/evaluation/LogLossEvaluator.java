@@ -1,5 +1,8 @@
 package ws.palladian.classification.evaluation;
 
+import org.apache.commons.lang3.tuple.Pair;
+
+import ws.palladian.classification.utils.ClassificationUtils;
 import ws.palladian.core.CategoryEntries;
 import ws.palladian.core.Classifier;
 import ws.palladian.core.Instance;
@@ -18,8 +21,9 @@ public class LogLossEvaluator extends AbstractClassificationEvaluator<Double> {
 		int n = 0;
 		double sum = 0;
 
-		for (Instance instance : data) {
-			CategoryEntries result = classifier.classify(instance.getVector(), model);
+		for (Pair<Instance, CategoryEntries> classified : ClassificationUtils.classify(classifier, model, data)) {
+			Instance instance = classified.getLeft();
+			CategoryEntries result = classified.getRight();
 			boolean actual = instance.getCategory().equals(TRUE_CLASS);
 			double predicted = result.getProbability(TRUE_CLASS);
 			sum += logLoss(actual, predicted);
@@ -0,0 +1,275 @@
+package ws.palladian.classification.evaluation;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ws.palladian.core.Classifier;
+import ws.palladian.core.Instance;
+import ws.palladian.core.Learner;
+import ws.palladian.core.Model;
+import ws.palladian.core.dataset.ColumnarDataset;
+import ws.palladian.core.dataset.Dataset;
+import ws.palladian.helper.collection.AbstractIterator2;
+import ws.palladian.helper.functional.Factory;
+import ws.palladian.helper.math.ConfusionMatrix;
+
+/**
+ * <p>
+ * A cross validator which materializes the dataset once into a {@link ColumnarDataset} and stores the fold
+ * assignments in an array, so that the folds are cheap views and the underlying data (e.g. a CSV file) is not
+ * re-read for every fold. In addition to iterating the folds sequentially, the folds can be trained and evaluated
+ * concurrently using
+ * {@link #evaluate(Factory, Factory, ClassificationEvaluator, ExecutorService)}. As the folds are independent, a
+ * cross validation on a machine with at least as many cores as folds takes roughly the time of a single fold.
+ * </p>
+ *
+ * @author Philipp Katz
+ */
+public class ParallelCrossValidator implements CrossValidator {
+
+	/** The logger for this class. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(ParallelCrossValidator.class);
+
+	private final class FoldImplementation implements Fold {
+		private final int fold;
+		FoldImplementation(int fold) {
+			this.fold = fold;
+		}
+		@Override
+		public Dataset getTrain() {
+			return dataset.subset(new FoldFilterFactory(fold, false));
+		}
+		@Override
+		public Dataset getTest() {
+			return dataset.subset(new FoldFilterFactory(fold, true));
+		}
+		@Override
+		public int getFold() {
+			return fold;
+		}
+		@Override
+		public String toString() {
+			return "Fold " + fold;
+		}
+	}
+
+	/**
+	 * Index-based filter which accepts items based on the pre-calculated
+	 * foldAssigments array; the {@link ColumnarDataset} evaluates it exactly
+	 * once per instance in order.
+	 */
+	private final class FoldFilterFactory implements Factory<Predicate<Instance>> {
+		private final int fold;
+		private final boolean test;
+		FoldFilterFactory(int fold, boolean test) {
+			this.fold = fold;
+			this.test = test;
+		}
+		@Override
+		public Predicate<Instance> create() {
+			return new Predicate<Instance>() {
+				int currentIndex;
+				@Override
+				public boolean test(Instance instance) {
+					return (foldAssignments[currentIndex++] == fold) == test;
+				}
+			};
+		}
+	}
+
+	private final Dataset dataset;
+
+	private final int numFolds;
+
+	private final int[] foldAssignments;
+
+	/**
+	 * Create a cross validator which randomly assigns the instances to folds of
+	 * (almost) equal size.
+	 *
+	 * @param dataset
+	 *            The dataset, not <code>null</code>.
+	 * @param numFolds
+	 *            The number of folds, at least two.
+	 * @param random
+	 *            The random generator for assigning the folds, not
+	 *            <code>null</code>.
+	 */
+	public ParallelCrossValidator(Dataset dataset, int numFolds, Random random) {
+		Objects.requireNonNull(dataset, "dataset must not be null");
+		Objects.requireNonNull(random, "random must not be null");
+		Validate.isTrue(numFolds >= 2, "numFolds must be at least 2");
+		this.dataset = new ColumnarDataset(dataset);
+		this.numFolds = numFolds;
+		this.foldAssignments = new int[(int) this.dataset.size()];
+		for (int i = 0; i < foldAssignments.length; i++) {
+			foldAssignments[i] = i % numFolds;
+		}
+		for (int i = foldAssignments.length - 1; i > 0; i--) {
+			int index = random.nextInt(i + 1);
+			int item = foldAssignments[index];
+			foldAssignments[index] = foldAssignments[i];
+			foldAssignments[i] = item;
+		}
+	}
+
+	/**
+	 * Create a cross validator which randomly assigns the instances to folds of
+	 * (almost) equal size.
+	 *
+	 * @param dataset
+	 *            The dataset, not <code>null</code>.
+	 * @param numFolds
+	 *            The number of folds, at least two.
+	 */
+	public ParallelCrossValidator(Dataset dataset, int numFolds) {
+		this(dataset, numFolds, new Random());
+	}
+
+	/**
+	 * Create a cross validator which assigns the instances to folds based on an
+	 * ID value, like the {@link IdBasedCrossValidator}. The ID value has to
+	 * contain an integer number; the fold is the modulus.
+	 *
+	 * @param dataset
+	 *            The dataset, not <code>null</code>.
+	 * @param numFolds
+	 *            The number of folds, at least two.
+	 * @param idValueName
+	 *            The name of the value which contains the identifier used for
+	 *            splitting, not <code>null</code>.
+	 */
+	public ParallelCrossValidator(Dataset dataset, int numFolds, final String idValueName) {
+		Objects.requireNonNull(dataset, "dataset must not be null");
+		Objects.requireNonNull(idValueName, "idValueName must not be null");
+		Validate.isTrue(numFolds >= 2, "numFolds must be at least 2");
+		this.dataset = new ColumnarDataset(dataset);
+		this.numFolds = numFolds;
+		this.foldAssignments = new int[(int) this.dataset.size()];
+		Dataset idDataset = this.dataset.filterFeatures(new Predicate<String>() {
+			@Override
+			public boolean test(String name) {
+				return name.equals(idValueName);
+			}
+		});
+		int index = 0;
+		for (Instance instance : idDataset) {
+			String id = instance.getVector().get(idValueName).toString();
+			foldAssignments[index++] = Integer.parseInt(id) % numFolds;
+		}
+	}
+
+	@Override
+	public Iterator<Fold> iterator() {
+		return new AbstractIterator2<Fold>() {
+			int fold = 0;
+			@Override
+			protected Fold getNext() {
+				if (fold < numFolds) {
+					return new FoldImplementation(fold++);
+				}
+				return finished();
+			}
+		};
+	}
+
+	@Override
+	public int getNumFolds() {
+		return numFolds;
+	}
+
+	/**
+	 * Train and evaluate all folds concurrently.
+	 *
+	 * @param learnerFactory
+	 *            The factory for the learners; a new learner is created for
+	 *            each fold, not <code>null</code>.
+	 * @param classifierFactory
+	 *            The factory for the classifiers; a new classifier is created
+	 *            for each fold, not <code>null</code>.
+	 * @param evaluator
+	 *            The evaluator, which is shared among all folds and must
+	 *            therefore be thread safe, not <code>null</code>.
+	 * @param executor
+	 *            The executor for running the folds, not <code>null</code>.
+	 *            It is not shut down by this method.
+	 * @return The evaluation results, in the order of the folds.
+	 */
+	public <M extends Model, R> List<R> evaluate(final Factory<? extends Learner<M>> learnerFactory,
+			final Factory<? extends Classifier<M>> classifierFactory, final ClassificationEvaluator<R> evaluator,
+			ExecutorService executor) {
+		Objects.requireNonNull(learnerFactory, "learnerFactory must not be null");
+		Objects.requireNonNull(classifierFactory, "classifierFactory must not be null");
+		Objects.requireNonNull(evaluator, "evaluator must not be null");
+		Objects.requireNonNull(executor, "executor must not be null");
+		List<Callable<R>> runs = new ArrayList<>();
+		for (final Fold fold : this) {
+			runs.add(new Callable<R>() {
+				@Override
+				public R call() {
+					long start = System.currentTimeMillis();
+					R result = evaluator.evaluate(learnerFactory.create(), classifierFactory.create(), fold.getTrain(),
+							fold.getTest());
+					LOGGER.debug("Finished {} in {} ms", fold, System.currentTimeMillis() - start);
+					return result;
+				}
+			});
+		}
+		List<R> results = new ArrayList<>();
+		try {
+			for (Future<R> future : executor.invokeAll(runs)) {
+				results.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+		return results;
+	}
+
+	/**
+	 * Train and evaluate all folds concurrently and merge the results into one
+	 * {@link ConfusionMatrix}.
+	 *
+	 * @param learnerFactory
+	 *            The factory for the learners; a new learner is created for
+	 *            each fold, not <code>null</code>.
+	 * @param classifierFactory
+	 *            The factory for the classifiers; a new classifier is created
+	 *            for each fold, not <code>null</code>.
+	 * @param numThreads
+	 *            The number of threads, greater zero.
+	 * @return The confusion matrix with the results of all folds.
+	 */
+	public <M extends Model> ConfusionMatrix evaluate(Factory<? extends Learner<M>> learnerFactory,
+			Factory<? extends Classifier<M>> classifierFactory, int numThreads) {
+		Validate.isTrue(numThreads > 0, "numThreads must be greater zero");
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		try {
+			ConfusionMatrix confusionMatrix = new ConfusionMatrix();
+			for (ConfusionMatrix foldResult : evaluate(learnerFactory, classifierFactory, new ConfusionMatrixEvaluator(),
+					executor)) {
+				confusionMatrix.add(foldResult);
+			}
+			return confusionMatrix;
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
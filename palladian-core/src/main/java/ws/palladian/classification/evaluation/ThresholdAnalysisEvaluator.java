@@ -1,7 +1,9 @@
 package ws.palladian.classification.evaluation;
 
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.tuple.Pair;
 
+import ws.palladian.classification.utils.ClassificationUtils;
 import ws.palladian.core.CategoryEntries;
 import ws.palladian.core.Classifier;
 import ws.palladian.core.Instance;
@@ -20,8 +22,9 @@ public class ThresholdAnalysisEvaluator extends AbstractClassificationEvaluator<
 	public <M extends Model> ThresholdAnalyzer evaluate(Classifier<M> classifier, M model, Dataset data) {
 		Validate.isTrue(model.getCategories().size() == 2, "binary model required");
 		ThresholdAnalyzer thresholdAnalyzer = new ThresholdAnalyzer();
-		for (Instance testInstance : data) {
-			CategoryEntries result = classifier.classify(testInstance.getVector(), model);
+		for (Pair<Instance, CategoryEntries> classified : ClassificationUtils.classify(classifier, model, data)) {
+			Instance testInstance = classified.getLeft();
+			CategoryEntries result = classified.getRight();
 			boolean relevant = testInstance.getCategory().equals(correctClass);
 			double confidence = result.getProbability(correctClass);
 			thresholdAnalyzer.add(relevant, confidence);
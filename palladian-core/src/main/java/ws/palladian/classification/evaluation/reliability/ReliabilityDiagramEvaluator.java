@@ -8,10 +8,13 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.lang3.tuple.Pair;
+
 import ws.palladian.classification.evaluation.AbstractClassificationEvaluator;
 import ws.palladian.classification.evaluation.Graph;
 import ws.palladian.classification.evaluation.LogLossEvaluator;
 import ws.palladian.classification.evaluation.reliability.ReliabilityDiagramEvaluator.ReliabilityDiagram;
+import ws.palladian.classification.utils.ClassificationUtils;
 import ws.palladian.core.CategoryEntries;
 import ws.palladian.core.Classifier;
 import ws.palladian.core.Instance;
@@ -90,8 +93,9 @@ public class ReliabilityDiagramEvaluator extends AbstractClassificationEvaluator
 		int n = 0;
 		double logLoss = 0;
 
-		for (Instance instance : data) {
-			CategoryEntries result = classifier.classify(instance.getVector(), model);
+		for (Pair<Instance, CategoryEntries> classified : ClassificationUtils.classify(classifier, model, data)) {
+			Instance instance = classified.getLeft();
+			CategoryEntries result = classified.getRight();
 			double prediction = result.getProbability(trueClass);
 			boolean positive = instance.getCategory().equals(trueClass);
 			int bin = (int) Math.round(numBins * prediction);
@@ -1,5 +1,8 @@
 package ws.palladian.classification.featureselection;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Map.Entry;
 
 import org.apache.commons.lang3.Validate;
@@ -7,16 +10,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ws.palladian.classification.discretization.Discretization;
-import ws.palladian.core.FeatureVector;
 import ws.palladian.core.Instance;
 import ws.palladian.core.dataset.Dataset;
 import ws.palladian.core.value.Value;
 import ws.palladian.helper.NoProgress;
 import ws.palladian.helper.ProgressReporter;
-import ws.palladian.helper.collection.Bag;
-import ws.palladian.helper.collection.CollectionHelper;
-import ws.palladian.helper.collection.CountMatrix;
-import ws.palladian.helper.collection.CountMatrix.IntegerMatrixVector;
 import ws.palladian.helper.collection.Vector.VectorEntry;
 import ws.palladian.helper.math.NumericMatrix;
 
@@ -69,46 +67,61 @@ public final class ChiSquaredFeatureRanker extends AbstractFeatureRanker {
 
         progress.startTask("Calculating chi² ranking", -1);
 
-        int N = CollectionHelper.count(dataset.iterator());
         ProgressReporter cooccurrenceProgress = progress.createSubProgress(0.5);
-        cooccurrenceProgress.startTask("Counting cooccurrences.", N);
-        CountMatrix<String> termCategoryCorrelations = CountMatrix.create();
-        Bag<String> categoryCounts = new Bag<>();
-
+        cooccurrenceProgress.startTask("Counting cooccurrences.", -1);
         Discretization discretization = new Discretization(dataset, NoProgress.INSTANCE);
-        Dataset discretizedDataset = dataset.transform(discretization);
 
-        for (Instance instance : discretizedDataset) {
-            FeatureVector featureVector = instance.getVector();
+        int N = 0;
+        Map<String, ContingencyTable> tables = new LinkedHashMap<>();
+        Map<String, Integer> categoryIds = new LinkedHashMap<>();
+        int[] categoryCounts = new int[0];
+        for (Instance instance : dataset) {
             String category = instance.getCategory();
-            for (VectorEntry<String, Value> feature : featureVector) {
-                String featureValueIdentifier = feature.key() + "###" + feature.value().toString();
-                termCategoryCorrelations.add(category, featureValueIdentifier);
+            Integer categoryId = categoryIds.get(category);
+            if (categoryId == null) {
+                categoryId = categoryIds.size();
+                categoryIds.put(category, categoryId);
+                categoryCounts = Arrays.copyOf(categoryCounts, categoryId + 1);
+            }
+            for (VectorEntry<String, Value> feature : instance.getVector()) {
+                ContingencyTable table = tables.get(feature.key());
+                if (table == null) {
+                    table = new ContingencyTable(discretization.getBinner(feature.key()));
+                    tables.put(feature.key(), table);
+                }
+                table.add(feature.value(), categoryId);
             }
-            categoryCounts.add(category);
+            categoryCounts[categoryId]++;
+            N++;
             cooccurrenceProgress.increment();
         }
 
         ProgressReporter chiSquareProgress = progress.createSubProgress(0.5);
-        chiSquareProgress.startTask("Calculating chi² values.", termCategoryCorrelations.rowCount());
+        chiSquareProgress.startTask("Calculating chi² values.", tables.size());
         NumericMatrix<String> result = new NumericMatrix<String>();
-        for (IntegerMatrixVector<String> termOccurence : termCategoryCorrelations.rows()) {
-            String featureName = termOccurence.key();
-            IntegerMatrixVector<String> categoryCorrelations = termCategoryCorrelations.getRow(featureName);
-            for (Entry<String, Integer> categoryCountEntry : categoryCounts.unique()) {
-                String categoryName = categoryCountEntry.getKey();
-                Integer categoryCount = categoryCountEntry.getValue();
-                LOGGER.trace("Calculating Chi² for feature {} in class {}.", featureName, categoryName);
-                int N_10 = categoryCorrelations.getSum() - categoryCorrelations.get(categoryName);
-                int N_11 = termOccurence.get(categoryName);
-                int N_01 = categoryCount - N_11;
-                int N_00 = N - (N_10 + N_01 + N_11);
-                LOGGER.trace("Using N_11 {}, N_10 {}, N_01 {}, N_00 {}", N_11, N_10, N_01, N_00);
-                double numerator = (N_11 + N_10 + N_01 + N_00) * Math.pow(N_11 * N_00 - N_10 * N_01, 2);
-                int denominator = (N_11 + N_01) * (N_11 + N_10) * (N_10 + N_00) * (N_01 + N_00);
-                double chiSquare = numerator / denominator;
-                LOGGER.trace("Chi² value is {}", chiSquare);
-                result.set(categoryName, featureName, chiSquare);
+        for (Entry<String, ContingencyTable> tableEntry : tables.entrySet()) {
+            ContingencyTable table = tableEntry.getValue();
+            for (int valueId = 0; valueId < table.getNumValues(); valueId++) {
+                int valueCount = table.getValueCount(valueId);
+                if (valueCount == 0) { // bins without any values
+                    continue;
+                }
+                String featureName = tableEntry.getKey() + "###" + table.getValueName(valueId);
+                for (Entry<String, Integer> categoryEntry : categoryIds.entrySet()) {
+                    String categoryName = categoryEntry.getKey();
+                    int categoryId = categoryEntry.getValue();
+                    LOGGER.trace("Calculating Chi² for feature {} in class {}.", featureName, categoryName);
+                    int N_11 = table.getCount(valueId, categoryId);
+                    int N_10 = valueCount - N_11;
+                    int N_01 = categoryCounts[categoryId] - N_11;
+                    int N_00 = N - (N_10 + N_01 + N_11);
+                    LOGGER.trace("Using N_11 {}, N_10 {}, N_01 {}, N_00 {}", N_11, N_10, N_01, N_00);
+                    double numerator = (N_11 + N_10 + N_01 + N_00) * Math.pow(N_11 * N_00 - N_10 * N_01, 2);
+                    int denominator = (N_11 + N_01) * (N_11 + N_10) * (N_10 + N_00) * (N_01 + N_00);
+                    double chiSquare = numerator / denominator;
+                    LOGGER.trace("Chi² value is {}", chiSquare);
+                    result.set(categoryName, featureName, chiSquare);
+                }
             }
             chiSquareProgress.increment();
         }
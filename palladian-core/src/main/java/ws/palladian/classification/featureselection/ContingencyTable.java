@@ -0,0 +1,152 @@
+package ws.palladian.classification.featureselection;
+
+import static ws.palladian.helper.math.MathHelper.log2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ws.palladian.classification.discretization.Binner;
+import ws.palladian.classification.discretization.Binner.Interval;
+import ws.palladian.core.value.NumericValue;
+import ws.palladian.core.value.Value;
+
+/**
+ * Counts the co-occurrences of the values of one feature with the categories, using integer ids for values and
+ * categories. Numeric values are mapped to their bins, all other values are identified by their string representation
+ * (as they would be after applying the discretization).
+ *
+ * @author Philipp Katz
+ */
+final class ContingencyTable {
+
+    /** The binner for numeric values, or <code>null</code>. */
+    private final Binner binner;
+
+    /** The value ids of the bins. */
+    private final int[] binValueIds;
+
+    private final Map<String, Integer> valueIds = new HashMap<>();
+
+    private final List<String> valueNames = new ArrayList<>();
+
+    /** The counts, <code>counts[valueId][categoryId]</code>. */
+    private int[][] counts = new int[8][];
+
+    /**
+     * @param binner The binner used for numeric values, or <code>null</code> in case the feature is not numeric.
+     */
+    ContingencyTable(Binner binner) {
+        this.binner = binner;
+        if (binner != null) {
+            binValueIds = new int[binner.getNumBoundaryPoints() + 1];
+            int bin = 0;
+            for (Interval interval : binner) {
+                binValueIds[bin++] = getValueId(interval.toString());
+            }
+        } else {
+            binValueIds = null;
+        }
+    }
+
+    private int getValueId(String valueName) {
+        Integer valueId = valueIds.get(valueName);
+        if (valueId == null) {
+            valueId = valueNames.size();
+            valueIds.put(valueName, valueId);
+            valueNames.add(valueName);
+        }
+        return valueId;
+    }
+
+    void add(Value value, int categoryId) {
+        int valueId;
+        if (binner != null && value instanceof NumericValue) {
+            valueId = binValueIds[binner.bin(((NumericValue) value).getDouble())];
+        } else {
+            valueId = getValueId(value.toString());
+        }
+        if (valueId >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(valueId + 1, counts.length * 2));
+        }
+        int[] row = counts[valueId];
+        if (row == null) {
+            row = counts[valueId] = new int[categoryId + 1];
+        } else if (categoryId >= row.length) {
+            row = counts[valueId] = Arrays.copyOf(row, categoryId + 1);
+        }
+        row[categoryId]++;
+    }
+
+    int getNumValues() {
+        return valueNames.size();
+    }
+
+    String getValueName(int valueId) {
+        return valueNames.get(valueId);
+    }
+
+    int getCount(int valueId, int categoryId) {
+        int[] row = valueId < counts.length ? counts[valueId] : null;
+        return row != null && categoryId < row.length ? row[categoryId] : 0;
+    }
+
+    int getValueCount(int valueId) {
+        int[] row = valueId < counts.length ? counts[valueId] : null;
+        int valueCount = 0;
+        if (row != null) {
+            for (int count : row) {
+                valueCount += count;
+            }
+        }
+        return valueCount;
+    }
+
+    /** @return The entropy of the values, H(X). */
+    double getValueEntropy() {
+        int[] valueCounts = new int[getNumValues()];
+        for (int valueId = 0; valueId < valueCounts.length; valueId++) {
+            valueCounts[valueId] = getValueCount(valueId);
+        }
+        return entropy(valueCounts);
+    }
+
+    /** @return The joint entropy of values and categories, H(X,Y). */
+    double getJointEntropy() {
+        int totalCount = 0;
+        for (int valueId = 0; valueId < getNumValues(); valueId++) {
+            totalCount += getValueCount(valueId);
+        }
+        double entropy = 0;
+        for (int valueId = 0; valueId < getNumValues(); valueId++) {
+            int[] row = valueId < counts.length ? counts[valueId] : null;
+            if (row != null) {
+                entropy += entropy(row, totalCount);
+            }
+        }
+        return entropy;
+    }
+
+    /** Calculate the entropy of the given counts, like {@link ws.palladian.core.CategoryEntries#getEntropy()}. */
+    static double entropy(int[] counts) {
+        int totalCount = 0;
+        for (int count : counts) {
+            totalCount += count;
+        }
+        return entropy(counts, totalCount);
+    }
+
+    private static double entropy(int[] counts, int totalCount) {
+        double entropy = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                double probability = (double) count / totalCount;
+                entropy -= probability * log2(probability);
+            }
+        }
+        return entropy;
+    }
+
+}
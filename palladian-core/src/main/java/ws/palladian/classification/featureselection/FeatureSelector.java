@@ -6,14 +6,14 @@ import static ws.palladian.helper.functional.Predicates.or;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -29,6 +29,7 @@ import ws.palladian.core.Classifier;
 import ws.palladian.core.Instance;
 import ws.palladian.core.Learner;
 import ws.palladian.core.Model;
+import ws.palladian.core.dataset.ColumnarDataset;
 import ws.palladian.core.dataset.Dataset;
 import ws.palladian.core.dataset.DefaultDataset;
 import ws.palladian.helper.ProgressMonitor;
@@ -210,7 +211,11 @@ public final class FeatureSelector extends AbstractFeatureRanker {
 
     /**
      * <p>
-     * Perform the backward feature elimination for the two specified training and validation set.
+     * Perform the backward feature elimination for the two specified training and validation set. Both sets are
+     * materialized once into a {@link ColumnarDataset}, so that the feature subsets which are evaluated are cheap
+     * column projections. The feature names matched by each feature group are determined once, so that each test run
+     * only needs a set lookup per feature. The candidate runs of one elimination step are evaluated in parallel; the
+     * steps themselves are sequential, as each one depends on the feature selected by the previous step.
      * </p>
      * 
      * @param trainSet The training set, not <code>null</code>.
@@ -222,8 +227,12 @@ public final class FeatureSelector extends AbstractFeatureRanker {
 	public FeatureRanking rankFeatures(Dataset trainSet, Dataset validationSet, ProgressReporter progress) {
         Map<String, Integer> ranks = new HashMap<>();
 
-        final Set<Predicate<? super String>> allFeatureFilters = constructFeatureFilters(trainSet);
+        Dataset trainData = new ColumnarDataset(trainSet);
+        Dataset validationData = new ColumnarDataset(validationSet);
+        final Map<Predicate<? super String>, Set<String>> allFeatureFilters = constructFeatureFilters(trainData);
         final List<Predicate<? super String>> selectedFeatures = new ArrayList<>();
+        final Set<String> selectedFeatureNames = new HashSet<>();
+        final Set<String> allFeatureNames = trainData.getFeatureInformation().getFeatureNames();
         final int iterations = allFeatureFilters.size() * (allFeatureFilters.size() + 1) / 2;
         progress.startTask("Feature selection", iterations);
         int featureIndex = config.isBackward() ? 0 : allFeatureFilters.size();
@@ -231,19 +240,20 @@ public final class FeatureSelector extends AbstractFeatureRanker {
         LOGGER.info("# of features or feature sets: {}", allFeatureFilters.size());
         LOGGER.info("# of iterations: {}", iterations);
 
+        // within one step, threads which finished their runs take over the waiting ones; all runs of a step must
+        // have finished before the next step can start
+        ForkJoinPool pool = new ForkJoinPool(config.numThreads());
         try {
         	if (config.isBackward()) {
 	            // run with all features
-	            TestRun initialRun = new TestRun(trainSet, validationSet, Predicates.ALL, Predicates.NONE, progress);
+	            TestRun initialRun = new TestRun(trainData, validationData, Predicates.ALL, Predicates.NONE, progress);
 	            TestRunResult startScore = initialRun.call();
 	            LOGGER.info("Score with all features {}", startScore.score);
         	}
 
-            ExecutorService executor = Executors.newFixedThreadPool(config.numThreads());
-
             // stepwise elimination
             for (;;) {
-                Set<Predicate<? super String>> featuresToCheck = new HashSet<>(allFeatureFilters);
+                List<Predicate<? super String>> featuresToCheck = new ArrayList<>(allFeatureFilters.keySet());
                 featuresToCheck.removeAll(selectedFeatures);
                 if (featuresToCheck.isEmpty()) {
                     break;
@@ -251,16 +261,18 @@ public final class FeatureSelector extends AbstractFeatureRanker {
                 List<TestRun> runs = new ArrayList<>();
 
                 for (Predicate<? super String> currentFeature : featuresToCheck) {
-                    List<Predicate<? super String>> currentRunFeatures = new ArrayList<>(selectedFeatures);
-                    currentRunFeatures.add(currentFeature);
-                    Predicate<String> featureFilter = or(currentRunFeatures);
+                    Set<String> currentRunFeatureNames = new HashSet<>(selectedFeatureNames);
+                    currentRunFeatureNames.addAll(allFeatureFilters.get(currentFeature));
                     if (config.isBackward()) {
-                    	featureFilter = not(featureFilter);
+                    	Set<String> remainingFeatureNames = new HashSet<>(allFeatureNames);
+                    	remainingFeatureNames.removeAll(currentRunFeatureNames);
+                    	currentRunFeatureNames = remainingFeatureNames;
                     }
-					runs.add(new TestRun(trainSet, validationSet, featureFilter, currentFeature, progress));
+                    Predicate<String> featureFilter = equal(currentRunFeatureNames);
+					runs.add(new TestRun(trainData, validationData, featureFilter, currentFeature, progress));
                 }
 
-                List<Future<TestRunResult>> runFutures = executor.invokeAll(runs);
+                List<Future<TestRunResult>> runFutures = pool.invokeAll(runs);
                 Predicate<? super String> selectedFeature = null;
                 double highestScore = 0;
                 for (Future<TestRunResult> future : runFutures) {
@@ -273,13 +285,14 @@ public final class FeatureSelector extends AbstractFeatureRanker {
 
                 LOGGER.info("Selected {}, score {}", selectedFeature, highestScore);
                 selectedFeatures.add(selectedFeature);
+                selectedFeatureNames.addAll(allFeatureFilters.get(selectedFeature));
                 ranks.put(selectedFeature.toString(), featureIndex += config.isBackward() ? 1 : -1);
             }
 
-            executor.shutdown();
-
         } catch (Exception e) {
             throw new IllegalStateException(e);
+        } finally {
+            pool.shutdown();
         }
         return new FeatureRanking(ranks);
     }
@@ -292,15 +305,19 @@ public final class FeatureSelector extends AbstractFeatureRanker {
 	 * 
 	 * @param data
 	 *            The dataset.
-	 * @return A set of filters for every feature within the dataset.
+	 * @return A map with filters for every feature within the dataset, and
+	 *         the names of the features which are matched by each filter.
 	 */
-	private Set<Predicate<? super String>> constructFeatureFilters(Dataset dataset) {
+	private Map<Predicate<? super String>, Set<String>> constructFeatureFilters(Dataset dataset) {
 		// XXX check, whether the filters are disjunct?
-		Set<Predicate<? super String>> filters = new HashSet<>(config.featureGroups());
+		Map<Predicate<? super String>, Set<String>> filters = new HashMap<>();
 		Set<String> allFeatures = dataset.getFeatureInformation().getFeatureNames();
+		for (Predicate<? super String> featureGroup : config.featureGroups()) {
+			filters.put(featureGroup, CollectionHelper.filterSet(allFeatures, featureGroup));
+		}
 		Iterable<String> unmatchedFeatures = CollectionHelper.filter(allFeatures, not(or(config.featureGroups())));
 		for (String unmatchedFeature : unmatchedFeatures) {
-			filters.add(equal(unmatchedFeature));
+			filters.put(equal(unmatchedFeature), Collections.singleton(unmatchedFeature));
 		}
 		return filters;
 	}
@@ -1,22 +1,19 @@
 package ws.palladian.classification.featureselection;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ws.palladian.classification.discretization.Discretization;
-import ws.palladian.classification.text.CountingCategoryEntriesBuilder;
-import ws.palladian.core.CategoryEntries;
-import ws.palladian.core.CategoryEntriesBuilder;
+import ws.palladian.core.FeatureVector;
 import ws.palladian.core.Instance;
 import ws.palladian.core.dataset.Dataset;
-import ws.palladian.core.dataset.statistics.DatasetStatistics;
-import ws.palladian.core.dataset.statistics.NominalValueStatistics;
-import ws.palladian.core.value.Value;
 import ws.palladian.helper.ProgressReporter;
 
 /**
@@ -67,22 +64,39 @@ public final class InformationGainFeatureRanker extends AbstractFeatureRanker {
         progress.startTask("Information Gain", -1);
         LOGGER.debug("Calculating discretization");
         Discretization discretization = new Discretization(dataset, progress.createSubProgress(0.5));
-        Dataset preparedData = dataset.transform(discretization);
 
-        NominalValueStatistics categoryStatistics = new DatasetStatistics(dataset).getCategoryStatistics();
-        CategoryEntries categoryCounts = new CategoryEntriesBuilder(categoryStatistics.getMap()).create();
-        double entropy = categoryCounts.getEntropy();
-        Set<String> featureNames = dataset.getFeatureInformation().getFeatureNames();
+        List<String> featureNames = new ArrayList<>(dataset.getFeatureInformation().getFeatureNames());
+        ContingencyTable[] tables = new ContingencyTable[featureNames.size()];
+        for (int i = 0; i < tables.length; i++) {
+            tables[i] = new ContingencyTable(discretization.getBinner(featureNames.get(i)));
+        }
+        Map<String, Integer> categoryIds = new HashMap<>();
+        int[] categoryCounts = new int[0];
+
+        ProgressReporter countingProgress = progress.createSubProgress(0.5);
+        LOGGER.debug("Counting occurrences");
+        countingProgress.startTask("Counting occurrences", -1);
+        for (Instance instance : dataset) {
+            Integer categoryId = categoryIds.get(instance.getCategory());
+            if (categoryId == null) {
+                categoryId = categoryIds.size();
+                categoryIds.put(instance.getCategory(), categoryId);
+                categoryCounts = Arrays.copyOf(categoryCounts, categoryId + 1);
+            }
+            categoryCounts[categoryId]++;
+            FeatureVector featureVector = instance.getVector();
+            for (int i = 0; i < tables.length; i++) {
+                tables[i].add(featureVector.get(featureNames.get(i)), categoryId);
+            }
+            countingProgress.increment();
+        }
+        countingProgress.finishTask();
 
-        ProgressReporter informationGainProgress = progress.createSubProgress(0.5);
-        LOGGER.debug("Calculating gain");
-        informationGainProgress.startTask("Calculating gain", featureNames.size());
-        for (String featureName : featureNames) {
-            double gain = entropy - conditionalEntropy(featureName, preparedData);
-            informationGainValues.put(featureName, gain);
-            informationGainProgress.increment();
+        double entropy = ContingencyTable.entropy(categoryCounts);
+        for (int i = 0; i < tables.length; i++) {
+            double gain = entropy - conditionalEntropy(tables[i]);
+            informationGainValues.put(featureNames.get(i), gain);
         }
-        informationGainProgress.finishTask();
         return new FeatureRanking(informationGainValues);
     }
 
@@ -90,43 +104,11 @@ public final class InformationGainFeatureRanker extends AbstractFeatureRanker {
      * Calculates the conditional entropy of the dataset under the consideration that we know how the provided feature
      * is distributed. This is often called H(X|Y).
      * 
-     * @param featureName The name of the feature.
+     * @param table The co-occurrences of the feature's values with the categories.
      * @return The conditional entropy of the dataset knowing the distribution of Y.
      */
-    private static double conditionalEntropy(String featureName, Iterable<? extends Instance> dataset) {
-        CategoryEntries jointOccurrences = countJointOccurrences(dataset, featureName);
-        CategoryEntries featureOccurrences = countFeatureOccurrences(dataset, featureName);
-        return jointOccurrences.getEntropy() - featureOccurrences.getEntropy();
-    }
-
-    /**
-     * Counts the joint occurrences of each value of the provided feature with each target class.
-     * 
-     * @param featureName The name of the feature.
-     * @return A mapping from a pair of target class and feature value to the counter of their joint occurrences.
-     */
-    private static CategoryEntries countJointOccurrences(Iterable<? extends Instance> dataset, String featureName) {
-        CountingCategoryEntriesBuilder builder = new CountingCategoryEntriesBuilder();
-        for (Instance dataItem : dataset) {
-            Value value = dataItem.getVector().get(featureName);
-            builder.add(dataItem.getCategory() + "###" + value.toString(), 1);
-        }
-        return builder.create();
-    }
-
-    /**
-     * Counts how often the values of the feature with the provided name occurs in the dataset handled by this object.
-     * 
-     * @param featureName The name of the feature.
-     * @return A mapping from a {@link String} representation of the value to a counter of how often it occurs.
-     */
-    private static CategoryEntries countFeatureOccurrences(Iterable<? extends Instance> dataset, String featureName) {
-        CountingCategoryEntriesBuilder builder = new CountingCategoryEntriesBuilder();
-        for (Instance dataItem : dataset) {
-            Value value = dataItem.getVector().get(featureName);
-            builder.add(value.toString(), 1);
-        }
-        return builder.create();
+    private static double conditionalEntropy(ContingencyTable table) {
+        return table.getJointEntropy() - table.getValueEntropy();
     }
 
 }
@@ -0,0 +1,191 @@
+package ws.palladian.classification.nb;
+
+import static java.lang.Math.PI;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ws.palladian.core.CategoryIndex;
+import ws.palladian.core.FeatureVector;
+import ws.palladian.core.value.NominalValue;
+import ws.palladian.core.value.NumericValue;
+import ws.palladian.core.value.Value;
+
+/**
+ * <p>
+ * An inference form of a {@link NaiveBayesModel} for a given Laplace corrector and scoring mode. Features, nominal
+ * values and categories are mapped to integers; the (log) probabilities of all nominal values and the (log) priors are
+ * precomputed into flat arrays, and the Gaussian parameters of the numeric features are stored in parallel arrays, so
+ * that scoring requires no map lookups besides retrieving the values from the feature vector. The scores are equal to
+ * those calculated through the methods of the {@link NaiveBayesModel}. Instances are immutable and obtained via
+ * {@link NaiveBayesModel#compile(double, boolean)}.
+ * </p>
+ *
+ * @author Philipp Katz
+ */
+final class CompiledNaiveBayesModel {
+
+    private final double laplace;
+
+    private final boolean logSpace;
+
+    private final int numCategories;
+
+    /** The learned features; the scores are accumulated in this order. */
+    private final String[] featureNames;
+
+    /** The (log) priors, by category index. */
+    private final double[] priors;
+
+    /** For each feature, the row of each nominal value in {@link #nominalScores}. */
+    private final List<Map<String, Integer>> nominalRows;
+
+    /** For each feature, the row for nominal values which were not seen during training. */
+    private final int[] unseenRows;
+
+    /** The (log) probabilities of the nominal values; one row with all categories per [feature, value]. */
+    private final double[] nominalScores;
+
+    /** Flags for [feature, category] which have a density (i.e. a standard deviation greater zero). */
+    private final boolean[] hasDensity;
+
+    private final double[] means;
+
+    /** Two times the variance, the denominator of the exponent. */
+    private final double[] twoVariances;
+
+    /** The coefficient 1 / sqrt(2 * pi * variance). */
+    private final double[] coefficients;
+
+    /** The density normalization for each feature. */
+    private final double[] normalizations;
+
+    CompiledNaiveBayesModel(NaiveBayesModel model, double laplace, boolean logSpace) {
+        this.laplace = laplace;
+        this.logSpace = logSpace;
+        CategoryIndex categoryIndex = model.getCategoryIndex();
+        numCategories = categoryIndex.size();
+        Set<String> learnedFeatures = model.getLearnedFeatures();
+        featureNames = learnedFeatures.toArray(new String[learnedFeatures.size()]);
+        int numFeatures = featureNames.length;
+
+        priors = new double[numCategories];
+        for (int c = 0; c < numCategories; c++) {
+            priors[c] = score(model.getPrior(categoryIndex.getName(c)));
+        }
+
+        nominalRows = new ArrayList<>(numFeatures);
+        unseenRows = new int[numFeatures];
+        int numRows = 0;
+        for (int f = 0; f < numFeatures; f++) {
+            Map<String, Integer> rows = new HashMap<>();
+            for (String nominalValue : model.getNominalValues(featureNames[f])) {
+                rows.put(nominalValue, numRows++);
+            }
+            nominalRows.add(rows);
+            unseenRows[f] = numRows++;
+        }
+        nominalScores = new double[numRows * numCategories];
+        for (int f = 0; f < numFeatures; f++) {
+            for (Map.Entry<String, Integer> row : nominalRows.get(f).entrySet()) {
+                fillNominalRow(model, categoryIndex, featureNames[f], row.getKey(), row.getValue());
+            }
+            // the value does not matter here, as its counts are zero
+            fillNominalRow(model, categoryIndex, featureNames[f], null, unseenRows[f]);
+        }
+
+        hasDensity = new boolean[numFeatures * numCategories];
+        means = new double[numFeatures * numCategories];
+        twoVariances = new double[numFeatures * numCategories];
+        coefficients = new double[numFeatures * numCategories];
+        normalizations = new double[numFeatures];
+        for (int f = 0; f < numFeatures; f++) {
+            for (int c = 0; c < numCategories; c++) {
+                String category = categoryIndex.getName(c);
+                Double standardDeviation = model.getStandardDeviation(featureNames[f], category);
+                if (standardDeviation == null || standardDeviation == 0) {
+                    continue; // no density, see NaiveBayesModel#getDensity
+                }
+                double variance = standardDeviation * standardDeviation;
+                int i = f * numCategories + c;
+                hasDensity[i] = true;
+                means[i] = model.getMean(featureNames[f], category);
+                twoVariances[i] = 2 * variance;
+                coefficients[i] = 1. / Math.sqrt(2 * PI * variance);
+                normalizations[f] = model.getDensityNormalization(featureNames[f]);
+            }
+        }
+    }
+
+    private void fillNominalRow(NaiveBayesModel model, CategoryIndex categoryIndex, String featureName,
+            String nominalValue, int row) {
+        for (int c = 0; c < numCategories; c++) {
+            String category = categoryIndex.getName(c);
+            double probability;
+            if (nominalValue != null) {
+                probability = model.getProbability(featureName, nominalValue, category, laplace);
+            } else {
+                probability = model.getUnseenProbability(category, laplace);
+            }
+            nominalScores[row * numCategories + c] = score(probability);
+        }
+    }
+
+    private double score(double probability) {
+        return logSpace ? Math.log(probability) : probability;
+    }
+
+    boolean isCompatible(double laplace, boolean logSpace) {
+        return this.laplace == laplace && this.logSpace == logSpace;
+    }
+
+    /**
+     * <p>
+     * Calculate the scores for all categories.
+     * </p>
+     *
+     * @param featureVector The feature vector to score.
+     * @return The scores, by category index; log probabilities in case of log space scoring.
+     */
+    double[] score(FeatureVector featureVector) {
+        double[] scores = priors.clone();
+        for (int f = 0; f < featureNames.length; f++) {
+            Value value = featureVector.get(featureNames[f]);
+            if (value instanceof NominalValue) {
+                Integer row = nominalRows.get(f).get(((NominalValue)value).getString());
+                int offset = (row != null ? row : unseenRows[f]) * numCategories;
+                for (int c = 0; c < numCategories; c++) {
+                    if (logSpace) {
+                        scores[c] += nominalScores[offset + c];
+                    } else {
+                        scores[c] *= nominalScores[offset + c];
+                    }
+                }
+            } else if (value instanceof NumericValue) {
+                double doubleValue = ((NumericValue)value).getDouble();
+                int offset = f * numCategories;
+                for (int c = 0; c < numCategories; c++) {
+                    int i = offset + c;
+                    if (!hasDensity[i]) {
+                        continue;
+                    }
+                    double difference = doubleValue - means[i];
+                    double density = coefficients[i] * Math.exp(-difference * difference / twoVariances[i])
+                            / normalizations[f];
+                    if (density > 0) {
+                        if (logSpace) {
+                            scores[c] += Math.log(density);
+                        } else {
+                            scores[c] *= density;
+                        }
+                    }
+                }
+            }
+        }
+        return scores;
+    }
+
+}
@@ -3,12 +3,9 @@ package ws.palladian.classification.nb;
 import org.apache.commons.lang3.Validate;
 
 import ws.palladian.core.CategoryEntries;
-import ws.palladian.core.CategoryEntriesBuilder;
 import ws.palladian.core.Classifier;
 import ws.palladian.core.FeatureVector;
-import ws.palladian.core.value.NominalValue;
-import ws.palladian.core.value.NumericValue;
-import ws.palladian.core.value.Value;
+import ws.palladian.core.IndexedCategoryEntriesBuilder;
 
 /**
  * <p>
@@ -73,42 +70,12 @@ public final class NaiveBayesClassifier implements Classifier<NaiveBayesModel> {
 
     @Override
     public CategoryEntries classify(FeatureVector featureVector, NaiveBayesModel model) {
-
-        CategoryEntriesBuilder categoryEntriesBuilder = new CategoryEntriesBuilder();
-
-        for (String category : model.getCategories()) {
-
-            // initially set all category probabilities to their priors
-            double probability = model.getPrior(category);
-            if (logSpace) {
-            	probability = Math.log(probability);
-            }
-            
-            for (String featureName : model.getLearnedFeatures()) {
-                Value value = featureVector.get(featureName);
-                if (value instanceof NominalValue) {
-                    String nominalValue = ((NominalValue)value).getString();
-                    double currentProbability = model.getProbability(featureName, nominalValue, category, laplace);
-					if (logSpace) {
-                    	probability += Math.log(currentProbability);
-                    } else {
-                    	probability *= currentProbability;
-                    }
-                } else if (value instanceof NumericValue) {
-                    double doubleValue = ((NumericValue)value).getDouble();
-                    double density = model.getDensity(featureName, doubleValue, category);
-                    if (density > 0) {
-                    	if (logSpace) {
-                    		probability += Math.log(density);
-                    	} else {
-                    		probability *= density;
-                    	}
-                    }
-                }
-            }
-            categoryEntriesBuilder.set(category, probability);
+        double[] scores = model.compile(laplace, logSpace).score(featureVector);
+        IndexedCategoryEntriesBuilder categoryEntriesBuilder = new IndexedCategoryEntriesBuilder(
+                model.getCategoryIndex());
+        for (int categoryIdx = 0; categoryIdx < scores.length; categoryIdx++) {
+            categoryEntriesBuilder.set(categoryIdx, scores[categoryIdx]);
         }
-
         return categoryEntriesBuilder.create();
     }
     
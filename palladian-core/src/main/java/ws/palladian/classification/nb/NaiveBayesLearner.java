@@ -1,5 +1,13 @@
 package ws.palladian.classification.nb;
 
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.Validate;
+
+import ws.palladian.classification.utils.ClassificationUtils;
 import ws.palladian.core.AbstractLearner;
 import ws.palladian.core.Instance;
 import ws.palladian.core.dataset.Dataset;
@@ -12,8 +20,8 @@ import ws.palladian.helper.collection.MapMatrix;
 import ws.palladian.helper.collection.Matrix;
 import ws.palladian.helper.collection.Matrix.MatrixVector;
 import ws.palladian.helper.collection.Vector.VectorEntry;
+import ws.palladian.helper.functional.Factory;
 import ws.palladian.helper.math.SlimStats;
-import ws.palladian.helper.math.Stats;
 
 /**
  * <p>
@@ -27,17 +35,26 @@ import ws.palladian.helper.math.Stats;
  */
 public final class NaiveBayesLearner extends AbstractLearner<NaiveBayesModel> {
 
-    @Override
-    public NaiveBayesModel train(Dataset dataset) {
+    private static final Factory<SlimStats> STATS_FACTORY = new Factory<SlimStats>() {
+        @Override
+        public SlimStats create() {
+            return new SlimStats();
+        }
+    };
+
+    /**
+     * Accumulates the counts and stats from the training instances; partial accumulators can be merged.
+     */
+    private static final class Accumulator {
 
         // store the counts of different categories
-        Bag<String> categories = new Bag<>();
+        final Bag<String> categories = new Bag<>();
         // store the counts of nominal features (name, value, category)
-        LazyMatrix<String, Bag<String>> nominalCounts = new LazyMatrix<>(new Bag.BagFactory<String>());
+        final LazyMatrix<String, Bag<String>> nominalCounts = new LazyMatrix<>(new Bag.BagFactory<String>());
         // store mean and standard deviation for numeric features (name, category)
-        Matrix<String, Stats> stats = new LazyMatrix<>(SlimStats.FACTORY);
+        final Matrix<String, SlimStats> stats = new LazyMatrix<>(STATS_FACTORY);
 
-        for (Instance instance : dataset) {
+        void add(Instance instance) {
             String category = instance.getCategory();
             categories.add(category);
 
@@ -55,19 +72,91 @@ public final class NaiveBayesLearner extends AbstractLearner<NaiveBayesModel> {
             }
         }
 
-        Matrix<String, Double> sampleMeans = new MapMatrix<>();
-        Matrix<String, Double> standardDeviations = new MapMatrix<>();
+        void merge(Accumulator other) {
+            for (Entry<String, Integer> entry : other.categories.unique()) {
+                categories.add(entry.getKey(), entry.getValue());
+            }
+            for (MatrixVector<String, Bag<String>> row : other.nominalCounts.rows()) {
+                String nominalValue = row.key();
+                for (VectorEntry<String, Bag<String>> cell : row) {
+                    Bag<String> counts = nominalCounts.get(cell.key(), nominalValue);
+                    for (Entry<String, Integer> entry : cell.value().unique()) {
+                        counts.add(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            for (MatrixVector<String, SlimStats> row : other.stats.rows()) {
+                String category = row.key();
+                for (VectorEntry<String, SlimStats> cell : row) {
+                    stats.get(cell.key(), category).merge(cell.value());
+                }
+            }
+        }
+
+        NaiveBayesModel createModel() {
+            Matrix<String, Double> sampleMeans = new MapMatrix<>();
+            Matrix<String, Double> standardDeviations = new MapMatrix<>();
 
-        for (MatrixVector<String, Stats> row : stats.rows()) {
-            String category = row.key();
-            for (VectorEntry<String, Stats> cell : row) {
-                String featureName = cell.key();
-                sampleMeans.set(featureName, category, cell.value().getMean());
-                standardDeviations.set(featureName, category, cell.value().getStandardDeviation());
+            for (MatrixVector<String, SlimStats> row : stats.rows()) {
+                String category = row.key();
+                for (VectorEntry<String, SlimStats> cell : row) {
+                    String featureName = cell.key();
+                    sampleMeans.set(featureName, category, cell.value().getMean());
+                    standardDeviations.set(featureName, category, cell.value().getStandardDeviation());
+                }
             }
+
+            return new NaiveBayesModel(nominalCounts.getMatrix(), categories, sampleMeans, standardDeviations);
+        }
+
+    }
+
+    @Override
+    public NaiveBayesModel train(Dataset dataset) {
+        Validate.notNull(dataset, "dataset must not be null");
+        Accumulator accumulator = new Accumulator();
+        for (Instance instance : dataset) {
+            accumulator.add(instance);
         }
+        return accumulator.createModel();
+    }
 
-        return new NaiveBayesModel(nominalCounts.getMatrix(), categories, sampleMeans, standardDeviations);
+    /**
+     * <p>
+     * Train a model using multiple threads. The instances are streamed from the dataset in chunks, so that the dataset
+     * does not need to fit into memory; the slices of each chunk are accumulated into partial counts, which are merged
+     * in the order of the instances (see {@link ClassificationUtils#processParallel(Dataset, int, Function, Consumer)}).
+     * The resulting model is equal to a model trained with {@link #train(Dataset)}, except for floating point rounding
+     * of the means and standard deviations.
+     * </p>
+     * 
+     * @param dataset The dataset to train, not <code>null</code>.
+     * @param numThreads The number of threads to use, greater zero.
+     * @return The trained model.
+     */
+    public NaiveBayesModel train(Dataset dataset, int numThreads) {
+        Validate.notNull(dataset, "dataset must not be null");
+        Validate.isTrue(numThreads > 0, "numThreads must be greater zero");
+        if (numThreads == 1) {
+            return train(dataset);
+        }
+        final Accumulator accumulator = new Accumulator();
+        ClassificationUtils.processParallel(dataset, numThreads, new Function<List<Instance>, Accumulator>() {
+            @Override
+            public Accumulator apply(List<Instance> slice) {
+                Accumulator partialAccumulator = new Accumulator();
+                for (Instance instance : slice) {
+                    partialAccumulator.add(instance);
+                }
+                return partialAccumulator;
+            }
+        }, new Consumer<Accumulator>() {
+            @Override
+            public void accept(Accumulator partialAccumulator) {
+                accumulator.merge(partialAccumulator);
+            }
+        });
+        return accumulator.createModel();
     }
     
     @Override
@@ -10,6 +10,7 @@ import java.util.Set;
 
 import org.apache.commons.lang3.Validate;
 
+import ws.palladian.core.CategoryIndex;
 import ws.palladian.core.Model;
 import ws.palladian.helper.collection.Bag;
 import ws.palladian.helper.collection.Matrix;
@@ -36,6 +37,12 @@ public final class NaiveBayesModel implements Model {
     /** Cache those values, but do not serialize them (stay compatible to existing models). */
     private transient Map<String, Double> densityNormalization;
 
+    /** Cached index of the categories; not serialized to stay compatible to existing models. */
+    private transient CategoryIndex categoryIndex;
+
+    /** Cached inference form of this model; not serialized to stay compatible to existing models. */
+    private transient volatile CompiledNaiveBayesModel compiled;
+
     /**
      * <p>
      * Instantiate a new {@link NaiveBayesModel}.
@@ -86,7 +93,21 @@ public final class NaiveBayesModel implements Model {
 
         Bag<String> counts = nominalCounts.get(featureName, featureValue);
         int count = counts != null ? counts.count(category) : 0;
+        return smooth(count, category, laplace);
+    }
+
+    /**
+     * Get the probability for a nominal value which did not occur during training.
+     * 
+     * @param category The category for which to determine the probability.
+     * @param laplace The Laplace corrector.
+     * @return The probability value in the specified category.
+     */
+    double getUnseenProbability(String category, double laplace) {
+        return smooth(0, category, laplace);
+    }
 
+    private double smooth(int count, String category, double laplace) {
         // Laplace smoothing:
         // pretend we have seen each result once more than we actually did;
         // therefore, we must also add the number of categories to the denominator:
@@ -106,7 +127,7 @@ public final class NaiveBayesModel implements Model {
      * @return The standard deviation for the specified numeric feature in the specified category, or <code>null</code>
      *         if no value exists.
      */
-    private Double getStandardDeviation(String featureName, String category) {
+    Double getStandardDeviation(String featureName, String category) {
         return standardDeviations.get(featureName, category);
     }
 
@@ -120,7 +141,7 @@ public final class NaiveBayesModel implements Model {
      * @return The mean for the specified numeric feature in the specified category, or <code>null</code> if no value
      *         exists.
      */
-    private Double getMean(String featureName, String category) {
+    Double getMean(String featureName, String category) {
         return sampleMeans.get(featureName, category);
     }
 
@@ -175,7 +196,7 @@ public final class NaiveBayesModel implements Model {
 	 * @return The normalization quotient which ensures that the density value
 	 *         remains in [0,1].
 	 */
-	private double getDensityNormalization(String featureName) {
+	double getDensityNormalization(String featureName) {
 		if (densityNormalization == null) {
 			densityNormalization = calcDensityNormalization(standardDeviations);
 		}
@@ -220,7 +241,47 @@ public final class NaiveBayesModel implements Model {
     public Set<String> getCategories() {
         return categories.uniqueItems();
     }
+
+    /**
+     * @return The index of the trained categories.
+     */
+    public CategoryIndex getCategoryIndex() {
+        if (categoryIndex == null) {
+            categoryIndex = new CategoryIndex(getCategories());
+        }
+        return categoryIndex;
+    }
     
+    /**
+     * <p>
+     * Get the inference form of this model for the given Laplace corrector and scoring mode. The last compiled form is
+     * cached, so that subsequent calls with equal parameters do not need to compile the model again.
+     * </p>
+     * 
+     * @param laplace The Laplace corrector, equal or greater than zero.
+     * @param logSpace <code>true</code> to compile log probabilities.
+     * @return The compiled model.
+     */
+    CompiledNaiveBayesModel compile(double laplace, boolean logSpace) {
+        CompiledNaiveBayesModel compiled = this.compiled;
+        if (compiled == null || !compiled.isCompatible(laplace, logSpace)) {
+            compiled = new CompiledNaiveBayesModel(this, laplace, logSpace);
+            this.compiled = compiled;
+        }
+        return compiled;
+    }
+
+    /**
+     * @param featureName The name of the feature.
+     * @return The nominal values which occurred for the feature during training.
+     */
+    Set<String> getNominalValues(String featureName) {
+        if (!nominalCounts.getColumnKeys().contains(featureName)) {
+            return Collections.emptySet();
+        }
+        return nominalCounts.getColumn(featureName).keys();
+    }
+
 	/**
 	 * @return The names of the features which were used for training.
 	 */
@@ -0,0 +1,131 @@
+package ws.palladian.classification.numeric;
+
+import java.util.Arrays;
+
+/**
+ * A k-d tree for exact nearest neighbor search. Each inner node splits its vectors at the median of the dimension with
+ * the largest spread; subtrees which cannot contain a vector closer than the current k-th neighbor are skipped. This
+ * works well for low dimensions; for high dimensions, the search degenerates into a brute force scan.
+ *
+ * @author Philipp Katz
+ */
+final class KdTreeIndex extends KnnIndex {
+
+	private static final long serialVersionUID = 1L;
+
+	/** Maximum number of vectors in a leaf. */
+	private static final int LEAF_SIZE = 16;
+
+	/** Indices of the vectors, ordered so that each leaf covers a contiguous range. */
+	private final int[] order;
+
+	/** The split dimension of a node, or -1 for leaves. */
+	private final int[] splitDimensions;
+
+	private final double[] splitValues;
+
+	/** The left child of an inner node, or the start of the range for a leaf. */
+	private final int[] lower;
+
+	/** The right child of an inner node, or the end of the range (exclusive) for a leaf. */
+	private final int[] upper;
+
+	private int numNodes;
+
+	KdTreeIndex(double[] vectors, int numVectors, int dimensions) {
+		order = new int[numVectors];
+		for (int i = 0; i < numVectors; i++) {
+			order[i] = i;
+		}
+		int capacity = 4 * numVectors / LEAF_SIZE + 3;
+		splitDimensions = new int[capacity];
+		splitValues = new double[capacity];
+		lower = new int[capacity];
+		upper = new int[capacity];
+		build(vectors, dimensions, new double[numVectors], 0, numVectors);
+	}
+
+	private int build(double[] vectors, int dimensions, double[] keys, int start, int end) {
+		int node = numNodes++;
+		if (end - start > LEAF_SIZE) {
+			int dimension = getWidestDimension(vectors, dimensions, start, end);
+			if (dimension >= 0) {
+				for (int position = start; position < end; position++) {
+					keys[position] = vectors[order[position] * dimensions + dimension];
+				}
+				int middle = (start + end) >>> 1;
+				select(keys, order, start, end, middle);
+				splitDimensions[node] = dimension;
+				splitValues[node] = keys[middle];
+				lower[node] = build(vectors, dimensions, keys, start, middle);
+				upper[node] = build(vectors, dimensions, keys, middle, end);
+				return node;
+			}
+		}
+		splitDimensions[node] = -1;
+		lower[node] = start;
+		upper[node] = end;
+		return node;
+	}
+
+	/** @return The dimension with the largest spread in the given range, or -1 if all vectors are equal. */
+	private int getWidestDimension(double[] vectors, int dimensions, int start, int end) {
+		double[] min = new double[dimensions];
+		double[] max = new double[dimensions];
+		Arrays.fill(min, Double.POSITIVE_INFINITY);
+		Arrays.fill(max, Double.NEGATIVE_INFINITY);
+		for (int position = start; position < end; position++) {
+			int offset = order[position] * dimensions;
+			for (int dimension = 0; dimension < dimensions; dimension++) {
+				double value = vectors[offset + dimension];
+				if (value < min[dimension]) {
+					min[dimension] = value;
+				}
+				if (value > max[dimension]) {
+					max[dimension] = value;
+				}
+			}
+		}
+		int widestDimension = -1;
+		double widestSpread = 0;
+		for (int dimension = 0; dimension < dimensions; dimension++) {
+			double spread = max[dimension] - min[dimension];
+			if (spread > widestSpread) {
+				widestSpread = spread;
+				widestDimension = dimension;
+			}
+		}
+		return widestDimension;
+	}
+
+	@Override
+	void search(double[] vectors, int dimensions, double[] query, NeighborHeap heap) {
+		search(0, vectors, dimensions, query, heap);
+	}
+
+	private void search(int node, double[] vectors, int dimensions, double[] query, NeighborHeap heap) {
+		int dimension = splitDimensions[node];
+		if (dimension < 0) {
+			for (int position = lower[node]; position < upper[node]; position++) {
+				int index = order[position];
+				heap.offer(KnnModel.distance(vectors, index * dimensions, query), index);
+			}
+			return;
+		}
+		double difference = query[dimension] - splitValues[node];
+		int near = difference < 0 ? lower[node] : upper[node];
+		int far = difference < 0 ? upper[node] : lower[node];
+		search(near, vectors, dimensions, query, heap);
+		// distances are squared, and vectors on the far side are at least |difference| away;
+		// candidates at exactly the bound distance might still win by their index
+		if (difference * difference <= heap.bound()) {
+			search(far, vectors, dimensions, query, heap);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "KdTreeIndex [#nodes=" + numNodes + "]";
+	}
+
+}
@@ -1,22 +1,21 @@
 package ws.palladian.classification.numeric;
 
 import org.apache.commons.lang3.Validate;
-import org.apache.commons.lang3.tuple.Pair;
 
 import ws.palladian.core.CategoryEntries;
-import ws.palladian.core.CategoryEntriesBuilder;
 import ws.palladian.core.Classifier;
 import ws.palladian.core.FeatureVector;
+import ws.palladian.core.IndexedCategoryEntriesBuilder;
 import ws.palladian.core.Instance;
-import ws.palladian.helper.collection.CollectionHelper.Order;
-import ws.palladian.helper.collection.EntryValueComparator;
-import ws.palladian.helper.collection.FixedSizePriorityQueue;
 
 /**
  * A KNN (k-nearest neighbor) classifier. It classifies {@link FeatureVector}s
  * based on the k nearest {@link Instance}s from a {@link KnnModel} created by a
  * {@link KnnLearner}. Since this is an instance based classifier, it is fast
- * during the learning phase but has a more expensive prediction phase.
+ * during the learning phase but has a more expensive prediction phase. To speed
+ * up the prediction, either build an index using
+ * {@link KnnLearner#KnnLearner(ws.palladian.classification.utils.Normalizer, KnnLearner.Search)},
+ * or search in parallel using {@link #KnnClassifier(int, int)}.
  * 
  * @author David Urbansky
  * @author Klemens Muthmann
@@ -27,16 +26,36 @@ public final class KnnClassifier implements Classifier<KnnModel> {
 	/** Number of nearest neighbors that are allowed to vote. */
 	private final int k;
 
+	/** Number of threads for a brute force search. */
+	private final int numThreads;
+
 	/**
-	 * Create a KNN classifier with specified k.
+	 * Create a KNN classifier with specified k, which searches the neighbors
+	 * using multiple threads in case the model has no index.
 	 * 
 	 * @param k
 	 *            The number of nearest neighbors used for voting. Greater zero,
 	 *            typical value is 3.
+	 * @param numThreads
+	 *            The number of threads for searching without index, greater
+	 *            zero.
 	 */
-	public KnnClassifier(int k) {
+	public KnnClassifier(int k, int numThreads) {
 		Validate.isTrue(k > 0, "k must be greater zero");
+		Validate.isTrue(numThreads > 0, "numThreads must be greater zero");
 		this.k = k;
+		this.numThreads = numThreads;
+	}
+
+	/**
+	 * Create a KNN classifier with specified k.
+	 * 
+	 * @param k
+	 *            The number of nearest neighbors used for voting. Greater zero,
+	 *            typical value is 3.
+	 */
+	public KnnClassifier(int k) {
+		this(k, 1);
 	}
 
 	/**
@@ -50,24 +69,16 @@ public final class KnnClassifier implements Classifier<KnnModel> {
 	public CategoryEntries classify(FeatureVector featureVector, KnnModel model) {
 
 		// initialize with all category names and a score of zero
-		CategoryEntriesBuilder builder = new CategoryEntriesBuilder().set(model.getCategories(), 0);
+		IndexedCategoryEntriesBuilder builder = new IndexedCategoryEntriesBuilder(model.getCategoryIndex()).setAll(0);
 
 		double[] numericVector = model.getNormalizedVectorForClassification(featureVector);
 
-		// find k nearest neighbors, compare instance to every known instance
-		FixedSizePriorityQueue<Pair<String, Double>> neighbors = new FixedSizePriorityQueue<>(k,
-				new EntryValueComparator<Double>(Order.DESCENDING));
-
-		for (TrainingExample example : model.getTrainingExamples()) {
-			double distance = example.distance(numericVector);
-			neighbors.add(Pair.of(example.category, distance));
-		}
+		// find k nearest neighbors
+		NeighborHeap neighbors = model.findNeighbors(numericVector, k, numThreads);
 
-		for (Pair<String, Double> neighbor : neighbors.asList()) {
-			double distance = neighbor.getValue();
-			double weight = 1.0 / (distance + 0.000000001);
-			String targetClass = neighbor.getKey();
-			builder.add(targetClass, weight);
+		for (int i = 0; i < neighbors.size(); i++) {
+			double weight = 1.0 / (neighbors.distance(i) + 0.000000001);
+			builder.add(model.getCategoryIndex(neighbors.index(i)), weight);
 		}
 
 		return builder.create();
@@ -75,7 +86,7 @@ public final class KnnClassifier implements Classifier<KnnModel> {
 
 	@Override
 	public String toString() {
-		return getClass().getSimpleName() + " (k=" + k + ")";
+		return getClass().getSimpleName() + " (k=" + k + ", numThreads=" + numThreads + ")";
 	}
 
 }
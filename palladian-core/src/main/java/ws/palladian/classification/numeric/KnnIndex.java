@@ -0,0 +1,71 @@
+package ws.palladian.classification.numeric;
+
+import java.io.Serializable;
+
+/**
+ * An index over the training vectors of a {@link KnnModel} which speeds up the neighbor search. The index only stores
+ * the structure, the vectors themselves are passed with every search.
+ *
+ * @author Philipp Katz
+ */
+abstract class KnnIndex implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Search the nearest neighbors of the given query.
+	 *
+	 * @param vectors The training vectors, one after another.
+	 * @param dimensions The number of dimensions per vector.
+	 * @param query The query vector.
+	 * @param heap The heap which receives the neighbors.
+	 */
+	abstract void search(double[] vectors, int dimensions, double[] query, NeighborHeap heap);
+
+	/**
+	 * Partially sort the given range, so that the element at position <code>nth</code> is the one which would be there
+	 * in a sorted range, all elements before are less or equal, and all elements after are greater or equal (i.e.
+	 * quickselect). The indices are permuted together with the keys.
+	 *
+	 * @param keys The keys to sort by.
+	 * @param indices The indices which belong to the keys.
+	 * @param start The start of the range, inclusive.
+	 * @param end The end of the range, exclusive.
+	 * @param nth The position to select.
+	 */
+	static void select(double[] keys, int[] indices, int start, int end, int nth) {
+		int left = start;
+		int right = end - 1;
+		while (left < right) {
+			double pivot = keys[(left + right) >>> 1];
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (keys[i] < pivot) {
+					i++;
+				}
+				while (keys[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					double tempKey = keys[i];
+					keys[i] = keys[j];
+					keys[j] = tempKey;
+					int tempIndex = indices[i];
+					indices[i] = indices[j];
+					indices[j] = tempIndex;
+					i++;
+					j--;
+				}
+			}
+			if (nth <= j) {
+				right = j;
+			} else if (nth >= i) {
+				left = i;
+			} else {
+				break;
+			}
+		}
+	}
+
+}
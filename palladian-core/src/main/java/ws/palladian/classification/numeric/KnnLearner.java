@@ -1,5 +1,7 @@
 package ws.palladian.classification.numeric;
 
+import java.util.Random;
+
 import org.apache.commons.lang3.Validate;
 
 import ws.palladian.classification.utils.MinMaxNormalizer;
@@ -20,20 +22,70 @@ import ws.palladian.core.dataset.Dataset;
  */
 public final class KnnLearner extends AbstractLearner<KnnModel> {
 
+    /**
+     * The strategy for searching the nearest neighbors; determines which index (if any) is built for the model.
+     */
+    public enum Search {
+        /** Compare with every training example; exact. Suited for small datasets, or parallel classification. */
+        BRUTE_FORCE {
+            @Override
+            KnnIndex createIndex(double[] vectors, int numVectors, int dimensions) {
+                return null;
+            }
+        },
+        /** Use a k-d tree; exact, and much faster than brute force for low dimensions (roughly up to 20). */
+        KD_TREE {
+            @Override
+            KnnIndex createIndex(double[] vectors, int numVectors, int dimensions) {
+                return new KdTreeIndex(vectors, numVectors, dimensions);
+            }
+        },
+        /**
+         * Use a forest of random projection trees; approximate, i.e. neighbors might be missed, but fast for high
+         * dimensions.
+         */
+        RANDOM_PROJECTION {
+            @Override
+            KnnIndex createIndex(double[] vectors, int numVectors, int dimensions) {
+                return new RandomProjectionIndex(vectors, numVectors, dimensions, 10, new Random(42));
+            }
+        };
+
+        abstract KnnIndex createIndex(double[] vectors, int numVectors, int dimensions);
+    }
+
     /** The normalizer for numeric values. */
     private final Normalizer normalizer;
 
+    /** The neighbor search strategy. */
+    private final Search search;
+
     /**
      * <p>
-     * Create a new {@link KnnLearner} with the specified {@link Normalizer}.
+     * Create a new {@link KnnLearner} with the specified {@link Normalizer} and {@link Search} strategy.
      * </p>
      * 
      * @param normalizer The normalizer to use, not <code>null</code>. (use {@link NoNormalizer} in case you do not want
      *            to perform normalization).
+     * @param search The strategy for the neighbor search, not <code>null</code>.
      */
-    public KnnLearner(Normalizer normalizer) {
+    public KnnLearner(Normalizer normalizer, Search search) {
         Validate.notNull(normalizer, "normalizer must not be null");
+        Validate.notNull(search, "search must not be null");
         this.normalizer = normalizer;
+        this.search = search;
+    }
+
+    /**
+     * <p>
+     * Create a new {@link KnnLearner} with the specified {@link Normalizer}.
+     * </p>
+     * 
+     * @param normalizer The normalizer to use, not <code>null</code>. (use {@link NoNormalizer} in case you do not want
+     *            to perform normalization).
+     */
+    public KnnLearner(Normalizer normalizer) {
+        this(normalizer, Search.BRUTE_FORCE);
     }
 
     /**
@@ -48,12 +100,12 @@ public final class KnnLearner extends AbstractLearner<KnnModel> {
     @Override
     public KnnModel train(Dataset dataset) {
         Normalization normalization = normalizer.calculate(dataset);
-        return new KnnModel(dataset, normalization);
+        return new KnnModel(dataset, normalization, search);
     }
     
     @Override
     public String toString() {
-    	return getClass().getSimpleName() + " (" + normalizer.getClass().getSimpleName() + ")";
+    	return getClass().getSimpleName() + " (" + normalizer.getClass().getSimpleName() + ", " + search + ")";
     }
 
 }
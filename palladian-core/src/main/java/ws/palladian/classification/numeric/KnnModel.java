@@ -1,20 +1,26 @@
 package ws.palladian.classification.numeric;
 
-import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
+import ws.palladian.classification.numeric.KnnLearner.Search;
 import ws.palladian.classification.utils.Normalization;
+import ws.palladian.core.CategoryIndex;
 import ws.palladian.core.FeatureVector;
 import ws.palladian.core.Instance;
 import ws.palladian.core.Model;
 import ws.palladian.core.dataset.Dataset;
-import ws.palladian.core.dataset.statistics.DatasetStatistics;
 import ws.palladian.core.value.NumericValue;
 import ws.palladian.core.value.Value;
 
@@ -23,85 +29,203 @@ import ws.palladian.core.value.Value;
  * The model used by KNN classification algorithms. Like the {@link KnnClassifier}.
  * </p>
  * 
+ * <p>
+ * The normalized training vectors are stored one after another in one contiguous array, the categories as indices
+ * into a category table. Depending on the {@link Search} strategy selected in the {@link KnnLearner}, an index is
+ * built to speed up the neighbor search.
+ * </p>
+ * 
  * @author Klemens Muthmann
  * @author Philipp Katz
  */
 public final class KnnModel implements Model {
 
 	/** Used for serializing objects of this class. Should only change if the attribute set of the class changes. */
-	private static final long serialVersionUID = 2203790409168130472L;
-    
+	private static final long serialVersionUID = 2203790409168130473L;
+
+	/** Minimum number of training examples per thread for a parallel brute force search. */
+	private static final int MIN_EXAMPLES_PER_THREAD = 10000;
+
 	/** The labels and their index within the vectors. */
-    private final List<String> labels;
-    
-    /** Training examples which are used for classification. */
-    private final List<TrainingExample> trainingExamples;
-    
-    /** The trained category names. */
-    private final Set<String> categories;
-
-    /**
-     * An object carrying the information to normalize {@link FeatureVector}s based on the normalized
-     * {@link #trainingExamples}.
-     */
-    private final Normalization normalization;
-
-    /**
-     * <p>
-     * Creates a new unnormalized {@code KnnModel} based on a {@code List} of {@link Instance}s.
-     * </p>
-     * 
-     * @param trainingInstances The {@link Instance}s this model is based on.
-     */
-    KnnModel(Dataset trainingInstances, Normalization normalization) {
-    	DatasetStatistics statistics = new DatasetStatistics(trainingInstances);
-    	this.labels = new ArrayList<>(trainingInstances.getFeatureInformation().getFeatureNamesOfType(NumericValue.class));
-		this.categories = new HashSet<>(statistics.getCategoryStatistics().getValues());
-        this.trainingExamples = initTrainingInstances(trainingInstances, normalization, labels);
-        this.normalization = normalization;
-    }
-
-	private static List<TrainingExample> initTrainingInstances(Iterable<? extends Instance> instances,
-            Normalization normalization, List<String> labels) {
-        List<TrainingExample> ret = new ArrayList<>();
-        for (Instance instance : instances) {
-            FeatureVector normalizedFeatureVector = normalization.normalize(instance.getVector());
-            double[] vector = new double[labels.size()];
-            for (int idx = 0; idx < labels.size(); idx++) {
+	private final List<String> labels;
+
+	/** The normalized training vectors, one after another, each of length {@link #labels}.size(). */
+	private final double[] vectors;
+
+	/** The category index of each training example. */
+	private final int[] categoryIndices;
+
+	/** The trained category names; indexed by {@link #categoryIndices}. */
+	private final CategoryIndex categoryIndex;
+
+	private final int numExamples;
+
+	/**
+	 * An object carrying the information to normalize {@link FeatureVector}s based on the normalized
+	 * {@link #vectors}.
+	 */
+	private final Normalization normalization;
+
+	/** The index for the neighbor search, or <code>null</code> for brute force search. */
+	private final KnnIndex index;
+
+	/**
+	 * <p>
+	 * Creates a new {@code KnnModel} based on a {@code List} of {@link Instance}s.
+	 * </p>
+	 * 
+	 * @param trainingInstances The {@link Instance}s this model is based on.
+	 * @param normalization The normalization, which is applied to the instances.
+	 * @param search The search strategy, which determines the index to build.
+	 */
+	KnnModel(Dataset trainingInstances, Normalization normalization, Search search) {
+		this.labels = new ArrayList<>(trainingInstances.getFeatureInformation().getFeatureNamesOfType(NumericValue.class));
+		this.normalization = normalization;
+		int dimensions = labels.size();
+		double[] vectors = new double[16 * dimensions];
+		int[] categoryIndices = new int[16];
+		Map<String, Integer> categoryMap = new HashMap<>();
+		List<String> categoryNames = new ArrayList<>();
+		int numExamples = 0;
+		for (Instance instance : trainingInstances) {
+			if (numExamples == categoryIndices.length) {
+				categoryIndices = Arrays.copyOf(categoryIndices, 2 * numExamples);
+				vectors = Arrays.copyOf(vectors, 2 * numExamples * dimensions);
+			}
+			FeatureVector normalizedFeatureVector = normalization.normalize(instance.getVector());
+			int offset = numExamples * dimensions;
+			for (int idx = 0; idx < dimensions; idx++) {
 				Value value = normalizedFeatureVector.get(labels.get(idx));
 				if (value.isNull()) {
 					throw new IllegalArgumentException("NullValues are not supported");
 				}
 				NumericValue numericValue = (NumericValue) value;
-				vector[idx] = numericValue.getDouble();
+				vectors[offset + idx] = numericValue.getDouble();
+			}
+			Integer categoryIndex = categoryMap.get(instance.getCategory());
+			if (categoryIndex == null) {
+				categoryIndex = categoryNames.size();
+				categoryMap.put(instance.getCategory(), categoryIndex);
+				categoryNames.add(instance.getCategory());
 			}
-            ret.add(new TrainingExample(vector, instance.getCategory()));
-        }
-        return ret;
-    }
-
-    @Override
-    public String toString() {
-        StringBuilder toStringBuilder = new StringBuilder();
-        toStringBuilder.append("KnnModel [");
-        toStringBuilder.append("# trainingInstances=").append(trainingExamples.size());
-        toStringBuilder.append(" normalization=").append(normalization);
-        toStringBuilder.append("]");
-        return toStringBuilder.toString();
-    }
-
-    @Override
-    public Set<String> getCategories() {
-    	return Collections.unmodifiableSet(categories);
-    }
-    
-    List<TrainingExample> getTrainingExamples() {
-		return Collections.unmodifiableList(trainingExamples);
+			categoryIndices[numExamples++] = categoryIndex;
+		}
+		this.vectors = Arrays.copyOf(vectors, numExamples * dimensions);
+		this.categoryIndices = Arrays.copyOf(categoryIndices, numExamples);
+		this.categoryIndex = new CategoryIndex(categoryNames);
+		this.numExamples = numExamples;
+		this.index = search.createIndex(this.vectors, numExamples, dimensions);
 	}
-	
+
+	@Override
+	public String toString() {
+		StringBuilder toStringBuilder = new StringBuilder();
+		toStringBuilder.append("KnnModel [");
+		toStringBuilder.append("# trainingInstances=").append(numExamples);
+		toStringBuilder.append(" normalization=").append(normalization);
+		toStringBuilder.append(" index=").append(index);
+		toStringBuilder.append("]");
+		return toStringBuilder.toString();
+	}
+
+	@Override
+	public Set<String> getCategories() {
+		return Collections.unmodifiableSet(new LinkedHashSet<>(categoryIndex.getNames()));
+	}
+
+	/**
+	 * @return The index of the trained categories.
+	 */
+	public CategoryIndex getCategoryIndex() {
+		return categoryIndex;
+	}
+
+	/**
+	 * @param exampleIndex The index of the training example.
+	 * @return The index of the training example's category within the {@link #getCategoryIndex()}.
+	 */
+	int getCategoryIndex(int exampleIndex) {
+		return categoryIndices[exampleIndex];
+	}
+
+	/**
+	 * Find the nearest training examples for the given vector. Distances are squared Euclidean distances; in case of
+	 * ties, the example which was trained first is preferred.
+	 * 
+	 * @param vector The normalized vector, as returned by {@link #getNormalizedVectorForClassification(FeatureVector)}.
+	 * @param k The number of neighbors to find.
+	 * @param numThreads The number of threads to use for brute force search; ignored in case an index is present.
+	 * @return A heap with the nearest neighbors.
+	 */
+	NeighborHeap findNeighbors(final double[] vector, final int k, int numThreads) {
+		Objects.requireNonNull(vector, "vector must not be null");
+		if (vector.length != labels.size()) {
+			throw new IllegalArgumentException(
+					"length of given vector must be " + labels.size() + ", but was " + vector.length);
+		}
+		if (index != null) {
+			NeighborHeap heap = new NeighborHeap(k);
+			index.search(vectors, labels.size(), vector, heap);
+			return heap;
+		}
+		int numPartitions = Math.min(numThreads, numExamples / MIN_EXAMPLES_PER_THREAD);
+		if (numPartitions <= 1) {
+			return findNeighbors(vector, k, 0, numExamples);
+		}
+		List<Callable<NeighborHeap>> tasks = new ArrayList<>();
+		for (int partition = 0; partition < numPartitions; partition++) {
+			final int start = (int) ((long) numExamples * partition / numPartitions);
+			final int end = (int) ((long) numExamples * (partition + 1) / numPartitions);
+			tasks.add(new Callable<NeighborHeap>() {
+				@Override
+				public NeighborHeap call() {
+					return findNeighbors(vector, k, start, end);
+				}
+			});
+		}
+		NeighborHeap heap = new NeighborHeap(k);
+		try {
+			for (Future<NeighborHeap> future : ForkJoinPool.commonPool().invokeAll(tasks)) {
+				heap.addAll(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+		return heap;
+	}
+
+	/** Brute force search within the given range of training examples. */
+	private NeighborHeap findNeighbors(double[] vector, int k, int start, int end) {
+		NeighborHeap heap = new NeighborHeap(k);
+		int dimensions = labels.size();
+		for (int exampleIndex = start; exampleIndex < end; exampleIndex++) {
+			heap.offer(distance(vectors, exampleIndex * dimensions, vector), exampleIndex);
+		}
+		return heap;
+	}
+
+	/**
+	 * The squared Euclidean distance between a vector in an array and the given vector.
+	 * 
+	 * @param vectors The array with the vectors.
+	 * @param offset The offset of the vector within the array.
+	 * @param other The other vector.
+	 * @return The squared distance.
+	 */
+	static double distance(double[] vectors, int offset, double[] other) {
+		double distance = 0;
+		for (int idx = 0; idx < other.length; idx++) {
+			double value = vectors[offset + idx] - other[idx];
+			distance += value * value;
+		}
+		return distance;
+	}
+
 	double[] getNormalizedVectorForClassification(FeatureVector vector) {
 		Objects.requireNonNull(vector, "vector must not be null");
-//        FeatureVector normalizedFeatureVector = normalization.normalize(vector);
 		double[] numericVector = new double[labels.size()];
 		for (int idx = 0; idx < labels.size(); idx++) {
 			Value value = vector.get(labels.get(idx));
@@ -116,47 +240,8 @@ public final class KnnModel implements Model {
 				throw new IllegalArgumentException("Expected value " + labels.get(idx) + " to be of type "
 						+ NumericValue.class + ", but was " + value.getClass() + " (" + value + ")");
 			}
-//			NumericValue value = (NumericValue) normalizedFeatureVector.get(labels.get(idx));
-//			numericVector[idx] = value.getDouble();
 		}
 		return numericVector;
 	}
 
 }
-
-final class TrainingExample implements Serializable {
-	private static final long serialVersionUID = -2340565652781930965L;
-	final double[] features;
-	final String category;
-
-	public TrainingExample(double[] features, String category) {
-		this.features = features;
-		this.category = category;
-	}
-
-	/**
-	 * The Euclidean distance to the given vector.
-	 * 
-	 * @param other
-	 *            The vector, not <code>null</code>.
-	 * @return The distance.
-	 */
-	public double distance(double[] other) {
-		Objects.requireNonNull(other, "other must not be null");
-		if (features.length != other.length) {
-			throw new IllegalArgumentException(
-					"length of given vector must be " + features.length + ", but was " + other.length);
-		}
-		double distance = 0;
-		for (int idx = 0; idx < this.features.length; idx++) {
-			double value = this.features[idx] - other[idx];
-			distance += value * value;
-		}
-		return distance;
-	}
-
-	@Override
-	public String toString() {
-		return category + ":" + Arrays.toString(features);
-	}
-}
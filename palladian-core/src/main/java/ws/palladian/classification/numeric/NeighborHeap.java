@@ -0,0 +1,102 @@
+package ws.palladian.classification.numeric;
+
+/**
+ * A bounded max-heap of (distance, index) pairs on primitive arrays, which keeps the <code>k</code> nearest neighbors
+ * without boxing. Ties in distance are resolved by the index, so that the neighbor which was added to the model first
+ * is preferred; this makes the result independent of the order in which candidates are offered.
+ *
+ * @author Philipp Katz
+ */
+final class NeighborHeap {
+
+	private final double[] distances;
+
+	private final int[] indices;
+
+	private int size;
+
+	NeighborHeap(int capacity) {
+		distances = new double[capacity];
+		indices = new int[capacity];
+	}
+
+	/**
+	 * Offer a candidate to the heap.
+	 *
+	 * @param distance The distance of the candidate.
+	 * @param index The index of the candidate.
+	 */
+	void offer(double distance, int index) {
+		if (size < distances.length) {
+			int position = size++;
+			while (position > 0) {
+				int parent = (position - 1) >>> 1;
+				if (!greater(distance, index, distances[parent], indices[parent])) {
+					break;
+				}
+				distances[position] = distances[parent];
+				indices[position] = indices[parent];
+				position = parent;
+			}
+			distances[position] = distance;
+			indices[position] = index;
+		} else if (greater(distances[0], indices[0], distance, index)) {
+			int position = 0;
+			for (;;) {
+				int child = 2 * position + 1;
+				if (child >= size) {
+					break;
+				}
+				if (child + 1 < size && greater(distances[child + 1], indices[child + 1], distances[child], indices[child])) {
+					child++;
+				}
+				if (!greater(distances[child], indices[child], distance, index)) {
+					break;
+				}
+				distances[position] = distances[child];
+				indices[position] = indices[child];
+				position = child;
+			}
+			distances[position] = distance;
+			indices[position] = index;
+		}
+	}
+
+	/**
+	 * @return The distance of the farthest neighbor in case the heap is full, else positive infinity. Candidates with
+	 *         a greater distance cannot enter the heap any more.
+	 */
+	double bound() {
+		return size < distances.length ? Double.POSITIVE_INFINITY : distances[0];
+	}
+
+	/**
+	 * Add all neighbors from the given heap.
+	 *
+	 * @param other The other heap.
+	 */
+	void addAll(NeighborHeap other) {
+		for (int i = 0; i < other.size; i++) {
+			offer(other.distances[i], other.indices[i]);
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	/** @return The distance of the i-th entry (the entries are in heap order, not sorted). */
+	double distance(int i) {
+		return distances[i];
+	}
+
+	/** @return The index of the i-th entry (the entries are in heap order, not sorted). */
+	int index(int i) {
+		return indices[i];
+	}
+
+	private static boolean greater(double distance1, int index1, double distance2, int index2) {
+		return distance1 > distance2 || (distance1 == distance2 && index1 > index2);
+	}
+
+}
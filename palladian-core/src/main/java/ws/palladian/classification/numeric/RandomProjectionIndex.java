@@ -0,0 +1,160 @@
+package ws.palladian.classification.numeric;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A forest of random projection trees for approximate nearest neighbor search in high dimensions. Each tree splits its
+ * vectors at the median of their projection onto a random direction (one direction per tree level). A query descends
+ * to one leaf per tree, and only the vectors in these leaves are compared exactly. More trees give better recall at
+ * higher cost.
+ *
+ * @author Philipp Katz
+ */
+final class RandomProjectionIndex extends KnnIndex {
+
+	private static final long serialVersionUID = 1L;
+
+	/** Maximum number of vectors in a leaf. */
+	private static final int LEAF_SIZE = 32;
+
+	private static final class Tree implements Serializable {
+		private static final long serialVersionUID = 1L;
+		/** Indices of the vectors, ordered so that each leaf covers a contiguous range. */
+		final int[] order;
+		/** The random direction for each level. */
+		final List<double[]> directions = new ArrayList<>();
+		final double[] thresholds;
+		/** The left child of an inner node, or the start of the range for a leaf. */
+		final int[] lower;
+		/** The right child of an inner node, or the end of the range (exclusive) for a leaf. */
+		final int[] upper;
+		final boolean[] leaves;
+		int numNodes;
+
+		Tree(double[] vectors, int numVectors, int dimensions, Random random) {
+			order = new int[numVectors];
+			for (int i = 0; i < numVectors; i++) {
+				order[i] = i;
+			}
+			int capacity = 4 * numVectors / LEAF_SIZE + 3;
+			thresholds = new double[capacity];
+			lower = new int[capacity];
+			upper = new int[capacity];
+			leaves = new boolean[capacity];
+			build(vectors, dimensions, random, new double[numVectors], 0, numVectors, 0);
+		}
+
+		private int build(double[] vectors, int dimensions, Random random, double[] keys, int start, int end, int depth) {
+			int node = numNodes++;
+			if (end - start > LEAF_SIZE) {
+				if (directions.size() == depth) {
+					double[] direction = new double[dimensions];
+					for (int i = 0; i < dimensions; i++) {
+						direction[i] = random.nextGaussian();
+					}
+					directions.add(direction);
+				}
+				double[] direction = directions.get(depth);
+				double min = Double.POSITIVE_INFINITY;
+				double max = Double.NEGATIVE_INFINITY;
+				for (int position = start; position < end; position++) {
+					keys[position] = project(vectors, order[position] * dimensions, direction);
+					min = Math.min(min, keys[position]);
+					max = Math.max(max, keys[position]);
+				}
+				if (min < max) {
+					int middle = (start + end) >>> 1;
+					select(keys, order, start, end, middle);
+					thresholds[node] = keys[middle];
+					lower[node] = build(vectors, dimensions, random, keys, start, middle, depth + 1);
+					upper[node] = build(vectors, dimensions, random, keys, middle, end, depth + 1);
+					return node;
+				}
+			}
+			leaves[node] = true;
+			lower[node] = start;
+			upper[node] = end;
+			return node;
+		}
+
+		/** @return The leaf node for the query. */
+		int findLeaf(double[] query) {
+			int node = 0;
+			for (int depth = 0; !leaves[node]; depth++) {
+				double key = project(query, 0, directions.get(depth));
+				node = key < thresholds[node] ? lower[node] : upper[node];
+			}
+			return node;
+		}
+
+		/** @return The number of vectors in the leaf; can exceed the leaf size in case of equal vectors. */
+		int getLeafSize(int leaf) {
+			return upper[leaf] - lower[leaf];
+		}
+
+		/** @return The number of candidates which were written to the buffer. */
+		int collect(int leaf, int[] buffer, int offset) {
+			int length = getLeafSize(leaf);
+			System.arraycopy(order, lower[leaf], buffer, offset, length);
+			return length;
+		}
+	}
+
+	private final Tree[] trees;
+
+	/**
+	 * @param vectors The training vectors.
+	 * @param numVectors The number of vectors.
+	 * @param dimensions The number of dimensions per vector.
+	 * @param numTrees The number of trees to build.
+	 * @param random The source of randomness for the projections.
+	 */
+	RandomProjectionIndex(double[] vectors, int numVectors, int dimensions, int numTrees, Random random) {
+		trees = new Tree[numTrees];
+		for (int i = 0; i < numTrees; i++) {
+			trees[i] = new Tree(vectors, numVectors, dimensions, random);
+		}
+	}
+
+	@Override
+	void search(double[] vectors, int dimensions, double[] query, NeighborHeap heap) {
+		// leaves are not split when all projections are equal, so determine the actual sizes first
+		int[] leaves = new int[trees.length];
+		int maxCandidates = 0;
+		for (int t = 0; t < trees.length; t++) {
+			leaves[t] = trees[t].findLeaf(query);
+			maxCandidates += trees[t].getLeafSize(leaves[t]);
+		}
+		int[] candidates = new int[maxCandidates];
+		int numCandidates = 0;
+		for (int t = 0; t < trees.length; t++) {
+			numCandidates += trees[t].collect(leaves[t], candidates, numCandidates);
+		}
+		Arrays.sort(candidates, 0, numCandidates);
+		for (int i = 0; i < numCandidates; i++) {
+			int index = candidates[i];
+			if (i > 0 && index == candidates[i - 1]) {
+				continue;
+			}
+			heap.offer(KnnModel.distance(vectors, index * dimensions, query), index);
+		}
+	}
+
+	private static double project(double[] vector, int offset, double[] direction) {
+		double projection = 0;
+		for (int i = 0; i < direction.length; i++) {
+			projection += vector[offset + i] * direction[i];
+		}
+		return projection;
+	}
+
+	@Override
+	public String toString() {
+		return "RandomProjectionIndex [#trees=" + trees.length + "]";
+	}
+
+}
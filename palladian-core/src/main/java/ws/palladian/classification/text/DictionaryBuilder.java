@@ -59,7 +59,10 @@ public interface DictionaryBuilder extends Factory<DictionaryModel> {
     DictionaryBuilder setPruningStrategy(Predicate<? super CategoryEntries> strategy);
 
     /**
-     * Adds the content of a given {@link DictionaryModel}.
+     * Adds the content of a given {@link DictionaryModel}. Counts of terms which are already present in this builder
+     * are summed up, so that e.g. partial dictionaries which were built from disjoint document sets can be merged.
+     * Merging the partial dictionaries in the order of their documents gives the same result as adding all documents
+     * to one builder.
      * 
      * @param model The dictionary model to add, not <code>null</code>.
      * @return The builder instance.
@@ -6,13 +6,16 @@ import java.io.ObjectOutputStream;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
 import org.apache.commons.lang3.Validate;
 
+import ws.palladian.core.Category;
 import ws.palladian.core.CategoryEntries;
 import ws.palladian.helper.collection.AbstractIterator2;
+import ws.palladian.helper.collection.CollectionHelper;
 import java.util.function.Predicate;
 
 public class DictionaryMapModel extends AbstractDictionaryModel {
@@ -72,7 +75,23 @@ public class DictionaryMapModel extends AbstractDictionaryModel {
 
 		@Override
 		public DictionaryBuilder addDictionary(DictionaryModel model) {
-			throw new UnsupportedOperationException();
+			Validate.notNull(model, "model must not be null");
+			for (DictionaryEntry addEntry : model) {
+				LinkedCategoryEntries categoryEntries = dictionary.get(addEntry.getTerm());
+				if (categoryEntries == null) {
+					categoryEntries = new LinkedCategoryEntries();
+					dictionary.put(addEntry.getTerm(), categoryEntries);
+				}
+				// add in reverse, to keep the order of the categories (see DictionaryTrieModel.Builder#addDictionary)
+				List<Category> addCategories = CollectionHelper.newArrayList(addEntry.getCategoryEntries());
+				for (int i = addCategories.size() - 1; i >= 0; i--) {
+					Category addCategory = addCategories.get(i);
+					categoryEntries.increment(addCategory.getName(), addCategory.getCount());
+				}
+			}
+			documentCountBuilder.add(model.getDocumentCounts());
+			termCountBuilder.add(model.getTermCounts());
+			return this;
 		}
 
 	}
@@ -56,6 +56,22 @@ public interface DictionaryModel extends Model, Iterable<DictionaryModel.Diction
      */
     CategoryEntries getCategoryEntries(String term);
 
+    /**
+     * <p>
+     * Get the probabilities for the given term in different categories. In contrast to
+     * {@link #getCategoryEntries(String)}, the term can be given as any {@link CharSequence} (e.g. a view on a region of
+     * a text), which allows implementations to avoid creating a {@link String} for each lookup. The default
+     * implementation converts the term to a {@link String} and delegates to {@link #getCategoryEntries(String)}.
+     * </p>
+     * 
+     * @param term The term, not <code>null</code>.
+     * @return The category probabilities for the specified term, or an empty {@link DictionaryEntry} instance, in
+     *         case the term is not present in this model. Never <code>null</code>.
+     */
+    default CategoryEntries getCategoryEntries(CharSequence term) {
+        return getCategoryEntries(term.toString());
+    }
+
     /**
      * @return The number of distinct terms in this model.
      */
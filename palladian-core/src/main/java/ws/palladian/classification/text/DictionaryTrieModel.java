@@ -7,6 +7,7 @@ import java.text.NumberFormat;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -18,6 +19,7 @@ import org.slf4j.LoggerFactory;
 import ws.palladian.core.Category;
 import ws.palladian.core.CategoryEntries;
 import ws.palladian.helper.collection.AbstractIterator2;
+import ws.palladian.helper.collection.CollectionHelper;
 import ws.palladian.helper.collection.Trie;
 import java.util.function.Predicate;
 
@@ -140,11 +142,16 @@ public final class DictionaryTrieModel extends AbstractDictionaryModel {
             for (DictionaryEntry addEntry : model) {
                 String term = addEntry.getTerm();
                 LinkedCategoryEntries entries = entryTrie.getOrPut(term, LinkedCategoryEntries.FACTORY);
-                for (Category addCategory : addEntry.getCategoryEntries()) {
-                	// TODO really "append" (see JavaDoc), shouldn't this be "add"???
-                    entries.append(addCategory);
+                if (entries.getTotalCount() == 0) { // term was not present before
+                    numTerms++;
+                }
+                // the entries list the most recently added category first; add them in reverse, so that the order is
+                // the same as if the documents of the given dictionary had been added to this builder directly
+                List<Category> addCategories = CollectionHelper.newArrayList(addEntry.getCategoryEntries());
+                for (int i = addCategories.size() - 1; i >= 0; i--) {
+                    Category addCategory = addCategories.get(i);
+                    entries.increment(addCategory.getName(), addCategory.getCount());
                 }
-                numTerms++;
             }
             documentCountBuilder.add(model.getDocumentCounts());
             termCountBuilder.add(model.getTermCounts());
@@ -204,6 +211,16 @@ public final class DictionaryTrieModel extends AbstractDictionaryModel {
         return entries != null ? entries : CategoryEntries.EMPTY;
     }
 
+    @Override
+    public CategoryEntries getCategoryEntries(CharSequence term) {
+        Validate.notNull(term, "term must not be null");
+        if (term.length() == 0) {
+            return CategoryEntries.EMPTY;
+        }
+        LinkedCategoryEntries entries = entryTrie.get(term);
+        return entries != null ? entries : CategoryEntries.EMPTY;
+    }
+
     @Override
     public int getNumUniqTerms() {
         return numTerms;
@@ -0,0 +1,468 @@
+package ws.palladian.classification.text;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ws.palladian.core.AbstractCategoryEntries;
+import ws.palladian.core.Category;
+import ws.palladian.core.CategoryEntries;
+import ws.palladian.core.ImmutableCategory;
+import ws.palladian.helper.StopWatch;
+import ws.palladian.helper.collection.AbstractIterator2;
+import ws.palladian.helper.io.LargeMappedBuffer;
+
+/**
+ * <p>
+ * A read-only {@link DictionaryModel}, which is compiled from an existing model into a compact binary file and accessed
+ * through memory mapping. In contrast to deserializing a {@link DictionaryTrieModel}, opening such a model only reads a
+ * small header and therefore takes milliseconds, independent of the model's size. The terms and their category counts
+ * are read directly from the operating system's page cache, so that several JVMs on one host which open the same file
+ * share the physical memory.
+ *
+ * <p>
+ * Use {@link #compile(DictionaryModel, File)} to convert an existing model, and {@link #open(File)} to open an already
+ * compiled file. The file layout is as follows (all values big endian):
+ *
+ * <pre>
+ * header:  magic (int), version (int), length (int), serialized name, feature setting, category names and counts
+ * records: sorted by the terms' UTF-8 bytes; [ termLength (int), termBytes, numEntries (int), [ (categoryIdx (int), count (int)), ... ] ], ...
+ * offsets: for each record its start offset (long)
+ * trailer: recordsStart (long), offsetsStart (long), numTerms (int), numEntries (long), magic (int)
+ * </pre>
+ *
+ * Lookups perform a binary search over the sorted records. When serializing an instance of this class, only the path
+ * to the compiled file is written, the file is re-opened upon deserialization.
+ *
+ * @author Philipp Katz
+ */
+public final class MappedDictionaryModel extends AbstractDictionaryModel {
+
+    /** The logger for this class. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedDictionaryModel.class);
+
+    private static final long serialVersionUID = 1L;
+
+    /** Identifies compiled dictionary files. */
+    private static final int MAGIC = 0x50444d4d;
+
+    /** Version of the file format; increment, when making incompatible changes. */
+    private static final int FILE_VERSION = 1;
+
+    private static final int TRAILER_SIZE = 8 + 8 + 4 + 8 + 4;
+
+    /** Lexicographic comparison of unsigned bytes; this is the sort order of the records in the file. */
+    private static final Comparator<byte[]> BYTES_COMPARATOR = new Comparator<byte[]>() {
+        @Override
+        public int compare(byte[] b1, byte[] b2) {
+            int minLength = Math.min(b1.length, b2.length);
+            for (int i = 0; i < minLength; i++) {
+                int result = (b1[i] & 0xff) - (b2[i] & 0xff);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return b1.length - b2.length;
+        }
+    };
+
+    private final transient File file;
+
+    private final transient LargeMappedBuffer records;
+
+    private final transient LargeMappedBuffer offsets;
+
+    private final transient int numTerms;
+
+    private final transient long numEntries;
+
+    private final transient String name;
+
+    private final transient FeatureSetting featureSetting;
+
+    /** The category names, the position in the array corresponds to the index in the file. */
+    private final transient String[] categories;
+
+    private final transient CategoryEntries documentCounts;
+
+    private final transient CategoryEntries termCounts;
+
+    /**
+     * Compile the given model to a file and open it.
+     *
+     * @param model The model to compile, not <code>null</code>.
+     * @param file The destination file, not <code>null</code>. Existing files are overwritten.
+     * @return The memory-mapped model.
+     * @throws IOException In case writing or opening the file fails.
+     */
+    public static MappedDictionaryModel compile(DictionaryModel model, File file) throws IOException {
+        write(model, file);
+        return open(file);
+    }
+
+    /**
+     * Write the given model to a file in the compiled format.
+     *
+     * @param model The model to write, not <code>null</code>.
+     * @param file The destination file, not <code>null</code>. Existing files are overwritten.
+     * @throws IOException In case writing the file fails.
+     */
+    public static void write(DictionaryModel model, File file) throws IOException {
+        Validate.notNull(model, "model must not be null");
+        Validate.notNull(file, "file must not be null");
+        StopWatch stopWatch = new StopWatch();
+
+        // collect and sort the terms and determine the category indices
+        byte[][] terms = new byte[model.getNumUniqTerms()][];
+        SortedSet<String> categoryNames = new TreeSet<>();
+        for (Category category : model.getDocumentCounts()) {
+            categoryNames.add(category.getName());
+        }
+        int numTerms = 0;
+        for (DictionaryEntry entry : model) {
+            if (numTerms == terms.length) {
+                terms = Arrays.copyOf(terms, Math.max(16, terms.length * 2));
+            }
+            terms[numTerms++] = entry.getTerm().getBytes(UTF_8);
+            for (Category category : entry.getCategoryEntries()) {
+                categoryNames.add(category.getName());
+            }
+        }
+        terms = Arrays.copyOf(terms, numTerms);
+        Arrays.sort(terms, BYTES_COMPARATOR);
+        String[] categories = categoryNames.toArray(new String[categoryNames.size()]);
+        Map<String, Integer> categoryIndices = new HashMap<>();
+        int[] documentCounts = new int[categories.length];
+        int[] termCounts = new int[categories.length];
+        for (int i = 0; i < categories.length; i++) {
+            categoryIndices.put(categories[i], i);
+            documentCounts[i] = model.getDocumentCounts().getCount(categories[i]);
+            termCounts[i] = model.getTermCounts().getCount(categories[i]);
+        }
+
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream headerOut = new ObjectOutputStream(headerBytes)) {
+            headerOut.writeObject(model.getName());
+            headerOut.writeObject(model.getFeatureSetting());
+            headerOut.writeObject(categories);
+            headerOut.writeObject(documentCounts);
+            headerOut.writeObject(termCounts);
+        }
+
+        long[] recordOffsets = new long[numTerms];
+        long numEntries = 0;
+        long recordsStart;
+        long offsetsStart;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeInt(headerBytes.size());
+            headerBytes.writeTo(out);
+            recordsStart = 4 + 4 + 4 + headerBytes.size();
+            long position = 0;
+            for (int i = 0; i < numTerms; i++) {
+                recordOffsets[i] = position;
+                byte[] termBytes = terms[i];
+                CategoryEntries categoryEntries = model.getCategoryEntries(new String(termBytes, UTF_8));
+                int size = 0;
+                for (Category category : categoryEntries) {
+                    if (category.getCount() > 0) {
+                        size++;
+                    }
+                }
+                out.writeInt(termBytes.length);
+                out.write(termBytes);
+                out.writeInt(size);
+                for (Category category : categoryEntries) {
+                    if (category.getCount() > 0) {
+                        out.writeInt(categoryIndices.get(category.getName()));
+                        out.writeInt(category.getCount());
+                    }
+                }
+                position += 4 + termBytes.length + 4 + 8l * size;
+                numEntries += size;
+                terms[i] = null; // not needed any more, allow GC
+            }
+            offsetsStart = recordsStart + position;
+            for (long recordOffset : recordOffsets) {
+                out.writeLong(recordOffset);
+            }
+            // trailer
+            out.writeLong(recordsStart);
+            out.writeLong(offsetsStart);
+            out.writeInt(numTerms);
+            out.writeLong(numEntries);
+            out.writeInt(MAGIC);
+        }
+        LOGGER.info("Wrote {} terms with {} entries to {} in {}", numTerms, numEntries, file, stopWatch);
+    }
+
+    /**
+     * Open a compiled model from the given file.
+     *
+     * @param file The file with the compiled model, not <code>null</code>.
+     * @return The memory-mapped model.
+     * @throws IOException In case the file cannot be read, or does not contain a compiled model.
+     */
+    public static MappedDictionaryModel open(File file) throws IOException {
+        Validate.notNull(file, "file must not be null");
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            FileChannel channel = randomAccessFile.getChannel();
+            if (randomAccessFile.length() < 12 + TRAILER_SIZE || randomAccessFile.readInt() != MAGIC) {
+                throw new IOException(file + " is not a compiled dictionary model");
+            }
+            int version = randomAccessFile.readInt();
+            if (version != FILE_VERSION) {
+                throw new IOException("Unsupported version: " + version);
+            }
+            byte[] headerBytes = new byte[randomAccessFile.readInt()];
+            randomAccessFile.readFully(headerBytes);
+            randomAccessFile.seek(randomAccessFile.length() - TRAILER_SIZE);
+            long recordsStart = randomAccessFile.readLong();
+            long offsetsStart = randomAccessFile.readLong();
+            int numTerms = randomAccessFile.readInt();
+            long numEntries = randomAccessFile.readLong();
+            if (randomAccessFile.readInt() != MAGIC) {
+                throw new IOException(file + " is truncated");
+            }
+            LargeMappedBuffer records = LargeMappedBuffer.map(channel, recordsStart, offsetsStart - recordsStart);
+            LargeMappedBuffer offsets = LargeMappedBuffer.map(channel, offsetsStart, 8l * numTerms);
+            try (ObjectInputStream headerIn = new ObjectInputStream(new ByteArrayInputStream(headerBytes))) {
+                String name = (String)headerIn.readObject();
+                FeatureSetting featureSetting = (FeatureSetting)headerIn.readObject();
+                String[] categories = (String[])headerIn.readObject();
+                int[] documentCounts = (int[])headerIn.readObject();
+                int[] termCounts = (int[])headerIn.readObject();
+                return new MappedDictionaryModel(file, records, offsets, numTerms, numEntries, name, featureSetting,
+                        categories, documentCounts, termCounts);
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Could not read header of " + file, e);
+            }
+        }
+    }
+
+    /** Invoked from {@link #open(File)}. */
+    private MappedDictionaryModel(File file, LargeMappedBuffer records, LargeMappedBuffer offsets, int numTerms,
+            long numEntries, String name, FeatureSetting featureSetting, String[] categories, int[] documentCounts,
+            int[] termCounts) {
+        this.file = file;
+        this.records = records;
+        this.offsets = offsets;
+        this.numTerms = numTerms;
+        this.numEntries = numEntries;
+        this.name = name;
+        this.featureSetting = featureSetting;
+        this.categories = categories;
+        CountingCategoryEntriesBuilder documentCountBuilder = new CountingCategoryEntriesBuilder();
+        CountingCategoryEntriesBuilder termCountBuilder = new CountingCategoryEntriesBuilder();
+        for (int i = 0; i < categories.length; i++) {
+            documentCountBuilder.add(categories[i], documentCounts[i]);
+            termCountBuilder.add(categories[i], termCounts[i]);
+        }
+        this.documentCounts = documentCountBuilder.create();
+        this.termCounts = termCountBuilder.create();
+    }
+
+    /**
+     * @return The file from which this model was opened.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public FeatureSetting getFeatureSetting() {
+        return featureSetting;
+    }
+
+    @Override
+    public CategoryEntries getCategoryEntries(String term) {
+        Validate.notNull(term, "term must not be null");
+        return getCategoryEntries(term.getBytes(UTF_8));
+    }
+
+    @Override
+    public CategoryEntries getCategoryEntries(CharSequence term) {
+        Validate.notNull(term, "term must not be null");
+        // encode ASCII terms directly, without creating a string first
+        byte[] termBytes = new byte[term.length()];
+        for (int i = 0; i < termBytes.length; i++) {
+            char c = term.charAt(i);
+            if (c >= 0x80) {
+                return getCategoryEntries(term.toString().getBytes(UTF_8));
+            }
+            termBytes[i] = (byte)c;
+        }
+        return getCategoryEntries(termBytes);
+    }
+
+    /** Binary search for the record of the given UTF-8 encoded term. */
+    private CategoryEntries getCategoryEntries(byte[] termBytes) {
+        int low = 0;
+        int high = numTerms - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long recordOffset = offsets.getLong(8l * mid);
+            int result = records.compare(recordOffset + 4, records.getInt(recordOffset), termBytes);
+            if (result < 0) {
+                low = mid + 1;
+            } else if (result > 0) {
+                high = mid - 1;
+            } else {
+                return new MappedCategoryEntries(recordOffset + 4 + termBytes.length);
+            }
+        }
+        return CategoryEntries.EMPTY;
+    }
+
+    @Override
+    public int getNumUniqTerms() {
+        return numTerms;
+    }
+
+    @Override
+    public int getNumEntries() {
+        return (int)Math.min(numEntries, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int getNumCategories() {
+        return categories.length;
+    }
+
+    @Override
+    public CategoryEntries getDocumentCounts() {
+        return documentCounts;
+    }
+
+    @Override
+    public CategoryEntries getTermCounts() {
+        return termCounts;
+    }
+
+    @Override
+    public Iterator<DictionaryEntry> iterator() {
+        return new AbstractIterator2<DictionaryEntry>() {
+            int index = 0;
+
+            @Override
+            protected DictionaryEntry getNext() {
+                if (index >= numTerms) {
+                    return finished();
+                }
+                long recordOffset = offsets.getLong(8l * index++);
+                byte[] termBytes = new byte[records.getInt(recordOffset)];
+                records.get(recordOffset + 4, termBytes, 0, termBytes.length);
+                CategoryEntries categoryEntries = new MappedCategoryEntries(recordOffset + 4 + termBytes.length);
+                return new ImmutableDictionaryEntry(new String(termBytes, UTF_8), categoryEntries);
+            }
+        };
+    }
+
+    /** {@link CategoryEntries} which read the category counts of a term directly from the mapped records. */
+    private final class MappedCategoryEntries extends AbstractCategoryEntries {
+
+        /** Offset of the numEntries value in the records. */
+        private final long offset;
+
+        private final int size;
+
+        private final int totalCount;
+
+        MappedCategoryEntries(long offset) {
+            this.offset = offset;
+            this.size = records.getInt(offset);
+            int totalCount = 0;
+            for (int i = 0; i < size; i++) {
+                totalCount += records.getInt(offset + 4 + 8l * i + 4);
+            }
+            this.totalCount = totalCount;
+        }
+
+        @Override
+        public Iterator<Category> iterator() {
+            return new AbstractIterator2<Category>() {
+                int index = 0;
+
+                @Override
+                protected Category getNext() {
+                    if (index >= size) {
+                        return finished();
+                    }
+                    long entryOffset = offset + 4 + 8l * index++;
+                    String categoryName = categories[records.getInt(entryOffset)];
+                    int count = records.getInt(entryOffset + 4);
+                    return new ImmutableCategory(categoryName, (double)count / totalCount, count);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int getTotalCount() {
+            return totalCount;
+        }
+
+    }
+
+    // serialization code
+
+    // Implementation note: only the path to the compiled file is serialized; this way, deserialization is as cheap as
+    // opening the file.
+
+    private Object writeReplace() {
+        return new SerializedForm(file.getAbsolutePath());
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException {
+        throw new IOException("Deserialization must happen through " + SerializedForm.class.getName());
+    }
+
+    private static final class SerializedForm implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String filePath;
+
+        SerializedForm(String filePath) {
+            this.filePath = filePath;
+        }
+
+        private Object readResolve() throws IOException {
+            return open(new File(filePath));
+        }
+
+    }
+
+}
@@ -1,25 +1,32 @@
 package ws.palladian.classification.text;
 
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Map.Entry;
-import java.util.Set;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.Validate;
 
+import ws.palladian.classification.text.FeatureSetting.TextFeatureType;
+import ws.palladian.classification.utils.ClassificationUtils;
+import ws.palladian.classification.text.Preprocessor.TermConsumer;
 import ws.palladian.core.AbstractLearner;
 import ws.palladian.core.Category;
 import ws.palladian.core.CategoryEntries;
-import ws.palladian.core.CategoryEntriesBuilder;
+import ws.palladian.core.CategoryIndex;
 import ws.palladian.core.Classifier;
 import ws.palladian.core.FeatureVector;
+import ws.palladian.core.IndexedCategoryEntriesBuilder;
 import ws.palladian.core.Instance;
 import ws.palladian.core.InstanceBuilder;
 import ws.palladian.core.dataset.Dataset;
 import ws.palladian.core.value.TextValue;
-import ws.palladian.helper.collection.Bag;
-import java.util.function.Function;
+import ws.palladian.extraction.token.CharacterNGramTokenizer;
 
 /**
  * <p>
@@ -55,7 +62,8 @@ public class PalladianTextClassifier extends AbstractLearner<DictionaryModel> im
          * Score a term-category-pair in a document which has to be classified.
          * 
          * @param term The term (this value usually has no influence on the scoring, but is provided for debugging
-         *            purposes).
+         *            purposes; the {@link DefaultScorer} and the {@link BayesScorer} receive <code>null</code>, so that
+         *            no string needs to be created for each term).
          * @param category The category (for debugging purposes, see above).
          * @param termCategoryCount The absolute count of the term in the current category, as extracted from the
          *            dictionary model.
@@ -133,6 +141,9 @@ public class PalladianTextClassifier extends AbstractLearner<DictionaryModel> im
     }
 
     public static final String VECTOR_TEXT_IDENTIFIER = "text";
+
+    /** Character used to fill up left/right padding; must correspond to the one in {@link CharacterNGramTokenizer}. */
+    private static final char PADDING_CHARACTER = '#';
     
     public static final Scorer DEFAULT_SCORER = new DefaultScorer();
 
@@ -142,7 +153,15 @@ public class PalladianTextClassifier extends AbstractLearner<DictionaryModel> im
 
     private final Scorer scorer;
 
-    private final Function<String, Iterator<String>> preprocessor;
+    private final Preprocessor preprocessor;
+
+    /** Thread-confined scratch space, which is reused for each classification. */
+    private final ThreadLocal<ScoringContext> scoringContexts = new ThreadLocal<ScoringContext>() {
+        @Override
+        protected ScoringContext initialValue() {
+            return new ScoringContext();
+        }
+    };
 
     /**
      * <p>
@@ -195,75 +214,142 @@ public class PalladianTextClassifier extends AbstractLearner<DictionaryModel> im
     public DictionaryModel train(Dataset dataset) {
         Validate.notNull(dataset, "dataset must not be null");
         for (Instance instance : dataset) {
-            String targetClass = instance.getCategory();
-            TextValue textValue = (TextValue)instance.getVector().get(VECTOR_TEXT_IDENTIFIER);
-            Iterator<String> iterator = preprocessor.apply(textValue.getText());
-            Collection<String> terms = new HashSet<>();
-            while (iterator.hasNext() && terms.size() < featureSetting.getMaxTerms()) {
-                terms.add(iterator.next());
-            }
-            dictionaryBuilder.addDocument(terms, targetClass, instance.getWeight());
+            Collection<String> terms = extractTerms(instance);
+            dictionaryBuilder.addDocument(terms, instance.getCategory(), instance.getWeight());
         }
         return dictionaryBuilder.create();
     }
 
+    /**
+     * <p>
+     * Train a model using multiple threads. The instances are read in chunks; the slices of each chunk are
+     * preprocessed and added to partial dictionaries, which are merged in the order of the instances using
+     * {@link DictionaryBuilder#addDictionary(DictionaryModel)} (see
+     * {@link ClassificationUtils#processParallel(Dataset, int, Function, Consumer)}). The resulting model is identical
+     * to a model trained with {@link #train(Dataset)}, independent of the number of threads.
+     * 
+     * @param dataset The dataset to train, not <code>null</code>.
+     * @param numThreads The number of threads to use, greater zero.
+     * @return The trained model.
+     */
+    public DictionaryModel train(Dataset dataset, int numThreads) {
+        Validate.notNull(dataset, "dataset must not be null");
+        Validate.isTrue(numThreads > 0, "numThreads must be greater zero");
+        if (numThreads == 1) {
+            return train(dataset);
+        }
+        ClassificationUtils.processParallel(dataset, numThreads, new Function<List<Instance>, DictionaryModel>() {
+            @Override
+            public DictionaryModel apply(List<Instance> slice) {
+                DictionaryBuilder partialBuilder = new DictionaryTrieModel.Builder();
+                for (Instance instance : slice) {
+                    Collection<String> terms = extractTerms(instance);
+                    partialBuilder.addDocument(terms, instance.getCategory(), instance.getWeight());
+                }
+                return partialBuilder.create();
+            }
+        }, new Consumer<DictionaryModel>() {
+            @Override
+            public void accept(DictionaryModel partialModel) {
+                dictionaryBuilder.addDictionary(partialModel);
+            }
+        });
+        return dictionaryBuilder.create();
+    }
+
+    /**
+     * Extract the distinct terms from an instance's text, limited by the maximum number of terms.
+     * 
+     * @param instance The instance.
+     * @return The terms.
+     */
+    private Collection<String> extractTerms(Instance instance) {
+        TextValue textValue = (TextValue)instance.getVector().get(VECTOR_TEXT_IDENTIFIER);
+        final Collection<String> terms = new HashSet<>();
+        final int maxTerms = featureSetting.getMaxTerms();
+        if (maxTerms > 0) {
+            preprocessor.apply(textValue.getText(), new TermConsumer() {
+                @Override
+                public boolean accept(String term) {
+                    terms.add(term);
+                    return terms.size() < maxTerms;
+                }
+            });
+        }
+        return terms;
+    }
+
     @Override
     public CategoryEntries classify(FeatureVector featureVector, DictionaryModel model) {
         Validate.notNull(featureVector, "featureVector must not be null");
         Validate.notNull(model, "model must not be null");
-        CategoryEntriesBuilder builder = new CategoryEntriesBuilder();
         TextValue textValue = (TextValue)featureVector.get(VECTOR_TEXT_IDENTIFIER);
-        Iterator<String> iterator = preprocessor.apply(textValue.getText());
-        Bag<String> termCounts = new Bag<>();
-        while (iterator.hasNext() && termCounts.uniqueItems().size() < featureSetting.getMaxTerms()) {
-            termCounts.add(iterator.next());
-        }
-        final CategoryEntries termSums = model.getTermCounts();
+        ScoringContext context = scoringContexts.get();
+        TermCounter termCounts = context.countTerms(textValue.getText());
+        CategoryScores categoryScores = context.getCategoryScores(model);
         final int numUniqueTerms = model.getNumUniqTerms();
         final int numDocs = model.getNumDocuments();
         final int numTerms = model.getNumTerms();
         final boolean scoreNonMatches = scorer.scoreNonMatches();
-        final Set<String> matchedCategories = new HashSet<>();
+        // the built-in scorers do not need the term, so we can avoid creating a string for each one; check the exact
+        // class, as subclasses might override the scoring and make use of the term
+        Class<?> scorerClass = scorer.getClass();
+        final boolean passTerms = scorerClass != DefaultScorer.class && scorerClass != BayesScorer.class;
+        // getIndex might grow the arrays of the category scores (for categories which are not in the model's term or
+        // document counts), so they are always accessed through the fields
+        categoryScores.reset();
 
-        for (Entry<String, Integer> termCount : termCounts.unique()) {
-            String term = termCount.getKey();
+        for (int termIdx = 0; termIdx < termCounts.size(); termIdx++) {
+            CharSequence term = termCounts.getTerm(termIdx);
+            String termString = passTerms ? term.toString() : null;
             CategoryEntries categoryEntries = model.getCategoryEntries(term);
-            int docCount = termCount.getValue();
+            int docCount = termCounts.getCount(termIdx);
             int dictCount = categoryEntries.getTotalCount();
             for (Category category : categoryEntries) {
                 String categoryName = category.getName();
-                int categorySum = termSums.getCount(categoryName);
+                int categoryIdx = categoryScores.getIndex(categoryName);
+                int categorySum = categoryScores.termSums[categoryIdx];
                 int count = category.getCount();
-                double score = scorer.score(term, categoryName, count, dictCount, docCount, categorySum, numUniqueTerms,
-                        numDocs, numTerms);
-                builder.add(categoryName, score);
+                double score = scorer.score(termString, categoryName, count, dictCount, docCount,
+                        categorySum, numUniqueTerms, numDocs, numTerms);
+                categoryScores.add(categoryIdx, score);
                 if (scoreNonMatches) {
-                    matchedCategories.add(categoryName);
+                    categoryScores.matched[categoryIdx] = true;
                 }
             }
             // do the scoring for the non-matches; i.e. term-category combinations with count zero;
             // this is necessary e.g. for smoothing during the Bayes scoring. It's only done in case it is explicitly
             // requested by Scorer#scoreNonMatches, because it takes time (especially with lots of categories).
             if (scoreNonMatches) {
-                for (Category category : termSums) {
-                    String categoryName = category.getName();
-                    if (!matchedCategories.contains(categoryName)) {
-                        int categorySum = category.getCount();
-                        double score = scorer.score(term, categoryName, 0, dictCount, docCount, categorySum,
-                                numUniqueTerms, numDocs, numTerms);
-                        builder.add(categoryName, score);
+                for (int categoryIdx : categoryScores.termSumIndices) {
+                    if (!categoryScores.matched[categoryIdx]) {
+                        int categorySum = categoryScores.termSums[categoryIdx];
+                        double score = scorer.score(termString, categoryScores.names[categoryIdx], 0,
+                                dictCount, docCount, categorySum, numUniqueTerms, numDocs, numTerms);
+                        categoryScores.add(categoryIdx, score);
                     }
                 }
-                matchedCategories.clear();
+                Arrays.fill(categoryScores.matched, false);
+            }
+        }
+        double totalScore = 0;
+        for (int categoryIdx = 0; categoryIdx < categoryScores.size; categoryIdx++) {
+            totalScore += categoryScores.scores[categoryIdx];
+        }
+        boolean matched = totalScore != 0;
+        IndexedCategoryEntriesBuilder builder = categoryScores.getBuilder();
+        for (int categoryIdx = 0; categoryIdx < categoryScores.size; categoryIdx++) {
+            if (categoryScores.scored[categoryIdx]) {
+                builder.set(categoryIdx, categoryScores.scores[categoryIdx]);
             }
         }
-        boolean matched = builder.getTotalScore() != 0;
         for (Category category : model.getDocumentCounts()) {
             String categoryName = category.getName();
-            double termScore = builder.getScore(categoryName);
+            int categoryIdx = categoryScores.getIndex(categoryName);
+            double termScore = categoryScores.scores[categoryIdx];
             double categoryProbability = category.getProbability();
             double newScore = scorer.scoreCategory(categoryName, termScore, categoryProbability, matched);
-            builder.set(categoryName, newScore);
+            builder.set(categoryIdx, newScore);
         }
         return builder.create();
     }
@@ -280,4 +366,186 @@ public class PalladianTextClassifier extends AbstractLearner<DictionaryModel> im
         return this.getClass().getSimpleName() + "[scorer=" + scorer + ", featureSetting=" + featureSetting + "]";
     }
 
+    /**
+     * Scratch space for one thread; keeps the buffers and the counts for the terms of the currently classified text,
+     * so that they can be reused for subsequent classifications.
+     */
+    private final class ScoringContext implements TermConsumer {
+
+        /** The text for extracting character n-grams, lowercased and padded if requested. */
+        final StringBuilder text = new StringBuilder();
+
+        /** Buffer with the terms, in case they are extracted through the {@link Preprocessor}. */
+        final StringBuilder terms = new StringBuilder();
+
+        final TermCounter termCounter = new TermCounter();
+
+        CategoryScores categoryScores;
+
+        /**
+         * Extract and count the terms from the given text, up to the configured maximum of unique terms. Character
+         * n-grams are counted as windows over the text, without creating any strings, as long as neither stemming
+         * nor stopword removal are enabled.
+         */
+        TermCounter countTerms(String input) {
+            int maxTerms = featureSetting.getMaxTerms();
+            if (featureSetting.getTextFeatureType() == TextFeatureType.CHAR_NGRAMS && !featureSetting.isStem()
+                    && !featureSetting.isRemoveStopwords()) {
+                int minLength = featureSetting.getMinNGramLength();
+                int maxLength = featureSetting.getMaxNGramLength();
+                boolean padding = featureSetting.isCharacterPadding();
+                text.setLength(0);
+                if (padding) {
+                    appendPadding(maxLength - 1);
+                }
+                text.append(featureSetting.isCaseSensitive() ? input : input.toLowerCase());
+                if (padding) {
+                    appendPadding(maxLength - 1);
+                }
+                termCounter.reset(text);
+                int textLength = text.length();
+                for (int offset = 0; offset + minLength <= textLength; offset++) {
+                    for (int length = minLength; length <= maxLength && offset + length <= textLength; length++) {
+                        if (onlyPadding(offset, length)) { // same as in CharacterNGramTokenizer
+                            continue;
+                        }
+                        if (termCounter.size() >= maxTerms) {
+                            return termCounter;
+                        }
+                        termCounter.add(offset, length);
+                    }
+                }
+            } else if (maxTerms > 0) {
+                terms.setLength(0);
+                termCounter.reset(terms);
+                preprocessor.apply(input, this);
+            }
+            return termCounter;
+        }
+
+        @Override
+        public boolean accept(String term) {
+            int start = terms.length();
+            terms.append(term);
+            if (!termCounter.add(start, term.length())) {
+                terms.setLength(start);
+            }
+            return termCounter.size() < featureSetting.getMaxTerms();
+        }
+
+        private void appendPadding(int count) {
+            for (int i = 0; i < count; i++) {
+                text.append(PADDING_CHARACTER);
+            }
+        }
+
+        private boolean onlyPadding(int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                if (text.charAt(i) != PADDING_CHARACTER) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        CategoryScores getCategoryScores(DictionaryModel model) {
+            if (categoryScores == null || categoryScores.model.get() != model) {
+                categoryScores = new CategoryScores(model);
+            }
+            return categoryScores;
+        }
+
+    }
+
+    /** Maps the category names of a model to int indices and holds the score accumulators. */
+    private static final class CategoryScores {
+
+        /** The model; weakly referenced, so that the thread's context does not keep it from being collected. */
+        final WeakReference<DictionaryModel> model;
+
+        final Map<String, Integer> indices = new HashMap<>();
+
+        String[] names = new String[0];
+
+        int[] termSums = new int[0];
+
+        double[] scores = new double[0];
+
+        /** Whether a score was added for a category (the builder contains the category in this case). */
+        boolean[] scored = new boolean[0];
+
+        /** Whether a category was matched by the current term. */
+        boolean[] matched = new boolean[0];
+
+        /** Indices of the categories with term counts, in the iteration order of the model's term counts. */
+        final int[] termSumIndices;
+
+        int size;
+
+        /** The builder for the results; recreated in case categories were added to the index. */
+        IndexedCategoryEntriesBuilder builder;
+
+        CategoryScores(DictionaryModel model) {
+            this.model = new WeakReference<>(model);
+            CategoryEntries termCounts = model.getTermCounts();
+            termSumIndices = new int[termCounts.size()];
+            int i = 0;
+            for (Category category : termCounts) {
+                int categoryIdx = getIndex(category.getName());
+                termSums[categoryIdx] = category.getCount();
+                termSumIndices[i++] = categoryIdx;
+            }
+            for (Category category : model.getDocumentCounts()) {
+                getIndex(category.getName());
+            }
+        }
+
+        /** Get the index for the given category name; unknown categories are added. */
+        int getIndex(String categoryName) {
+            Integer index = indices.get(categoryName);
+            if (index != null) {
+                return index;
+            }
+            if (size == names.length) {
+                int capacity = Math.max(8, 2 * size);
+                names = Arrays.copyOf(names, capacity);
+                termSums = Arrays.copyOf(termSums, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+                scored = Arrays.copyOf(scored, capacity);
+                matched = Arrays.copyOf(matched, capacity);
+            }
+            names[size] = categoryName;
+            indices.put(categoryName, size);
+            return size++;
+        }
+
+        /** Clear the scores of the previous classification. */
+        void reset() {
+            Arrays.fill(scores, 0);
+            Arrays.fill(scored, false);
+        }
+
+        /** Get the (cleared) builder for the results, which uses the indices of this class. */
+        IndexedCategoryEntriesBuilder getBuilder() {
+            if (builder == null || builder.getCategoryIndex().size() != size) {
+                builder = new IndexedCategoryEntriesBuilder(new CategoryIndex(Arrays.asList(names).subList(0, size)));
+            } else {
+                builder.clear();
+            }
+            return builder;
+        }
+
+        void add(int categoryIdx, double score) {
+            if (Double.isNaN(score)) {
+                throw new IllegalArgumentException("value was NaN");
+            }
+            if (Double.isInfinite(score)) {
+                throw new IllegalArgumentException("value was infinite");
+            }
+            scores[categoryIdx] += score;
+            scored[categoryIdx] = true;
+        }
+
+    }
+
 }
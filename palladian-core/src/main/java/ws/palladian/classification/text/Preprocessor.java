@@ -1,79 +1,229 @@
 package ws.palladian.classification.text;
 
+import static java.util.regex.Pattern.CASE_INSENSITIVE;
+import static java.util.regex.Pattern.DOTALL;
+
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.Validate;
 
 import ws.palladian.classification.text.FeatureSetting.TextFeatureType;
-import ws.palladian.core.Token;
 import ws.palladian.extraction.feature.Stemmer;
 import ws.palladian.extraction.feature.StopWordRemover;
-import ws.palladian.extraction.token.CharacterNGramTokenizer;
-import ws.palladian.extraction.token.NGramWrapperIterator;
-import ws.palladian.extraction.token.WordTokenizer;
-import ws.palladian.helper.collection.CollectionHelper;
-import java.util.function.Function;
-import java.util.function.Predicate;
+import ws.palladian.extraction.token.Tokenizer;
 
+/**
+ * <p>
+ * Extracts the terms from a text, as specified by a {@link FeatureSetting}. Besides the {@link Iterator}-based
+ * {@link #apply(String)}, terms can be streamed to a {@link TermConsumer} using {@link #apply(String, TermConsumer)};
+ * this avoids the intermediate token objects and allows to stop the extraction early, e.g. when the maximum number of
+ * terms has been reached. To collect all terms, use {@link #collect(String, Collection)}.
+ *
+ * <p>
+ * Instances are thread-safe; the {@link Stemmer}, which is not thread-safe, is created once per thread and reused, the
+ * stop words are loaded once.
+ *
+ * @author Philipp Katz
+ */
 public class Preprocessor implements Function<String, Iterator<String>> {
 
+    /**
+     * Callback which receives the terms extracted by a {@link Preprocessor}.
+     *
+     * @author Philipp Katz
+     */
+    public interface TermConsumer {
+        /**
+         * Receive a term.
+         *
+         * @param term The term.
+         * @return <code>true</code> to continue extracting terms, <code>false</code> to stop.
+         */
+        boolean accept(String term);
+    }
+
+    private static final Pattern TOKEN_PATTERN = Pattern.compile(Tokenizer.TOKEN_SPLIT_REGEX, DOTALL | CASE_INSENSITIVE);
+
+    /** Character used to fill up left/right padding; same as in {@link ws.palladian.extraction.token.CharacterNGramTokenizer}. */
+    private static final char PADDING_CHARACTER = '#';
+
+    private static final char SPACE = ' ';
+
     private final FeatureSetting featureSetting;
 
-    public Preprocessor(FeatureSetting featureSetting) {
+    /** The stop word remover, or <code>null</code> in case no stop words should be removed. */
+    private final StopWordRemover stopWordRemover;
+
+    /** Stemmers for each thread, or <code>null</code> in case stemming is disabled. */
+    private final ThreadLocal<Stemmer> stemmers;
+
+    public Preprocessor(final FeatureSetting featureSetting) {
         Validate.notNull(featureSetting, "featureSetting must not be null");
         this.featureSetting = featureSetting;
+        this.stopWordRemover = featureSetting.isRemoveStopwords() ? new StopWordRemover(featureSetting.getLanguage())
+                : null;
+        this.stemmers = featureSetting.isStem() ? new ThreadLocal<Stemmer>() {
+            @Override
+            protected Stemmer initialValue() {
+                return new Stemmer(featureSetting.getLanguage());
+            }
+        } : null;
     }
 
+    /**
+     * Extract the terms from the given text. All terms are extracted before the iterator is returned; prefer
+     * {@link #apply(String, TermConsumer)} or {@link #collect(String, Collection)} to avoid the intermediate list.
+     */
     @Override
     public Iterator<String> apply(String input) {
+        return collect(input, new ArrayList<String>()).iterator();
+    }
+
+    /**
+     * Extract the terms from the given text and add them to the given collection.
+     *
+     * @param input The text, not <code>null</code>.
+     * @param terms The collection to which the terms are added, not <code>null</code>.
+     * @return The given collection.
+     */
+    public <C extends Collection<? super String>> C collect(String input, final C terms) {
+        Validate.notNull(terms, "terms must not be null");
+        apply(input, new TermConsumer() {
+            @Override
+            public boolean accept(String term) {
+                terms.add(term);
+                return true;
+            }
+        });
+        return terms;
+    }
+
+    /**
+     * Extract the terms from the given text and pass them to the consumer, until all terms have been extracted, or the
+     * consumer requests to stop.
+     *
+     * @param input The text, not <code>null</code>.
+     * @param consumer The consumer which receives the terms, not <code>null</code>.
+     */
+    public void apply(String input, TermConsumer consumer) {
+        Validate.notNull(input, "input must not be null");
+        Validate.notNull(consumer, "consumer must not be null");
         String content = input;
         if (!featureSetting.isCaseSensitive()) {
             content = content.toLowerCase();
         }
-        int minNGramLength = featureSetting.getMinNGramLength();
-        int maxNGramLength = featureSetting.getMaxNGramLength();
-        Iterator<Token> tokenIterator;
         if (featureSetting.getTextFeatureType() == TextFeatureType.CHAR_NGRAMS) {
-            tokenIterator = new CharacterNGramTokenizer(minNGramLength, maxNGramLength,
-                    featureSetting.isCharacterPadding()).iterateTokens(content);
+            extractCharNGrams(content, consumer);
         } else if (featureSetting.getTextFeatureType() == TextFeatureType.WORD_NGRAMS) {
-            tokenIterator = new WordTokenizer().iterateTokens(content);
-            tokenIterator = new NGramWrapperIterator(tokenIterator, minNGramLength, maxNGramLength);
-            if (featureSetting.isCreateSkipGrams()) {
-            	tokenIterator = new SkipGramWrapperIterator(tokenIterator);
-            }
+            extractWordNGrams(content, consumer);
         } else {
             throw new UnsupportedOperationException("Unsupported feature type: " + featureSetting.getTextFeatureType());
         }
-        if (featureSetting.getTextFeatureType() == TextFeatureType.WORD_NGRAMS) {
-            tokenIterator = CollectionHelper.filter(tokenIterator, new Predicate<Token>() {
-                int minTermLength = featureSetting.getMinimumTermLength();
-                int maxTermLength = featureSetting.getMaximumTermLength();
-
-                @Override
-                public boolean test(Token item) {
-                    return item.getValue().length() >= minTermLength && item.getValue().length() <= maxTermLength;
+    }
+
+    private void extractCharNGrams(String content, TermConsumer consumer) {
+        int minLength = featureSetting.getMinNGramLength();
+        int maxLength = featureSetting.getMaxNGramLength();
+        String text = content;
+        if (featureSetting.isCharacterPadding()) {
+            StringBuilder padded = new StringBuilder(content.length() + 2 * (maxLength - 1));
+            appendPadding(padded, maxLength - 1);
+            padded.append(content);
+            appendPadding(padded, maxLength - 1);
+            text = padded.toString();
+        }
+        int textLength = text.length();
+        for (int offset = 0; offset + minLength <= textLength; offset++) {
+            for (int length = minLength; length <= maxLength && offset + length <= textLength; length++) {
+                if (onlyPadding(text, offset, length)) {
+                    continue; // skip tokens which only consist of padding character
+                }
+                if (!emit(text.substring(offset, offset + length), consumer)) {
+                    return;
                 }
-            });
+            }
         }
-        // XXX looks a bit "magic" to me, does that really improve results in general?
-        /* tokenIterator = CollectionHelper.filter(tokenIterator, new Filter<Token>() {
-            @Override
-            public boolean accept(Token item) {
-                String value = item.getValue();
-                return !StringHelper.containsAny(value, Arrays.asList("&", "/", "=")) && !StringHelper.isNumber(value);
+    }
+
+    private static void appendPadding(StringBuilder builder, int count) {
+        for (int i = 0; i < count; i++) {
+            builder.append(PADDING_CHARACTER);
+        }
+    }
+
+    private static boolean onlyPadding(String text, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (text.charAt(i) != PADDING_CHARACTER) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Extract word n-grams; the order corresponds to the one of the
+     * {@link ws.palladian.extraction.token.NGramWrapperIterator}, i.e. for each token,
+     * all n-grams starting at this token are emitted, ordered by length.
+     */
+    private void extractWordNGrams(String content, TermConsumer consumer) {
+        int minLength = featureSetting.getMinNGramLength();
+        int maxLength = featureSetting.getMaxNGramLength();
+        // ring buffer with the current window of tokens
+        String[] window = new String[maxLength];
+        int head = 0;
+        int size = 0;
+        Matcher matcher = TOKEN_PATTERN.matcher(content);
+        boolean moreTokens = true;
+        StringBuilder nGram = new StringBuilder();
+        for (;;) {
+            while (size < maxLength && (moreTokens = moreTokens && matcher.find())) {
+                window[(head + size++) % maxLength] = matcher.group();
             }
-        }); */
-        Iterator<String> tokenStringIterator = CollectionHelper.convert(tokenIterator, Token.VALUE_CONVERTER);
-        if (featureSetting.isRemoveStopwords()) {
-            tokenStringIterator = CollectionHelper.filter(tokenStringIterator,
-                    new StopWordRemover(featureSetting.getLanguage()));
+            if (size < minLength) {
+                return;
+            }
+            nGram.setLength(0);
+            for (int length = 1; length <= Math.min(maxLength, size); length++) {
+                if (length > 1) {
+                    nGram.append(SPACE);
+                }
+                nGram.append(window[(head + length - 1) % maxLength]);
+                if (length < minLength) {
+                    continue;
+                }
+                if (!emitWordNGram(nGram.toString(), consumer)) {
+                    return;
+                }
+                if (featureSetting.isCreateSkipGrams() && length > 2) {
+                    String skipGram = window[head] + SPACE + window[(head + length - 1) % maxLength];
+                    if (!emitWordNGram(skipGram, consumer)) {
+                        return;
+                    }
+                }
+            }
+            head = (head + 1) % maxLength;
+            size--;
         }
-        if (featureSetting.isStem()) {
-            tokenStringIterator = CollectionHelper.convert(tokenStringIterator,
-                    new Stemmer(featureSetting.getLanguage()));
+    }
+
+    private boolean emitWordNGram(String term, TermConsumer consumer) {
+        int length = term.length();
+        if (length < featureSetting.getMinimumTermLength() || length > featureSetting.getMaximumTermLength()) {
+            return true;
+        }
+        return emit(term, consumer);
+    }
+
+    private boolean emit(String term, TermConsumer consumer) {
+        if (stopWordRemover != null && stopWordRemover.isStopWord(term)) {
+            return true;
         }
-        return tokenStringIterator;
+        return consumer.accept(stemmers != null ? stemmers.get().apply(term) : term);
     }
 
 }
@@ -0,0 +1,172 @@
+package ws.palladian.classification.text;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Counts terms, which are given as windows (start and length) into a {@link CharSequence}, without materializing them
+ * as {@link String}s. Internally, this is an open addressing hash table with primitive arrays; the hash of a window is
+ * computed directly from the characters. Terms are kept in insertion order. An instance can be reused by invoking
+ * {@link #reset(CharSequence)}, this way no allocations happen once the arrays have grown large enough.
+ *
+ * <p>
+ * This class is not thread-safe; it is meant to be used as thread-confined scratch space.
+ *
+ * @author Philipp Katz
+ */
+final class TermCounter {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** The sequence into which the windows point. */
+    private CharSequence source;
+
+    private int[] starts = new int[INITIAL_CAPACITY];
+
+    private int[] lengths = new int[INITIAL_CAPACITY];
+
+    private int[] hashes = new int[INITIAL_CAPACITY];
+
+    private int[] counts = new int[INITIAL_CAPACITY];
+
+    /** Hash table; contains the term index + 1, or zero for empty slots. */
+    private int[] table = new int[2 * INITIAL_CAPACITY];
+
+    private int size;
+
+    /** Reusable window which is handed out through {@link #getTerm(int)}. */
+    private final Window window = new Window();
+
+    /**
+     * Reset this counter and use the given source for the following windows.
+     *
+     * @param source The source sequence.
+     */
+    void reset(CharSequence source) {
+        this.source = source;
+        if (size > 0) {
+            Arrays.fill(table, 0);
+            size = 0;
+        }
+    }
+
+    /**
+     * Count a window in the source.
+     *
+     * @param start The start of the window.
+     * @param length The length of the window.
+     * @return <code>true</code> in case the term was not present before.
+     */
+    boolean add(int start, int length) {
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        int mask = table.length - 1;
+        for (int slot = mix(hash) & mask;; slot = (slot + 1) & mask) {
+            int index = table[slot] - 1;
+            if (index < 0) {
+                if (size == starts.length) {
+                    grow();
+                    return add(start, length);
+                }
+                starts[size] = start;
+                lengths[size] = length;
+                hashes[size] = hash;
+                counts[size] = 1;
+                table[slot] = ++size;
+                return true;
+            }
+            if (hashes[index] == hash && equal(starts[index], lengths[index], start, length)) {
+                counts[index]++;
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return The number of distinct terms.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param index The index of the term, in insertion order.
+     * @return The count of the term.
+     */
+    int getCount(int index) {
+        return counts[index];
+    }
+
+    /**
+     * @param index The index of the term, in insertion order.
+     * @return A view on the term; note that the returned instance is reused on subsequent invocations.
+     */
+    CharSequence getTerm(int index) {
+        window.start = starts[index];
+        window.length = lengths[index];
+        return window;
+    }
+
+    private boolean equal(int start1, int length1, int start2, int length2) {
+        if (length1 != length2) {
+            return false;
+        }
+        for (int i = 0; i < length1; i++) {
+            if (source.charAt(start1 + i) != source.charAt(start2 + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void grow() {
+        int capacity = starts.length * 2;
+        starts = Arrays.copyOf(starts, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        hashes = Arrays.copyOf(hashes, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+        table = new int[2 * capacity];
+        int mask = table.length - 1;
+        for (int index = 0; index < size; index++) {
+            int slot = mix(hashes[index]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = index + 1;
+        }
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    /** A view on a region of the source. */
+    private final class Window implements CharSequence {
+        int start;
+        int length;
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return source.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return source.subSequence(this.start + start, this.start + end);
+        }
+
+        @Override
+        public String toString() {
+            return source.subSequence(start, start + length).toString();
+        }
+    }
+
+}
@@ -1,16 +1,27 @@
 package ws.palladian.classification.utils;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ws.palladian.core.*;
+import ws.palladian.core.dataset.Dataset;
 import ws.palladian.core.dataset.csv.CsvDatasetWriter;
 import ws.palladian.core.value.NullValue;
 import ws.palladian.core.value.Value;
+import ws.palladian.helper.collection.AbstractIterator2;
 import ws.palladian.helper.collection.Vector.VectorEntry;
 import ws.palladian.helper.io.FileHelper;
 
@@ -30,6 +41,12 @@ public final class ClassificationUtils {
     /** The default separator which is assumed for separating instance attributes when reading/writing to/from files. */
     public static final String DEFAULT_SEPARATOR = ";";
 
+    /** The number of instances which are classified together by {@link #classify(Classifier, Model, Iterable)}. */
+    private static final int BATCH_SIZE = 1000;
+
+    /** The number of instances which are read at once for processing a dataset in parallel. */
+    private static final int PARALLEL_CHUNK_SIZE = 10000;
+
     private ClassificationUtils() {
         // Should not be instantiated.
     }
@@ -314,6 +331,110 @@ public final class ClassificationUtils {
         return mergedCategoryEntries.create();
     }
 
+    /**
+     * <p>
+     * Classify the given instances in batches, using {@link Classifier#classify(List, Model)}. This way, classifiers
+     * with an optimized batch implementation avoid their per-call overhead, while the data is still only iterated
+     * once, and not kept in memory completely.
+     * </p>
+     * 
+     * @param classifier The classifier, not <code>null</code>.
+     * @param model The model, not <code>null</code>.
+     * @param data The instances to classify, not <code>null</code>.
+     * @return An iterable with pairs of instance and classification result, in the order of the given data.
+     */
+    public static <M extends Model> Iterable<Pair<Instance, CategoryEntries>> classify(final Classifier<M> classifier,
+            final M model, final Iterable<? extends Instance> data) {
+        Validate.notNull(classifier, "classifier must not be null");
+        Validate.notNull(model, "model must not be null");
+        Validate.notNull(data, "data must not be null");
+        return new Iterable<Pair<Instance, CategoryEntries>>() {
+            @Override
+            public Iterator<Pair<Instance, CategoryEntries>> iterator() {
+                final Iterator<? extends Instance> instanceIterator = data.iterator();
+                return new AbstractIterator2<Pair<Instance, CategoryEntries>>() {
+                    final List<Instance> batch = new ArrayList<>();
+                    final List<FeatureVector> vectors = new ArrayList<>();
+                    List<CategoryEntries> results;
+                    int index;
+
+                    @Override
+                    protected Pair<Instance, CategoryEntries> getNext() {
+                        if (results == null || index == results.size()) {
+                            batch.clear();
+                            vectors.clear();
+                            while (batch.size() < BATCH_SIZE && instanceIterator.hasNext()) {
+                                Instance instance = instanceIterator.next();
+                                batch.add(instance);
+                                vectors.add(instance.getVector());
+                            }
+                            if (batch.isEmpty()) {
+                                return finished();
+                            }
+                            results = classifier.classify(vectors, model);
+                            index = 0;
+                        }
+                        Instance instance = batch.get(index);
+                        return Pair.of(instance, results.get(index++));
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * <p>
+     * Process a dataset using multiple threads. The instances are read in chunks of {@value #PARALLEL_CHUNK_SIZE}, so
+     * that the dataset does not need to fit into memory; each chunk is split into one contiguous slice per thread, and
+     * the slices are processed on a {@link ForkJoinPool}. The results of the slices are passed to the given consumer on
+     * the calling thread, in the order of the instances in the dataset.
+     * </p>
+     * 
+     * @param dataset The dataset to process, not <code>null</code>.
+     * @param numThreads The number of threads to use, greater zero.
+     * @param sliceProcessor The function which processes one slice of instances, not <code>null</code>; invoked
+     *            concurrently.
+     * @param resultConsumer The consumer for the results of the slices, not <code>null</code>.
+     */
+    public static <R> void processParallel(Dataset dataset, int numThreads,
+            final Function<? super List<Instance>, ? extends R> sliceProcessor, Consumer<? super R> resultConsumer) {
+        Validate.notNull(dataset, "dataset must not be null");
+        Validate.isTrue(numThreads > 0, "numThreads must be greater zero");
+        Validate.notNull(sliceProcessor, "sliceProcessor must not be null");
+        Validate.notNull(resultConsumer, "resultConsumer must not be null");
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        try {
+            List<Instance> chunk = new ArrayList<>(PARALLEL_CHUNK_SIZE);
+            for (Iterator<Instance> iterator = dataset.iterator(); iterator.hasNext();) {
+                chunk.add(iterator.next());
+                if (chunk.size() == PARALLEL_CHUNK_SIZE || !iterator.hasNext()) {
+                    List<Callable<R>> tasks = new ArrayList<>();
+                    int sliceSize = (chunk.size() + numThreads - 1) / numThreads;
+                    for (int start = 0; start < chunk.size(); start += sliceSize) {
+                        final List<Instance> slice = chunk.subList(start, Math.min(start + sliceSize, chunk.size()));
+                        tasks.add(new Callable<R>() {
+                            @Override
+                            public R call() {
+                                return sliceProcessor.apply(slice);
+                            }
+                        });
+                    }
+                    for (Future<R> future : pool.invokeAll(tasks)) {
+                        resultConsumer.accept(future.get());
+                    }
+                    chunk = new ArrayList<>(PARALLEL_CHUNK_SIZE);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     // /**
     // * <p>
     // * Get a {@link NumericFeature} with all numeric values from the given {@link Classifiable}. Note: This is just a
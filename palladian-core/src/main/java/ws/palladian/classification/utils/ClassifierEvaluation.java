@@ -6,6 +6,7 @@ import java.util.Collections;
 import java.util.List;
 
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.tuple.Pair;
 
 import ws.palladian.classification.evaluation.ClassificationEvaluator;
 import ws.palladian.classification.evaluation.ThresholdAnalysisEvaluator;
@@ -42,6 +43,10 @@ public final class ClassifierEvaluation {
     public static <M extends Model> ConfusionMatrix evaluate(Classifier<M> classifier,
             Iterable<? extends Instance> testData, M... models) {
 
+        if (models.length == 1) {
+            return evaluate(classifier, models[0], testData);
+        }
+
         ConfusionMatrix confusionMatrix = new ConfusionMatrix();
 
         for (Instance testInstance : testData) {
@@ -65,10 +70,9 @@ public final class ClassifierEvaluation {
 
         ConfusionMatrix confusionMatrix = new ConfusionMatrix();
 
-        for (Instance testInstance : testData) {
-            CategoryEntries classification = classifier.classify(testInstance.getVector(), model);
-            String classifiedCategory = classification.getMostLikelyCategory();
-            String realCategory = testInstance.getCategory();
+        for (Pair<Instance, CategoryEntries> result : ClassificationUtils.classify(classifier, model, testData)) {
+            String classifiedCategory = result.getRight().getMostLikelyCategory();
+            String realCategory = result.getLeft().getCategory();
             confusionMatrix.add(realCategory, classifiedCategory);
         }
 
@@ -107,10 +111,9 @@ public final class ClassifierEvaluation {
 
         ThresholdAnalyzer thresholdAnalyzer = new ThresholdAnalyzer(100);
 
-        for (Instance testInstance : testData) {
-            CategoryEntries classification = classifier.classify(testInstance.getVector(), model);
-            double probability = classification.getProbability(correctClass);
-            String realCategory = testInstance.getCategory();
+        for (Pair<Instance, CategoryEntries> result : ClassificationUtils.classify(classifier, model, testData)) {
+            double probability = result.getRight().getProbability(correctClass);
+            String realCategory = result.getLeft().getCategory();
             thresholdAnalyzer.add(realCategory.equals(correctClass), probability);
         }
 
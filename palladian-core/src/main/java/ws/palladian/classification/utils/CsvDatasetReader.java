@@ -1,11 +1,26 @@
 package ws.palladian.classification.utils;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
@@ -27,6 +42,7 @@ import ws.palladian.helper.collection.AbstractIterator2;
 import ws.palladian.helper.collection.CollectionHelper;
 import ws.palladian.helper.io.CloseableIterator;
 import ws.palladian.helper.io.CsvReader;
+import ws.palladian.helper.io.DelimitedStringHelper;
 import ws.palladian.helper.io.FileHelper;
 import ws.palladian.helper.nlp.StringPool;
 
@@ -48,6 +64,11 @@ import ws.palladian.helper.nlp.StringPool;
  * {@link CsvDatasetReaderConfig.Builder#parser(String, ValueParser)} method.
  * </p>
  * 
+ * <p>
+ * For big files, parsing can be distributed on multiple threads using
+ * {@link CsvDatasetReaderConfig.Builder#parallel(int)}.
+ * </p>
+ * 
  * @author Philipp Katz
  */
 public class CsvDatasetReader extends AbstractDataset {
@@ -72,7 +93,7 @@ public class CsvDatasetReader extends AbstractDataset {
 		@Override
 		protected Instance getNext() {
 
-			if (instanceCounter == config.getLimit() + 1) {
+			if (instanceCounter == config.getLimit()) {
 				LOGGER.debug("Limit of {} reached, stopping", config.getLimit());
 				return finished();
 			}
@@ -89,18 +110,11 @@ public class CsvDatasetReader extends AbstractDataset {
 				return next();
 			}
 
-			if (splitLine.size() < 2) {
-				throw new IllegalStateException("Separator '" + config.fieldSeparator()
-						+ "' was not found, lines cannot be split ('" + csvReader.getLineNumber() + "').");
-			}
-			if (expectedColumns != splitLine.size()) {
-				throw new IllegalStateException("Unexpected number of entries in line " + csvReader.getLineNumber()
-						+ " (" + splitLine.size() + ", but should be " + expectedColumns + ")");
-			}
+			checkLine(splitLine, csvReader.getLineNumber());
 
 			instanceCounter++;
 
-			Instance instance = parseInstance(splitLine);
+			Instance instance = parseInstance(splitLine, csvReader.getLineNumber());
 			if (instanceCounter % LOG_EVERY_N_LINES == 0) {
 				LOGGER.debug("Read {} lines in {}", instanceCounter, stopWatch);
 			}
@@ -108,56 +122,194 @@ public class CsvDatasetReader extends AbstractDataset {
 
 		}
 
-		private Instance parseInstance(List<String> splitLine) {
-			FlyweightVectorBuilder builder = vectorSchema.builder();
-			for (int f = 0; f < splitLine.size() - (config.readClassFromLastColumn() ? 1 : 0); f++) {
-				String name = headNames[f];
-				if (name == null) {
-					continue;
-				}
-				String value = splitLine.get(f);
-				if (config.isTrim()) {
-					value = value.trim();
+        @Override
+        public void close() throws IOException {
+        	csvReader.close();
+        }
+    }
+
+	/**
+	 * Iterator which parses in parallel. A reader thread cuts the input into
+	 * chunks of complete records (respecting line breaks within quotes), which
+	 * are split and parsed on the worker threads. The number of chunks in
+	 * flight is limited, so that reading does not run ahead of consumption.
+	 */
+	private final class ParallelCsvDatasetIterator extends AbstractIterator2<Instance>
+			implements CloseableIterator<Instance> {
+		final ExecutorService executor;
+		final Semaphore permits;
+		final BlockingQueue<Future<List<Instance>>> chunks = new LinkedBlockingQueue<>();
+		/** The total number of chunks; set by the reader thread once all chunks have been submitted. */
+		volatile int numChunks = -1;
+		int consumedChunks;
+		Iterator<Instance> currentChunk = Collections.emptyIterator();
+		boolean closed;
+
+		ParallelCsvDatasetIterator() {
+			int numThreads = config.numThreads();
+			permits = new Semaphore(2 * numThreads);
+			executor = Executors.newFixedThreadPool(numThreads + 1, new ThreadFactory() {
+				final AtomicInteger threadCount = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "CsvDatasetReader-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
 				}
-				Value parsedValue;
-				if (config.isNullValue(value)) {
-					parsedValue = NullValue.NULL;
-				} else {
+			});
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
 					try {
-						parsedValue = parsers[f].parse(value);
-					} catch (ValueParserException e) {
-						throw new IllegalStateException(
-								"Could not parse value \"" + value + "\" in column \"" + name + "\", row "
-										+ csvReader.getLineNumber() + " using " + parsers[f].getClass().getName() + ".",
-								e);
+						readChunks();
+					} catch (InterruptedException e) {
+						// closed
+					} catch (Exception e) {
+						FutureTask<List<Instance>> failure = new FutureTask<>(new Callable<List<Instance>>() {
+							@Override
+							public List<Instance> call() throws Exception {
+								throw e;
+							}
+						});
+						failure.run();
+						chunks.add(failure);
 					}
 				}
-				builder.set(name, parsedValue);
+			});
+		}
+
+		private void readChunks() throws IOException, InterruptedException {
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(config.openInputStream()))) {
+				char quoteCharacter = config.quoteCharacter();
+				boolean skipHeader = config.readHeader();
+				long numRecords = 0;
+				int lineNumber = 0;
+				int submittedChunks = 0;
+				StringBuilder record = new StringBuilder();
+				boolean inQuotes = false;
+				List<String> records = new ArrayList<>(PARALLEL_CHUNK_SIZE);
+				int[] lineNumbers = new int[PARALLEL_CHUNK_SIZE];
+				for (String line; numRecords < config.getLimit() && (line = reader.readLine()) != null;) {
+					lineNumber++;
+					record.append(line);
+					for (int i = 0; i < line.length(); i++) {
+						if (line.charAt(i) == quoteCharacter) {
+							inQuotes = !inQuotes;
+						}
+					}
+					if (inQuotes) { // line break within quotes, record continues on next line
+						record.append('\n');
+						continue;
+					}
+					if (skipHeader) {
+						skipHeader = false;
+					} else {
+						lineNumbers[records.size()] = lineNumber;
+						records.add(record.toString());
+						numRecords++;
+					}
+					record.setLength(0);
+					if (records.size() == PARALLEL_CHUNK_SIZE) {
+						submit(records, lineNumbers);
+						submittedChunks++;
+						records = new ArrayList<>(PARALLEL_CHUNK_SIZE);
+						lineNumbers = new int[PARALLEL_CHUNK_SIZE];
+					}
+				}
+				if (records.size() > 0) {
+					submit(records, lineNumbers);
+					submittedChunks++;
+				}
+				LOGGER.debug("Finished reading {} instances in {} chunks", numRecords, submittedChunks);
+				numChunks = submittedChunks;
+				chunks.add(END_OF_CHUNKS);
 			}
-            String targetClass;
-            if (config.readClassFromLastColumn()) {
-            	String value = splitLine.get(splitLine.size() - 1);
-            	if (config.isTrim()) {
-            		value = value.trim();
-            	}
-				targetClass = stringPool.get(value);
+		}
+
+		private void submit(final List<String> records, final int[] lineNumbers) throws InterruptedException {
+			permits.acquire();
+			Callable<List<Instance>> parser = new Callable<List<Instance>>() {
+				@Override
+				public List<Instance> call() {
+					List<Instance> instances = new ArrayList<>(records.size());
+					for (int i = 0; i < records.size(); i++) {
+						List<String> splitLine = DelimitedStringHelper.splitLine(records.get(i),
+								config.fieldSeparator(), config.quoteCharacter(), config.isUnescapeDoubleQuotes());
+						checkLine(splitLine, lineNumbers[i]);
+						instances.add(parseInstance(splitLine, lineNumbers[i]));
+					}
+					return instances;
+				}
+			};
+			if (config.isOrdered()) {
+				chunks.add(executor.submit(parser));
 			} else {
-				targetClass = Instance.NO_CATEGORY_DUMMY;
+				executor.execute(new FutureTask<List<Instance>>(parser) {
+					@Override
+					protected void done() {
+						chunks.add(this);
+					}
+				});
 			}
-			return new ImmutableInstance(builder.create(), targetClass);
 		}
 
-        @Override
-        public void close() throws IOException {
-        	csvReader.close();
-        }
-    }
+		@Override
+		protected Instance getNext() {
+			while (!currentChunk.hasNext()) {
+				if (closed || consumedChunks == numChunks) {
+					FileHelper.close(this);
+					return finished();
+				}
+				try {
+					Future<List<Instance>> chunk = chunks.take();
+					if (chunk == END_OF_CHUNKS) {
+						continue;
+					}
+					currentChunk = chunk.get().iterator();
+					consumedChunks++;
+					permits.release();
+				} catch (InterruptedException e) {
+					FileHelper.close(this);
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException(e);
+				} catch (ExecutionException e) {
+					FileHelper.close(this);
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					}
+					throw new IllegalStateException("Exception while reading " + config.filePath(), cause);
+				}
+			}
+			return currentChunk.next();
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!closed) {
+				closed = true;
+				executor.shutdownNow();
+			}
+		}
+	}
 
     /** The logger for this class. */
     private static final Logger LOGGER = LoggerFactory.getLogger(CsvDatasetReader.class);
 	
 	/** Interval for the debug logging output when reading lines. */
 	private static final int LOG_EVERY_N_LINES = 100000;
+
+	/** Number of records which are parsed together by one thread, when reading in parallel. */
+	private static final int PARALLEL_CHUNK_SIZE = 1000;
+
+	/** Marker which is put in the queue once all chunks have been submitted. */
+	private static final Future<List<Instance>> END_OF_CHUNKS = new FutureTask<>(new Callable<List<Instance>>() {
+		@Override
+		public List<Instance> call() {
+			return Collections.emptyList();
+		}
+	});
 	
 	private final CsvDatasetReaderConfig config;
 	
@@ -297,6 +449,54 @@ public class CsvDatasetReader extends AbstractDataset {
         }
     }
     
+	private void checkLine(List<String> splitLine, int lineNumber) {
+		if (splitLine.size() < 2) {
+			throw new IllegalStateException("Separator '" + config.fieldSeparator()
+					+ "' was not found, lines cannot be split ('" + lineNumber + "').");
+		}
+		if (expectedColumns != splitLine.size()) {
+			throw new IllegalStateException("Unexpected number of entries in line " + lineNumber + " ("
+					+ splitLine.size() + ", but should be " + expectedColumns + ")");
+		}
+	}
+
+	private Instance parseInstance(List<String> splitLine, int lineNumber) {
+		FlyweightVectorBuilder builder = vectorSchema.builder();
+		for (int f = 0; f < splitLine.size() - (config.readClassFromLastColumn() ? 1 : 0); f++) {
+			String name = headNames[f];
+			if (name == null) {
+				continue;
+			}
+			String value = splitLine.get(f);
+			if (config.isTrim()) {
+				value = value.trim();
+			}
+			Value parsedValue;
+			if (config.isNullValue(value)) {
+				parsedValue = NullValue.NULL;
+			} else {
+				try {
+					parsedValue = parsers[f].parse(value);
+				} catch (ValueParserException e) {
+					throw new IllegalStateException("Could not parse value \"" + value + "\" in column \"" + name
+							+ "\", row " + lineNumber + " using " + parsers[f].getClass().getName() + ".", e);
+				}
+			}
+			builder.set(name, parsedValue);
+		}
+		String targetClass;
+		if (config.readClassFromLastColumn()) {
+			String value = splitLine.get(splitLine.size() - 1);
+			if (config.isTrim()) {
+				value = value.trim();
+			}
+			targetClass = stringPool.get(value);
+		} else {
+			targetClass = Instance.NO_CATEGORY_DUMMY;
+		}
+		return new ImmutableInstance(builder.create(), targetClass);
+	}
+
 	/**
 	 * Initialize appropriate parsers for the data; either by consider the
 	 * parsers provided via configuration, or by trying to parse the value as
@@ -336,6 +536,9 @@ public class CsvDatasetReader extends AbstractDataset {
 	
 	@Override
     public CloseableIterator<Instance> iterator() {
+		if (config.numThreads() > 1) {
+			return new ParallelCsvDatasetIterator();
+		}
         return new CsvDatasetIterator();
     }
 	
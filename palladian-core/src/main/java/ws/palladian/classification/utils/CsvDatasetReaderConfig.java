@@ -43,6 +43,8 @@ public class CsvDatasetReaderConfig {
 		private char quoteCharacter = '\u0000';
 		private boolean trim = false;
 		private boolean unescapeDoubleQuotes = false;
+		private int numThreads = 1;
+		private boolean ordered = true;
 
 		private Builder(File filePath) {
 			Validate.notNull(filePath, "filePath must not be null");
@@ -277,6 +279,40 @@ public class CsvDatasetReaderConfig {
 			return this;
 		}
 
+		/**
+		 * Parse the data with multiple threads. The input is read on a
+		 * dedicated thread, which cuts it into chunks of records; the chunks
+		 * are split and parsed into instances on a pool of worker threads.
+		 * For compressed input, this pipelines decompression and parsing.
+		 * Note that all {@link ValueParser}s must be thread-safe when using
+		 * more than one thread.
+		 * 
+		 * @param numThreads
+		 *            The number of threads for parsing, one (the default)
+		 *            for parsing on the iterating thread.
+		 * @return The builder.
+		 */
+		public Builder parallel(int numThreads) {
+			Validate.isTrue(numThreads > 0, "numThreads must be greater zero");
+			this.numThreads = numThreads;
+			return this;
+		}
+
+		/**
+		 * When parsing in parallel, return the instances in the order in
+		 * which their chunks were parsed, instead of the order in the file.
+		 * This avoids waiting for slow chunks, and is useful in case the
+		 * order does not matter (e.g. for training most classifiers).
+		 * 
+		 * @param ordered
+		 *            <code>false</code> to allow an arbitrary order.
+		 * @return The builder.
+		 */
+		public Builder ordered(boolean ordered) {
+			this.ordered = ordered;
+			return this;
+		}
+
 		@Override
 		public CsvDatasetReader create() {
 			return new CsvDatasetReader(createConfig());
@@ -334,6 +370,8 @@ public class CsvDatasetReaderConfig {
 	private final char quoteCharacter;
 	private final boolean trim;
 	private final boolean unescapeDoubleQuotes;
+	private final int numThreads;
+	private final boolean ordered;
 
 	private CsvDatasetReaderConfig(Builder builder) {
 		this.filePath = builder.filePath;
@@ -349,6 +387,8 @@ public class CsvDatasetReaderConfig {
 		this.quoteCharacter = builder.quoteCharacter;
 		this.trim = builder.trim;
 		this.unescapeDoubleQuotes = builder.unescapeDoubleQuotes;
+		this.numThreads = builder.numThreads;
+		this.ordered = builder.ordered;
 	}
 
 	File filePath() {
@@ -417,4 +457,12 @@ public class CsvDatasetReaderConfig {
 	boolean isUnescapeDoubleQuotes() {
 		return unescapeDoubleQuotes;
 	}
+
+	int numThreads() {
+		return numThreads;
+	}
+
+	boolean isOrdered() {
+		return ordered;
+	}
 }
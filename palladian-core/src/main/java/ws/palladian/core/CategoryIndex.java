@@ -0,0 +1,94 @@
+package ws.palladian.core;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * <p>
+ * A registry which assigns consecutive integer indices to the category names of a {@link Model}. Classifiers can use
+ * the indices for scoring in arrays instead of maps, and produce {@link IndexedCategoryEntries} which share the
+ * registry instead of hashing and storing the category names for each result.
+ * </p>
+ *
+ * @author Philipp Katz
+ */
+public final class CategoryIndex implements Iterable<String>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String[] names;
+
+    private final Map<String, Integer> indices;
+
+    /**
+     * <p>
+     * Create a new {@link CategoryIndex}; the indices are assigned in the iteration order of the given names.
+     * </p>
+     *
+     * @param names The category names, not <code>null</code>, no duplicates.
+     */
+    public CategoryIndex(Iterable<String> names) {
+        Validate.notNull(names, "names must not be null");
+        Map<String, Integer> indices = new HashMap<>();
+        for (String name : names) {
+            Validate.notNull(name, "names must not contain null");
+            Integer existing = indices.put(name, indices.size());
+            Validate.isTrue(existing == null, "duplicate name: %s", name);
+        }
+        this.names = new String[indices.size()];
+        for (Map.Entry<String, Integer> entry : indices.entrySet()) {
+            this.names[entry.getValue()] = entry.getKey();
+        }
+        this.indices = indices;
+    }
+
+    /**
+     * @param name The category name, not <code>null</code>.
+     * @return The index of the category, or <code>-1</code> in case the category is not in this index.
+     */
+    public int indexOf(String name) {
+        Integer index = indices.get(name);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * @param index The index of the category.
+     * @return The category name.
+     * @throws IndexOutOfBoundsException In case the index is out of range.
+     */
+    public String getName(int index) {
+        return names[index];
+    }
+
+    /**
+     * @return The number of categories.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @return The category names, in the order of their indices.
+     */
+    public List<String> getNames() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return getNames().iterator();
+    }
+
+    @Override
+    public String toString() {
+        return "CategoryIndex " + Arrays.toString(names);
+    }
+
+}
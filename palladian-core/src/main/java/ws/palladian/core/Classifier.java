@@ -1,5 +1,8 @@
 package ws.palladian.core;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * <p>
  * A classifier uses a trained model to classify a feature vector into a category.
@@ -23,4 +26,23 @@ public interface Classifier<M extends Model> {
      */
     CategoryEntries classify(FeatureVector featureVector, M model);
 
+    /**
+     * <p>
+     * Classify a batch of objects with the given model. The default implementation classifies each feature vector
+     * individually; classifiers which have a considerable per-call overhead (e.g. because they call native code)
+     * should override this method with an implementation which processes the whole batch at once.
+     * </p>
+     * 
+     * @param featureVectors The feature vectors to classify.
+     * @param model The model to use for the classification.
+     * @return The classification results, in the same order as the given feature vectors.
+     */
+    default List<CategoryEntries> classify(List<? extends FeatureVector> featureVectors, M model) {
+        List<CategoryEntries> results = new ArrayList<>(featureVectors.size());
+        for (FeatureVector featureVector : featureVectors) {
+            results.add(classify(featureVector, model));
+        }
+        return results;
+    }
+
 }
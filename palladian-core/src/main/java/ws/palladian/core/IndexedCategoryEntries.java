@@ -0,0 +1,188 @@
+package ws.palladian.core;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+
+import org.apache.commons.lang3.Validate;
+
+import ws.palladian.helper.collection.AbstractIterator2;
+
+/**
+ * <p>
+ * {@link CategoryEntries} backed by primitive arrays and a shared {@link CategoryIndex}. In case all categories of the
+ * index are present, the probabilities are stored densely by category index; otherwise, the present category indices
+ * are stored in a sorted array together with their probabilities. {@link Category} objects are only created on demand
+ * for the string-based access methods, so that this class is a view on the arrays. Instances are created using the
+ * {@link IndexedCategoryEntriesBuilder}. The iteration order is by descending probability, like for the entries
+ * created by the {@link CategoryEntriesBuilder}.
+ * </p>
+ *
+ * @author Philipp Katz
+ */
+public final class IndexedCategoryEntries extends AbstractCategoryEntries {
+
+    private final CategoryIndex index;
+
+    /** The present category indices in ascending order, or <code>null</code> in case all categories are present. */
+    private final int[] categoryIndices;
+
+    private final double[] probabilities;
+
+    /** The counts, or <code>null</code> in case no counts are provided. */
+    private final int[] counts;
+
+    /** The position of the most likely category, or <code>-1</code>. */
+    private final int mostLikely;
+
+    /** The positions ordered by descending probability, lazily initialized for iteration. */
+    private volatile int[] order;
+
+    IndexedCategoryEntries(CategoryIndex index, int[] categoryIndices, double[] probabilities, int[] counts) {
+        this.index = index;
+        this.categoryIndices = categoryIndices;
+        this.probabilities = probabilities;
+        this.counts = counts;
+        int mostLikely = -1;
+        for (int position = 0; position < probabilities.length; position++) {
+            if (mostLikely == -1 || probabilities[mostLikely] < probabilities[position]) {
+                mostLikely = position;
+            }
+        }
+        this.mostLikely = mostLikely;
+    }
+
+    /**
+     * @return The category index which is shared with the model, not <code>null</code>.
+     */
+    public CategoryIndex getCategoryIndex() {
+        return index;
+    }
+
+    /** @return The position of the category in the arrays, or <code>-1</code> in case the category is not present. */
+    private int getPosition(int categoryIndex) {
+        if (categoryIndices == null) {
+            return categoryIndex >= 0 && categoryIndex < probabilities.length ? categoryIndex : -1;
+        }
+        int position = Arrays.binarySearch(categoryIndices, categoryIndex);
+        return position >= 0 ? position : -1;
+    }
+
+    private int getCategoryIndex(int position) {
+        return categoryIndices == null ? position : categoryIndices[position];
+    }
+
+    private Category createCategory(int position) {
+        String name = index.getName(getCategoryIndex(position));
+        return new ImmutableCategory(name, probabilities[position], counts != null ? counts[position] : -1);
+    }
+
+    /**
+     * <p>
+     * Retrieve the probability of a category by its index.
+     * </p>
+     *
+     * @param categoryIndex The index of the category within the {@link CategoryIndex}.
+     * @return The probability, or <code>0</code> if no such entry exists.
+     */
+    public double getProbability(int categoryIndex) {
+        int position = getPosition(categoryIndex);
+        return position >= 0 ? probabilities[position] : 0;
+    }
+
+    /**
+     * @return The index of the most likely category, or <code>-1</code> in case no categories were classified.
+     */
+    public int getMostLikelyIndex() {
+        return mostLikely >= 0 ? getCategoryIndex(mostLikely) : -1;
+    }
+
+    @Override
+    public double getProbability(String categoryName) {
+        Validate.notEmpty(categoryName, "categoryName must not be empty");
+        return getProbability(index.indexOf(categoryName));
+    }
+
+    @Override
+    public int getCount(String categoryName) {
+        Validate.notNull(categoryName, "categoryName must not be null");
+        int position = getPosition(index.indexOf(categoryName));
+        if (position < 0) {
+            return 0;
+        }
+        return counts != null ? counts[position] : -1;
+    }
+
+    @Override
+    public String getMostLikelyCategory() {
+        return mostLikely >= 0 ? index.getName(getCategoryIndex(mostLikely)) : null;
+    }
+
+    @Override
+    public Category getMostLikely() {
+        return mostLikely >= 0 ? createCategory(mostLikely) : null;
+    }
+
+    @Override
+    public boolean contains(String categoryName) {
+        Validate.notNull(categoryName, "category must not be null");
+        return getPosition(index.indexOf(categoryName)) >= 0;
+    }
+
+    @Override
+    public Category getCategory(String categoryName) {
+        Validate.notNull(categoryName, "categoryName must not be null");
+        int position = getPosition(index.indexOf(categoryName));
+        return position >= 0 ? createCategory(position) : null;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (double probability : probabilities) {
+            if (probability > 0) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public Iterator<Category> iterator() {
+        final int[] order = getOrder();
+        return new AbstractIterator2<Category>() {
+            int i = 0;
+
+            @Override
+            protected Category getNext() {
+                if (i < order.length) {
+                    return createCategory(order[i++]);
+                }
+                return finished();
+            }
+        };
+    }
+
+    private int[] getOrder() {
+        int[] order = this.order;
+        if (order == null) {
+            Integer[] positions = new Integer[probabilities.length];
+            for (int position = 0; position < positions.length; position++) {
+                positions[position] = position;
+            }
+            Arrays.sort(positions, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer p1, Integer p2) {
+                    return Double.compare(probabilities[p2], probabilities[p1]);
+                }
+            });
+            order = new int[positions.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = positions[i];
+            }
+            this.order = order;
+        }
+        return order;
+    }
+
+}
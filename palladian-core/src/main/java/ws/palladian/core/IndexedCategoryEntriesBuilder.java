@@ -0,0 +1,232 @@
+package ws.palladian.core;
+
+import java.util.Arrays;
+
+import org.apache.commons.lang3.Validate;
+
+import ws.palladian.helper.functional.Factory;
+
+/**
+ * <p>
+ * A builder for producing {@link IndexedCategoryEntries}, which works like the {@link CategoryEntriesBuilder}, but
+ * accumulates the scores in an array addressed by the indices of a {@link CategoryIndex}. The probability values of
+ * the resulting {@link CategoryEntries} are normalized, so that they sum up to one. In case, the added scores are
+ * negative, the builder assumes that we're dealing with log probabilities; in this case, the probability values are
+ * "inverted". NaN/infinity values are not allowed and trigger an {@link IllegalArgumentException}. The builder can be
+ * reused after calling {@link #clear()}.
+ * </p>
+ *
+ * @author Philipp Katz
+ */
+public final class IndexedCategoryEntriesBuilder implements Factory<CategoryEntries> {
+
+    private final CategoryIndex index;
+
+    private final double[] scores;
+
+    /** Whether a score was set for a category (the result contains the category in this case). */
+    private final boolean[] present;
+
+    /** The indices of the present categories, in the order in which they were set. */
+    private final int[] presentIndices;
+
+    private int numPresent;
+
+    /**
+     * <p>
+     * Create a new {@link IndexedCategoryEntriesBuilder}.
+     * </p>
+     *
+     * @param index The category index, not <code>null</code>.
+     */
+    public IndexedCategoryEntriesBuilder(CategoryIndex index) {
+        Validate.notNull(index, "index must not be null");
+        this.index = index;
+        this.scores = new double[index.size()];
+        this.present = new boolean[index.size()];
+        this.presentIndices = new int[index.size()];
+    }
+
+    /**
+     * @return The category index of this builder.
+     */
+    public CategoryIndex getCategoryIndex() {
+        return index;
+    }
+
+    private void markPresent(int categoryIndex) {
+        if (!present[categoryIndex]) {
+            present[categoryIndex] = true;
+            presentIndices[numPresent++] = categoryIndex;
+        }
+    }
+
+    /**
+     * <p>
+     * Set the score of a category.
+     * </p>
+     *
+     * @param categoryIndex The index of the category.
+     * @param score The associated score.
+     * @return Instance of this class, to allow method concatenation.
+     */
+    public IndexedCategoryEntriesBuilder set(int categoryIndex, double score) {
+        validateNumber(score);
+        scores[categoryIndex] = score;
+        markPresent(categoryIndex);
+        return this;
+    }
+
+    /**
+     * <p>
+     * Set the score of all categories in the index.
+     * </p>
+     *
+     * @param score The associated score.
+     * @return Instance of this class, to allow method concatenation.
+     */
+    public IndexedCategoryEntriesBuilder setAll(double score) {
+        validateNumber(score);
+        for (int categoryIndex = 0; categoryIndex < scores.length; categoryIndex++) {
+            scores[categoryIndex] = score;
+            markPresent(categoryIndex);
+        }
+        return this;
+    }
+
+    /**
+     * <p>
+     * Add a score to a category.
+     * </p>
+     *
+     * @param categoryIndex The index of the category.
+     * @param score The score to add.
+     * @return Instance of this class, to allow method concatenation.
+     */
+    public IndexedCategoryEntriesBuilder add(int categoryIndex, double score) {
+        validateNumber(score);
+        scores[categoryIndex] += score;
+        markPresent(categoryIndex);
+        return this;
+    }
+
+    /**
+     * <p>
+     * Set the score of a category name.
+     * </p>
+     *
+     * @param categoryName The name of the category, not <code>null</code>, must be contained in the index.
+     * @param score The associated score.
+     * @return Instance of this class, to allow method concatenation.
+     */
+    public IndexedCategoryEntriesBuilder set(String categoryName, double score) {
+        return set(getIndex(categoryName), score);
+    }
+
+    /**
+     * <p>
+     * Add a score to a category name.
+     * </p>
+     *
+     * @param categoryName The name of the category, not <code>null</code>, must be contained in the index.
+     * @param score The score to add.
+     * @return Instance of this class, to allow method concatenation.
+     */
+    public IndexedCategoryEntriesBuilder add(String categoryName, double score) {
+        return add(getIndex(categoryName), score);
+    }
+
+    private int getIndex(String categoryName) {
+        Validate.notEmpty(categoryName, "categoryName must not be empty");
+        int categoryIndex = index.indexOf(categoryName);
+        Validate.isTrue(categoryIndex >= 0, "unknown category: %s", categoryName);
+        return categoryIndex;
+    }
+
+    /**
+     * <p>
+     * Get the score of a given category.
+     * </p>
+     *
+     * @param categoryIndex The index of the category.
+     * @return The score, or zero in case no score was set for the category.
+     */
+    public double getScore(int categoryIndex) {
+        return scores[categoryIndex];
+    }
+
+    /**
+     * @return The sum of all scores over all categories.
+     */
+    public double getTotalScore() {
+        double total = 0;
+        for (int i = 0; i < numPresent; i++) {
+            total += scores[presentIndices[i]];
+        }
+        return total;
+    }
+
+    /**
+     * <p>
+     * Remove all scores, so that the builder can be reused.
+     * </p>
+     */
+    public void clear() {
+        for (int i = 0; i < numPresent; i++) {
+            scores[presentIndices[i]] = 0;
+            present[presentIndices[i]] = false;
+        }
+        numPresent = 0;
+    }
+
+    @Override
+    public CategoryEntries create() {
+        double total = getTotalScore();
+        int[] categoryIndices = null;
+        if (numPresent < index.size()) { // sparse; store the present indices
+            categoryIndices = Arrays.copyOf(presentIndices, numPresent);
+            Arrays.sort(categoryIndices);
+        }
+        double[] probabilities = new double[numPresent];
+        for (int position = 0; position < numPresent; position++) {
+            int categoryIndex = categoryIndices != null ? categoryIndices[position] : position;
+            double probability;
+            if (total == 0) {
+                probability = 0.;
+            } else {
+                probability = scores[categoryIndex] / total;
+                if (total < 0) {
+                    // in case we have summed up log probabilities; we need the "inverse"
+                    probability = 1 - probability;
+                }
+            }
+            if (probability < 0) { // debugging
+                throw new IllegalStateException(
+                        "probability was < 0; this should not happen (obviously caused by mixing negative and positive values)");
+            }
+            probabilities[position] = probability;
+        }
+        return new IndexedCategoryEntries(index, categoryIndices, probabilities, null);
+    }
+
+    /**
+     * Check for infinity/NaN values.
+     *
+     * @param score The score to check.
+     * @throws IllegalArgumentException In case, a NaN/infinity was given.
+     */
+    private static void validateNumber(double score) {
+        if (Double.isNaN(score)) {
+            throw new IllegalArgumentException("value was NaN");
+        }
+        if (Double.isInfinite(score)) {
+            throw new IllegalArgumentException("value was infinite");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return create().toString();
+    }
+
+}
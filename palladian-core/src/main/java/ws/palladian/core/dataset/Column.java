@@ -0,0 +1,318 @@
+package ws.palladian.core.dataset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ws.palladian.core.value.BooleanValue;
+import ws.palladian.core.value.DoubleValue;
+import ws.palladian.core.value.FloatValue;
+import ws.palladian.core.value.ImmutableBooleanValue;
+import ws.palladian.core.value.ImmutableDoubleValue;
+import ws.palladian.core.value.ImmutableFloatValue;
+import ws.palladian.core.value.ImmutableIntegerValue;
+import ws.palladian.core.value.ImmutableLongValue;
+import ws.palladian.core.value.ImmutableStringValue;
+import ws.palladian.core.value.IntegerValue;
+import ws.palladian.core.value.LongValue;
+import ws.palladian.core.value.NominalValue;
+import ws.palladian.core.value.NullValue;
+import ws.palladian.core.value.Value;
+
+/**
+ * A column of values within a {@link ColumnarDataset}. Depending on the feature's type, the values are stored in a
+ * primitive array, and {@link Value} objects are only created when accessed. Null values are tracked in a bitmap,
+ * which is only allocated when the first null value is stored.
+ *
+ * <p>
+ * Primitive columns only accept values of exactly the expected class (as {@link Value}s are only equal to values of
+ * the same class); in case a different value is given, {@link #set(int, Value)} returns <code>false</code> and the
+ * column needs to be converted using {@link #toObjectColumn(Column, int, int)}.
+ *
+ * @author Philipp Katz
+ */
+abstract class Column {
+
+	/** Rows which contain null values; <code>null</code> in case there are none. */
+	private BitSet nulls;
+
+	/**
+	 * Create an empty column for the given type.
+	 *
+	 * @param type The type of the feature.
+	 * @param capacity The initial capacity.
+	 * @return The column.
+	 */
+	static Column create(Class<? extends Value> type, int capacity) {
+		if (type == ImmutableDoubleValue.class || type == DoubleValue.class) {
+			return new DoubleColumn(capacity);
+		} else if (type == ImmutableFloatValue.class || type == FloatValue.class) {
+			return new FloatColumn(capacity);
+		} else if (type == ImmutableIntegerValue.class || type == IntegerValue.class) {
+			return new IntegerColumn(capacity);
+		} else if (type == ImmutableLongValue.class || type == LongValue.class) {
+			return new LongColumn(capacity);
+		} else if (type == ImmutableBooleanValue.class || type == BooleanValue.class) {
+			return new BooleanColumn();
+		} else if (type == ImmutableStringValue.class || type == NominalValue.class) {
+			return new NominalColumn(capacity);
+		}
+		return new ObjectColumn(capacity);
+	}
+
+	/**
+	 * Copy the given column into a column which can store arbitrary values.
+	 *
+	 * @param column The column to copy.
+	 * @param size The number of rows to copy.
+	 * @param capacity The capacity of the new column.
+	 * @return The new column.
+	 */
+	static Column toObjectColumn(Column column, int size, int capacity) {
+		ObjectColumn objectColumn = new ObjectColumn(capacity);
+		for (int row = 0; row < size; row++) {
+			objectColumn.set(row, column.get(row));
+		}
+		return objectColumn;
+	}
+
+	/**
+	 * @param row The row.
+	 * @return The value at the given row, {@link NullValue#NULL} in case there is no value.
+	 */
+	final Value get(int row) {
+		if (nulls != null && nulls.get(row)) {
+			return NullValue.NULL;
+		}
+		return getValue(row);
+	}
+
+	/**
+	 * Set the value at the given row; the row must be within the capacity.
+	 *
+	 * @param row The row.
+	 * @param value The value, or <code>null</code>.
+	 * @return <code>true</code> in case the value was stored, <code>false</code> in case the value cannot be stored in
+	 *         this type of column.
+	 */
+	final boolean set(int row, Value value) {
+		if (value == null || value == NullValue.NULL) {
+			if (nulls == null) {
+				nulls = new BitSet();
+			}
+			nulls.set(row);
+			return true;
+		}
+		return setValue(row, value);
+	}
+
+	/** Get the (non-null) value at the given row. */
+	abstract Value getValue(int row);
+
+	/** Set the (non-null) value at the given row. */
+	abstract boolean setValue(int row, Value value);
+
+	/**
+	 * Change the capacity of this column; used for growing, and for trimming once all values have been added.
+	 *
+	 * @param capacity The new capacity.
+	 */
+	abstract void resize(int capacity);
+
+	static final class DoubleColumn extends Column {
+		private double[] values;
+
+		DoubleColumn(int capacity) {
+			values = new double[capacity];
+		}
+
+		@Override
+		Value getValue(int row) {
+			return new ImmutableDoubleValue(values[row]);
+		}
+
+		@Override
+		boolean setValue(int row, Value value) {
+			if (value.getClass() != ImmutableDoubleValue.class) {
+				return false;
+			}
+			values[row] = ((ImmutableDoubleValue) value).getDouble();
+			return true;
+		}
+
+		@Override
+		void resize(int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+	}
+
+	static final class FloatColumn extends Column {
+		private float[] values;
+
+		FloatColumn(int capacity) {
+			values = new float[capacity];
+		}
+
+		@Override
+		Value getValue(int row) {
+			return new ImmutableFloatValue(values[row]);
+		}
+
+		@Override
+		boolean setValue(int row, Value value) {
+			if (value.getClass() != ImmutableFloatValue.class) {
+				return false;
+			}
+			values[row] = ((ImmutableFloatValue) value).getFloat();
+			return true;
+		}
+
+		@Override
+		void resize(int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+	}
+
+	static final class IntegerColumn extends Column {
+		private int[] values;
+
+		IntegerColumn(int capacity) {
+			values = new int[capacity];
+		}
+
+		@Override
+		Value getValue(int row) {
+			return ImmutableIntegerValue.valueOf(values[row]);
+		}
+
+		@Override
+		boolean setValue(int row, Value value) {
+			if (value.getClass() != ImmutableIntegerValue.class) {
+				return false;
+			}
+			values[row] = ((ImmutableIntegerValue) value).getInt();
+			return true;
+		}
+
+		@Override
+		void resize(int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+	}
+
+	static final class LongColumn extends Column {
+		private long[] values;
+
+		LongColumn(int capacity) {
+			values = new long[capacity];
+		}
+
+		@Override
+		Value getValue(int row) {
+			return ImmutableLongValue.valueOf(values[row]);
+		}
+
+		@Override
+		boolean setValue(int row, Value value) {
+			if (value.getClass() != ImmutableLongValue.class) {
+				return false;
+			}
+			values[row] = ((ImmutableLongValue) value).getLong();
+			return true;
+		}
+
+		@Override
+		void resize(int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+	}
+
+	static final class BooleanColumn extends Column {
+		private final BitSet values = new BitSet();
+
+		@Override
+		Value getValue(int row) {
+			return ImmutableBooleanValue.create(values.get(row));
+		}
+
+		@Override
+		boolean setValue(int row, Value value) {
+			if (value.getClass() != ImmutableBooleanValue.class) {
+				return false;
+			}
+			values.set(row, ((ImmutableBooleanValue) value).getBoolean());
+			return true;
+		}
+
+		@Override
+		void resize(int capacity) {
+			// bit set grows automatically
+		}
+	}
+
+	/** Nominal values are dictionary-encoded; each distinct value is only stored once. */
+	static final class NominalColumn extends Column {
+		private int[] codes;
+		private final List<ImmutableStringValue> dictionary = new ArrayList<>();
+		private final Map<String, Integer> dictionaryIndices = new HashMap<>();
+
+		NominalColumn(int capacity) {
+			codes = new int[capacity];
+		}
+
+		@Override
+		Value getValue(int row) {
+			return dictionary.get(codes[row]);
+		}
+
+		@Override
+		boolean setValue(int row, Value value) {
+			if (value.getClass() != ImmutableStringValue.class) {
+				return false;
+			}
+			ImmutableStringValue stringValue = (ImmutableStringValue) value;
+			Integer code = dictionaryIndices.get(stringValue.getString());
+			if (code == null) {
+				code = dictionary.size();
+				dictionary.add(stringValue);
+				dictionaryIndices.put(stringValue.getString(), code);
+			}
+			codes[row] = code;
+			return true;
+		}
+
+		@Override
+		void resize(int capacity) {
+			codes = Arrays.copyOf(codes, capacity);
+		}
+	}
+
+	/** Fallback for all types which have no primitive representation. */
+	static final class ObjectColumn extends Column {
+		private Value[] values;
+
+		ObjectColumn(int capacity) {
+			values = new Value[capacity];
+		}
+
+		@Override
+		Value getValue(int row) {
+			return values[row];
+		}
+
+		@Override
+		boolean setValue(int row, Value value) {
+			values[row] = value;
+			return true;
+		}
+
+		@Override
+		void resize(int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+	}
+
+}
@@ -0,0 +1,290 @@
+package ws.palladian.core.dataset;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import ws.palladian.core.AbstractFeatureVector;
+import ws.palladian.core.ImmutableFeatureVectorEntry;
+import ws.palladian.core.ImmutableInstance;
+import ws.palladian.core.Instance;
+import ws.palladian.core.dataset.FeatureInformation.FeatureInformationEntry;
+import ws.palladian.core.value.Value;
+import ws.palladian.helper.collection.AbstractIterator2;
+import ws.palladian.helper.collection.Vector.VectorEntry;
+import ws.palladian.helper.functional.Factories;
+import ws.palladian.helper.functional.Factory;
+import ws.palladian.helper.io.CloseableIterator;
+
+/**
+ * <p>
+ * In-memory dataset which stores the data column by column, as driven by the {@link FeatureInformation}: Numeric
+ * values are kept in <code>double[]</code>, <code>float[]</code>, <code>int[]</code>, or <code>long[]</code> arrays,
+ * nominal values (and the categories) are dictionary-encoded in <code>int[]</code> arrays, boolean values in bit sets,
+ * and null values are tracked in bitmaps. All other types are stored as {@link Value} objects. This needs a fraction
+ * of the memory of a {@link CollectionDataset}, where each row keeps its own boxed values.
+ *
+ * <p>
+ * The {@link Instance}s and their feature vectors are views, which are created during iteration and which create the
+ * values lazily upon access. {@link #filterFeatures(Predicate)} and {@link #subset(Predicate)} return views which
+ * share the columns of this dataset, without copying any data.
+ *
+ * @author Philipp Katz
+ */
+public final class ColumnarDataset extends AbstractDataset {
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/** Data shared between a dataset and its views. */
+	private static final class Data {
+		final String[] featureNames;
+		final Column[] columns;
+		final int[] categories;
+		final String[] categoryNames;
+		/** Weights of the rows, or <code>null</code> in case all weights are one. */
+		final int[] weights;
+
+		Data(String[] featureNames, Column[] columns, int[] categories, String[] categoryNames, int[] weights) {
+			this.featureNames = featureNames;
+			this.columns = columns;
+			this.categories = categories;
+			this.categoryNames = categoryNames;
+			this.weights = weights;
+		}
+	}
+
+	private final Data data;
+
+	private final FeatureInformation featureInformation;
+
+	/** Mapping from feature name to the index in the columns. */
+	private final Map<String, Integer> columnIndices;
+
+	/** The rows which belong to this dataset, or <code>null</code> in case all rows belong to it. */
+	private final int[] rows;
+
+	private final int size;
+
+	/**
+	 * Create a new columnar dataset by copying the given one.
+	 *
+	 * @param dataset The dataset to copy, not <code>null</code>.
+	 */
+	public ColumnarDataset(Dataset dataset) {
+		Objects.requireNonNull(dataset, "dataset was null");
+		featureInformation = dataset.getFeatureInformation();
+		String[] featureNames = new String[featureInformation.count()];
+		Column[] columns = new Column[featureNames.length];
+		int capacity = INITIAL_CAPACITY;
+		int index = 0;
+		for (FeatureInformationEntry entry : featureInformation) {
+			featureNames[index] = entry.getName();
+			columns[index] = Column.create(entry.getType(), capacity);
+			index++;
+		}
+		int[] categories = new int[capacity];
+		int[] weights = null;
+		List<String> categoryNames = new ArrayList<>();
+		Map<String, Integer> categoryIndices = new HashMap<>();
+		int row = 0;
+		for (Instance instance : dataset) {
+			if (row == capacity) {
+				capacity = capacity + (capacity >> 1);
+				for (Column column : columns) {
+					column.resize(capacity);
+				}
+				categories = Arrays.copyOf(categories, capacity);
+				if (weights != null) {
+					weights = Arrays.copyOf(weights, capacity);
+				}
+			}
+			for (int column = 0; column < columns.length; column++) {
+				Value value = instance.getVector().get(featureNames[column]);
+				if (!columns[column].set(row, value)) {
+					columns[column] = Column.toObjectColumn(columns[column], row, capacity);
+					columns[column].set(row, value);
+				}
+			}
+			Integer category = categoryIndices.get(instance.getCategory());
+			if (category == null) {
+				category = categoryNames.size();
+				categoryNames.add(instance.getCategory());
+				categoryIndices.put(instance.getCategory(), category);
+			}
+			categories[row] = category;
+			if (instance.getWeight() != 1 && weights == null) {
+				weights = new int[capacity];
+				Arrays.fill(weights, 0, row, 1);
+			}
+			if (weights != null) {
+				weights[row] = instance.getWeight();
+			}
+			row++;
+		}
+		for (Column column : columns) {
+			column.resize(row);
+		}
+		categories = Arrays.copyOf(categories, row);
+		if (weights != null) {
+			weights = Arrays.copyOf(weights, row);
+		}
+		data = new Data(featureNames, columns, categories, categoryNames.toArray(new String[0]), weights);
+		columnIndices = createColumnIndices(featureNames, featureInformation);
+		rows = null;
+		size = row;
+	}
+
+	/** Constructor for views. */
+	private ColumnarDataset(Data data, FeatureInformation featureInformation, int[] rows, int size) {
+		this.data = data;
+		this.featureInformation = featureInformation;
+		this.columnIndices = createColumnIndices(data.featureNames, featureInformation);
+		this.rows = rows;
+		this.size = size;
+	}
+
+	private static Map<String, Integer> createColumnIndices(String[] featureNames, FeatureInformation featureInformation) {
+		Map<String, Integer> columnIndices = new LinkedHashMap<>();
+		for (int index = 0; index < featureNames.length; index++) {
+			if (featureInformation.getFeatureNames().contains(featureNames[index])) {
+				columnIndices.put(featureNames[index], index);
+			}
+		}
+		return columnIndices;
+	}
+
+	@Override
+	public CloseableIterator<Instance> iterator() {
+		return new ColumnarDatasetIterator();
+	}
+
+	@Override
+	public FeatureInformation getFeatureInformation() {
+		return featureInformation;
+	}
+
+	@Override
+	public long size() {
+		return size;
+	}
+
+	@Override
+	public Dataset filterFeatures(Predicate<? super String> nameFilter) {
+		Objects.requireNonNull(nameFilter, "nameFilter must not be null");
+		FeatureInformation filteredInformation = new FeatureInformationBuilder().add(featureInformation)
+				.filter(nameFilter).create();
+		return new ColumnarDataset(data, filteredInformation, rows, size);
+	}
+
+	@Override
+	public Dataset subset(Predicate<? super Instance> instanceFilter) {
+		Objects.requireNonNull(instanceFilter, "instanceFilter must not be null");
+		return subset(Factories.constant(instanceFilter));
+	}
+
+	/**
+	 * {@inheritDoc} The filter is evaluated once when invoking this method; the returned subset is a view which
+	 * references the matching rows.
+	 */
+	@Override
+	public Dataset subset(Factory<? extends Predicate<? super Instance>> instanceFilterFactory) {
+		Objects.requireNonNull(instanceFilterFactory, "instanceFilterFactory must not be null");
+		Predicate<? super Instance> instanceFilter = instanceFilterFactory.create();
+		int[] subsetRows = new int[size];
+		int subsetSize = 0;
+		for (int index = 0; index < size; index++) {
+			int row = getRow(index);
+			if (instanceFilter.test(createInstance(row))) {
+				subsetRows[subsetSize++] = row;
+			}
+		}
+		return new ColumnarDataset(data, featureInformation, Arrays.copyOf(subsetRows, subsetSize), subsetSize);
+	}
+
+	@Override
+	public Dataset buffer() {
+		return this; // already buffered
+	}
+
+	private int getRow(int index) {
+		return rows != null ? rows[index] : index;
+	}
+
+	private Instance createInstance(int row) {
+		String category = data.categoryNames[data.categories[row]];
+		int weight = data.weights != null ? data.weights[row] : 1;
+		return new ImmutableInstance(new ColumnarFeatureVector(row), category, weight);
+	}
+
+	private final class ColumnarDatasetIterator extends AbstractIterator2<Instance>
+			implements CloseableIterator<Instance> {
+		int index = 0;
+
+		@Override
+		protected Instance getNext() {
+			if (index < size) {
+				return createInstance(getRow(index++));
+			}
+			return finished();
+		}
+
+		@Override
+		public void close() throws IOException {
+			// nothing to close
+		}
+	}
+
+	/** A view on one row. */
+	private final class ColumnarFeatureVector extends AbstractFeatureVector {
+		private final int row;
+
+		ColumnarFeatureVector(int row) {
+			this.row = row;
+		}
+
+		@Override
+		public Value get(String k) {
+			Integer column = columnIndices.get(k);
+			if (column == null) { // there is no such key
+				return null;
+			}
+			return data.columns[column].get(row);
+		}
+
+		@Override
+		public int size() {
+			return columnIndices.size();
+		}
+
+		@Override
+		public Set<String> keys() {
+			return Collections.unmodifiableSet(columnIndices.keySet());
+		}
+
+		@Override
+		public Iterator<VectorEntry<String, Value>> iterator() {
+			return new AbstractIterator2<VectorEntry<String, Value>>() {
+				final Iterator<Map.Entry<String, Integer>> columnIterator = columnIndices.entrySet().iterator();
+
+				@Override
+				protected VectorEntry<String, Value> getNext() {
+					if (columnIterator.hasNext()) {
+						Map.Entry<String, Integer> current = columnIterator.next();
+						return new ImmutableFeatureVectorEntry(current.getKey(), data.columns[current.getValue()].get(row));
+					}
+					return finished();
+				}
+			};
+		}
+	}
+
+}
@@ -0,0 +1,135 @@
+package ws.palladian.core.dataset.binary;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import ws.palladian.core.value.BooleanValue;
+import ws.palladian.core.value.DoubleValue;
+import ws.palladian.core.value.FloatValue;
+import ws.palladian.core.value.ImmutableBooleanValue;
+import ws.palladian.core.value.ImmutableDoubleValue;
+import ws.palladian.core.value.ImmutableFloatValue;
+import ws.palladian.core.value.ImmutableIntegerValue;
+import ws.palladian.core.value.ImmutableLongValue;
+import ws.palladian.core.value.ImmutableStringValue;
+import ws.palladian.core.value.IntegerValue;
+import ws.palladian.core.value.LongValue;
+import ws.palladian.core.value.NominalValue;
+import ws.palladian.core.value.NumericValue;
+import ws.palladian.core.value.Value;
+import ws.palladian.core.value.io.ValueParser;
+
+/**
+ * <p>
+ * Constants and shared logic for the binary dataset format, which is written by the {@link BinaryDatasetWriter} and
+ * read by the {@link BinaryDatasetReader}. The layout is as follows (all values big-endian):
+ *
+ * <pre>
+ * header:  magic (int), version (int), #features (int), [name (string), type (byte), [parser class (string)]]*
+ * chunk:   #rows (int), [column block]* for each feature, category block, weight block
+ * block:   length in bytes (int), content
+ * trailer: zero (int), total #rows (long)
+ * </pre>
+ *
+ * Every block is prefixed with its length, so that the reader can skip columns which are not needed. Numeric and
+ * boolean blocks start with a flag whether there are null values, followed by the null bitmap (if any) and the values
+ * (booleans as bitmap). Nominal and parsed blocks, as well as the categories, are dictionary-encoded per chunk:
+ * dictionary size (int), strings, and one code (int) per row, where -1 denotes a null value. Strings are stored as
+ * length (int) and UTF-8 bytes. The weight block contains a flag, followed by the weights (int) in case any weight is
+ * not one.
+ *
+ * <p>
+ * Values of types without a primitive representation are stored as strings and read back using the type's static
+ * <code>PARSER</code> field (see e.g. {@link ImmutableStringValue#PARSER}).
+ *
+ * @author Philipp Katz
+ */
+final class BinaryDatasetFormat {
+
+	static final int MAGIC = 0x50444253;
+
+	static final int VERSION = 1;
+
+	/** Number of rows which are written together in one chunk. */
+	static final int CHUNK_SIZE = 4096;
+
+	static final byte TYPE_DOUBLE = 1;
+	static final byte TYPE_FLOAT = 2;
+	static final byte TYPE_INTEGER = 3;
+	static final byte TYPE_LONG = 4;
+	static final byte TYPE_BOOLEAN = 5;
+	static final byte TYPE_NOMINAL = 6;
+	static final byte TYPE_PARSED = 7;
+
+	private BinaryDatasetFormat() {
+		// not to be instantiated
+	}
+
+	/**
+	 * Determine how values of the given type are encoded.
+	 *
+	 * @param type The type.
+	 * @return The type code.
+	 * @throws IllegalArgumentException In case the type cannot be stored.
+	 */
+	static byte getTypeCode(Class<? extends Value> type) {
+		if (type == ImmutableDoubleValue.class || type == DoubleValue.class || type == NumericValue.class) {
+			return TYPE_DOUBLE;
+		} else if (type == ImmutableFloatValue.class || type == FloatValue.class) {
+			return TYPE_FLOAT;
+		} else if (type == ImmutableIntegerValue.class || type == IntegerValue.class) {
+			return TYPE_INTEGER;
+		} else if (type == ImmutableLongValue.class || type == LongValue.class) {
+			return TYPE_LONG;
+		} else if (type == ImmutableBooleanValue.class || type == BooleanValue.class) {
+			return TYPE_BOOLEAN;
+		} else if (type == ImmutableStringValue.class || type == NominalValue.class) {
+			return TYPE_NOMINAL;
+		} else if (getParser(type) != null) {
+			return TYPE_PARSED;
+		}
+		throw new IllegalArgumentException("Unsupported type " + type.getName() + ", it has no static PARSER field");
+	}
+
+	/**
+	 * @param typeCode The type code.
+	 * @return The value type for the type code, for all codes except {@link #TYPE_PARSED}.
+	 */
+	static Class<? extends Value> getType(byte typeCode) {
+		switch (typeCode) {
+			case TYPE_DOUBLE:
+				return ImmutableDoubleValue.class;
+			case TYPE_FLOAT:
+				return ImmutableFloatValue.class;
+			case TYPE_INTEGER:
+				return ImmutableIntegerValue.class;
+			case TYPE_LONG:
+				return ImmutableLongValue.class;
+			case TYPE_BOOLEAN:
+				return ImmutableBooleanValue.class;
+			case TYPE_NOMINAL:
+				return ImmutableStringValue.class;
+			default:
+				throw new IllegalArgumentException("Unknown type code " + typeCode);
+		}
+	}
+
+	/**
+	 * Get the parser of a value type, which is given as <code>public static final PARSER</code> field.
+	 *
+	 * @param type The type.
+	 * @return The parser, or <code>null</code> in case the type has no such field.
+	 */
+	static ValueParser getParser(Class<?> type) {
+		try {
+			Field field = type.getField("PARSER");
+			if (Modifier.isStatic(field.getModifiers()) && ValueParser.class.isAssignableFrom(field.getType())) {
+				return (ValueParser) field.get(null);
+			}
+		} catch (NoSuchFieldException | IllegalAccessException e) {
+			// no parser
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,565 @@
+package ws.palladian.core.dataset.binary;
+
+import static ws.palladian.core.dataset.binary.BinaryDatasetFormat.MAGIC;
+import static ws.palladian.core.dataset.binary.BinaryDatasetFormat.TYPE_BOOLEAN;
+import static ws.palladian.core.dataset.binary.BinaryDatasetFormat.TYPE_DOUBLE;
+import static ws.palladian.core.dataset.binary.BinaryDatasetFormat.TYPE_FLOAT;
+import static ws.palladian.core.dataset.binary.BinaryDatasetFormat.TYPE_INTEGER;
+import static ws.palladian.core.dataset.binary.BinaryDatasetFormat.TYPE_LONG;
+import static ws.palladian.core.dataset.binary.BinaryDatasetFormat.TYPE_NOMINAL;
+import static ws.palladian.core.dataset.binary.BinaryDatasetFormat.TYPE_PARSED;
+import static ws.palladian.core.dataset.binary.BinaryDatasetFormat.VERSION;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ws.palladian.core.ImmutableInstance;
+import ws.palladian.core.Instance;
+import ws.palladian.core.dataset.AbstractDataset;
+import ws.palladian.core.dataset.Dataset;
+import ws.palladian.core.dataset.FeatureInformation;
+import ws.palladian.core.dataset.FeatureInformationBuilder;
+import ws.palladian.core.dataset.io.Compressions;
+import ws.palladian.core.featurevector.FlyweightVectorBuilder;
+import ws.palladian.core.featurevector.FlyweightVectorSchema;
+import ws.palladian.core.value.ImmutableBooleanValue;
+import ws.palladian.core.value.ImmutableDoubleValue;
+import ws.palladian.core.value.ImmutableFloatValue;
+import ws.palladian.core.value.ImmutableIntegerValue;
+import ws.palladian.core.value.ImmutableLongValue;
+import ws.palladian.core.value.ImmutableStringValue;
+import ws.palladian.core.value.NullValue;
+import ws.palladian.core.value.Value;
+import ws.palladian.core.value.io.ValueParser;
+import ws.palladian.core.value.io.ValueParserException;
+import ws.palladian.helper.collection.AbstractIterator2;
+import ws.palladian.helper.io.CloseableIterator;
+import ws.palladian.helper.io.FileHelper;
+import ws.palladian.helper.io.LargeMappedBuffer;
+
+/**
+ * <p>
+ * Reads datasets which were written by the {@link BinaryDatasetWriter}. Uncompressed files are memory-mapped, this way
+ * the data is accessed through the operating system's page cache and not copied through streams; compressed files are
+ * decompressed on the fly while iterating. The instances are read chunk by chunk, columns of features which are not
+ * selected (see {@link #filterFeatures(Predicate)}) are skipped without decoding them.
+ *
+ * <p>
+ * <b>Important</b>: If you use the {@link #iterator()} and do not fully iterate over the dataset, you <b>must</b>
+ * {@link CloseableIterator#close()} the iterator!
+ *
+ * @author Philipp Katz
+ */
+public class BinaryDatasetReader extends AbstractDataset {
+
+	/** The logger for this class. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(BinaryDatasetReader.class);
+
+	/** Source for the data; either a memory-mapped buffer, or a stream. */
+	private static abstract class Input implements Closeable {
+		abstract byte readByte() throws IOException;
+
+		abstract int readInt() throws IOException;
+
+		abstract long readLong() throws IOException;
+
+		abstract float readFloat() throws IOException;
+
+		abstract double readDouble() throws IOException;
+
+		abstract void readFully(byte[] bytes) throws IOException;
+
+		abstract void skip(int length) throws IOException;
+
+		String readString() throws IOException {
+			byte[] bytes = new byte[readInt()];
+			readFully(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+
+	private static final class MappedInput extends Input {
+		private final LargeMappedBuffer buffer;
+		private long position;
+
+		MappedInput(LargeMappedBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		byte readByte() throws IOException {
+			checkAvailable(1);
+			return buffer.get(position++);
+		}
+
+		@Override
+		int readInt() throws IOException {
+			checkAvailable(4);
+			int value = buffer.getInt(position);
+			position += 4;
+			return value;
+		}
+
+		@Override
+		long readLong() throws IOException {
+			checkAvailable(8);
+			long value = buffer.getLong(position);
+			position += 8;
+			return value;
+		}
+
+		@Override
+		float readFloat() throws IOException {
+			checkAvailable(4);
+			float value = buffer.getFloat(position);
+			position += 4;
+			return value;
+		}
+
+		@Override
+		double readDouble() throws IOException {
+			checkAvailable(8);
+			double value = buffer.getDouble(position);
+			position += 8;
+			return value;
+		}
+
+		@Override
+		void readFully(byte[] bytes) throws IOException {
+			checkAvailable(bytes.length);
+			buffer.get(position, bytes, 0, bytes.length);
+			position += bytes.length;
+		}
+
+		@Override
+		void skip(int length) throws IOException {
+			checkAvailable(length);
+			position += length;
+		}
+
+		@Override
+		public void close() {
+			// the mapping is shared and released by the garbage collector
+		}
+
+		private void checkAvailable(int length) throws EOFException {
+			if (position + length > buffer.size()) {
+				throw new EOFException();
+			}
+		}
+	}
+
+	private static final class StreamInput extends Input {
+		private final DataInputStream stream;
+
+		StreamInput(DataInputStream stream) {
+			this.stream = stream;
+		}
+
+		@Override
+		byte readByte() throws IOException {
+			return stream.readByte();
+		}
+
+		@Override
+		int readInt() throws IOException {
+			return stream.readInt();
+		}
+
+		@Override
+		long readLong() throws IOException {
+			return stream.readLong();
+		}
+
+		@Override
+		float readFloat() throws IOException {
+			return stream.readFloat();
+		}
+
+		@Override
+		double readDouble() throws IOException {
+			return stream.readDouble();
+		}
+
+		@Override
+		void readFully(byte[] bytes) throws IOException {
+			stream.readFully(bytes);
+		}
+
+		@Override
+		void skip(int length) throws IOException {
+			int remaining = length;
+			while (remaining > 0) {
+				int skipped = stream.skipBytes(remaining);
+				if (skipped <= 0) {
+					throw new EOFException();
+				}
+				remaining -= skipped;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			stream.close();
+		}
+	}
+
+	private final class BinaryDatasetIterator extends AbstractIterator2<Instance> implements CloseableIterator<Instance> {
+		private final Input input;
+		private final Value[][] columns = new Value[featureNames.length][];
+		private String[] categories;
+		private int[] weights;
+		private int rows;
+		private int row;
+		private boolean closed;
+
+		BinaryDatasetIterator() {
+			input = openInput(true);
+		}
+
+		@Override
+		protected Instance getNext() {
+			try {
+				if (row == rows) {
+					if (closed || !readChunk()) {
+						close();
+						return finished();
+					}
+				}
+				FlyweightVectorBuilder builder = vectorSchema.builder();
+				for (int column = 0; column < featureNames.length; column++) {
+					if (selected[column]) {
+						builder.set(featureNames[column], columns[column][row]);
+					}
+				}
+				int weight = weights != null ? weights[row] : 1;
+				Instance instance = new ImmutableInstance(builder.create(), categories[row], weight);
+				row++;
+				return instance;
+			} catch (IOException e) {
+				FileHelper.close(this);
+				throw new IllegalStateException("IOException while reading " + filePath, e);
+			}
+		}
+
+		private boolean readChunk() throws IOException {
+			rows = input.readInt();
+			row = 0;
+			if (rows == 0) {
+				return false;
+			}
+			for (int column = 0; column < featureNames.length; column++) {
+				int blockLength = input.readInt();
+				if (selected[column]) {
+					columns[column] = readColumn(input, typeCodes[column], parsers[column], rows, columns[column]);
+				} else {
+					input.skip(blockLength);
+				}
+			}
+			input.readInt(); // block length
+			categories = readDictionary(input, rows);
+			input.readInt(); // block length
+			if (input.readByte() != 0) {
+				weights = new int[rows];
+				for (int i = 0; i < rows; i++) {
+					weights[i] = input.readInt();
+				}
+			} else {
+				weights = null;
+			}
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!closed) {
+				closed = true;
+				input.close();
+			}
+		}
+	}
+
+	private final File filePath;
+
+	/** The mapped file, or <code>null</code> in case the file is compressed and must be streamed. */
+	private final LargeMappedBuffer mappedBuffer;
+
+	/** Names of all features in the file. */
+	private final String[] featureNames;
+
+	private final byte[] typeCodes;
+
+	/** Parsers for features of type {@link BinaryDatasetFormat#TYPE_PARSED}. */
+	private final ValueParser[] parsers;
+
+	/** Features which are read; all others are skipped. */
+	private final boolean[] selected;
+
+	private final FeatureInformation featureInformation;
+
+	private final FlyweightVectorSchema vectorSchema;
+
+	/** The number of items in this dataset; cached once it is requested. */
+	private long size = -1;
+
+	/**
+	 * Create a new {@link BinaryDatasetReader} for the given file.
+	 *
+	 * @param filePath The file, not <code>null</code>.
+	 */
+	public BinaryDatasetReader(File filePath) {
+		Objects.requireNonNull(filePath, "filePath must not be null");
+		this.filePath = filePath;
+		if (Compressions.get(filePath) == Compressions.NONE) {
+			try (RandomAccessFile file = new RandomAccessFile(filePath, "r")) {
+				FileChannel channel = file.getChannel();
+				mappedBuffer = LargeMappedBuffer.map(channel, 0, channel.size());
+			} catch (IOException e) {
+				throw new IllegalStateException("Could not map " + filePath, e);
+			}
+		} else {
+			mappedBuffer = null;
+		}
+		try (Input input = openInput(false)) {
+			int numFeatures = input.readInt();
+			featureNames = new String[numFeatures];
+			typeCodes = new byte[numFeatures];
+			parsers = new ValueParser[numFeatures];
+			for (int i = 0; i < numFeatures; i++) {
+				featureNames[i] = input.readString();
+				typeCodes[i] = input.readByte();
+				if (typeCodes[i] == TYPE_PARSED) {
+					String className = input.readString();
+					try {
+						parsers[i] = BinaryDatasetFormat.getParser(Class.forName(className));
+					} catch (ClassNotFoundException e) {
+						throw new IllegalStateException("Unknown type " + className + " for " + featureNames[i]);
+					}
+					if (parsers[i] == null) {
+						throw new IllegalStateException("No parser for type " + className + " for " + featureNames[i]);
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("IOException while reading " + filePath, e);
+		}
+		selected = new boolean[featureNames.length];
+		for (int i = 0; i < selected.length; i++) {
+			selected[i] = true;
+		}
+		featureInformation = createFeatureInformation();
+		vectorSchema = new FlyweightVectorSchema(featureInformation);
+	}
+
+	/** Constructor for filtered readers, which share the state of the given reader. */
+	private BinaryDatasetReader(BinaryDatasetReader reader, Predicate<? super String> nameFilter) {
+		filePath = reader.filePath;
+		mappedBuffer = reader.mappedBuffer;
+		featureNames = reader.featureNames;
+		typeCodes = reader.typeCodes;
+		parsers = reader.parsers;
+		selected = new boolean[featureNames.length];
+		for (int i = 0; i < selected.length; i++) {
+			selected[i] = reader.selected[i] && nameFilter.test(featureNames[i]);
+		}
+		featureInformation = createFeatureInformation();
+		vectorSchema = new FlyweightVectorSchema(featureInformation);
+		size = reader.size;
+	}
+
+	private FeatureInformation createFeatureInformation() {
+		FeatureInformationBuilder builder = new FeatureInformationBuilder();
+		for (int i = 0; i < featureNames.length; i++) {
+			if (selected[i]) {
+				builder.set(featureNames[i], parsers[i] != null ? parsers[i].getType()
+						: BinaryDatasetFormat.getType(typeCodes[i]));
+			}
+		}
+		return builder.create();
+	}
+
+	/**
+	 * Open the file and check magic number and version.
+	 *
+	 * @param skipSchema <code>true</code> to position the input after the schema, at the first chunk,
+	 *            <code>false</code> to position it at the schema.
+	 */
+	private Input openInput(boolean skipSchema) {
+		Input input;
+		if (mappedBuffer != null) {
+			input = new MappedInput(mappedBuffer);
+		} else {
+			try {
+				input = new StreamInput(new DataInputStream(new BufferedInputStream(
+						Compressions.get(filePath).getInputStream(filePath))));
+			} catch (IOException e) {
+				throw new IllegalStateException("Could not open " + filePath, e);
+			}
+		}
+		try {
+			if (input.readInt() != MAGIC) {
+				throw new IllegalStateException(filePath + " is no binary dataset file");
+			}
+			int version = input.readInt();
+			if (version != VERSION) {
+				throw new IllegalStateException("Unsupported version " + version + " of " + filePath);
+			}
+			if (skipSchema) {
+				int numFeatures = input.readInt();
+				for (int i = 0; i < numFeatures; i++) {
+					input.skip(input.readInt());
+					if (input.readByte() == TYPE_PARSED) {
+						input.skip(input.readInt());
+					}
+				}
+			}
+		} catch (IOException e) {
+			FileHelper.close(input);
+			throw new IllegalStateException("IOException while reading " + filePath, e);
+		}
+		return input;
+	}
+
+	private static Value[] readColumn(Input input, byte typeCode, ValueParser parser, int rows, Value[] reuse)
+			throws IOException {
+		Value[] values = reuse != null && reuse.length >= rows ? reuse : new Value[rows];
+		if (typeCode == TYPE_NOMINAL || typeCode == TYPE_PARSED) {
+			int dictionarySize = input.readInt();
+			Value[] dictionary = new Value[dictionarySize];
+			for (int i = 0; i < dictionarySize; i++) {
+				String string = input.readString();
+				if (typeCode == TYPE_NOMINAL) {
+					dictionary[i] = ImmutableStringValue.valueOf(string);
+				} else {
+					try {
+						dictionary[i] = parser.parse(string);
+					} catch (ValueParserException e) {
+						throw new IllegalStateException("Could not parse \"" + string + "\" using "
+								+ parser.getClass().getName(), e);
+					}
+				}
+			}
+			for (int row = 0; row < rows; row++) {
+				int code = input.readInt();
+				values[row] = code >= 0 ? dictionary[code] : NullValue.NULL;
+			}
+			return values;
+		}
+		byte[] nulls = null;
+		if (input.readByte() != 0) {
+			nulls = new byte[(rows + 7) / 8];
+			input.readFully(nulls);
+		}
+		if (typeCode == TYPE_BOOLEAN) {
+			byte[] bitmap = new byte[(rows + 7) / 8];
+			input.readFully(bitmap);
+			for (int row = 0; row < rows; row++) {
+				values[row] = ImmutableBooleanValue.create(isSet(bitmap, row));
+			}
+		} else {
+			for (int row = 0; row < rows; row++) {
+				switch (typeCode) {
+					case TYPE_DOUBLE:
+						values[row] = new ImmutableDoubleValue(input.readDouble());
+						break;
+					case TYPE_FLOAT:
+						values[row] = new ImmutableFloatValue(input.readFloat());
+						break;
+					case TYPE_INTEGER:
+						values[row] = ImmutableIntegerValue.valueOf(input.readInt());
+						break;
+					case TYPE_LONG:
+						values[row] = ImmutableLongValue.valueOf(input.readLong());
+						break;
+					default:
+						throw new IllegalStateException("Unknown type code " + typeCode);
+				}
+			}
+		}
+		if (nulls != null) {
+			for (int row = 0; row < rows; row++) {
+				if (isSet(nulls, row)) {
+					values[row] = NullValue.NULL;
+				}
+			}
+		}
+		return values;
+	}
+
+	private static String[] readDictionary(Input input, int rows) throws IOException {
+		String[] dictionary = new String[input.readInt()];
+		for (int i = 0; i < dictionary.length; i++) {
+			dictionary[i] = input.readString();
+		}
+		String[] strings = new String[rows];
+		for (int row = 0; row < rows; row++) {
+			int code = input.readInt();
+			strings[row] = code >= 0 ? dictionary[code] : null;
+		}
+		return strings;
+	}
+
+	private static boolean isSet(byte[] bitmap, int index) {
+		return (bitmap[index >> 3] & 1 << (index & 7)) != 0;
+	}
+
+	@Override
+	public CloseableIterator<Instance> iterator() {
+		return new BinaryDatasetIterator();
+	}
+
+	@Override
+	public FeatureInformation getFeatureInformation() {
+		return featureInformation;
+	}
+
+	@Override
+	public long size() {
+		if (size == -1) {
+			if (mappedBuffer != null) {
+				size = mappedBuffer.getLong(mappedBuffer.size() - 8);
+			} else {
+				size = countRows();
+			}
+		}
+		return size;
+	}
+
+	private long countRows() {
+		try (Input input = openInput(true)) {
+			long count = 0;
+			for (int rows; (rows = input.readInt()) > 0;) {
+				for (int block = 0; block < featureNames.length + 2; block++) {
+					input.skip(input.readInt());
+				}
+				count += rows;
+			}
+			LOGGER.debug("Counted {} rows in {}", count, filePath);
+			return count;
+		} catch (IOException e) {
+			throw new IllegalStateException("IOException while reading " + filePath, e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc} The returned reader does not decode the columns of features which were filtered.
+	 */
+	@Override
+	public Dataset filterFeatures(Predicate<? super String> nameFilter) {
+		Objects.requireNonNull(nameFilter, "nameFilter must not be null");
+		return new BinaryDatasetReader(this, nameFilter);
+	}
+
+}
@@ -7,7 +7,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
+import java.util.regex.MatchResult;
 
 import org.apache.commons.lang3.StringEscapeUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -26,6 +26,7 @@ import ws.palladian.helper.constants.DateFormat;
 import ws.palladian.helper.constants.RegExp;
 import ws.palladian.helper.date.DateExactness;
 import ws.palladian.helper.date.DateParser;
+import ws.palladian.helper.date.DateScanner;
 import ws.palladian.helper.html.HtmlHelper;
 import ws.palladian.helper.html.XPathHelper;
 import ws.palladian.helper.math.MathHelper;
@@ -312,9 +313,13 @@ public class ContentDateGetter extends TechniqueDateGetter<ContentDate> {
 
     static List<ContentDate> findAllDates(String text) {
         List<ContentDate> dates = new ArrayList<>();
+        // the windows are only determined again, after dates were masked out
+        int[] windows = null;
         for (DateFormat format : RegExp.ALL_DATE_FORMATS) {
-            Matcher matcher = format.getPattern().matcher(text);
-            while (matcher.find()) {
+            if (windows == null) {
+                windows = DateScanner.getWindows(text);
+            }
+            for (MatchResult matcher : DateScanner.findMatches(text, format, windows)) {
                 boolean digitNeighbor = false;
                 int start = matcher.start();
                 if (start > 0) {
@@ -330,6 +335,7 @@ public class ContentDateGetter extends TechniqueDateGetter<ContentDate> {
                     int datePosition = text.indexOf(date.getDateString());
                     date.setTagPos(datePosition);
                     text = text.replaceFirst(dateString, StringUtils.repeat('x', dateString.length()));
+                    windows = null;
                     dates.add(date);
                 }
             }
@@ -0,0 +1,386 @@
+package ws.palladian.extraction.entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import ws.palladian.classification.text.DictionaryModel;
+import ws.palladian.classification.text.DictionaryModel.DictionaryEntry;
+import ws.palladian.core.Annotation;
+import ws.palladian.core.ImmutableAnnotation;
+import ws.palladian.core.Tagger;
+
+/**
+ * <p>
+ * Tag all entries of a dictionary (e.g. entity names or a gazetteer of location names) in a text. The entries are
+ * compiled into a token-level Aho-Corasick automaton, so that all occurrences of all entries are found in one linear
+ * pass over the tokens, independent of the number of entries. In case entries overlap, the leftmost-longest ones are
+ * tagged.
+ * </p>
+ *
+ * <p>
+ * Tokens are runs of letters and digits; any other character, except for white space, forms a token on its own. An
+ * entry "St. Louis" therefore matches in "St. Louis-based", but not in "St. Louisiana". Entries and texts can be
+ * matched case insensitively and without accents (e.g. "Zürich" matches "zurich").
+ * </p>
+ *
+ * @author Philipp Katz
+ */
+public final class DictionaryTagger implements Tagger {
+
+    /**
+     * <p>
+     * Builder for a {@link DictionaryTagger}.
+     * </p>
+     */
+    public static final class Builder {
+
+        private final boolean ignoreCase;
+
+        private final boolean ignoreAccents;
+
+        private final Object2IntOpenHashMap<String> tokenIds = new Object2IntOpenHashMap<>();
+
+        private final Object2IntOpenHashMap<String> tagIds = new Object2IntOpenHashMap<>();
+
+        private final List<String> tags = new ArrayList<>();
+
+        /** The edges of the trie; key is the source node and the token, value is the target node. */
+        private final Long2IntOpenHashMap transitions = new Long2IntOpenHashMap();
+
+        /** The tag of each node in case it ends an entry, -1 otherwise. */
+        private final IntArrayList nodeTags = new IntArrayList();
+
+        /** The number of tokens from the root to each node. */
+        private final IntArrayList depths = new IntArrayList();
+
+        /**
+         * @param ignoreCase <code>true</code> to match entries case insensitively.
+         */
+        public Builder(boolean ignoreCase) {
+            this(ignoreCase, false);
+        }
+
+        /**
+         * @param ignoreCase <code>true</code> to match entries case insensitively.
+         * @param ignoreAccents <code>true</code> to match entries without accents (see
+         *            {@link StringUtils#stripAccents(String)}).
+         */
+        public Builder(boolean ignoreCase, boolean ignoreAccents) {
+            this.ignoreCase = ignoreCase;
+            this.ignoreAccents = ignoreAccents;
+            tokenIds.defaultReturnValue(-1);
+            tagIds.defaultReturnValue(-1);
+            transitions.defaultReturnValue(-1);
+            nodeTags.add(-1); // root
+            depths.add(0);
+        }
+
+        /**
+         * <p>
+         * Add an entry. In case an entry was already added, the tag of the first addition is kept.
+         * </p>
+         *
+         * @param entry The entry, not <code>null</code>. Entries without any tokens are ignored.
+         * @param tag The tag to assign, not <code>null</code>.
+         * @return This builder, for method chaining.
+         */
+        public Builder add(String entry, String tag) {
+            Validate.notNull(entry, "entry must not be null");
+            Validate.notNull(tag, "tag must not be null");
+            Tokens tokens = new Tokens(entry, ignoreCase, ignoreAccents);
+            if (tokens.size() == 0) {
+                return this;
+            }
+            int node = 0;
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.getValue(i);
+                int tokenId = tokenIds.getInt(token);
+                if (tokenId == -1) {
+                    tokenId = tokenIds.size();
+                    tokenIds.put(token, tokenId);
+                }
+                long key = key(node, tokenId);
+                int next = transitions.get(key);
+                if (next == -1) {
+                    next = nodeTags.size();
+                    transitions.put(key, next);
+                    nodeTags.add(-1);
+                    depths.add(i + 1);
+                }
+                node = next;
+            }
+            if (nodeTags.getInt(node) == -1) {
+                int tagId = tagIds.getInt(tag);
+                if (tagId == -1) {
+                    tagId = tags.size();
+                    tagIds.put(tag, tagId);
+                    tags.add(tag);
+                }
+                nodeTags.set(node, tagId);
+            }
+            return this;
+        }
+
+        /**
+         * <p>
+         * Add all terms of a {@link DictionaryModel}, tagged with their most likely category.
+         * </p>
+         *
+         * @param dictionary The dictionary, not <code>null</code>.
+         * @return This builder, for method chaining.
+         */
+        public Builder addAll(DictionaryModel dictionary) {
+            Validate.notNull(dictionary, "dictionary must not be null");
+            for (DictionaryEntry entry : dictionary) {
+                String tag = entry.getCategoryEntries().getMostLikelyCategory();
+                if (tag != null) {
+                    add(entry.getTerm(), tag);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * @return The tagger with all added entries.
+         */
+        public DictionaryTagger create() {
+            return new DictionaryTagger(this);
+        }
+
+    }
+
+    /** Tokenization of a text, shared by entries and the tagged texts. */
+    private static final class Tokens {
+
+        private final String text;
+        private final boolean ignoreCase;
+        private final boolean ignoreAccents;
+        private final IntArrayList offsets = new IntArrayList();
+
+        Tokens(String text, boolean ignoreCase, boolean ignoreAccents) {
+            this.text = text;
+            this.ignoreCase = ignoreCase;
+            this.ignoreAccents = ignoreAccents;
+            int i = 0;
+            while (i < text.length()) {
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                    i++;
+                    continue;
+                }
+                int start = i++;
+                if (Character.isLetterOrDigit(c)) {
+                    while (i < text.length() && isTokenCharacter(text.charAt(i))) {
+                        i++;
+                    }
+                }
+                offsets.add(start);
+                offsets.add(i);
+            }
+        }
+
+        int size() {
+            return offsets.size() / 2;
+        }
+
+        int getStart(int index) {
+            return offsets.getInt(2 * index);
+        }
+
+        int getEnd(int index) {
+            return offsets.getInt(2 * index + 1);
+        }
+
+        String getValue(int index) {
+            String value = text.substring(getStart(index), getEnd(index));
+            if (ignoreCase) {
+                value = value.toLowerCase();
+            }
+            if (ignoreAccents && !StringUtils.isAsciiPrintable(value)) {
+                value = StringUtils.stripAccents(value);
+            }
+            return value;
+        }
+
+        /** Letters, digits, and combining marks (e.g. a decomposed accent), which continue a token. */
+        private static boolean isTokenCharacter(char c) {
+            return Character.isLetterOrDigit(c) || Character.getType(c) == Character.NON_SPACING_MARK;
+        }
+
+    }
+
+    /** Sort matches by start token, longest first; a match is encoded as [start token, end token, tag]. */
+    private static final Comparator<int[]> MATCH_ORDER = new Comparator<int[]>() {
+        @Override
+        public int compare(int[] m1, int[] m2) {
+            if (m1[0] != m2[0]) {
+                return Integer.compare(m1[0], m2[0]);
+            }
+            return Integer.compare(m2[1], m1[1]);
+        }
+    };
+
+    private final boolean ignoreCase;
+
+    private final boolean ignoreAccents;
+
+    private final Object2IntOpenHashMap<String> tokenIds;
+
+    private final List<String> tags;
+
+    private final Long2IntOpenHashMap transitions;
+
+    private final int[] nodeTags;
+
+    private final int[] depths;
+
+    /** The node of the longest proper suffix of each node which is in the trie. */
+    private final int[] failures;
+
+    /** The node of the longest proper suffix of each node which ends an entry, zero if there is none. */
+    private final int[] outputs;
+
+    private DictionaryTagger(Builder builder) {
+        this.ignoreCase = builder.ignoreCase;
+        this.ignoreAccents = builder.ignoreAccents;
+        this.tokenIds = new Object2IntOpenHashMap<>(builder.tokenIds);
+        this.tokenIds.defaultReturnValue(-1);
+        this.tags = new ArrayList<>(builder.tags);
+        this.transitions = new Long2IntOpenHashMap(builder.transitions);
+        this.transitions.defaultReturnValue(-1);
+        this.nodeTags = builder.nodeTags.toIntArray();
+        this.depths = builder.depths.toIntArray();
+        this.failures = new int[nodeTags.length];
+        this.outputs = new int[nodeTags.length];
+        buildFailures();
+    }
+
+    /**
+     * Calculate the failure and output links breadth first, so that the links of all shorter nodes are known.
+     */
+    private void buildFailures() {
+        // group the edges by the depth of their target node
+        List<List<long[]>> edgesByDepth = new ArrayList<>();
+        for (Long2IntOpenHashMap.Entry entry : transitions.long2IntEntrySet()) {
+            int target = entry.getIntValue();
+            int depth = depths[target];
+            while (edgesByDepth.size() < depth) {
+                edgesByDepth.add(new ArrayList<long[]>());
+            }
+            edgesByDepth.get(depth - 1).add(new long[] { entry.getLongKey(), target });
+        }
+        for (List<long[]> edges : edgesByDepth) {
+            for (long[] edge : edges) {
+                int source = (int)(edge[0] >>> 32);
+                int tokenId = (int)edge[0];
+                int target = (int)edge[1];
+                int failure = 0;
+                if (source != 0) {
+                    int node = failures[source];
+                    for (;;) {
+                        int next = transitions.get(key(node, tokenId));
+                        if (next != -1) {
+                            failure = next;
+                            break;
+                        }
+                        if (node == 0) {
+                            break;
+                        }
+                        node = failures[node];
+                    }
+                }
+                failures[target] = failure;
+                outputs[target] = nodeTags[failure] != -1 ? failure : outputs[failure];
+            }
+        }
+    }
+
+    private static long key(int node, int tokenId) {
+        return (long)node << 32 | tokenId & 0xffffffffL;
+    }
+
+    @Override
+    public List<Annotation> getAnnotations(String text) {
+        Validate.notNull(text, "text must not be null");
+        Tokens tokens = new Tokens(text, ignoreCase, ignoreAccents);
+        List<int[]> matches = new ArrayList<>();
+        int node = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            int tokenId = tokenIds.getInt(tokens.getValue(i));
+            if (tokenId == -1) {
+                node = 0;
+                continue;
+            }
+            for (;;) {
+                int next = transitions.get(key(node, tokenId));
+                if (next != -1) {
+                    node = next;
+                    break;
+                }
+                if (node == 0) {
+                    break;
+                }
+                node = failures[node];
+            }
+            int match = nodeTags[node] != -1 ? node : outputs[node];
+            while (match != 0) {
+                matches.add(new int[] { i - depths[match] + 1, i, nodeTags[match] });
+                match = outputs[match];
+            }
+        }
+        Collections.sort(matches, MATCH_ORDER);
+        List<Annotation> annotations = new ArrayList<>();
+        int lastEnd = -1;
+        for (int[] match : matches) {
+            if (match[0] > lastEnd) {
+                int start = tokens.getStart(match[0]);
+                String value = text.substring(start, tokens.getEnd(match[1]));
+                annotations.add(new ImmutableAnnotation(start, value, tags.get(match[2])));
+                lastEnd = match[1];
+            }
+        }
+        return annotations;
+    }
+
+    /**
+     * <p>
+     * Check, whether the given value is an entry of this dictionary (i.e. whether its tokens are equal to the tokens
+     * of an entry).
+     * </p>
+     *
+     * @param value The value, not <code>null</code>.
+     * @return <code>true</code> in case the value is contained.
+     */
+    public boolean contains(String value) {
+        Validate.notNull(value, "value must not be null");
+        Tokens tokens = new Tokens(value, ignoreCase, ignoreAccents);
+        int node = 0;
+        for (int i = 0; i < tokens.size() && node != -1; i++) {
+            int tokenId = tokenIds.getInt(tokens.getValue(i));
+            node = tokenId != -1 ? transitions.get(key(node, tokenId)) : -1;
+        }
+        return node > 0 && nodeTags[node] != -1;
+    }
+
+    /**
+     * @return The number of nodes of the automaton.
+     */
+    public int getNumNodes() {
+        return nodeTags.length;
+    }
+
+    @Override
+    public String toString() {
+        return "DictionaryTagger [numNodes=" + getNumNodes() + ", numTags=" + tags.size() + ", ignoreCase="
+                + ignoreCase + ", ignoreAccents=" + ignoreAccents + "]";
+    }
+
+}
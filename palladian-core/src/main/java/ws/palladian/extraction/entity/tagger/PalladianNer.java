@@ -114,6 +114,9 @@ public class PalladianNer extends TrainableNamedEntityRecognizer implements Clas
 
     private final static String NO_ENTITY = "###NO_ENTITY###";
 
+    /** Tagger for the candidates in language independent mode; every token is potentially a (part of) an entity. */
+    private static final Tagger TOKEN_TAGGER = new RegExTagger(Tokenizer.TOKEN_SPLIT_REGEX, StringTagger.CANDIDATE_TAG);
+
     private PalladianNerTrainingSettings trainingSettings;
 
     private PalladianNerModel model;
@@ -548,12 +551,19 @@ public class PalladianNer extends TrainableNamedEntityRecognizer implements Clas
         Tagger tagger;
         if (model.languageMode == LanguageIndependent) {
             // get the candidates, every token is potentially a (part of) an entity
-            tagger = new RegExTagger(Tokenizer.TOKEN_SPLIT_REGEX, StringTagger.CANDIDATE_TAG);
+            tagger = TOKEN_TAGGER;
         } else {
             // use the the string tagger to tag entities in English mode
             tagger = StringTagger.INSTANCE;
         }
         Set<Annotation> annotations = new HashSet<>(tagger.getAnnotations(inputText));
+        if (taggingSettings.isTagEntityDictionary()) {
+            // add the occurrences of known entities, which the tagger above might have missed or split up
+            for (Annotation annotation : model.getEntityDictionaryTagger().getAnnotations(inputText)) {
+                annotations.add(new ImmutableAnnotation(annotation.getStartPosition(), annotation.getValue(),
+                        StringTagger.CANDIDATE_TAG));
+            }
+        }
         preProcessAnnotations(annotations);
         Annotations<ClassifiedAnnotation> classifiedAnnotations = classifyCandidates(annotations);
         classifiedAnnotations = postProcessAnnotations(inputText, classifiedAnnotations);
@@ -9,6 +9,7 @@ import org.apache.commons.lang3.StringUtils;
 
 import ws.palladian.classification.text.DictionaryModel;
 import ws.palladian.classification.text.DictionaryModel.DictionaryEntry;
+import ws.palladian.extraction.entity.DictionaryTagger;
 import ws.palladian.extraction.entity.tagger.PalladianNerTrainingSettings.LanguageMode;
 import ws.palladian.extraction.entity.tagger.PalladianNerTrainingSettings.TrainingMode;
 
@@ -43,6 +44,9 @@ public final class PalladianNerModel implements Serializable {
     /** Cache for the case insensitive entity dictionary. */
     transient Set<String> entityValuesCaseInsensitive = null;
 
+    /** Cache for the tagger of the entity dictionary. */
+    transient DictionaryTagger entityDictionaryTagger = null;
+
     /**
      * @return The tags which are supported by this model.
      */
@@ -71,6 +75,16 @@ public final class PalladianNerModel implements Serializable {
         return entityValuesCaseInsensitive.contains(value.toLowerCase());
     }
 
+    /**
+     * @return A tagger for the entries of the entity dictionary, tagged with their most likely type.
+     */
+    public DictionaryTagger getEntityDictionaryTagger() {
+        if (entityDictionaryTagger == null) {
+            entityDictionaryTagger = new DictionaryTagger.Builder(false).addAll(entityDictionary).create();
+        }
+        return entityDictionaryTagger;
+    }
+
     @Override
     public String toString() {
         StringBuilder summary = new StringBuilder();
@@ -3,12 +3,14 @@ package ws.palladian.extraction.location;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 
 import org.apache.commons.lang3.Validate;
 
 import java.util.function.Function;
 import ws.palladian.helper.geo.GeoCoordinate;
+import ws.palladian.helper.geo.SpatialIndex;
 
 /**
  * @author Philipp Katz
@@ -72,6 +74,27 @@ public final class LocationExtractorUtils {
         };
     }
 
+    /**
+     * <p>
+     * Create a {@link SpatialIndex} over all locations of the given source which have a coordinate.
+     * </p>
+     * 
+     * @param source The source, which must support {@link LocationSource#getLocations()}, not <code>null</code>.
+     * @return The index, which contains the location IDs.
+     */
+    public static SpatialIndex createSpatialIndex(LocationSource source) {
+        Validate.notNull(source, "source must not be null");
+        SpatialIndex.Builder builder = new SpatialIndex.Builder();
+        Iterator<Location> iterator = source.getLocations();
+        while (iterator.hasNext()) {
+            Location location = iterator.next();
+            if (location.getCoordinate() != null) {
+                builder.add(location.getId(), location.getCoordinate());
+            }
+        }
+        return builder.create();
+    }
+
 //    /**
 //     * <p>
 //     * Create a filter matching locations by name and language.
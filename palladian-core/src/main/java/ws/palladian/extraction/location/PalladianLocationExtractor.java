@@ -4,12 +4,17 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
+import org.apache.commons.lang3.Validate;
+
 import ws.palladian.core.Annotation;
 import ws.palladian.core.ClassifyingTagger;
 import ws.palladian.extraction.entity.Annotations;
+import ws.palladian.extraction.entity.DictionaryTagger;
+import ws.palladian.extraction.entity.StringTagger;
 import ws.palladian.extraction.location.disambiguation.HeuristicDisambiguation;
 import ws.palladian.extraction.location.disambiguation.LocationDisambiguation;
 import ws.palladian.extraction.location.persistence.LocationDatabase;
@@ -37,15 +42,37 @@ public class PalladianLocationExtractor extends LocationExtractor {
 
     private final LocationDisambiguation disambiguation;
 
+    /** The names of all locations in the location source, or <code>null</code> to look up all candidates. */
+    private final DictionaryTagger gazetteer;
+
     private static final AddressTagger addressTagger = AddressTagger.INSTANCE;
 
     private static final CoordinateTagger coordinateTagger = CoordinateTagger.INSTANCE;
 
+    /**
+     * <p>
+     * Create a new {@link PalladianLocationExtractor}, which only looks up candidates in the location source, which
+     * are contained in the given gazetteer. This saves the round trips for texts where none of the candidates is a
+     * location name.
+     * </p>
+     * 
+     * @param locationSource The location source, not <code>null</code>.
+     * @param tagger The tagger for the candidates, not <code>null</code>.
+     * @param disambiguation The disambiguation, not <code>null</code>.
+     * @param gazetteer The gazetteer with the names of the locations in the source, as created by
+     *            {@link #createGazetteer(LocationSource)}, or <code>null</code> to look up all candidates.
+     */
     public PalladianLocationExtractor(LocationSource locationSource, ClassifyingTagger tagger,
-            LocationDisambiguation disambiguation) {
+            LocationDisambiguation disambiguation, DictionaryTagger gazetteer) {
         this.locationSource = locationSource;
         this.tagger = tagger;
         this.disambiguation = disambiguation;
+        this.gazetteer = gazetteer;
+    }
+
+    public PalladianLocationExtractor(LocationSource locationSource, ClassifyingTagger tagger,
+            LocationDisambiguation disambiguation) {
+        this(locationSource, tagger, disambiguation, null);
     }
 
     public PalladianLocationExtractor(LocationSource locationSource, LocationDisambiguation disambiguation) {
@@ -60,7 +87,8 @@ public class PalladianLocationExtractor extends LocationExtractor {
     public List<LocationAnnotation> getAnnotations(String text) {
         List<ClassifiedAnnotation> classifiedEntities = tagger.getAnnotations(text);
 
-        MultiMap<ClassifiedAnnotation, Location> locations = fetchLocations(locationSource, classifiedEntities);
+        MultiMap<ClassifiedAnnotation, Location> locations = fetchLocations(locationSource, classifiedEntities,
+                gazetteer);
 
         Annotations<LocationAnnotation> result = new Annotations<>();
 
@@ -83,12 +111,35 @@ public class PalladianLocationExtractor extends LocationExtractor {
     }
 
     public static <A extends Annotation> MultiMap<A, Location> fetchLocations(LocationSource source, List<A> annotations) {
+        return fetchLocations(source, annotations, null);
+    }
+
+    /**
+     * <p>
+     * Look up the locations for the given annotations.
+     * </p>
+     * 
+     * @param source The location source, not <code>null</code>.
+     * @param annotations The annotations, not <code>null</code>.
+     * @param gazetteer The names of the locations in the source; values which are not contained are not looked up.
+     *            <code>null</code> to look up all values.
+     * @return The locations for each annotation (an empty collection for annotations without locations).
+     */
+    public static <A extends Annotation> MultiMap<A, Location> fetchLocations(LocationSource source,
+            List<A> annotations, DictionaryTagger gazetteer) {
         Set<String> valuesToRetrieve = new HashSet<>();
         for (Annotation annotation : annotations) {
             String entityValue = LocationExtractorUtils.normalizeName(annotation.getValue()).toLowerCase();
-            valuesToRetrieve.add(entityValue);
+            if (gazetteer == null || gazetteer.contains(entityValue)) {
+                valuesToRetrieve.add(entityValue);
+            }
+        }
+        MultiMap<String, Location> lookup;
+        if (valuesToRetrieve.isEmpty()) {
+            lookup = DefaultMultiMap.createWithSet();
+        } else {
+            lookup = source.getLocations(valuesToRetrieve, EnumSet.of(Language.ENGLISH));
         }
-        MultiMap<String, Location> lookup = source.getLocations(valuesToRetrieve, EnumSet.of(Language.ENGLISH));
         MultiMap<A, Location> result = DefaultMultiMap.createWithSet();
         for (A annotation : annotations) {
             String entityValue = LocationExtractorUtils.normalizeName(annotation.getValue()).toLowerCase();
@@ -102,6 +153,30 @@ public class PalladianLocationExtractor extends LocationExtractor {
         return result;
     }
 
+    /**
+     * <p>
+     * Create a gazetteer with the primary and alternative names of all locations in the given source (in all
+     * languages). The names are matched case insensitively and without accents, like the location sources match
+     * them (e.g. a candidate "Zurich" is contained, in case the source has a location "Zürich").
+     * </p>
+     * 
+     * @param source The location source, which must support iterating, not <code>null</code>.
+     * @return The gazetteer, with {@link StringTagger#CANDIDATE_TAG} as tag for all names.
+     */
+    public static DictionaryTagger createGazetteer(LocationSource source) {
+        Validate.notNull(source, "source must not be null");
+        DictionaryTagger.Builder builder = new DictionaryTagger.Builder(true, true);
+        Iterator<Location> iterator = source.getLocations();
+        while (iterator.hasNext()) {
+            Location location = iterator.next();
+            builder.add(location.getPrimaryName(), StringTagger.CANDIDATE_TAG);
+            for (AlternativeName alternativeName : location.getAlternativeNames()) {
+                builder.add(alternativeName.getName(), StringTagger.CANDIDATE_TAG);
+            }
+        }
+        return builder.create();
+    }
+
     @Override
     public String getName() {
         return String.format("PalladianLocationExtractor:%s", disambiguation);
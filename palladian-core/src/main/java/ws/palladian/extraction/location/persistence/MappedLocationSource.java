@@ -0,0 +1,741 @@
+package ws.palladian.extraction.location.persistence;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import ws.palladian.extraction.location.AlternativeName;
+import ws.palladian.extraction.location.Location;
+import ws.palladian.extraction.location.LocationBuilder;
+import ws.palladian.extraction.location.LocationSource;
+import ws.palladian.extraction.location.LocationType;
+import ws.palladian.extraction.location.sources.LocationStore;
+import ws.palladian.extraction.location.sources.MultiQueryLocationSource;
+import ws.palladian.extraction.location.sources.importers.GeonamesImporter;
+import ws.palladian.helper.StopWatch;
+import ws.palladian.helper.collection.AbstractIterator;
+import ws.palladian.helper.collection.DefaultMultiMap;
+import ws.palladian.helper.collection.MultiMap;
+import ws.palladian.helper.constants.Language;
+import ws.palladian.helper.geo.GeoCoordinate;
+import ws.palladian.helper.geo.SpatialIndex;
+import ws.palladian.helper.io.LargeMappedBuffer;
+
+/**
+ * <p>
+ * A read-only {@link LocationSource}, which is stored in one binary file and accessed through memory mapping (see
+ * {@link LargeMappedBuffer}). It serves as an in-process alternative to the {@link LocationDatabase}: Opening takes
+ * milliseconds, name lookups need no round trips, reads are thread-safe without any locking, and several JVMs on one
+ * host which open the same file share the physical memory. Names are matched case insensitively and ignoring accents;
+ * the primary name of a location always matches, alternative names match in case they have no language, or one of the
+ * requested languages (this is the same behavior as the database's <code>search_locations</code> procedure).
+ * </p>
+ *
+ * <p>
+ * The file is created with a {@link Writer}, which is a {@link LocationStore}, so that it can be filled by the
+ * importers (e.g. the {@link GeonamesImporter}). The file layout is as follows (all values big endian):
+ * </p>
+ *
+ * <pre>
+ * header:       magic (int), version (int), numLocations (int), numAncestorIds (int), numAlternativeNames (int), tableSize (int), stringsSize (long)
+ * records:      for each location sorted by ID: id (int), type (int), latitude (double), longitude (double), population (long),
+ *               primaryName (long), firstAncestorId (int), numAncestorIds (int), firstAlternativeName (int), numAlternativeNames (int)
+ * ancestorIds:  the ancestor IDs of all locations (int)
+ * alternatives: the alternative names of all locations: name (long), language (int)
+ * strings:      [ length (int), UTF-8 bytes ], ...; names are referenced by their offset in this section
+ * table:        open addressing hash table over the normalized names; for each slot the hash (int) and the record (int), or -1
+ * </pre>
+ *
+ * <p>
+ * Missing values are encoded as -1 (type, population, language) and NaN (coordinates). The {@link SpatialIndex} for
+ * coordinate queries is not stored in the file; it is created from the records on the first query.
+ * </p>
+ *
+ * @author Philipp Katz
+ */
+public final class MappedLocationSource extends MultiQueryLocationSource {
+
+    /** The logger for this class. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedLocationSource.class);
+
+    /** Identifies location files. */
+    private static final int MAGIC = 0x504c4f43;
+
+    /** Version of the file format; increment, when making incompatible changes. */
+    private static final int FILE_VERSION = 1;
+
+    private static final int HEADER_SIZE = 6 * 4 + 8;
+
+    private static final int RECORD_SIZE = 2 * 4 + 4 * 8 + 4 * 4;
+
+    private static final int ALTERNATIVE_SIZE = 8 + 4;
+
+    private static final int SLOT_SIZE = 2 * 4;
+
+    private static final LocationType[] TYPES = LocationType.values();
+
+    private static final Language[] LANGUAGES = Language.values();
+
+    private final File file;
+
+    private final int numLocations;
+
+    private final LargeMappedBuffer records;
+
+    private final LargeMappedBuffer ancestorIds;
+
+    private final LargeMappedBuffer alternatives;
+
+    private final LargeMappedBuffer strings;
+
+    private final LargeMappedBuffer table;
+
+    private final int tableMask;
+
+    /** Index over the records' coordinates for the coordinate queries, created on demand. */
+    private volatile SpatialIndex spatialIndex;
+
+    /**
+     * <p>
+     * Writes locations into the file format of the {@link MappedLocationSource}. The locations and alternative names
+     * are streamed into temporary files next to the destination file; the file is assembled when invoking
+     * {@link #finishImport()}. For assembling, the hash table over all names is built in memory, which takes about
+     * 24 bytes per name. In case a location ID is saved more than once, the last location is kept; alternative names
+     * for IDs without a saved location are dropped.
+     * </p>
+     */
+    public static final class Writer implements LocationStore {
+
+        private final File file;
+
+        private final File locationsFile;
+
+        private final File alternativesFile;
+
+        private final DataOutputStream locationsOut;
+
+        private final DataOutputStream alternativesOut;
+
+        private long locationsSize;
+
+        private long alternativesSize;
+
+        /** The location ID in the upper, and the sequence number in the lower half. */
+        private final LongArrayList locationKeys = new LongArrayList();
+
+        private final LongArrayList locationOffsets = new LongArrayList();
+
+        /** The location ID in the upper, and the sequence number in the lower half. */
+        private final LongArrayList alternativeKeys = new LongArrayList();
+
+        private final LongArrayList alternativeOffsets = new LongArrayList();
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        private final DataOutputStream bufferOut = new DataOutputStream(buffer);
+
+        private int highestId = 0;
+
+        /**
+         * <p>
+         * Create a new writer.
+         * </p>
+         *
+         * @param file The destination file, not <code>null</code>. Existing files are overwritten.
+         * @throws IOException In case the temporary files cannot be created.
+         */
+        public Writer(File file) throws IOException {
+            Validate.notNull(file, "file must not be null");
+            this.file = file;
+            File directory = file.getAbsoluteFile().getParentFile();
+            this.locationsFile = File.createTempFile("locations", ".tmp", directory);
+            this.alternativesFile = File.createTempFile("alternatives", ".tmp", directory);
+            this.locationsOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(locationsFile)));
+            this.alternativesOut = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(alternativesFile)));
+        }
+
+        @Override
+        public void save(Location location) {
+            Validate.notNull(location, "location must not be null");
+            try {
+                buffer.reset();
+                bufferOut.writeInt(location.getId());
+                bufferOut.writeInt(location.getType() != null ? location.getType().ordinal() : -1);
+                GeoCoordinate coordinate = location.getCoordinate();
+                bufferOut.writeDouble(coordinate != null ? coordinate.getLatitude() : Double.NaN);
+                bufferOut.writeDouble(coordinate != null ? coordinate.getLongitude() : Double.NaN);
+                bufferOut.writeLong(location.getPopulation() != null ? location.getPopulation() : -1);
+                writeString(bufferOut, location.getPrimaryName());
+                List<Integer> ancestorIds = location.getAncestorIds();
+                bufferOut.writeInt(ancestorIds.size());
+                for (Integer ancestorId : ancestorIds) {
+                    bufferOut.writeInt(ancestorId);
+                }
+                Collection<AlternativeName> alternativeNames = location.getAlternativeNames();
+                bufferOut.writeInt(alternativeNames.size());
+                for (AlternativeName alternativeName : alternativeNames) {
+                    writeAlternativeName(bufferOut, alternativeName);
+                }
+                locationKeys.add(key(location.getId(), locationKeys.size()));
+                locationOffsets.add(locationsSize);
+                buffer.writeTo(locationsOut);
+                locationsSize += buffer.size();
+                highestId = Math.max(highestId, location.getId());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void addAlternativeNames(int locationId, Collection<AlternativeName> alternativeNames) {
+            Validate.notNull(alternativeNames, "alternativeNames must not be null");
+            try {
+                for (AlternativeName alternativeName : alternativeNames) {
+                    buffer.reset();
+                    writeAlternativeName(bufferOut, alternativeName);
+                    alternativeKeys.add(key(locationId, alternativeKeys.size()));
+                    alternativeOffsets.add(alternativesSize);
+                    buffer.writeTo(alternativesOut);
+                    alternativesSize += buffer.size();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public int getHighestId() {
+            return highestId;
+        }
+
+        @Override
+        public void startImport() {
+            // nothing to do
+        }
+
+        /**
+         * Assemble the file and remove the temporary data.
+         *
+         * @throws IllegalStateException In case writing fails.
+         */
+        @Override
+        public void finishImport() {
+            StopWatch stopWatch = new StopWatch();
+            try {
+                locationsOut.close();
+                alternativesOut.close();
+                assemble();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                locationsFile.delete();
+                alternativesFile.delete();
+            }
+            LOGGER.info("Wrote {} in {}", file, stopWatch);
+        }
+
+        private void assemble() throws IOException {
+            long[] locationOrder = locationKeys.toLongArray();
+            Arrays.sort(locationOrder);
+            long[] alternativeOrder = alternativeKeys.toLongArray();
+            Arrays.sort(alternativeOrder);
+            DataReader locations = new DataReader(map(locationsFile));
+            DataReader alternatives = new DataReader(map(alternativesFile));
+
+            File directory = file.getAbsoluteFile().getParentFile();
+            File recordsFile = File.createTempFile("records", ".tmp", directory);
+            File ancestorIdsFile = File.createTempFile("ancestorIds", ".tmp", directory);
+            File alternativeNamesFile = File.createTempFile("alternativeNames", ".tmp", directory);
+            File stringsFile = File.createTempFile("strings", ".tmp", directory);
+            try {
+                int numLocations = 0;
+                int numAncestorIds = 0;
+                int numAlternativeNames = 0;
+                long stringsSize = 0;
+                LongArrayList tableEntries = new LongArrayList();
+                try (DataOutputStream recordsOut = createOutput(recordsFile);
+                        DataOutputStream ancestorIdsOut = createOutput(ancestorIdsFile);
+                        DataOutputStream alternativeNamesOut = createOutput(alternativeNamesFile);
+                        DataOutputStream stringsOut = createOutput(stringsFile)) {
+                    int alternativeIndex = 0;
+                    for (int i = 0; i < locationOrder.length; i++) {
+                        int id = (int)(locationOrder[i] >> 32);
+                        if (i + 1 < locationOrder.length && (int)(locationOrder[i + 1] >> 32) == id) {
+                            continue; // saved again later
+                        }
+                        locations.position = locationOffsets.getLong((int)locationOrder[i]);
+                        locations.readInt(); // id
+                        int type = locations.readInt();
+                        double latitude = locations.readDouble();
+                        double longitude = locations.readDouble();
+                        long population = locations.readLong();
+                        String primaryName = locations.readString();
+                        int[] ancestors = new int[locations.readInt()];
+                        for (int j = 0; j < ancestors.length; j++) {
+                            ancestors[j] = locations.readInt();
+                        }
+                        Set<AlternativeName> alternativeNames = new LinkedHashSet<>();
+                        int numNames = locations.readInt();
+                        for (int j = 0; j < numNames; j++) {
+                            alternativeNames.add(locations.readAlternativeName());
+                        }
+                        while (alternativeIndex < alternativeOrder.length
+                                && (int)(alternativeOrder[alternativeIndex] >> 32) < id) {
+                            alternativeIndex++; // no location with this ID
+                        }
+                        while (alternativeIndex < alternativeOrder.length
+                                && (int)(alternativeOrder[alternativeIndex] >> 32) == id) {
+                            int sequence = (int)alternativeOrder[alternativeIndex++];
+                            alternatives.position = alternativeOffsets.getLong(sequence);
+                            alternativeNames.add(alternatives.readAlternativeName());
+                        }
+
+                        // the strings are only stored once per location
+                        Map<String, Long> stringOffsets = new HashMap<>();
+                        stringOffsets.put(primaryName, stringsSize);
+                        stringsSize += writeString(stringsOut, primaryName);
+                        recordsOut.writeInt(id);
+                        recordsOut.writeInt(type);
+                        recordsOut.writeDouble(latitude);
+                        recordsOut.writeDouble(longitude);
+                        recordsOut.writeLong(population);
+                        recordsOut.writeLong(stringOffsets.get(primaryName));
+                        recordsOut.writeInt(numAncestorIds);
+                        recordsOut.writeInt(ancestors.length);
+                        recordsOut.writeInt(numAlternativeNames);
+                        recordsOut.writeInt(alternativeNames.size());
+                        for (int ancestorId : ancestors) {
+                            ancestorIdsOut.writeInt(ancestorId);
+                        }
+                        numAncestorIds += ancestors.length;
+                        Set<String> normalizedNames = new LinkedHashSet<>();
+                        normalizedNames.add(normalizeName(primaryName));
+                        for (AlternativeName alternativeName : alternativeNames) {
+                            String name = alternativeName.getName();
+                            Long offset = stringOffsets.get(name);
+                            if (offset == null) {
+                                offset = stringsSize;
+                                stringOffsets.put(name, offset);
+                                stringsSize += writeString(stringsOut, name);
+                            }
+                            alternativeNamesOut.writeLong(offset);
+                            Language language = alternativeName.getLanguage();
+                            alternativeNamesOut.writeInt(language != null ? language.ordinal() : -1);
+                            normalizedNames.add(normalizeName(name));
+                        }
+                        numAlternativeNames += alternativeNames.size();
+                        for (String normalizedName : normalizedNames) {
+                            tableEntries.add(key(normalizedName.hashCode(), numLocations));
+                        }
+                        numLocations++;
+                    }
+                }
+
+                int numEntries = tableEntries.size();
+                int tableSize = Math.max(2, Integer.highestOneBit(Math.max(1, 2 * numEntries - 1)) << 1);
+                int[] tableHashes = new int[tableSize];
+                int[] tableRecords = new int[tableSize];
+                Arrays.fill(tableRecords, -1);
+                for (int i = 0; i < numEntries; i++) {
+                    long entry = tableEntries.getLong(i);
+                    int hash = (int)(entry >> 32);
+                    int slot = HashCommon.mix(hash) & (tableSize - 1);
+                    while (tableRecords[slot] != -1) {
+                        slot = (slot + 1) & (tableSize - 1);
+                    }
+                    tableHashes[slot] = hash;
+                    tableRecords[slot] = (int)entry;
+                }
+
+                try (DataOutputStream out = createOutput(file)) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(FILE_VERSION);
+                    out.writeInt(numLocations);
+                    out.writeInt(numAncestorIds);
+                    out.writeInt(numAlternativeNames);
+                    out.writeInt(tableSize);
+                    out.writeLong(stringsSize);
+                    copy(recordsFile, out);
+                    copy(ancestorIdsFile, out);
+                    copy(alternativeNamesFile, out);
+                    copy(stringsFile, out);
+                    for (int i = 0; i < tableSize; i++) {
+                        out.writeInt(tableHashes[i]);
+                        out.writeInt(tableRecords[i]);
+                    }
+                }
+            } finally {
+                recordsFile.delete();
+                ancestorIdsFile.delete();
+                alternativeNamesFile.delete();
+                stringsFile.delete();
+            }
+        }
+
+        private static long key(int upper, int lower) {
+            return (long)upper << 32 | lower & 0xffffffffL;
+        }
+
+        private static DataOutputStream createOutput(File file) throws IOException {
+            return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        }
+
+        private static LargeMappedBuffer map(File file) throws IOException {
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+                FileChannel channel = randomAccessFile.getChannel();
+                return LargeMappedBuffer.map(channel, 0, channel.size());
+            }
+        }
+
+        private static void copy(File file, OutputStream out) throws IOException {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            }
+        }
+
+        /** @return The number of written bytes. */
+        private static int writeString(DataOutputStream out, String string) throws IOException {
+            byte[] bytes = string.getBytes(UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            return 4 + bytes.length;
+        }
+
+        private static void writeAlternativeName(DataOutputStream out, AlternativeName alternativeName)
+                throws IOException {
+            writeString(out, alternativeName.getName());
+            Language language = alternativeName.getLanguage();
+            out.writeInt(language != null ? language.ordinal() : -1);
+        }
+
+    }
+
+    /** Sequential reads from the temporary files of the {@link Writer}. */
+    private static final class DataReader {
+
+        final LargeMappedBuffer buffer;
+
+        long position;
+
+        DataReader(LargeMappedBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int readInt() {
+            int value = buffer.getInt(position);
+            position += 4;
+            return value;
+        }
+
+        long readLong() {
+            long value = buffer.getLong(position);
+            position += 8;
+            return value;
+        }
+
+        double readDouble() {
+            double value = buffer.getDouble(position);
+            position += 8;
+            return value;
+        }
+
+        String readString() {
+            int length = readInt();
+            String value = MappedLocationSource.readString(buffer, position - 4);
+            position += length;
+            return value;
+        }
+
+        AlternativeName readAlternativeName() {
+            String name = readString();
+            int language = readInt();
+            return new AlternativeName(name, language != -1 ? LANGUAGES[language] : null);
+        }
+
+    }
+
+    /**
+     * <p>
+     * Open a location file, which was created with the {@link Writer}.
+     * </p>
+     *
+     * @param file The file, not <code>null</code>.
+     * @return The memory-mapped location source.
+     * @throws IOException In case the file cannot be read, or is no location file.
+     */
+    public static MappedLocationSource open(File file) throws IOException {
+        Validate.notNull(file, "file must not be null");
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            FileChannel channel = randomAccessFile.getChannel();
+            if (randomAccessFile.length() < HEADER_SIZE || randomAccessFile.readInt() != MAGIC) {
+                throw new IOException(file + " is not a location file");
+            }
+            int version = randomAccessFile.readInt();
+            if (version != FILE_VERSION) {
+                throw new IOException("Unsupported version: " + version);
+            }
+            int numLocations = randomAccessFile.readInt();
+            int numAncestorIds = randomAccessFile.readInt();
+            int numAlternativeNames = randomAccessFile.readInt();
+            int tableSize = randomAccessFile.readInt();
+            long stringsSize = randomAccessFile.readLong();
+            long recordsStart = HEADER_SIZE;
+            long ancestorIdsStart = recordsStart + (long)RECORD_SIZE * numLocations;
+            long alternativesStart = ancestorIdsStart + 4l * numAncestorIds;
+            long stringsStart = alternativesStart + (long)ALTERNATIVE_SIZE * numAlternativeNames;
+            long tableStart = stringsStart + stringsSize;
+            if (tableStart + (long)SLOT_SIZE * tableSize != randomAccessFile.length()) {
+                throw new IOException(file + " is truncated");
+            }
+            return new MappedLocationSource(file, numLocations,
+                    LargeMappedBuffer.map(channel, recordsStart, ancestorIdsStart - recordsStart),
+                    LargeMappedBuffer.map(channel, ancestorIdsStart, alternativesStart - ancestorIdsStart),
+                    LargeMappedBuffer.map(channel, alternativesStart, stringsStart - alternativesStart),
+                    LargeMappedBuffer.map(channel, stringsStart, stringsSize),
+                    LargeMappedBuffer.map(channel, tableStart, (long)SLOT_SIZE * tableSize), tableSize);
+        }
+    }
+
+    /** Invoked from {@link #open(File)}. */
+    private MappedLocationSource(File file, int numLocations, LargeMappedBuffer records,
+            LargeMappedBuffer ancestorIds, LargeMappedBuffer alternatives, LargeMappedBuffer strings,
+            LargeMappedBuffer table, int tableSize) {
+        this.file = file;
+        this.numLocations = numLocations;
+        this.records = records;
+        this.ancestorIds = ancestorIds;
+        this.alternatives = alternatives;
+        this.strings = strings;
+        this.table = table;
+        this.tableMask = tableSize - 1;
+    }
+
+    /** Names are matched case insensitively and without accents (as with the database's collation). */
+    static String normalizeName(String name) {
+        return StringUtils.stripAccents(name.toLowerCase());
+    }
+
+    private static String readString(LargeMappedBuffer buffer, long offset) {
+        byte[] bytes = new byte[buffer.getInt(offset)];
+        buffer.get(offset + 4, bytes, 0, bytes.length);
+        return new String(bytes, UTF_8);
+    }
+
+    @Override
+    public MultiMap<String, Location> getLocations(Collection<String> locationNames, Set<Language> languages) {
+        Validate.notNull(locationNames, "locationNames must not be null");
+        Validate.notNull(languages, "languages must not be null");
+        MultiMap<String, Location> result = DefaultMultiMap.createWithSet();
+        for (String locationName : locationNames) {
+            IntArrayList matchingRecords = findRecords(locationName, languages);
+            for (int i = 0; i < matchingRecords.size(); i++) {
+                result.add(locationName, createLocation(matchingRecords.getInt(i)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Find the records of the locations with the given name, by probing the hash table.
+     */
+    private IntArrayList findRecords(String locationName, Set<Language> languages) {
+        String normalizedName = normalizeName(locationName);
+        int hash = normalizedName.hashCode();
+        IntArrayList result = new IntArrayList();
+        for (int slot = HashCommon.mix(hash) & tableMask;; slot = (slot + 1) & tableMask) {
+            long slotOffset = (long)slot * SLOT_SIZE;
+            int record = table.getInt(slotOffset + 4);
+            if (record == -1) {
+                return result;
+            }
+            if (table.getInt(slotOffset) == hash && !result.contains(record)
+                    && hasName(record, normalizedName, languages)) {
+                result.add(record);
+            }
+        }
+    }
+
+    private boolean hasName(int record, String normalizedName, Set<Language> languages) {
+        long recordOffset = (long)record * RECORD_SIZE;
+        if (normalizeName(readString(strings, records.getLong(recordOffset + 32))).equals(normalizedName)) {
+            return true;
+        }
+        int firstAlternativeName = records.getInt(recordOffset + 48);
+        int numAlternativeNames = records.getInt(recordOffset + 52);
+        for (int i = 0; i < numAlternativeNames; i++) {
+            long alternativeOffset = (long)(firstAlternativeName + i) * ALTERNATIVE_SIZE;
+            int language = alternatives.getInt(alternativeOffset + 8);
+            if (language == -1 || languages.contains(LANGUAGES[language])) {
+                String name = readString(strings, alternatives.getLong(alternativeOffset));
+                if (normalizeName(name).equals(normalizedName)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Location createLocation(int record) {
+        long recordOffset = (long)record * RECORD_SIZE;
+        LocationBuilder builder = new LocationBuilder();
+        builder.setId(records.getInt(recordOffset));
+        int type = records.getInt(recordOffset + 4);
+        builder.setType(type != -1 ? TYPES[type] : null);
+        double latitude = records.getDouble(recordOffset + 8);
+        double longitude = records.getDouble(recordOffset + 16);
+        if (!Double.isNaN(latitude) && !Double.isNaN(longitude)) {
+            builder.setCoordinate(latitude, longitude);
+        }
+        long population = records.getLong(recordOffset + 24);
+        builder.setPopulation(population != -1 ? population : null);
+        builder.setPrimaryName(readString(strings, records.getLong(recordOffset + 32)));
+        int firstAncestorId = records.getInt(recordOffset + 40);
+        int[] ancestors = new int[records.getInt(recordOffset + 44)];
+        for (int i = 0; i < ancestors.length; i++) {
+            ancestors[i] = ancestorIds.getInt(4l * (firstAncestorId + i));
+        }
+        builder.setAncestorIds(ancestors);
+        int firstAlternativeName = records.getInt(recordOffset + 48);
+        int numAlternativeNames = records.getInt(recordOffset + 52);
+        for (int i = 0; i < numAlternativeNames; i++) {
+            long alternativeOffset = (long)(firstAlternativeName + i) * ALTERNATIVE_SIZE;
+            String name = readString(strings, alternatives.getLong(alternativeOffset));
+            int language = alternatives.getInt(alternativeOffset + 8);
+            builder.addAlternativeName(name, language != -1 ? LANGUAGES[language] : null);
+        }
+        return builder.create();
+    }
+
+    @Override
+    public List<Location> getLocations(List<Integer> locationIds) {
+        Validate.notNull(locationIds, "locationIds must not be null");
+        List<Location> locations = new ArrayList<>();
+        for (Integer locationId : locationIds) {
+            int record = findRecord(locationId);
+            if (record != -1) {
+                locations.add(createLocation(record));
+            }
+        }
+        return locations;
+    }
+
+    /** Binary search over the records, which are sorted by ID. */
+    private int findRecord(int locationId) {
+        int low = 0;
+        int high = numLocations - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int id = records.getInt((long)mid * RECORD_SIZE);
+            if (id < locationId) {
+                low = mid + 1;
+            } else if (id > locationId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public List<Location> getLocations(GeoCoordinate coordinate, double distance) {
+        Validate.notNull(coordinate, "coordinate must not be null");
+        List<Location> locations = new ArrayList<>();
+        for (int record : getSpatialIndex().findWithin(coordinate.getLatitude(), coordinate.getLongitude(), distance)) {
+            locations.add(createLocation(record));
+        }
+        return locations;
+    }
+
+    /** The index is not part of the file, it is created from the records with the first coordinate query. */
+    private SpatialIndex getSpatialIndex() {
+        SpatialIndex result = spatialIndex;
+        if (result == null) {
+            synchronized (this) {
+                result = spatialIndex;
+                if (result == null) {
+                    StopWatch stopWatch = new StopWatch();
+                    SpatialIndex.Builder builder = new SpatialIndex.Builder();
+                    for (int record = 0; record < numLocations; record++) {
+                        long recordOffset = (long)record * RECORD_SIZE;
+                        double latitude = records.getDouble(recordOffset + 8);
+                        double longitude = records.getDouble(recordOffset + 16);
+                        if (!Double.isNaN(latitude) && !Double.isNaN(longitude)) {
+                            builder.add(record, latitude, longitude);
+                        }
+                    }
+                    result = builder.create();
+                    spatialIndex = result;
+                    LOGGER.debug("Created spatial index with {} coordinates in {}", result.size(), stopWatch);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<Location> getLocations() {
+        return new AbstractIterator<Location>() {
+            int record = 0;
+
+            @Override
+            protected Location getNext() throws Finished {
+                if (record < numLocations) {
+                    return createLocation(record++);
+                }
+                throw FINISHED;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return numLocations;
+    }
+
+    /**
+     * @return The file of this location source.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public String toString() {
+        return "MappedLocationSource [file=" + file + ", numLocations=" + numLocations + "]";
+    }
+
+}
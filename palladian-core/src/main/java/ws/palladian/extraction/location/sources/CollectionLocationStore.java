@@ -1,24 +1,29 @@
 package ws.palladian.extraction.location.sources;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ws.palladian.extraction.location.AbstractLocation;
 import ws.palladian.extraction.location.AlternativeName;
 import ws.palladian.extraction.location.Location;
+import ws.palladian.extraction.location.LocationExtractorUtils;
 import ws.palladian.extraction.location.LocationType;
 import ws.palladian.helper.collection.DefaultMultiMap;
 import ws.palladian.helper.collection.MultiMap;
 import ws.palladian.helper.constants.Language;
 import ws.palladian.helper.geo.GeoCoordinate;
+import ws.palladian.helper.geo.SpatialIndex;
 
 /**
  * <p>
@@ -36,6 +41,9 @@ public class CollectionLocationStore extends SingleQueryLocationSource implement
 
     private final MultiMap<String, MutableLocation> namesLocations = DefaultMultiMap.createWithSet();
 
+    /** Index for the coordinate queries, created on demand and reset when locations are saved. */
+    private SpatialIndex spatialIndex;
+
     @Override
     public Collection<Location> getLocations(String locationName, Set<Language> languages) {
         LOGGER.warn("getLocations(String,EnumSet<Language>) is not supported, ignoring language parameter");
@@ -46,6 +54,7 @@ public class CollectionLocationStore extends SingleQueryLocationSource implement
     public void save(Location location) {
         MutableLocation locationCopy = new MutableLocation(location);
         idLocation.put(location.getId(), locationCopy);
+        spatialIndex = null;
         namesLocations.add(location.getPrimaryName().toLowerCase(), locationCopy);
         for (AlternativeName alternativeName : location.getAlternativeNames()) {
             namesLocations.add(alternativeName.getName().toLowerCase(), locationCopy);
@@ -57,6 +66,29 @@ public class CollectionLocationStore extends SingleQueryLocationSource implement
         return idLocation.get(locationId);
     }
 
+    @Override
+    public synchronized List<Location> getLocations(GeoCoordinate coordinate, double distance) {
+        Validate.notNull(coordinate, "coordinate must not be null");
+        if (spatialIndex == null) {
+            spatialIndex = LocationExtractorUtils.createSpatialIndex(this);
+        }
+        List<Location> locations = new ArrayList<>();
+        for (int locationId : spatialIndex.findWithin(coordinate.getLatitude(), coordinate.getLongitude(), distance)) {
+            locations.add(idLocation.get(locationId));
+        }
+        return locations;
+    }
+
+    @Override
+    public Iterator<Location> getLocations() {
+        return Collections.<Location> unmodifiableCollection(idLocation.values()).iterator();
+    }
+
+    @Override
+    public int size() {
+        return idLocation.size();
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
@@ -1,82 +1,269 @@
 package ws.palladian.extraction.location.sources;
 
+import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.tuple.Pair;
 
 import ws.palladian.extraction.location.Location;
 import ws.palladian.extraction.location.LocationSource;
+import ws.palladian.helper.StopWatch;
 import ws.palladian.helper.collection.DefaultMultiMap;
 import ws.palladian.helper.collection.MultiMap;
 import ws.palladian.helper.constants.Language;
 import ws.palladian.helper.geo.GeoCoordinate;
+import ws.palladian.helper.math.SlimStats;
+import ws.palladian.helper.math.Stats;
 
 /**
  * <p>
- * Wrapper around another {@link LocationSource} which parallelizes requests.
- * 
+ * Wrapper around another {@link LocationSource} which parallelizes requests. The requests are run on a fixed number
+ * of (daemon) threads, which are terminated when idle, or when the instance is closed (see {@link #close()}).
+ * Identical requests for names or IDs which are issued concurrently from different threads are coalesced, i.e. only
+ * the first one is passed to the wrapped source, the others wait for its result. In case the wrapped source is a
+ * {@link MultiQueryLocationSource}, the names and IDs of one request are passed in batches, else one by one.
+ *
  * @author Philipp Katz
  */
-public final class ParallelizedRequestLocationSource extends MultiQueryLocationSource {
+public final class ParallelizedRequestLocationSource extends MultiQueryLocationSource implements Closeable {
+
+    /** The default number of names or IDs which are passed to a {@link MultiQueryLocationSource} at once. */
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
+    /** Time after which idle threads are terminated. */
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    /** Lookup of a batch of keys in the wrapped source. */
+    private interface BatchLookup<K, V> {
+        Map<K, V> lookup(List<K> keys);
+    }
 
     private final LocationSource source;
 
     private final int numThreads;
 
+    private final int batchSize;
+
+    private final ExecutorService executor;
+
+    /** The name requests which are currently passed to the wrapped source, keyed by name and languages. */
+    private final ConcurrentMap<Pair<String, Set<Language>>, CompletableFuture<Collection<Location>>> pendingNames;
+
+    /** The ID requests which are currently passed to the wrapped source. */
+    private final ConcurrentMap<Integer, CompletableFuture<Location>> pendingIds;
+
+    /** Number of names or IDs which were requested. */
+    private final AtomicInteger requestedItems = new AtomicInteger();
+
+    /** Number of names or IDs which were coalesced with a pending request. */
+    private final AtomicInteger coalescedItems = new AtomicInteger();
+
+    /** Latencies of the requests to the wrapped source in milliseconds; guarded by itself. */
+    private final SlimStats latencyStats = new SlimStats();
+
+    /** Number of names or IDs in the requests to the wrapped source; guarded by {@link #latencyStats}. */
+    private final SlimStats batchSizeStats = new SlimStats();
+
     /**
      * Create a new {@link ParallelizedRequestLocationSource} wrapping another {@link LocationSource}.
-     * 
+     *
      * @param source The {@link LocationSource} to wrap, not <code>null</code>.
      * @param numThreads The number of parallel requests, greater zero.
      */
     public ParallelizedRequestLocationSource(LocationSource source, int numThreads) {
+        this(source, numThreads, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Create a new {@link ParallelizedRequestLocationSource} wrapping another {@link LocationSource}.
+     *
+     * @param source The {@link LocationSource} to wrap, not <code>null</code>.
+     * @param numThreads The number of parallel requests, greater zero.
+     * @param batchSize The maximum number of names or IDs which are passed at once, in case the wrapped source is a
+     *            {@link MultiQueryLocationSource}; greater zero.
+     */
+    public ParallelizedRequestLocationSource(LocationSource source, int numThreads, int batchSize) {
         Validate.notNull(source, "source must not be null");
         Validate.isTrue(numThreads > 0, "numThreads must be greater zero");
+        Validate.isTrue(batchSize > 0, "batchSize must be greater zero");
         this.source = source;
         this.numThreads = numThreads;
+        this.batchSize = source instanceof MultiQueryLocationSource ? batchSize : 1;
+        this.pendingNames = new ConcurrentHashMap<>();
+        this.pendingIds = new ConcurrentHashMap<>();
+        ThreadFactory threadFactory = new ThreadFactory() {
+            final AtomicInteger threadCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                String name = ParallelizedRequestLocationSource.class.getSimpleName() + "-"
+                        + threadCount.incrementAndGet();
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        // idle threads time out, as the instance is often wrapped (e.g. in a cache), so that close() is not reachable
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(numThreads, numThreads, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        this.executor = executor;
     }
 
     @Override
-    public MultiMap<String, Location> getLocations(Collection<String> locationNames, final Set<Language> languages) {
-        List<Callable<Pair<String, Collection<Location>>>> tasks = new ArrayList<>();
-        for (final String locationName : locationNames) {
-            tasks.add(new Callable<Pair<String, Collection<Location>>>() {
-                @Override
-                public Pair<String, Collection<Location>> call() throws Exception {
-                    Collection<Location> locations = source.getLocations(locationName, languages);
-                    return Pair.of(locationName, locations);
-                }
-            });
+    public MultiMap<String, Location> getLocations(Collection<String> locationNames, Set<Language> languages) {
+        Validate.notNull(locationNames, "locationNames must not be null");
+        Validate.notNull(languages, "languages must not be null");
+        // copy the languages, as they are part of the keys of the pending requests
+        final Set<Language> languagesCopy = new HashSet<>(languages);
+        List<Pair<String, Set<Language>>> keys = new ArrayList<>();
+        for (String locationName : locationNames) {
+            keys.add(Pair.of(locationName, languagesCopy));
         }
-        List<Pair<String, Collection<Location>>> result = executeParallel(tasks, numThreads);
+        Map<Pair<String, Set<Language>>, Collection<Location>> result = execute(keys, pendingNames,
+                new BatchLookup<Pair<String, Set<Language>>, Collection<Location>>() {
+                    @Override
+                    public Map<Pair<String, Set<Language>>, Collection<Location>> lookup(
+                            List<Pair<String, Set<Language>>> batch) {
+                        List<String> names = new ArrayList<>();
+                        for (Pair<String, Set<Language>> key : batch) {
+                            names.add(key.getLeft());
+                        }
+                        MultiMap<String, Location> locations = source.getLocations(names, languagesCopy);
+                        Map<Pair<String, Set<Language>>, Collection<Location>> batchResult = new HashMap<>();
+                        for (Pair<String, Set<Language>> key : batch) {
+                            batchResult.put(key, locations.get(key.getLeft()));
+                        }
+                        return batchResult;
+                    }
+                });
         MultiMap<String, Location> locationMap = DefaultMultiMap.createWithSet();
-        for (Pair<String, Collection<Location>> item : result) {
-            locationMap.put(item.getLeft(), item.getRight());
+        for (Pair<String, Set<Language>> key : keys) {
+            Collection<Location> locations = result.get(key);
+            // copy, as the result might be shared with coalesced requests
+            locationMap.put(key.getLeft(), locations != null ? new HashSet<>(locations) : new HashSet<Location>());
         }
         return locationMap;
     }
 
-    private static <T> List<T> executeParallel(List<Callable<T>> tasks, int numThreads) {
-        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
-        List<T> results = new ArrayList<>();
+    @Override
+    public List<Location> getLocations(List<Integer> locationIds) {
+        Validate.notNull(locationIds, "locationIds must not be null");
+        Map<Integer, Location> result = execute(locationIds, pendingIds, new BatchLookup<Integer, Location>() {
+            @Override
+            public Map<Integer, Location> lookup(List<Integer> batch) {
+                Map<Integer, Location> batchResult = new HashMap<>();
+                if (batch.size() == 1) {
+                    batchResult.put(batch.get(0), source.getLocation(batch.get(0)));
+                } else {
+                    for (Location location : source.getLocations(batch)) {
+                        batchResult.put(location.getId(), location);
+                    }
+                }
+                return batchResult;
+            }
+        });
+        // keep the order of the given location IDs
+        List<Location> locations = new ArrayList<>();
+        for (Integer locationId : locationIds) {
+            Location location = result.get(locationId);
+            if (location != null) {
+                locations.add(location);
+            }
+        }
+        return locations;
+    }
+
+    /**
+     * Look up the given keys. Keys for which a request is already pending are coalesced with this request, the
+     * remaining ones are passed to the wrapped source in batches on the executor. Blocks until all results are
+     * available.
+     */
+    private <K, V> Map<K, V> execute(Collection<K> keys, final ConcurrentMap<K, CompletableFuture<V>> pending,
+            final BatchLookup<K, V> lookup) {
+        Map<K, CompletableFuture<V>> futures = new HashMap<>();
+        List<K> ownKeys = new ArrayList<>();
+        for (K key : new LinkedHashSet<>(keys)) {
+            CompletableFuture<V> future = new CompletableFuture<>();
+            CompletableFuture<V> pendingFuture = pending.putIfAbsent(key, future);
+            if (pendingFuture != null) {
+                futures.put(key, pendingFuture);
+                coalescedItems.incrementAndGet();
+            } else {
+                futures.put(key, future);
+                ownKeys.add(key);
+            }
+        }
+        requestedItems.addAndGet(futures.size());
+        for (int start = 0; start < ownKeys.size(); start += batchSize) {
+            final List<K> batch = new ArrayList<>(ownKeys.subList(start, Math.min(start + batchSize, ownKeys.size())));
+            final Map<K, CompletableFuture<V>> batchFutures = new HashMap<>();
+            for (K key : batch) {
+                batchFutures.put(key, futures.get(key));
+            }
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    StopWatch stopWatch = new StopWatch();
+                    Map<K, V> result = null;
+                    Throwable failure = null;
+                    try {
+                        result = lookup.lookup(batch);
+                    } catch (Throwable t) {
+                        failure = t;
+                    }
+                    // update the statistics and pending requests first, so that they are up to date for the callers
+                    synchronized (latencyStats) {
+                        latencyStats.add(stopWatch.getElapsedTime());
+                        batchSizeStats.add(batch.size());
+                    }
+                    for (K key : batch) {
+                        CompletableFuture<V> future = batchFutures.get(key);
+                        pending.remove(key, future);
+                        if (failure != null) {
+                            future.completeExceptionally(failure);
+                        } else {
+                            future.complete(result.get(key));
+                        }
+                    }
+                }
+            };
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                for (K key : batch) {
+                    pending.remove(key, batchFutures.get(key));
+                    batchFutures.get(key).completeExceptionally(e);
+                }
+            }
+        }
+        Map<K, V> results = new HashMap<>();
         try {
-            List<Future<T>> futures = executor.invokeAll(tasks);
-            for (Future<T> future : futures) {
-                results.add(future.get());
+            for (Map.Entry<K, CompletableFuture<V>> entry : futures.entrySet()) {
+                results.put(entry.getKey(), entry.getValue().get());
             }
         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new IllegalStateException(e);
         } catch (ExecutionException e) {
             Throwable cause = e.getCause();
@@ -84,34 +271,10 @@ public final class ParallelizedRequestLocationSource extends MultiQueryLocationS
                 throw (RuntimeException)cause;
             }
             throw new IllegalStateException(cause);
-        } finally {
-            executor.shutdown();
         }
         return results;
     }
 
-    @Override
-    public List<Location> getLocations(final List<Integer> locationIds) {
-        List<Callable<Location>> tasks = new ArrayList<>();
-        for (final Integer locationId : locationIds) {
-            tasks.add(new Callable<Location>() {
-                @Override
-                public Location call() throws Exception {
-                    return source.getLocation(locationId);
-                }
-            });
-        }
-        List<Location> locations = executeParallel(tasks, numThreads);
-        // sort the returned list, so that we have the order of the given locations IDs
-        Collections.sort(locations, new Comparator<Location>() {
-            @Override
-            public int compare(Location l0, Location l1) {
-                return locationIds.indexOf(l0.getId()) - locationIds.indexOf(l1.getId());
-            }
-        });
-        return locations;
-    }
-
     @Override
     public List<Location> getLocations(GeoCoordinate coordinate, double distance) {
         return source.getLocations(coordinate, distance);
@@ -127,6 +290,39 @@ public final class ParallelizedRequestLocationSource extends MultiQueryLocationS
         return source.size();
     }
 
+    /**
+     * @return The number of names or IDs which were coalesced with a pending request for the same name or ID.
+     */
+    public int getCoalescedItems() {
+        return coalescedItems.get();
+    }
+
+    /**
+     * @return Statistics about the latency of the requests to the wrapped source in milliseconds.
+     */
+    public Stats getLatencyStats() {
+        synchronized (latencyStats) {
+            return new SlimStats(latencyStats);
+        }
+    }
+
+    /**
+     * @return Statistics about the number of names or IDs in the requests to the wrapped source.
+     */
+    public Stats getBatchSizeStats() {
+        synchronized (latencyStats) {
+            return new SlimStats(batchSizeStats);
+        }
+    }
+
+    /**
+     * Shut down the threads; requests which are already running are finished, subsequent requests fail.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
     @Override
     public String toString() {
         StringBuilder stringBuilder = new StringBuilder();
@@ -134,6 +330,14 @@ public final class ParallelizedRequestLocationSource extends MultiQueryLocationS
         stringBuilder.append(" (");
         stringBuilder.append(source);
         stringBuilder.append(", NumThreads=").append(numThreads);
+        stringBuilder.append(", BatchSize=").append(batchSize);
+        stringBuilder.append(", RequestedItems=").append(requestedItems.get());
+        stringBuilder.append(", CoalescedItems=").append(coalescedItems.get());
+        synchronized (latencyStats) {
+            stringBuilder.append(", Requests=").append(latencyStats.getCount());
+            stringBuilder.append(", MeanLatency=").append(latencyStats.getMean());
+            stringBuilder.append(", MeanBatchSize=").append(batchSizeStats.getMean());
+        }
         stringBuilder.append(")");
         return stringBuilder.toString();
     }
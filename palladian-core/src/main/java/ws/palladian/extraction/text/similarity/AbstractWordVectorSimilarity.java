@@ -11,6 +11,11 @@ import ws.palladian.helper.nlp.AbstractStringMetric;
 abstract class AbstractWordVectorSimilarity extends AbstractStringMetric {
 
 	protected List<String> preprocess(String sentence) {
+		return tokenize(sentence);
+	}
+
+	/** Lowercase and tokenize a text, and remove English stop words. */
+	static List<String> tokenize(String sentence) {
 		sentence = sentence.toLowerCase();
 		List<String> sentenceSplit = Tokenizer.tokenize(sentence);
 		sentenceSplit = CollectionHelper.filterList(sentenceSplit, new StopWordRemover(Language.ENGLISH));
@@ -1,5 +1,6 @@
 package ws.palladian.extraction.text.similarity;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -12,7 +13,6 @@ import ws.palladian.core.dataset.Dataset;
 import ws.palladian.extraction.feature.MapTermCorpus;
 import ws.palladian.extraction.feature.TermCorpus;
 import ws.palladian.extraction.text.vector.FloatVectorUtil;
-import ws.palladian.helper.collection.CollectionHelper;
 import ws.palladian.helper.nlp.AbstractStringMetric;
 
 public class TfIdfSimilarity extends AbstractStringMetric {
@@ -35,8 +35,8 @@ public class TfIdfSimilarity extends AbstractStringMetric {
 	@Override
 	public double getSimilarity(String i1, String i2) {
 
-		List<String> t1 = CollectionHelper.newArrayList(preprocessor.apply(i1));
-		List<String> t2 = CollectionHelper.newArrayList(preprocessor.apply(i2));
+		List<String> t1 = preprocessor.collect(i1, new ArrayList<String>());
+		List<String> t2 = preprocessor.collect(i2, new ArrayList<String>());
 
 		Set<String> uniqueTerms = new HashSet<>();
 		uniqueTerms.addAll(t1);
@@ -93,12 +93,10 @@ public class TfIdfSimilarity extends AbstractStringMetric {
 			String question1 = instance.getVector().getNominal("question1").getString();
 			String question2 = instance.getVector().getNominal("question2").getString();
 			if (textHashes.add(question1.hashCode())) {
-				List<String> tokens = CollectionHelper.newArrayList(preprocessor.apply(question1));
-				termCorpus.addTermsFromDocument(new HashSet<>(tokens));
+				termCorpus.addTermsFromDocument(preprocessor.collect(question1, new HashSet<String>()));
 			}
 			if (textHashes.add(question2.hashCode())) {
-				List<String> tokens = CollectionHelper.newArrayList(preprocessor.apply(question2));
-				termCorpus.addTermsFromDocument(new HashSet<>(tokens));
+				termCorpus.addTermsFromDocument(preprocessor.collect(question2, new HashSet<String>()));
 			}
 
 		}
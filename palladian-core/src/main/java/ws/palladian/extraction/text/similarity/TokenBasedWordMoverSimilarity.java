@@ -1,11 +1,10 @@
 package ws.palladian.extraction.text.similarity;
 
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.HashSet;
 
 import ws.palladian.classification.text.FeatureSetting;
 import ws.palladian.classification.text.Preprocessor;
-import ws.palladian.helper.collection.CollectionHelper;
 import ws.palladian.helper.nlp.AbstractStringMetric;
 import ws.palladian.helper.nlp.StringMetric;
 
@@ -53,8 +52,7 @@ public class TokenBasedWordMoverSimilarity extends AbstractStringMetric {
 	}
 
 	private Collection<String> preprocess(String s) {
-		Iterator<String> featureIterator = preprocessor.apply(s);
-		return CollectionHelper.newHashSet(featureIterator);
+		return preprocessor.collect(s, new HashSet<String>());
 	}
 
 	@Override
@@ -0,0 +1,141 @@
+package ws.palladian.extraction.text.similarity;
+
+import java.util.Arrays;
+
+/**
+ * Solves the transportation problem (earth mover's distance) between two
+ * weight distributions with the successive shortest path algorithm. The
+ * residual graph is dense (every source is connected to every sink), so the
+ * shortest paths are calculated with the O(V^2) variant of Dijkstra's
+ * algorithm, using node potentials to keep the reduced costs non-negative.
+ * Each augmentation exhausts a source, a sink, or a backward edge, so that
+ * solving takes about O((n+m)^3) for the short bags of words of documents.
+ *
+ * @author Philipp Katz
+ */
+final class TransportationProblem {
+
+	/** Weights below this value are considered as transported. */
+	private static final double EPSILON = 1e-9;
+
+	private TransportationProblem() {
+		// no instances
+	}
+
+	/**
+	 * Calculate the minimum cost for transporting the supplies to the demands.
+	 *
+	 * @param supplies
+	 *            The weights of the sources.
+	 * @param demands
+	 *            The weights of the sinks; the sum should be equal to the sum
+	 *            of the supplies, otherwise only the smaller amount is
+	 *            transported.
+	 * @param costs
+	 *            The non-negative costs for transporting one unit from source
+	 *            i to sink j, indexed as <code>[i * demands.length + j]</code>.
+	 * @return The minimum total cost.
+	 */
+	static double solve(double[] supplies, double[] demands, double[] costs) {
+		int n = supplies.length;
+		int m = demands.length;
+		double[] supply = supplies.clone();
+		double[] demand = demands.clone();
+		double[] flow = new double[n * m];
+		// nodes 0..n-1 are the sources, n..n+m-1 the sinks
+		double[] potentials = new double[n + m];
+		double[] distances = new double[n + m];
+		int[] parents = new int[n + m];
+		boolean[] visited = new boolean[n + m];
+		for (;;) {
+			Arrays.fill(distances, Double.POSITIVE_INFINITY);
+			Arrays.fill(parents, -1);
+			Arrays.fill(visited, false);
+			boolean hasSupply = false;
+			for (int i = 0; i < n; i++) {
+				if (supply[i] > EPSILON) {
+					distances[i] = 0;
+					hasSupply = true;
+				}
+			}
+			if (!hasSupply) {
+				break;
+			}
+			for (;;) {
+				int u = -1;
+				for (int v = 0; v < n + m; v++) {
+					if (!visited[v] && distances[v] < Double.POSITIVE_INFINITY
+							&& (u == -1 || distances[v] < distances[u])) {
+						u = v;
+					}
+				}
+				if (u == -1) {
+					break;
+				}
+				visited[u] = true;
+				if (u < n) { // forward edges to all sinks
+					for (int j = 0; j < m; j++) {
+						double reducedCost = Math.max(0, costs[u * m + j] + potentials[u] - potentials[n + j]);
+						if (distances[u] + reducedCost < distances[n + j]) {
+							distances[n + j] = distances[u] + reducedCost;
+							parents[n + j] = u;
+						}
+					}
+				} else { // backward edges to sources with flow
+					int j = u - n;
+					for (int i = 0; i < n; i++) {
+						if (flow[i * m + j] > EPSILON) {
+							double reducedCost = Math.max(0, -costs[i * m + j] + potentials[u] - potentials[i]);
+							if (distances[u] + reducedCost < distances[i]) {
+								distances[i] = distances[u] + reducedCost;
+								parents[i] = u;
+							}
+						}
+					}
+				}
+			}
+			int sink = -1;
+			for (int j = 0; j < m; j++) {
+				if (demand[j] > EPSILON && (sink == -1 || distances[n + j] < distances[n + sink])) {
+					sink = j;
+				}
+			}
+			if (sink == -1 || distances[n + sink] == Double.POSITIVE_INFINITY) {
+				break;
+			}
+			double sinkDistance = distances[n + sink];
+			for (int v = 0; v < n + m; v++) {
+				potentials[v] += Math.min(distances[v], sinkDistance);
+			}
+			// find the bottleneck along the path, then augment
+			double amount = demand[sink];
+			int v = n + sink;
+			while (parents[v] != -1) {
+				int u = parents[v];
+				if (u >= n) {
+					amount = Math.min(amount, flow[v * m + (u - n)]);
+				}
+				v = u;
+			}
+			amount = Math.min(amount, supply[v]);
+			supply[v] -= amount;
+			demand[sink] -= amount;
+			v = n + sink;
+			while (parents[v] != -1) {
+				int u = parents[v];
+				if (u < n) {
+					flow[u * m + (v - n)] += amount;
+				} else {
+					flow[v * m + (u - n)] -= amount;
+				}
+				v = u;
+			}
+		}
+		double cost = 0;
+		for (int i = 0; i < n * m; i++) {
+			cost += flow[i] * costs[i];
+		}
+		return cost;
+	}
+
+}
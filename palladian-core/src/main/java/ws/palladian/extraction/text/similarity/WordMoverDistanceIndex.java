@@ -0,0 +1,434 @@
+package ws.palladian.extraction.text.similarity;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ws.palladian.extraction.text.vector.FloatVectorUtil;
+import ws.palladian.extraction.text.vector.WordVectorDictionary;
+import ws.palladian.helper.collection.FixedSizePriorityQueue;
+
+/**
+ * <p>
+ * Calculates the word mover's distance (WMD) between a query and a collection
+ * of documents, as described in
+ * '<a href="http://jmlr.org/proceedings/papers/v37/kusnerb15.pdf">From Word
+ * Embeddings To Document Distances</a>'; Matt J. Kusner, Yu Sun, Nicholas I.
+ * Kolkin, Kilian Q. Weinberger; 2015. The documents are converted once into
+ * normalized bags of words (the weights of a document sum up to one), and the
+ * word vectors are normalized to unit length and stored once for the whole
+ * collection. The distance between two words is the Euclidean distance of
+ * their normalized vectors.
+ *
+ * <p>
+ * {@link #getNearest(String, int)} avoids most of the exact (and expensive)
+ * calculations using the prefetch and prune strategy from the paper: the
+ * documents are sorted by the word centroid distance (WCD), which is a lower
+ * bound of the WMD, and processed in this order until the WCD exceeds the
+ * k-th best distance found so far. For the remaining documents, the relaxed
+ * WMD (RWMD, which is a tighter lower bound) is calculated first, and the
+ * exact distance only in case the RWMD does not already exceed the k-th best
+ * distance. The documents are processed in parallel batches. The result is
+ * equal to calculating the exact distance to all documents.
+ *
+ * <p>
+ * All queries of an index share one thread pool, which is shut down when the
+ * index is closed (see {@link #close()}).
+ *
+ * @author Philipp Katz
+ */
+public final class WordMoverDistanceIndex implements Closeable {
+
+	/** The logger for this class. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(WordMoverDistanceIndex.class);
+
+	/** The number of documents which are processed per task. */
+	private static final int CHUNK_SIZE = 16;
+
+	/** A document in the result of a query. */
+	public static final class Result {
+
+		private final String id;
+
+		private final double distance;
+
+		Result(String id, double distance) {
+			this.id = id;
+			this.distance = distance;
+		}
+
+		/** @return The identifier of the document. */
+		public String getId() {
+			return id;
+		}
+
+		/** @return The word mover's distance to the query. */
+		public double getDistance() {
+			return distance;
+		}
+
+		@Override
+		public String toString() {
+			return id + "=" + distance;
+		}
+
+	}
+
+	/** Sorts results by ascending distance. */
+	private static final Comparator<Result> BY_DISTANCE = new Comparator<Result>() {
+		@Override
+		public int compare(Result r1, Result r2) {
+			return Double.compare(r1.distance, r2.distance);
+		}
+	};
+
+	/** A normalized bag of words. */
+	private static final class Document {
+		final String id;
+		/** The word vectors for queries; <code>null</code> for documents in the index. */
+		final float[] vectors;
+		/** The offsets of the word vectors. */
+		final int[] offsets;
+		final double[] weights;
+		final float[] centroid;
+
+		Document(String id, float[] vectors, int[] offsets, double[] weights, float[] centroid) {
+			this.id = id;
+			this.vectors = vectors;
+			this.offsets = offsets;
+			this.weights = weights;
+			this.centroid = centroid;
+		}
+	}
+
+	private final WordVectorDictionary dictionary;
+
+	private final int vectorSize;
+
+	private final int numThreads;
+
+	/** The pool on which the queries are processed. */
+	private final ForkJoinPool pool;
+
+	/** The offsets of the words in {@link #vectors}. */
+	private final Map<String, Integer> wordOffsets = new HashMap<>();
+
+	/** The normalized vectors of the words in the documents, one after another. */
+	private float[] vectors;
+
+	private int vectorsLength = 0;
+
+	private final List<Document> documents = new ArrayList<>();
+
+	/**
+	 * Create a new, empty index.
+	 *
+	 * @param dictionary
+	 *            The dictionary with the word vectors, not <code>null</code>.
+	 * @param numThreads
+	 *            The number of threads for queries, greater zero.
+	 */
+	public WordMoverDistanceIndex(WordVectorDictionary dictionary, int numThreads) {
+		Objects.requireNonNull(dictionary, "dictionary must not be null");
+		Validate.isTrue(numThreads > 0, "numThreads must be greater zero");
+		this.dictionary = dictionary;
+		this.vectorSize = dictionary.vectorSize();
+		this.numThreads = numThreads;
+		this.pool = new ForkJoinPool(numThreads);
+		this.vectors = new float[1024 * vectorSize];
+	}
+
+	/**
+	 * Add a document to the index.
+	 *
+	 * @param id
+	 *            The identifier of the document, not <code>null</code>.
+	 * @param text
+	 *            The text of the document, not <code>null</code>.
+	 * @return <code>true</code> in case the document was added,
+	 *         <code>false</code> in case none of its words is in the
+	 *         dictionary.
+	 */
+	public boolean add(String id, String text) {
+		Objects.requireNonNull(id, "id must not be null");
+		Map<String, Double> bag = createBag(text);
+		if (bag.isEmpty()) {
+			return false;
+		}
+		int[] offsets = new int[bag.size()];
+		double[] weights = new double[bag.size()];
+		int index = 0;
+		for (Map.Entry<String, Double> entry : bag.entrySet()) {
+			Integer offset = wordOffsets.get(entry.getKey());
+			if (offset == null) {
+				if (vectorsLength + vectorSize > vectors.length) {
+					vectors = Arrays.copyOf(vectors, 2 * vectors.length);
+				}
+				offset = vectorsLength;
+				normalize(dictionary.getVector(entry.getKey()), vectors, offset);
+				vectorsLength += vectorSize;
+				wordOffsets.put(entry.getKey(), offset);
+			}
+			offsets[index] = offset;
+			weights[index] = entry.getValue();
+			index++;
+		}
+		documents.add(new Document(id, null, offsets, weights, centroid(offsets, weights, vectors)));
+		return true;
+	}
+
+	/**
+	 * Tokenize the text, and count the words which are in the dictionary.
+	 *
+	 * @return The words with their normalized frequencies.
+	 */
+	private Map<String, Double> createBag(String text) {
+		Objects.requireNonNull(text, "text must not be null");
+		Map<String, Double> bag = new LinkedHashMap<>();
+		int count = 0;
+		for (String token : AbstractWordVectorSimilarity.tokenize(text)) {
+			Double current = bag.get(token);
+			if (current != null) {
+				bag.put(token, current + 1);
+				count++;
+			} else if (dictionary.getVector(token) != null) {
+				bag.put(token, 1.);
+				count++;
+			}
+		}
+		for (Map.Entry<String, Double> entry : bag.entrySet()) {
+			entry.setValue(entry.getValue() / count);
+		}
+		return bag;
+	}
+
+	/** Convert a text into a document with its own vectors (without modifying the index). */
+	private Document createQuery(String text) {
+		Map<String, Double> bag = createBag(text);
+		int[] offsets = new int[bag.size()];
+		double[] weights = new double[bag.size()];
+		float[] vectors = new float[bag.size() * vectorSize];
+		int index = 0;
+		for (Map.Entry<String, Double> entry : bag.entrySet()) {
+			offsets[index] = index * vectorSize;
+			weights[index] = entry.getValue();
+			normalize(dictionary.getVector(entry.getKey()), vectors, offsets[index]);
+			index++;
+		}
+		return new Document(null, vectors, offsets, weights, centroid(offsets, weights, vectors));
+	}
+
+	private static void normalize(float[] vector, float[] destination, int offset) {
+		float magnitude = FloatVectorUtil.magnitude(vector);
+		for (int i = 0; i < vector.length; i++) {
+			destination[offset + i] = magnitude > 0 ? vector[i] / magnitude : 0;
+		}
+	}
+
+	private float[] centroid(int[] offsets, double[] weights, float[] vectors) {
+		float[] centroid = new float[vectorSize];
+		for (int w = 0; w < offsets.length; w++) {
+			for (int i = 0; i < vectorSize; i++) {
+				centroid[i] += weights[w] * vectors[offsets[w] + i];
+			}
+		}
+		return centroid;
+	}
+
+	private static double euclidean(float[] vectors1, int offset1, float[] vectors2, int offset2, int length) {
+		double sum = 0;
+		for (int i = 0; i < length; i++) {
+			double difference = vectors1[offset1 + i] - vectors2[offset2 + i];
+			sum += difference * difference;
+		}
+		return Math.sqrt(sum);
+	}
+
+	/** @return The distances between the words of the query and the document, indexed [q * m + d]. */
+	private double[] costs(Document query, Document document) {
+		int n = query.offsets.length;
+		int m = document.offsets.length;
+		double[] costs = new double[n * m];
+		for (int q = 0; q < n; q++) {
+			for (int d = 0; d < m; d++) {
+				costs[q * m + d] = euclidean(query.vectors, query.offsets[q], vectors, document.offsets[d], vectorSize);
+			}
+		}
+		return costs;
+	}
+
+	/** The relaxed WMD; each word moves all its weight to the closest word of the other document. */
+	private static double relaxedDistance(Document query, Document document, double[] costs) {
+		int n = query.offsets.length;
+		int m = document.offsets.length;
+		double queryToDocument = 0;
+		for (int q = 0; q < n; q++) {
+			double min = Double.POSITIVE_INFINITY;
+			for (int d = 0; d < m; d++) {
+				min = Math.min(min, costs[q * m + d]);
+			}
+			queryToDocument += query.weights[q] * min;
+		}
+		double documentToQuery = 0;
+		for (int d = 0; d < m; d++) {
+			double min = Double.POSITIVE_INFINITY;
+			for (int q = 0; q < n; q++) {
+				min = Math.min(min, costs[q * m + d]);
+			}
+			documentToQuery += document.weights[d] * min;
+		}
+		return Math.max(queryToDocument, documentToQuery);
+	}
+
+	/**
+	 * Calculate the word mover's distance between two texts.
+	 *
+	 * @param text1
+	 *            The first text, not <code>null</code>.
+	 * @param text2
+	 *            The second text, not <code>null</code>.
+	 * @return The distance, or {@link Double#NaN} in case none of the words of
+	 *         one text is in the dictionary.
+	 */
+	public double getDistance(String text1, String text2) {
+		Document document1 = createQuery(text1);
+		Document document2 = createQuery(text2);
+		if (document1.offsets.length == 0 || document2.offsets.length == 0) {
+			return Double.NaN;
+		}
+		int n = document1.offsets.length;
+		int m = document2.offsets.length;
+		double[] costs = new double[n * m];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < m; j++) {
+				costs[i * m + j] = euclidean(document1.vectors, document1.offsets[i], document2.vectors,
+						document2.offsets[j], vectorSize);
+			}
+		}
+		return TransportationProblem.solve(document1.weights, document2.weights, costs);
+	}
+
+	/**
+	 * Get the documents with the smallest word mover's distance to the query.
+	 *
+	 * @param text
+	 *            The query text, not <code>null</code>.
+	 * @param k
+	 *            The number of documents to retrieve, greater zero.
+	 * @return The (at most) k most similar documents, sorted by ascending
+	 *         distance; empty in case none of the query's words is in the
+	 *         dictionary.
+	 */
+	public List<Result> getNearest(String text, int k) {
+		Validate.isTrue(k > 0, "k must be greater zero");
+		final Document query = createQuery(text);
+		if (query.offsets.length == 0 || documents.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		// prefetch: sort the documents by the word centroid distance
+		final double[] centroidDistances = new double[documents.size()];
+		Integer[] order = new Integer[documents.size()];
+		for (int d = 0; d < documents.size(); d++) {
+			centroidDistances[d] = euclidean(query.centroid, 0, documents.get(d).centroid, 0, vectorSize);
+			order[d] = d;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer d1, Integer d2) {
+				return Double.compare(centroidDistances[d1], centroidDistances[d2]);
+			}
+		});
+
+		// prune: process in batches, each one with the k-th best distance of
+		// the previous batches as threshold
+		FixedSizePriorityQueue<Result> queue = new FixedSizePriorityQueue<>(k,
+				Collections.reverseOrder(BY_DISTANCE));
+		double threshold = Double.POSITIVE_INFINITY;
+		int numExact = 0;
+		int batchSize = CHUNK_SIZE * numThreads;
+		try {
+			for (int batchStart = 0; batchStart < order.length; batchStart += batchSize) {
+				if (centroidDistances[order[batchStart]] >= threshold) {
+					break; // all remaining documents have a greater distance
+				}
+				List<Callable<List<Result>>> tasks = new ArrayList<>();
+				int batchEnd = Math.min(batchStart + batchSize, order.length);
+				for (int chunkStart = batchStart; chunkStart < batchEnd; chunkStart += CHUNK_SIZE) {
+					final List<Integer> chunk = Arrays.asList(order).subList(chunkStart,
+							Math.min(chunkStart + CHUNK_SIZE, batchEnd));
+					final double currentThreshold = threshold;
+					tasks.add(new Callable<List<Result>>() {
+						@Override
+						public List<Result> call() {
+							List<Result> results = new ArrayList<>();
+							for (int d : chunk) {
+								if (centroidDistances[d] >= currentThreshold) {
+									continue;
+								}
+								Document document = documents.get(d);
+								double[] costs = costs(query, document);
+								if (relaxedDistance(query, document, costs) >= currentThreshold) {
+									continue;
+								}
+								double distance = TransportationProblem.solve(query.weights, document.weights, costs);
+								results.add(new Result(document.id, distance));
+							}
+							return results;
+						}
+					});
+				}
+				for (Future<List<Result>> future : pool.invokeAll(tasks)) {
+					for (Result result : future.get()) {
+						queue.add(result);
+						numExact++;
+					}
+				}
+				if (numExact >= k) {
+					threshold = Collections.max(queue.asList(), BY_DISTANCE).getDistance();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+		LOGGER.debug("Calculated exact distance for {} of {} documents", numExact, documents.size());
+		List<Result> results = new ArrayList<>(queue.asList());
+		Collections.sort(results, BY_DISTANCE);
+		return results;
+	}
+
+	/** @return The number of documents in this index. */
+	public int size() {
+		return documents.size();
+	}
+
+	/** Shut down the thread pool of this index; no more queries can be made afterwards. */
+	@Override
+	public void close() {
+		pool.shutdown();
+	}
+
+	@Override
+	public String toString() {
+		return "WordMoverDistanceIndex [dictionary=" + dictionary + ", size=" + size() + "]";
+	}
+
+}
@@ -1,8 +1,12 @@
 package ws.palladian.extraction.text.similarity;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import ws.palladian.extraction.text.vector.FloatVectorUtil;
+import ws.palladian.extraction.text.vector.VectorIndex;
+import ws.palladian.extraction.text.vector.VectorIndex.Neighbor;
 import ws.palladian.extraction.text.vector.WordVectorDictionary;
 
 /**
@@ -11,6 +15,11 @@ import ws.palladian.extraction.text.vector.WordVectorDictionary;
  * Embeddings To Document Distances</a>'; Matt J. Kusner, Yu Sun, Nicholas I.
  * Kolkin, Kilian Q. Weinberger; 2015.
  * 
+ * <p>
+ * This class calculates a relaxed, similarity-based variant for single pairs.
+ * To calculate the exact distance, or to query a collection of documents, use
+ * {@link WordMoverDistanceIndex}.
+ * 
  * @author pk
  *
  */
@@ -34,6 +43,15 @@ public class WordMoverSimilarity extends AbstractWordVectorSimilarity {
 			tokens2 = temp;
 		}
 
+		// look up the vectors of the second text only once
+		List<float[]> vectors2 = new ArrayList<>();
+		for (String token2 : tokens2) {
+			float[] vector2 = dictionary.getVector(token2);
+			if (vector2 != null) {
+				vectors2.add(vector2);
+			}
+		}
+
 		double similarity = 0;
 
 		for (String token1 : tokens1) {
@@ -42,11 +60,7 @@ public class WordMoverSimilarity extends AbstractWordVectorSimilarity {
 			if (vector1 == null) {
 				continue;
 			}
-			for (String token2 : tokens2) {
-				float[] vector2 = dictionary.getVector(token2);
-				if (vector2 == null) {
-					continue;
-				}
+			for (float[] vector2 : vectors2) {
 				float currentSimilarity = FloatVectorUtil.cosine(vector1, vector2);
 				maxSimilarity = Math.max(maxSimilarity, currentSimilarity);
 			}
@@ -56,6 +70,54 @@ public class WordMoverSimilarity extends AbstractWordVectorSimilarity {
 		return similarity / tokens1.size();
 	}
 	
+	/**
+	 * Calculate the centroid of the word vectors of a text, using the same
+	 * preprocessing as {@link #getSimilarity(String, String)}. The distance
+	 * between centroids is a cheap lower bound for the word mover's distance,
+	 * so a {@link VectorIndex} over the centroids of a document collection
+	 * allows to select candidates before calculating the exact similarity
+	 * (see {@link #getCandidates(String, VectorIndex, int)}).
+	 * 
+	 * @param text
+	 *            The text.
+	 * @return The centroid, or <code>null</code> in case none of the words is
+	 *         in the dictionary.
+	 */
+	public float[] getCentroid(String text) {
+		float[] centroid = new float[dictionary.vectorSize()];
+		float[] vector = new float[dictionary.vectorSize()];
+		int count = 0;
+		for (String token : preprocess(text)) {
+			if (dictionary.getVector(token, vector)) {
+				FloatVectorUtil.add(centroid, vector);
+				count++;
+			}
+		}
+		return count > 0 ? FloatVectorUtil.scalar(centroid, 1f / count) : null;
+	}
+
+	/**
+	 * Retrieve candidates for the most similar documents from an index over
+	 * document centroids (created with {@link #getCentroid(String)}).
+	 * 
+	 * @param text
+	 *            The query text.
+	 * @param documentIndex
+	 *            The index with the centroids of the documents.
+	 * @param numCandidates
+	 *            The number of candidates to retrieve.
+	 * @return The candidates, sorted by descending centroid similarity, or an
+	 *         empty list in case none of the query's words is in the
+	 *         dictionary.
+	 */
+	public List<Neighbor> getCandidates(String text, VectorIndex documentIndex, int numCandidates) {
+		float[] centroid = getCentroid(text);
+		if (centroid == null) {
+			return Collections.emptyList();
+		}
+		return documentIndex.getNearest(centroid, numCandidates);
+	}
+
 	@Override
 	public String toString() {
 		return "WordMoverSimilarity [dictionary=" + dictionary + "]";
@@ -0,0 +1,154 @@
+package ws.palladian.extraction.text.vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+import org.apache.commons.lang3.Validate;
+
+import ws.palladian.helper.collection.FixedSizePriorityQueue;
+
+/**
+ * A {@link VectorIndex}, which keeps the normalized vectors in memory and
+ * compares the query to all of them. The results are exact, so this serves as
+ * the baseline for approximate indices like {@link IvfVectorIndex}.
+ *
+ * @author Philipp Katz
+ */
+public final class ExactVectorIndex implements VectorIndex {
+
+	private final int vectorSize;
+
+	private final List<String> labels = new ArrayList<>();
+
+	/** The normalized vectors, one after another. */
+	private float[] vectors;
+
+	/**
+	 * Create an index over all words in a dictionary.
+	 *
+	 * @param dictionary
+	 *            The dictionary, not <code>null</code>.
+	 * @return The index.
+	 */
+	public static ExactVectorIndex create(WordVectorDictionary dictionary) {
+		Objects.requireNonNull(dictionary, "dictionary must not be null");
+		final ExactVectorIndex index = new ExactVectorIndex(dictionary.vectorSize());
+		dictionary.forEach(new BiConsumer<String, float[]>() {
+			@Override
+			public void accept(String word, float[] vector) {
+				index.add(word, vector);
+			}
+		});
+		return index;
+	}
+
+	/**
+	 * Create a new, empty index.
+	 *
+	 * @param vectorSize
+	 *            The size of the vectors, greater zero.
+	 */
+	public ExactVectorIndex(int vectorSize) {
+		Validate.isTrue(vectorSize > 0, "vectorSize must be greater zero");
+		this.vectorSize = vectorSize;
+		this.vectors = new float[16 * vectorSize];
+	}
+
+	/**
+	 * Add a vector to the index.
+	 *
+	 * @param label
+	 *            The label of the vector, not <code>null</code>.
+	 * @param vector
+	 *            The vector, with a length of the vector size.
+	 */
+	public void add(String label, float[] vector) {
+		Objects.requireNonNull(label, "label must not be null");
+		Validate.isTrue(vector.length == vectorSize, "vector must have a length of %s", vectorSize);
+		int offset = labels.size() * vectorSize;
+		if (offset + vectorSize > vectors.length) {
+			vectors = Arrays.copyOf(vectors, 2 * vectors.length);
+		}
+		normalize(vector, vectors, offset);
+		labels.add(label);
+	}
+
+	/**
+	 * Copy a vector and normalize it to unit length (zero vectors stay zero).
+	 */
+	static void normalize(float[] vector, float[] destination, int offset) {
+		float magnitude = FloatVectorUtil.magnitude(vector);
+		for (int i = 0; i < vector.length; i++) {
+			destination[offset + i] = magnitude > 0 ? vector[i] / magnitude : 0;
+		}
+	}
+
+	@Override
+	public List<Neighbor> getNearest(float[] query, int k) {
+		Validate.isTrue(k > 0, "k must be greater zero");
+		float[] normalizedQuery = normalizeQuery(query);
+		FixedSizePriorityQueue<Neighbor> queue = new FixedSizePriorityQueue<>(k,
+				Collections.reverseOrder(Neighbor.BY_SIMILARITY));
+		for (int index = 0; index < labels.size(); index++) {
+			queue.add(new Neighbor(index, labels.get(index), dot(normalizedQuery, index)));
+		}
+		List<Neighbor> result = new ArrayList<>(queue.asList());
+		Collections.sort(result, Neighbor.BY_SIMILARITY);
+		return result;
+	}
+
+	@Override
+	public List<Neighbor> getWithinRadius(float[] query, float minSimilarity) {
+		float[] normalizedQuery = normalizeQuery(query);
+		List<Neighbor> result = new ArrayList<>();
+		for (int index = 0; index < labels.size(); index++) {
+			float similarity = dot(normalizedQuery, index);
+			if (similarity >= minSimilarity) {
+				result.add(new Neighbor(index, labels.get(index), similarity));
+			}
+		}
+		Collections.sort(result, Neighbor.BY_SIMILARITY);
+		return result;
+	}
+
+	private float[] normalizeQuery(float[] query) {
+		Validate.isTrue(query.length == vectorSize, "query must have a length of %s", vectorSize);
+		float[] normalizedQuery = new float[vectorSize];
+		normalize(query, normalizedQuery, 0);
+		return normalizedQuery;
+	}
+
+	private float dot(float[] normalizedQuery, int index) {
+		int offset = index * vectorSize;
+		float dot = 0;
+		for (int i = 0; i < vectorSize; i++) {
+			dot += normalizedQuery[i] * vectors[offset + i];
+		}
+		return dot;
+	}
+
+	@Override
+	public String getLabel(int index) {
+		return labels.get(index);
+	}
+
+	@Override
+	public int size() {
+		return labels.size();
+	}
+
+	@Override
+	public int vectorSize() {
+		return vectorSize;
+	}
+
+	@Override
+	public String toString() {
+		return "ExactVectorIndex [size=" + size() + "]";
+	}
+
+}
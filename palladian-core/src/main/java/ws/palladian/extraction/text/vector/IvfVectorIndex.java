@@ -0,0 +1,644 @@
+package ws.palladian.extraction.text.vector;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ws.palladian.helper.StopWatch;
+import ws.palladian.helper.collection.FixedSizePriorityQueue;
+import ws.palladian.helper.io.LargeMappedBuffer;
+
+/**
+ * <p>
+ * An approximate {@link VectorIndex} using an inverted file (IVF): the vectors
+ * are clustered using spherical k-means into lists, and a query only compares
+ * the vectors in the lists with the closest centroids (the number of probed
+ * lists trades recall against speed, see {@link #open(File, int)}). The index
+ * is written into a file, which is accessed through memory mapping (see
+ * {@link LargeMappedBuffer}); the vectors of each list are stored
+ * contiguously, so that a probe reads one sequential block.
+ *
+ * <p>
+ * Use the {@link Builder} to create an index, e.g. from a
+ * {@link WordVectorDictionary} or from document vectors. The file layout is as
+ * follows (all values big endian):
+ *
+ * <pre>
+ * header:       magic (int), version (int), vectorSize (int), size (int), numLists (int), labelsSize (long)
+ * centroids:    numLists normalized centroids (float)
+ * listOffsets:  for each list the start position, plus the end position (int)
+ * ids:          for each position the index of the vector (int)
+ * labelOffsets: for each index the start offset of the label record (long)
+ * labels:       [ labelLength (int), labelBytes ], ...
+ * vectors:      the normalized vectors in position order (float)
+ * </pre>
+ *
+ * @author Philipp Katz
+ */
+public final class IvfVectorIndex implements VectorIndex {
+
+	/** The logger for this class. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(IvfVectorIndex.class);
+
+	/** Identifies index files. */
+	private static final int MAGIC = 0x50495646;
+
+	/** Version of the file format; increment, when making incompatible changes. */
+	private static final int FILE_VERSION = 1;
+
+	private static final int HEADER_SIZE = 5 * 4 + 8;
+
+	/** The number of vectors which are processed per task when clustering. */
+	private static final int CHUNK_SIZE = 10000;
+
+	private final File file;
+
+	private final int vectorSize;
+
+	private final int size;
+
+	private final int numProbes;
+
+	private final float[][] centroids;
+
+	private final int[] listOffsets;
+
+	private final LargeMappedBuffer ids;
+
+	private final LargeMappedBuffer labelOffsets;
+
+	private final LargeMappedBuffer labels;
+
+	private final LargeMappedBuffer vectors;
+
+	/**
+	 * Collects the vectors for an index. The normalized vectors are streamed
+	 * into a temporary file, only the labels and a random sample for the
+	 * clustering are kept in memory. The temporary file is deleted when the
+	 * index is built, or when the builder is closed.
+	 */
+	public static final class Builder implements Closeable {
+
+		private final int vectorSize;
+
+		private final File vectorsFile;
+
+		private final DataOutputStream vectorsOut;
+
+		private final List<byte[]> labels = new ArrayList<>();
+
+		private final List<float[]> sample = new ArrayList<>();
+
+		private final Random random = new Random(0);
+
+		private int numLists = 0;
+
+		private int sampleSize = 100000;
+
+		private int numIterations = 10;
+
+		private int numThreads = Runtime.getRuntime().availableProcessors();
+
+		/**
+		 * Create a new builder.
+		 *
+		 * @param vectorSize
+		 *            The size of the vectors, greater zero.
+		 * @throws IOException
+		 *             In case the temporary file cannot be created.
+		 */
+		public Builder(int vectorSize) throws IOException {
+			Validate.isTrue(vectorSize > 0, "vectorSize must be greater zero");
+			this.vectorSize = vectorSize;
+			this.vectorsFile = File.createTempFile("vectors", ".tmp");
+			this.vectorsOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(vectorsFile)));
+		}
+
+		/**
+		 * @param numLists
+		 *            The number of lists (clusters); by default, the square root
+		 *            of the number of vectors.
+		 * @return The builder, to allow method chaining.
+		 */
+		public Builder numLists(int numLists) {
+			Validate.isTrue(numLists > 0, "numLists must be greater zero");
+			this.numLists = numLists;
+			return this;
+		}
+
+		/**
+		 * @param sampleSize
+		 *            The number of vectors which are sampled for the clustering;
+		 *            default is 100,000. Must be set before adding vectors.
+		 * @return The builder, to allow method chaining.
+		 */
+		public Builder sampleSize(int sampleSize) {
+			Validate.isTrue(sampleSize > 0, "sampleSize must be greater zero");
+			Validate.validState(labels.isEmpty(), "sampleSize must be set before adding vectors");
+			this.sampleSize = sampleSize;
+			return this;
+		}
+
+		/**
+		 * @param numIterations
+		 *            The number of k-means iterations; default is 10.
+		 * @return The builder, to allow method chaining.
+		 */
+		public Builder numIterations(int numIterations) {
+			Validate.isTrue(numIterations >= 0, "numIterations must be greater/equal zero");
+			this.numIterations = numIterations;
+			return this;
+		}
+
+		/**
+		 * @param numThreads
+		 *            The number of threads for the clustering; default is the
+		 *            number of available processors.
+		 * @return The builder, to allow method chaining.
+		 */
+		public Builder numThreads(int numThreads) {
+			Validate.isTrue(numThreads > 0, "numThreads must be greater zero");
+			this.numThreads = numThreads;
+			return this;
+		}
+
+		/**
+		 * Add a vector.
+		 *
+		 * @param label
+		 *            The label of the vector, not <code>null</code>.
+		 * @param vector
+		 *            The vector, with a length of the vector size.
+		 * @return The builder, to allow method chaining.
+		 * @throws IOException
+		 *             In case writing fails.
+		 */
+		public Builder add(String label, float[] vector) throws IOException {
+			Objects.requireNonNull(label, "label must not be null");
+			Validate.isTrue(vector.length == vectorSize, "vector must have a length of %s", vectorSize);
+			float[] normalized = new float[vectorSize];
+			ExactVectorIndex.normalize(vector, normalized, 0);
+			for (float value : normalized) {
+				vectorsOut.writeFloat(value);
+			}
+			labels.add(label.getBytes(UTF_8));
+			// reservoir sampling
+			if (sample.size() < sampleSize) {
+				sample.add(normalized);
+			} else {
+				int replace = random.nextInt(labels.size());
+				if (replace < sampleSize) {
+					sample.set(replace, normalized);
+				}
+			}
+			return this;
+		}
+
+		/**
+		 * Add all words and their vectors from a dictionary.
+		 *
+		 * @param dictionary
+		 *            The dictionary, not <code>null</code>.
+		 * @return The builder, to allow method chaining.
+		 * @throws IOException
+		 *             In case writing fails.
+		 */
+		public Builder addAll(WordVectorDictionary dictionary) throws IOException {
+			Objects.requireNonNull(dictionary, "dictionary must not be null");
+			try {
+				dictionary.forEach(new BiConsumer<String, float[]>() {
+					@Override
+					public void accept(String word, float[] vector) {
+						try {
+							add(word, vector);
+						} catch (IOException e) {
+							throw new IllegalStateException(e);
+						}
+					}
+				});
+			} catch (IllegalStateException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException)e.getCause();
+				}
+				throw e;
+			}
+			return this;
+		}
+
+		/**
+		 * Cluster the vectors and write the index; the builder cannot be used
+		 * any more afterwards.
+		 *
+		 * @param file
+		 *            The destination file, not <code>null</code>. Existing
+		 *            files are overwritten.
+		 * @return The index, opened with the default number of probes.
+		 * @throws IOException
+		 *             In case writing fails.
+		 */
+		public IvfVectorIndex build(File file) throws IOException {
+			Objects.requireNonNull(file, "file must not be null");
+			ForkJoinPool pool = new ForkJoinPool(numThreads);
+			try {
+				Validate.validState(!labels.isEmpty(), "no vectors were added");
+				vectorsOut.close();
+				StopWatch stopWatch = new StopWatch();
+				int size = labels.size();
+				int k = Math.min(numLists > 0 ? numLists : (int)Math.max(1, Math.sqrt(size)), sample.size());
+				float[][] centroids = cluster(k, pool);
+				LOGGER.debug("Clustered {} samples into {} lists in {}", sample.size(), k, stopWatch);
+
+				try (RandomAccessFile randomAccessFile = new RandomAccessFile(vectorsFile, "r")) {
+					final LargeMappedBuffer buffer = LargeMappedBuffer.map(randomAccessFile.getChannel(), 0,
+							randomAccessFile.length());
+					int[] assignments = assign(centroids, new Vectors() {
+						@Override
+						public void get(int index, float[] destination) {
+							buffer.getFloats(4l * index * vectorSize, destination, 0, vectorSize);
+						}
+
+						@Override
+						public int size() {
+							return labels.size();
+						}
+					}, pool);
+					int[] listOffsets = new int[k + 1];
+					for (int assignment : assignments) {
+						listOffsets[assignment + 1]++;
+					}
+					for (int list = 0; list < k; list++) {
+						listOffsets[list + 1] += listOffsets[list];
+					}
+					int[] ids = new int[size];
+					int[] positions = listOffsets.clone();
+					for (int index = 0; index < size; index++) {
+						ids[positions[assignments[index]]++] = index;
+					}
+					write(file, centroids, listOffsets, ids, buffer);
+				}
+				LOGGER.info("Built index with {} vectors in {}", size, stopWatch);
+			} finally {
+				pool.shutdown();
+				close();
+			}
+			return open(file);
+		}
+
+		/**
+		 * Discard the added vectors and delete the temporary file; the builder
+		 * cannot be used any more afterwards. This is done implicitly by
+		 * {@link #build(File)}.
+		 */
+		@Override
+		public void close() throws IOException {
+			try {
+				vectorsOut.close();
+			} finally {
+				vectorsFile.delete();
+			}
+		}
+
+		private void write(File file, float[][] centroids, int[] listOffsets, int[] ids, LargeMappedBuffer buffer)
+				throws IOException {
+			long labelsSize = 0;
+			for (byte[] label : labels) {
+				labelsSize += 4 + label.length;
+			}
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FILE_VERSION);
+				out.writeInt(vectorSize);
+				out.writeInt(labels.size());
+				out.writeInt(centroids.length);
+				out.writeLong(labelsSize);
+				for (float[] centroid : centroids) {
+					for (float value : centroid) {
+						out.writeFloat(value);
+					}
+				}
+				for (int listOffset : listOffsets) {
+					out.writeInt(listOffset);
+				}
+				for (int id : ids) {
+					out.writeInt(id);
+				}
+				long offset = 0;
+				for (byte[] label : labels) {
+					out.writeLong(offset);
+					offset += 4 + label.length;
+				}
+				for (byte[] label : labels) {
+					out.writeInt(label.length);
+					out.write(label);
+				}
+				float[] vector = new float[vectorSize];
+				for (int id : ids) {
+					buffer.getFloats(4l * id * vectorSize, vector, 0, vectorSize);
+					for (float value : vector) {
+						out.writeFloat(value);
+					}
+				}
+			}
+		}
+
+		/** Spherical k-means over the sample. */
+		private float[][] cluster(int k, ForkJoinPool pool) {
+			List<float[]> shuffled = new ArrayList<>(sample);
+			Collections.shuffle(shuffled, random);
+			float[][] centroids = new float[k][];
+			for (int c = 0; c < k; c++) {
+				centroids[c] = shuffled.get(c).clone();
+			}
+			Vectors sampleVectors = new Vectors() {
+				@Override
+				public void get(int index, float[] destination) {
+					System.arraycopy(sample.get(index), 0, destination, 0, vectorSize);
+				}
+
+				@Override
+				public int size() {
+					return sample.size();
+				}
+			};
+			for (int iteration = 0; iteration < numIterations; iteration++) {
+				int[] assignments = assign(centroids, sampleVectors, pool);
+				float[][] sums = new float[k][vectorSize];
+				int[] counts = new int[k];
+				for (int i = 0; i < assignments.length; i++) {
+					FloatVectorUtil.add(sums[assignments[i]], sample.get(i));
+					counts[assignments[i]]++;
+				}
+				for (int c = 0; c < k; c++) {
+					if (counts[c] == 0) { // re-seed empty clusters
+						centroids[c] = sample.get(random.nextInt(sample.size())).clone();
+					} else {
+						ExactVectorIndex.normalize(sums[c], centroids[c], 0);
+					}
+				}
+			}
+			return centroids;
+		}
+
+		/** Assign each vector to the list with the most similar centroid, in parallel chunks. */
+		private int[] assign(final float[][] centroids, final Vectors vectors, ForkJoinPool pool) {
+			final int[] assignments = new int[vectors.size()];
+			try {
+				List<Callable<Void>> tasks = new ArrayList<>();
+				for (int chunkStart = 0; chunkStart < assignments.length; chunkStart += CHUNK_SIZE) {
+					final int start = chunkStart;
+					final int end = Math.min(chunkStart + CHUNK_SIZE, assignments.length);
+					tasks.add(new Callable<Void>() {
+						@Override
+						public Void call() {
+							float[] vector = new float[vectorSize];
+							for (int index = start; index < end; index++) {
+								vectors.get(index, vector);
+								assignments[index] = getNearestCentroid(centroids, vector);
+							}
+							return null;
+						}
+					});
+				}
+				for (Future<Void> future : pool.invokeAll(tasks)) {
+					future.get();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+			return assignments;
+		}
+
+	}
+
+	/** Random access to vectors during building. */
+	private interface Vectors {
+		void get(int index, float[] destination);
+
+		int size();
+	}
+
+	private static int getNearestCentroid(float[][] centroids, float[] vector) {
+		int nearest = 0;
+		float maxSimilarity = Float.NEGATIVE_INFINITY;
+		for (int c = 0; c < centroids.length; c++) {
+			float similarity = FloatVectorUtil.dot(centroids[c], vector);
+			if (similarity > maxSimilarity) {
+				maxSimilarity = similarity;
+				nearest = c;
+			}
+		}
+		return nearest;
+	}
+
+	/**
+	 * Open an index, probing a tenth of the lists for each query.
+	 *
+	 * @param file
+	 *            The index file, not <code>null</code>.
+	 * @return The index.
+	 * @throws IOException
+	 *             In case the file cannot be read, or does not contain an
+	 *             index.
+	 */
+	public static IvfVectorIndex open(File file) throws IOException {
+		return open(file, -1);
+	}
+
+	/**
+	 * Open an index.
+	 *
+	 * @param file
+	 *            The index file, not <code>null</code>.
+	 * @param numProbes
+	 *            The number of lists which are compared for each query;
+	 *            probing all lists gives exact results. <code>-1</code> to
+	 *            probe a tenth of the lists.
+	 * @return The index.
+	 * @throws IOException
+	 *             In case the file cannot be read, or does not contain an
+	 *             index.
+	 */
+	public static IvfVectorIndex open(File file, int numProbes) throws IOException {
+		Objects.requireNonNull(file, "file must not be null");
+		Validate.isTrue(numProbes > 0 || numProbes == -1, "numProbes must be greater zero or -1");
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+			FileChannel channel = randomAccessFile.getChannel();
+			if (randomAccessFile.length() < HEADER_SIZE || randomAccessFile.readInt() != MAGIC) {
+				throw new IOException(file + " is not a vector index");
+			}
+			int version = randomAccessFile.readInt();
+			if (version != FILE_VERSION) {
+				throw new IOException("Unsupported version: " + version);
+			}
+			int vectorSize = randomAccessFile.readInt();
+			int size = randomAccessFile.readInt();
+			int numLists = randomAccessFile.readInt();
+			long labelsSize = randomAccessFile.readLong();
+			long centroidsStart = HEADER_SIZE;
+			long listOffsetsStart = centroidsStart + 4l * numLists * vectorSize;
+			long idsStart = listOffsetsStart + 4l * (numLists + 1);
+			long labelOffsetsStart = idsStart + 4l * size;
+			long labelsStart = labelOffsetsStart + 8l * size;
+			long vectorsStart = labelsStart + labelsSize;
+			long vectorsSize = 4l * size * vectorSize;
+			if (vectorsStart + vectorsSize != randomAccessFile.length()) {
+				throw new IOException(file + " is truncated");
+			}
+			LargeMappedBuffer header = LargeMappedBuffer.map(channel, centroidsStart, idsStart - centroidsStart);
+			float[][] centroids = new float[numLists][vectorSize];
+			for (int c = 0; c < numLists; c++) {
+				header.getFloats(4l * c * vectorSize, centroids[c], 0, vectorSize);
+			}
+			int[] listOffsets = new int[numLists + 1];
+			for (int list = 0; list <= numLists; list++) {
+				listOffsets[list] = header.getInt(listOffsetsStart - centroidsStart + 4l * list);
+			}
+			int effectiveProbes = numProbes == -1 ? Math.max(1, numLists / 10) : Math.min(numProbes, numLists);
+			return new IvfVectorIndex(file, vectorSize, size, effectiveProbes, centroids, listOffsets,
+					LargeMappedBuffer.map(channel, idsStart, 4l * size),
+					LargeMappedBuffer.map(channel, labelOffsetsStart, 8l * size),
+					LargeMappedBuffer.map(channel, labelsStart, labelsSize),
+					LargeMappedBuffer.map(channel, vectorsStart, vectorsSize));
+		}
+	}
+
+	/** Invoked from {@link #open(File, int)}. */
+	private IvfVectorIndex(File file, int vectorSize, int size, int numProbes, float[][] centroids,
+			int[] listOffsets, LargeMappedBuffer ids, LargeMappedBuffer labelOffsets, LargeMappedBuffer labels,
+			LargeMappedBuffer vectors) {
+		this.file = file;
+		this.vectorSize = vectorSize;
+		this.size = size;
+		this.numProbes = numProbes;
+		this.centroids = centroids;
+		this.listOffsets = listOffsets;
+		this.ids = ids;
+		this.labelOffsets = labelOffsets;
+		this.labels = labels;
+		this.vectors = vectors;
+	}
+
+	/** Receives the similarity of each vector in the probed lists. */
+	private interface Visitor {
+		void visit(int index, float similarity);
+	}
+
+	private void search(float[] query, Visitor visitor) {
+		Validate.isTrue(query.length == vectorSize, "query must have a length of %s", vectorSize);
+		float[] normalizedQuery = new float[vectorSize];
+		ExactVectorIndex.normalize(query, normalizedQuery, 0);
+		Comparator<Neighbor> comparator = Collections.reverseOrder(Neighbor.BY_SIMILARITY);
+		FixedSizePriorityQueue<Neighbor> probes = new FixedSizePriorityQueue<>(numProbes, comparator);
+		for (int c = 0; c < centroids.length; c++) {
+			probes.add(new Neighbor(c, null, FloatVectorUtil.dot(centroids[c], normalizedQuery)));
+		}
+		float[] vector = new float[vectorSize];
+		for (Neighbor probe : probes.asList()) {
+			int list = probe.getIndex();
+			for (int position = listOffsets[list]; position < listOffsets[list + 1]; position++) {
+				vectors.getFloats(4l * position * vectorSize, vector, 0, vectorSize);
+				visitor.visit(ids.getInt(4l * position), FloatVectorUtil.dot(normalizedQuery, vector));
+			}
+		}
+	}
+
+	@Override
+	public List<Neighbor> getNearest(float[] query, int k) {
+		Validate.isTrue(k > 0, "k must be greater zero");
+		final List<Neighbor> result = new ArrayList<>();
+		final FixedSizePriorityQueue<Neighbor> queue = new FixedSizePriorityQueue<>(k,
+				Collections.reverseOrder(Neighbor.BY_SIMILARITY));
+		search(query, new Visitor() {
+			@Override
+			public void visit(int index, float similarity) {
+				queue.add(new Neighbor(index, null, similarity));
+			}
+		});
+		// resolve the labels only for the results
+		for (Neighbor neighbor : queue.asList()) {
+			result.add(new Neighbor(neighbor.getIndex(), getLabel(neighbor.getIndex()), neighbor.getSimilarity()));
+		}
+		Collections.sort(result, Neighbor.BY_SIMILARITY);
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc} Only the probed lists are considered, so vectors in other
+	 * lists might be missing from the result.
+	 */
+	@Override
+	public List<Neighbor> getWithinRadius(float[] query, final float minSimilarity) {
+		final List<Neighbor> result = new ArrayList<>();
+		search(query, new Visitor() {
+			@Override
+			public void visit(int index, float similarity) {
+				if (similarity >= minSimilarity) {
+					result.add(new Neighbor(index, getLabel(index), similarity));
+				}
+			}
+		});
+		Collections.sort(result, Neighbor.BY_SIMILARITY);
+		return result;
+	}
+
+	@Override
+	public String getLabel(int index) {
+		Validate.isTrue(index >= 0 && index < size, "index out of bounds: %s", index);
+		long offset = labelOffsets.getLong(8l * index);
+		byte[] labelBytes = new byte[labels.getInt(offset)];
+		labels.get(offset + 4, labelBytes, 0, labelBytes.length);
+		return new String(labelBytes, UTF_8);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public int vectorSize() {
+		return vectorSize;
+	}
+
+	/** @return The number of lists (clusters) in this index. */
+	public int getNumLists() {
+		return centroids.length;
+	}
+
+	/** @return The number of lists which are compared for each query. */
+	public int getNumProbes() {
+		return numProbes;
+	}
+
+	@Override
+	public String toString() {
+		return "IvfVectorIndex [" + file.getName() + ", size=" + size + ", numLists=" + centroids.length
+				+ ", numProbes=" + numProbes + "]";
+	}
+
+}
@@ -3,6 +3,7 @@ package ws.palladian.extraction.text.vector;
 import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +16,15 @@ public class MapWordVectorDictionary implements WordVectorDictionary {
 	/** The logger for this class. */
 	private static final Logger LOGGER = LoggerFactory.getLogger(MapWordVectorDictionary.class);
 
+	/**
+	 * Read a dictionary from a text file with one word and its vector per
+	 * line. In case a word occurs more than once, the first vector is kept
+	 * (word vector files are usually sorted by descending frequency).
+	 * 
+	 * @param vecFile
+	 *            The file.
+	 * @return The dictionary.
+	 */
 	public static MapWordVectorDictionary readFromVecFile(File vecFile) {
 		return readFromVecFile(vecFile, Integer.MAX_VALUE);
 	}
@@ -23,6 +33,39 @@ public class MapWordVectorDictionary implements WordVectorDictionary {
 		final Map<String, float[]> entries = new HashMap<>();
 		final int[] vectorSize = { -1 };
 		final boolean[] caseSensitive = { false };
+		readVecFile(vecFile, lineLimit, new BiConsumer<String, float[]>() {
+			@Override
+			public void accept(String token, float[] vector) {
+				if (entries.containsKey(token)) {
+					LOGGER.debug("Skip duplicate word '{}'", token);
+					return;
+				}
+				// automatically detect if the dictionary is case-sensitive
+				if (!token.equals(token.toLowerCase())) {
+					caseSensitive[0] = true;
+				}
+				if (vectorSize[0] == -1) {
+					vectorSize[0] = vector.length;
+				}
+				entries.put(token, vector);
+			}
+		});
+		LOGGER.debug("Dictionary is case sensitive? {}", caseSensitive[0]);
+		return new MapWordVectorDictionary(entries, vectorSize[0], caseSensitive[0], vecFile);
+	}
+
+	/**
+	 * Read the entries from a text file with one word and its vector per line,
+	 * without keeping them in memory.
+	 * 
+	 * @param vecFile
+	 *            The file.
+	 * @param lineLimit
+	 *            The maximum number of lines to read.
+	 * @param action
+	 *            The action which receives each word and its vector.
+	 */
+	static void readVecFile(File vecFile, final int lineLimit, final BiConsumer<String, float[]> action) {
 		FileHelper.performActionOnEveryLine(vecFile, new LineAction() {
 			@Override
 			public void performAction(String line, int lineNumber) {
@@ -36,29 +79,19 @@ public class MapWordVectorDictionary implements WordVectorDictionary {
 				int firstSpace = line.indexOf(' ');
 				String token = line.substring(0, firstSpace);
 				
-				// automatically detect if the dictionary is case-sensitive
-				if (!token.equals(token.toLowerCase())) {
-					caseSensitive[0] = true;
-				}
-				
 				String vectorEntries = line.substring(firstSpace + 1);
 				String[] vectorSplit = vectorEntries.split(" ");
-				if (vectorSize[0] == -1) {
-					vectorSize[0] = vectorSplit.length;
-				}
 				float[] vector = new float[vectorSplit.length];
 				for (int i = 0; i < vectorSplit.length; i++) {
 					vector[i] = Float.parseFloat(vectorSplit[i]);
 				}
-				entries.put(token, vector);
+				action.accept(token, vector);
 				if (lineNumber >= lineLimit) {
 					breakLineLoop();
 					return;
 				}
 			}
 		});
-		LOGGER.debug("Dictionary is case sensitive? {}", caseSensitive[0]);
-		return new MapWordVectorDictionary(entries, vectorSize[0], caseSensitive[0], vecFile);
 	}
 
 	private final Map<String, float[]> entries;
@@ -78,6 +111,13 @@ public class MapWordVectorDictionary implements WordVectorDictionary {
 		return entries.get(word);
 	}
 
+	@Override
+	public void forEach(BiConsumer<String, float[]> action) {
+		for (Map.Entry<String, float[]> entry : entries.entrySet()) {
+			action.accept(entry.getKey(), entry.getValue());
+		}
+	}
+
 	@Override
 	public int size() {
 		return entries.size();
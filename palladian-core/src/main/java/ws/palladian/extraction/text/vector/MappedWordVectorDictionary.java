@@ -0,0 +1,628 @@
+package ws.palladian.extraction.text.vector;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ws.palladian.helper.StopWatch;
+import ws.palladian.helper.io.LargeMappedBuffer;
+
+/**
+ * <p>
+ * A read-only {@link WordVectorDictionary}, which is converted from a word
+ * vector file into a binary file and accessed through memory mapping (also for
+ * files larger than 2 GB, see {@link LargeMappedBuffer}). In contrast to the
+ * {@link MapWordVectorDictionary}, the vectors are not loaded into the heap, so
+ * that opening a dictionary takes milliseconds, and several JVMs on one host
+ * which open the same file share the physical memory. Optionally, the vectors
+ * can be stored with reduced precision (see {@link Quantization}) to shrink
+ * the file.
+ *
+ * <p>
+ * Use {@link #convertVecFile(File, File, Quantization)} or
+ * {@link #convertBinFile(File, File, Quantization)} to convert a text or
+ * binary word2vec file, {@link Writer} to write arbitrary vectors, and
+ * {@link #open(File)} to open an already converted file. The file layout is as
+ * follows (all values big endian):
+ *
+ * <pre>
+ * header:  magic (int), version (int), quantization (int), caseSensitive (int), vectorSize (int), numWords (int), tableSize (int), wordsSize (long)
+ * table:   open addressing hash table over the words; for each slot the word index (int), or -1
+ * offsets: for each word the start offset of its record (long)
+ * words:   [ wordLength (int), wordBytes ], ...
+ * vectors: the vectors in the order of the words, encoded according to the quantization
+ * </pre>
+ *
+ * @author Philipp Katz
+ */
+public final class MappedWordVectorDictionary implements WordVectorDictionary {
+
+	/** The logger for this class. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(MappedWordVectorDictionary.class);
+
+	/** Identifies converted word vector files. */
+	private static final int MAGIC = 0x50575644;
+
+	/** Version of the file format; increment, when making incompatible changes. */
+	private static final int FILE_VERSION = 1;
+
+	private static final int HEADER_SIZE = 7 * 4 + 8;
+
+	/** The precision with which the vectors are stored. */
+	public enum Quantization {
+		/** Four bytes per value, no loss of precision. */
+		FLOAT32,
+		/** Two bytes per value (IEEE 754 half precision). */
+		FLOAT16,
+		/**
+		 * One byte per value, and a scale factor (float) per vector; the values
+		 * are linearly mapped to [-127,127].
+		 */
+		INT8;
+
+		int getBytesPerVector(int vectorSize) {
+			switch (this) {
+				case FLOAT32:
+					return 4 * vectorSize;
+				case FLOAT16:
+					return 2 * vectorSize;
+				default:
+					return 4 + vectorSize;
+			}
+		}
+	}
+
+	private final File file;
+
+	private final Quantization quantization;
+
+	private final boolean caseSensitive;
+
+	private final int vectorSize;
+
+	private final int numWords;
+
+	private final int bytesPerVector;
+
+	private final LargeMappedBuffer table;
+
+	private final int tableMask;
+
+	private final LargeMappedBuffer offsets;
+
+	private final LargeMappedBuffer words;
+
+	private final LargeMappedBuffer vectors;
+
+	/**
+	 * Writes vectors into the converted format. The vectors are streamed into a
+	 * temporary file, only the words are kept in memory; the file is assembled
+	 * when closing the writer. In case a word is added more than once, the
+	 * first vector is kept, as when reading a {@link MapWordVectorDictionary}.
+	 */
+	public static final class Writer implements Closeable {
+
+		private final File file;
+
+		private final int vectorSize;
+
+		private final Quantization quantization;
+
+		private final File vectorsFile;
+
+		private final DataOutputStream vectorsOut;
+
+		private final List<byte[]> words = new ArrayList<>();
+
+		private final Set<String> seenWords = new HashSet<>();
+
+		private boolean caseSensitive = false;
+
+		/**
+		 * Create a new writer.
+		 *
+		 * @param file
+		 *            The destination file, not <code>null</code>. Existing
+		 *            files are overwritten.
+		 * @param vectorSize
+		 *            The size of the vectors, greater zero.
+		 * @param quantization
+		 *            The precision with which to store the vectors, not
+		 *            <code>null</code>.
+		 * @throws IOException
+		 *             In case the temporary file cannot be created.
+		 */
+		public Writer(File file, int vectorSize, Quantization quantization) throws IOException {
+			Validate.notNull(file, "file must not be null");
+			Validate.isTrue(vectorSize > 0, "vectorSize must be greater zero");
+			Validate.notNull(quantization, "quantization must not be null");
+			this.file = file;
+			this.vectorSize = vectorSize;
+			this.quantization = quantization;
+			this.vectorsFile = File.createTempFile("vectors", ".tmp", file.getAbsoluteFile().getParentFile());
+			this.vectorsOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(vectorsFile)));
+		}
+
+		/**
+		 * Add a word and its vector.
+		 *
+		 * @param word
+		 *            The word, not <code>null</code>.
+		 * @param vector
+		 *            The vector, with a length of the vector size.
+		 * @throws IOException
+		 *             In case writing fails.
+		 */
+		public void add(String word, float[] vector) throws IOException {
+			Validate.notNull(word, "word must not be null");
+			Validate.isTrue(vector.length == vectorSize, "vector must have a length of %s, but was %s", vectorSize,
+					vector.length);
+			if (!seenWords.add(word)) {
+				LOGGER.debug("Skip duplicate word '{}'", word);
+				return;
+			}
+			// automatically detect if the dictionary is case-sensitive
+			if (!caseSensitive && !word.equals(word.toLowerCase())) {
+				caseSensitive = true;
+			}
+			words.add(word.getBytes(UTF_8));
+			switch (quantization) {
+				case FLOAT32:
+					for (float value : vector) {
+						vectorsOut.writeFloat(value);
+					}
+					break;
+				case FLOAT16:
+					for (float value : vector) {
+						vectorsOut.writeShort(toHalf(value));
+					}
+					break;
+				case INT8:
+					float maxAbs = 0;
+					for (float value : vector) {
+						maxAbs = Math.max(maxAbs, Math.abs(value));
+					}
+					float scale = maxAbs / 127;
+					vectorsOut.writeFloat(scale);
+					for (float value : vector) {
+						vectorsOut.writeByte(scale > 0 ? Math.round(value / scale) : 0);
+					}
+					break;
+			}
+		}
+
+		/**
+		 * Assemble the file and remove the temporary data.
+		 *
+		 * @throws IOException
+		 *             In case writing fails.
+		 */
+		@Override
+		public void close() throws IOException {
+			vectorsOut.close();
+			try {
+				int numWords = words.size();
+				int tableSize = Math.max(2, Integer.highestOneBit(Math.max(1, 2 * numWords - 1)) << 1);
+				int[] table = new int[tableSize];
+				Arrays.fill(table, -1);
+				for (int i = 0; i < numWords; i++) {
+					int slot = hash(new String(words.get(i), UTF_8)) & (tableSize - 1);
+					while (table[slot] != -1) {
+						slot = (slot + 1) & (tableSize - 1);
+					}
+					table[slot] = i;
+				}
+				long wordsSize = 0;
+				for (byte[] word : words) {
+					wordsSize += 4 + word.length;
+				}
+				try (DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(new FileOutputStream(file)))) {
+					out.writeInt(MAGIC);
+					out.writeInt(FILE_VERSION);
+					out.writeInt(quantization.ordinal());
+					out.writeInt(caseSensitive ? 1 : 0);
+					out.writeInt(vectorSize);
+					out.writeInt(numWords);
+					out.writeInt(tableSize);
+					out.writeLong(wordsSize);
+					for (int slot : table) {
+						out.writeInt(slot);
+					}
+					long offset = 0;
+					for (byte[] word : words) {
+						out.writeLong(offset);
+						offset += 4 + word.length;
+					}
+					for (byte[] word : words) {
+						out.writeInt(word.length);
+						out.write(word);
+					}
+					try (InputStream in = new BufferedInputStream(new FileInputStream(vectorsFile))) {
+						byte[] buffer = new byte[8192];
+						int read;
+						while ((read = in.read(buffer)) != -1) {
+							out.write(buffer, 0, read);
+						}
+					}
+				}
+			} finally {
+				vectorsFile.delete();
+			}
+		}
+
+	}
+
+	/**
+	 * Convert a text file with one word and its vector per line (e.g. the
+	 * <code>.vec</code> files of fastText or GloVe).
+	 *
+	 * @param vecFile
+	 *            The text file, not <code>null</code>.
+	 * @param file
+	 *            The destination file, not <code>null</code>. Existing files
+	 *            are overwritten.
+	 * @param quantization
+	 *            The precision with which to store the vectors, not
+	 *            <code>null</code>.
+	 * @return The memory-mapped dictionary.
+	 * @throws IOException
+	 *             In case reading, writing, or opening fails.
+	 */
+	public static MappedWordVectorDictionary convertVecFile(File vecFile, File file, Quantization quantization)
+			throws IOException {
+		Validate.notNull(vecFile, "vecFile must not be null");
+		StopWatch stopWatch = new StopWatch();
+		final Writer[] writer = { null };
+		try {
+			MapWordVectorDictionary.readVecFile(vecFile, Integer.MAX_VALUE, new WriterAction() {
+				@Override
+				void add(String word, float[] vector) throws IOException {
+					if (writer[0] == null) {
+						writer[0] = new Writer(file, vector.length, quantization);
+					}
+					writer[0].add(word, vector);
+				}
+			});
+		} finally {
+			if (writer[0] != null) {
+				writer[0].close();
+			}
+		}
+		if (writer[0] == null) {
+			throw new IOException(vecFile + " does not contain any vectors");
+		}
+		LOGGER.info("Converted {} in {}", vecFile, stopWatch);
+		return open(file);
+	}
+
+	/**
+	 * Convert a binary word2vec file (e.g. GoogleNews-vectors-negative300.bin).
+	 *
+	 * @param binFile
+	 *            The binary word2vec file, not <code>null</code>.
+	 * @param file
+	 *            The destination file, not <code>null</code>. Existing files
+	 *            are overwritten.
+	 * @param quantization
+	 *            The precision with which to store the vectors, not
+	 *            <code>null</code>.
+	 * @return The memory-mapped dictionary.
+	 * @throws IOException
+	 *             In case reading, writing, or opening fails.
+	 */
+	public static MappedWordVectorDictionary convertBinFile(File binFile, File file, Quantization quantization)
+			throws IOException {
+		Validate.notNull(binFile, "binFile must not be null");
+		StopWatch stopWatch = new StopWatch();
+		final Writer[] writer = { null };
+		try {
+			Word2VecReader.read(binFile, new WriterAction() {
+				@Override
+				void add(String word, float[] vector) throws IOException {
+					if (writer[0] == null) {
+						writer[0] = new Writer(file, vector.length, quantization);
+					}
+					writer[0].add(word, vector);
+				}
+			});
+		} finally {
+			if (writer[0] != null) {
+				writer[0].close();
+			}
+		}
+		if (writer[0] == null) {
+			throw new IOException(binFile + " does not contain any vectors");
+		}
+		LOGGER.info("Converted {} in {}", binFile, stopWatch);
+		return open(file);
+	}
+
+	/** Adapter for the readers' callbacks, which tunnels the IOExceptions. */
+	private static abstract class WriterAction implements BiConsumer<String, float[]> {
+		@Override
+		public final void accept(String word, float[] vector) {
+			try {
+				add(word, vector);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		abstract void add(String word, float[] vector) throws IOException;
+	}
+
+	/**
+	 * Open a converted dictionary from the given file.
+	 *
+	 * @param file
+	 *            The file with the converted dictionary, not <code>null</code>.
+	 * @return The memory-mapped dictionary.
+	 * @throws IOException
+	 *             In case the file cannot be read, or does not contain a
+	 *             converted dictionary.
+	 */
+	public static MappedWordVectorDictionary open(File file) throws IOException {
+		Validate.notNull(file, "file must not be null");
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+			FileChannel channel = randomAccessFile.getChannel();
+			if (randomAccessFile.length() < HEADER_SIZE || randomAccessFile.readInt() != MAGIC) {
+				throw new IOException(file + " is not a converted word vector dictionary");
+			}
+			int version = randomAccessFile.readInt();
+			if (version != FILE_VERSION) {
+				throw new IOException("Unsupported version: " + version);
+			}
+			Quantization quantization = Quantization.values()[randomAccessFile.readInt()];
+			boolean caseSensitive = randomAccessFile.readInt() == 1;
+			int vectorSize = randomAccessFile.readInt();
+			int numWords = randomAccessFile.readInt();
+			int tableSize = randomAccessFile.readInt();
+			long wordsSize = randomAccessFile.readLong();
+			long tableStart = HEADER_SIZE;
+			long offsetsStart = tableStart + 4l * tableSize;
+			long wordsStart = offsetsStart + 8l * numWords;
+			long vectorsStart = wordsStart + wordsSize;
+			long vectorsSize = (long)numWords * quantization.getBytesPerVector(vectorSize);
+			if (vectorsStart + vectorsSize != randomAccessFile.length()) {
+				throw new IOException(file + " is truncated");
+			}
+			return new MappedWordVectorDictionary(file, quantization, caseSensitive, vectorSize, numWords,
+					LargeMappedBuffer.map(channel, tableStart, 4l * tableSize),
+					LargeMappedBuffer.map(channel, offsetsStart, 8l * numWords),
+					LargeMappedBuffer.map(channel, wordsStart, wordsSize),
+					LargeMappedBuffer.map(channel, vectorsStart, vectorsSize));
+		}
+	}
+
+	/** Invoked from {@link #open(File)}. */
+	private MappedWordVectorDictionary(File file, Quantization quantization, boolean caseSensitive, int vectorSize,
+			int numWords, LargeMappedBuffer table, LargeMappedBuffer offsets, LargeMappedBuffer words,
+			LargeMappedBuffer vectors) {
+		this.file = file;
+		this.quantization = quantization;
+		this.caseSensitive = caseSensitive;
+		this.vectorSize = vectorSize;
+		this.numWords = numWords;
+		this.bytesPerVector = quantization.getBytesPerVector(vectorSize);
+		this.table = table;
+		this.tableMask = (int)(table.size() / 4) - 1;
+		this.offsets = offsets;
+		this.words = words;
+		this.vectors = vectors;
+	}
+
+	private static int hash(String word) {
+		int hash = word.hashCode();
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * @param word
+	 *            The word, not <code>null</code>.
+	 * @return The index of the word, or <code>-1</code> in case the word is not
+	 *         in this dictionary.
+	 */
+	public int indexOf(String word) {
+		Objects.requireNonNull(word, "word must not be null");
+		byte[] wordBytes = word.getBytes(UTF_8);
+		int slot = hash(word) & tableMask;
+		for (;;) {
+			int index = table.getInt(4l * slot);
+			if (index == -1) {
+				return -1;
+			}
+			long offset = offsets.getLong(8l * index);
+			if (words.compare(offset + 4, words.getInt(offset), wordBytes) == 0) {
+				return index;
+			}
+			slot = (slot + 1) & tableMask;
+		}
+	}
+
+	/**
+	 * @param index
+	 *            The index of the word.
+	 * @return The word at the given index.
+	 */
+	public String getWord(int index) {
+		Validate.isTrue(index >= 0 && index < numWords, "index out of bounds: %s", index);
+		long offset = offsets.getLong(8l * index);
+		byte[] wordBytes = new byte[words.getInt(offset)];
+		words.get(offset + 4, wordBytes, 0, wordBytes.length);
+		return new String(wordBytes, UTF_8);
+	}
+
+	/**
+	 * Copy the vector at the given index into an array.
+	 *
+	 * @param index
+	 *            The index of the word.
+	 * @param destination
+	 *            The array into which the vector is copied, must have a
+	 *            length of at least {@link #vectorSize()}.
+	 */
+	public void getVector(int index, float[] destination) {
+		Validate.isTrue(index >= 0 && index < numWords, "index out of bounds: %s", index);
+		long offset = (long)index * bytesPerVector;
+		switch (quantization) {
+			case FLOAT32:
+				vectors.getFloats(offset, destination, 0, vectorSize);
+				break;
+			case FLOAT16:
+				for (int i = 0; i < vectorSize; i++) {
+					destination[i] = fromHalf(vectors.getShort(offset + 2l * i));
+				}
+				break;
+			case INT8:
+				float scale = vectors.getFloat(offset);
+				for (int i = 0; i < vectorSize; i++) {
+					destination[i] = vectors.get(offset + 4 + i) * scale;
+				}
+				break;
+		}
+	}
+
+	@Override
+	public float[] getVector(String word) {
+		int index = indexOf(word);
+		if (index == -1) {
+			return null;
+		}
+		float[] vector = new float[vectorSize];
+		getVector(index, vector);
+		return vector;
+	}
+
+	@Override
+	public boolean getVector(String word, float[] destination) {
+		int index = indexOf(word);
+		if (index == -1) {
+			return false;
+		}
+		getVector(index, destination);
+		return true;
+	}
+
+	@Override
+	public void forEach(BiConsumer<String, float[]> action) {
+		for (int index = 0; index < numWords; index++) {
+			float[] vector = new float[vectorSize];
+			getVector(index, vector);
+			action.accept(getWord(index), vector);
+		}
+	}
+
+	@Override
+	public int size() {
+		return numWords;
+	}
+
+	@Override
+	public int vectorSize() {
+		return vectorSize;
+	}
+
+	@Override
+	public boolean isCaseSensitive() {
+		return caseSensitive;
+	}
+
+	/**
+	 * @return The precision with which the vectors are stored.
+	 */
+	public Quantization getQuantization() {
+		return quantization;
+	}
+
+	/**
+	 * @return The file from which this dictionary was opened.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Convert a float to IEEE 754 half precision (rounding to nearest).
+	 *
+	 * @param value
+	 *            The value.
+	 * @return The half precision bits.
+	 */
+	static short toHalf(float value) {
+		int bits = Float.floatToIntBits(value);
+		int sign = bits >>> 16 & 0x8000;
+		int rounded = (bits & 0x7fffffff) + 0x1000;
+		if (rounded >= 0x47800000) { // NaN, infinity, or too large
+			if ((bits & 0x7fffffff) >= 0x47800000) {
+				if (rounded < 0x7f800000) {
+					return (short)(sign | 0x7c00);
+				}
+				return (short)(sign | 0x7c00 | (bits & 0x007fffff) >>> 13);
+			}
+			return (short)(sign | 0x7bff);
+		}
+		if (rounded >= 0x38800000) { // normalized
+			return (short)(sign | rounded - 0x38000000 >>> 13);
+		}
+		if (rounded < 0x33000000) { // too small, zero
+			return (short)sign;
+		}
+		// subnormal
+		int exponent = (bits & 0x7fffffff) >>> 23;
+		return (short)(sign | ((bits & 0x7fffff | 0x800000) + (0x800000 >>> exponent - 102) >>> 126 - exponent));
+	}
+
+	/**
+	 * Convert IEEE 754 half precision bits to a float.
+	 *
+	 * @param half
+	 *            The half precision bits.
+	 * @return The value.
+	 */
+	static float fromHalf(short half) {
+		int bits = half & 0xffff;
+		int mantissa = bits & 0x03ff;
+		int exponent = bits & 0x7c00;
+		if (exponent == 0x7c00) { // NaN or infinity
+			exponent = 0x3fc00;
+		} else if (exponent != 0) { // normalized
+			exponent += 0x1c000;
+		} else if (mantissa != 0) { // subnormal
+			exponent = 0x1c400;
+			do {
+				mantissa <<= 1;
+				exponent -= 0x400;
+			} while ((mantissa & 0x400) == 0);
+			mantissa &= 0x3ff;
+		}
+		return Float.intBitsToFloat((bits & 0x8000) << 16 | (exponent | mantissa) << 13);
+	}
+
+	@Override
+	public String toString() {
+		return "MappedWordVectorDictionary [" + file.getName() + ", " + quantization + "]";
+	}
+
+}
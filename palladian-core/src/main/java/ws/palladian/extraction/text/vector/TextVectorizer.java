@@ -1,13 +1,15 @@
 package ws.palladian.extraction.text.vector;
 
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ws.palladian.classification.text.FeatureSetting;
 import ws.palladian.classification.text.Preprocessor;
+import ws.palladian.classification.text.Preprocessor.TermConsumer;
 import ws.palladian.core.FeatureVector;
 import ws.palladian.core.Instance;
 import ws.palladian.core.InstanceBuilder;
@@ -23,7 +25,6 @@ import ws.palladian.core.value.ValueDefinitions;
 import ws.palladian.extraction.feature.MapTermCorpus;
 import ws.palladian.extraction.feature.TermCorpus;
 import ws.palladian.helper.collection.Bag;
-import ws.palladian.helper.collection.CollectionHelper;
 
 public class TextVectorizer extends AbstractDatasetFeatureVectorTransformer implements ITextVectorizer {
 	
@@ -121,8 +122,15 @@ public class TextVectorizer extends AbstractDatasetFeatureVectorTransformer impl
 		MapTermCorpus termCorpus = new MapTermCorpus();
 		for (Instance instance : dataset) {
 			String text = getTextValue(instance.getVector());
-			Iterator<String> tokenIterator = preprocessor.apply(text);
-			termCorpus.addTermsFromDocument(CollectionHelper.newHashSet(tokenIterator));
+			final Set<String> tokens = new HashSet<>();
+			preprocessor.apply(text, new TermConsumer() {
+				@Override
+				public boolean accept(String term) {
+					tokens.add(term);
+					return true;
+				}
+			});
+			termCorpus.addTermsFromDocument(tokens);
 		}
 		this.termCorpus = termCorpus.getReducedCorpus(vectorSize);
 		{
@@ -156,8 +164,14 @@ public class TextVectorizer extends AbstractDatasetFeatureVectorTransformer impl
 	@Override
 	public FeatureVector apply(FeatureVector featureVector) {
 		String text = getTextValue(featureVector);
-		Iterator<String> tokenIterator = preprocessor.apply(text);
-		Bag<String> tokens = new Bag<>(CollectionHelper.newArrayList(tokenIterator));
+		final Bag<String> tokens = new Bag<>();
+		preprocessor.apply(text, new TermConsumer() {
+			@Override
+			public boolean accept(String term) {
+				tokens.add(term);
+				return true;
+			}
+		});
 
 		InstanceBuilder instanceBuilder = new InstanceBuilder();
 		Entry<String, Integer> maxTokenEntry = tokens.getMax();
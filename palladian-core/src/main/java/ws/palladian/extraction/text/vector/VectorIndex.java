@@ -0,0 +1,102 @@
+package ws.palladian.extraction.text.vector;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An index over vectors (e.g. word embeddings from a
+ * {@link WordVectorDictionary}, or document vectors), which allows to retrieve
+ * the most similar vectors for a query vector. Similarity is measured using
+ * cosine similarity. Each vector is identified by its index (the order in
+ * which the vectors were added) and a label (e.g. the word or a document id).
+ *
+ * @author Philipp Katz
+ * @see ExactVectorIndex
+ * @see IvfVectorIndex
+ */
+public interface VectorIndex {
+
+	/** A result of a query. */
+	final class Neighbor {
+
+		/** Sorts neighbors by descending similarity. */
+		public static final Comparator<Neighbor> BY_SIMILARITY = new Comparator<Neighbor>() {
+			@Override
+			public int compare(Neighbor n1, Neighbor n2) {
+				int result = Float.compare(n2.similarity, n1.similarity);
+				return result != 0 ? result : Integer.compare(n1.index, n2.index);
+			}
+		};
+
+		private final int index;
+
+		private final String label;
+
+		private final float similarity;
+
+		public Neighbor(int index, String label, float similarity) {
+			this.index = index;
+			this.label = label;
+			this.similarity = similarity;
+		}
+
+		/** @return The index of the vector. */
+		public int getIndex() {
+			return index;
+		}
+
+		/** @return The label of the vector. */
+		public String getLabel() {
+			return label;
+		}
+
+		/** @return The cosine similarity to the query vector. */
+		public float getSimilarity() {
+			return similarity;
+		}
+
+		@Override
+		public String toString() {
+			return label + "=" + similarity;
+		}
+
+	}
+
+	/**
+	 * Get the most similar vectors.
+	 *
+	 * @param query
+	 *            The query vector, not <code>null</code>.
+	 * @param k
+	 *            The number of vectors to retrieve, greater zero.
+	 * @return The (at most) k most similar vectors, sorted by descending
+	 *         similarity.
+	 */
+	List<Neighbor> getNearest(float[] query, int k);
+
+	/**
+	 * Get all vectors with a minimum similarity.
+	 *
+	 * @param query
+	 *            The query vector, not <code>null</code>.
+	 * @param minSimilarity
+	 *            The minimum cosine similarity.
+	 * @return The vectors with a similarity of at least the given value,
+	 *         sorted by descending similarity.
+	 */
+	List<Neighbor> getWithinRadius(float[] query, float minSimilarity);
+
+	/**
+	 * @param index
+	 *            The index of the vector.
+	 * @return The label of the vector.
+	 */
+	String getLabel(int index);
+
+	/** @return The number of vectors in this index. */
+	int size();
+
+	/** @return The size of the vectors in this index. */
+	int vectorSize();
+
+}
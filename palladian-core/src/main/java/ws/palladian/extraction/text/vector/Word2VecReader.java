@@ -12,6 +12,7 @@ import java.nio.channels.FileChannel;
 import java.util.HashMap;
 import java.util.Map;
 
+import java.util.function.BiConsumer;
 import java.util.function.Predicate;
 
 public class Word2VecReader {
@@ -28,7 +29,50 @@ public class Word2VecReader {
 	// https://github.com/medallia/Word2VecJava/issues/44
 	// https://github.com/jkinkead/Word2VecJava/blob/841b0cf8c063fb32ed7ee117871ccbb68075b05b/src/main/java/com/medallia/word2vec/Word2VecModel.java
 
+	/**
+	 * Read a dictionary from a binary word2vec file. In case a word occurs more
+	 * than once, the first vector is kept, as in
+	 * {@link MapWordVectorDictionary#readFromVecFile(File)}.
+	 * 
+	 * @param binFile
+	 *            The file.
+	 * @return The dictionary.
+	 * @throws IOException
+	 *             In case reading fails.
+	 */
 	public static MapWordVectorDictionary fromBinFile(File binFile) throws IOException {
+		final Map<String, float[]> entries = new HashMap<>();
+		final boolean[] caseSensitive = { false };
+		int vectorSize = read(binFile, new BiConsumer<String, float[]>() {
+			@Override
+			public void accept(String word, float[] vector) {
+				if (entries.containsKey(word)) {
+					return;
+				}
+				entries.put(word, vector);
+				// automatically detect if the dictionary is case-sensitive
+				if (!word.equals(word.toLowerCase())) {
+					caseSensitive[0] = true;
+				}
+			}
+		});
+		return new MapWordVectorDictionary(entries, vectorSize, caseSensitive[0], binFile);
+	}
+
+	/**
+	 * Read the vectors from a binary word2vec file, without keeping them in
+	 * memory.
+	 * 
+	 * @param binFile
+	 *            The file.
+	 * @param action
+	 *            The action which receives each word and its vector; words
+	 *            containing an underscore are skipped.
+	 * @return The size of the vectors.
+	 * @throws IOException
+	 *             In case reading fails.
+	 */
+	static int read(File binFile, BiConsumer<String, float[]> action) throws IOException {
 
 		try (FileInputStream fis = new FileInputStream(binFile)) {
 			FileChannel channel = fis.getChannel();
@@ -55,9 +99,6 @@ public class Word2VecReader {
 			int vocabSize = Integer.parseInt(firstLine.substring(0, index));
 			int vectorSize = Integer.parseInt(firstLine.substring(index + 1));
 
-			Map<String, float[]> entries = new HashMap<>();
-			boolean caseSensitive = false;
-
 			for (int vectorIdx = 0; vectorIdx < vocabSize; vectorIdx++) {
 
 				// read vocab
@@ -81,12 +122,7 @@ public class Word2VecReader {
 				buffer.asFloatBuffer().get(floats);
 				String word = sb.toString();
 				if (FILTER.test(word)) {
-					entries.put(word, floats);
-				}
-
-				// automatically detect if the dictionary is case-sensitive
-				if (!word.equals(word.toLowerCase())) {
-					caseSensitive = true;
+					action.accept(word, floats);
 				}
 
 				buffer.position(buffer.position() + 4 * vectorSize);
@@ -101,7 +137,7 @@ public class Word2VecReader {
 					bufferCount += 1;
 				}
 			}
-			return new MapWordVectorDictionary(entries, vectorSize, caseSensitive, binFile);
+			return vectorSize;
 		}
 
 	}
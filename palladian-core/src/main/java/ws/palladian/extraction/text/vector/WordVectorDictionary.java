@@ -1,7 +1,45 @@
 package ws.palladian.extraction.text.vector;
 
+import java.util.function.BiConsumer;
+
 public interface WordVectorDictionary {
 	float[] getVector(String word);
+
+	/**
+	 * Copy the vector of a word into the given array, which avoids allocating a
+	 * new array for each lookup.
+	 *
+	 * @param word
+	 *            The word.
+	 * @param destination
+	 *            The array into which the vector is copied, must have a
+	 *            length of at least {@link #vectorSize()}.
+	 * @return <code>true</code> in case the word was found,
+	 *         <code>false</code> otherwise (the array is not modified then).
+	 */
+	default boolean getVector(String word, float[] destination) {
+		float[] vector = getVector(word);
+		if (vector == null) {
+			return false;
+		}
+		System.arraycopy(vector, 0, destination, 0, vector.length);
+		return true;
+	}
+
+	/**
+	 * Perform an action for all words and their vectors in this dictionary
+	 * (e.g. to build a {@link VectorIndex}). Implementations which cannot
+	 * enumerate their words keep this default, which fails.
+	 *
+	 * @param action
+	 *            The action which receives each word and its vector.
+	 * @throws UnsupportedOperationException
+	 *             In case the dictionary does not support iteration.
+	 */
+	default void forEach(BiConsumer<String, float[]> action) {
+		throw new UnsupportedOperationException(getClass().getName() + " does not support iterating its words");
+	}
+
 	int size();
 	int vectorSize();
 	boolean isCaseSensitive();
@@ -1,13 +1,12 @@
 package ws.palladian.helper.nlp;
 
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.Set;
 
 import org.apache.commons.lang3.Validate;
 
 import ws.palladian.classification.text.FeatureSetting;
 import ws.palladian.classification.text.Preprocessor;
-import ws.palladian.helper.collection.CollectionHelper;
 import ws.palladian.helper.math.SetSimilarity;
 
 public final class FeatureBasedSimilarity extends AbstractStringMetric {
@@ -39,8 +38,7 @@ public final class FeatureBasedSimilarity extends AbstractStringMetric {
     }
 
     private Set<String> extractFeatures(String s) {
-        Iterator<String> featureIterator = preprocessor.apply(s);
-        return CollectionHelper.newHashSet(featureIterator);
+        return preprocessor.collect(s, new HashSet<String>());
     }
 
     @Override
@@ -1,6 +1,7 @@
 package ws.palladian.classification.dt;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static ws.palladian.classification.utils.ClassifierEvaluation.evaluate;
 import static ws.palladian.helper.io.ResourceHelper.getResourceFile;
@@ -11,8 +12,11 @@ import java.util.List;
 
 import org.junit.Test;
 
+import quickdt.Attributes;
+import quickdt.HashMapAttributes;
 import ws.palladian.classification.utils.CsvDatasetReader;
 import ws.palladian.core.CategoryEntries;
+import ws.palladian.core.CategoryIndex;
 import ws.palladian.core.FeatureVector;
 import ws.palladian.core.Instance;
 import ws.palladian.core.InstanceBuilder;
@@ -77,6 +81,23 @@ public class QuickDtTest {
         assertGreater(0.75, accuracy);
     }
 
+    @Test
+    public void testCompiledForest() throws FileNotFoundException {
+        List<Instance> instances = new CsvDatasetReader(getResourceFile("/classifier/adultData.txt"), false).readAll();
+        QuickDtModel model = QuickDtLearner.randomForest(5).train(instances.subList(0, 500));
+        CompiledForest compiledForest = model.getCompiledForest();
+        assertNotNull(compiledForest);
+        CategoryIndex categoryIndex = model.getCategoryIndex();
+        for (Instance instance : instances.subList(500, 1000)) {
+            Attributes attributes = HashMapAttributes.create(QuickDtLearner.getInput(instance.getVector()));
+            double[] probabilities = compiledForest.getProbabilities(instance.getVector());
+            for (int categoryIdx = 0; categoryIdx < categoryIndex.size(); categoryIdx++) {
+                String category = categoryIndex.getName(categoryIdx);
+                assertEquals(model.getModel().getProbability(attributes, category), probabilities[categoryIdx], 0);
+            }
+        }
+    }
+
     private void assertGreater(double expected, double actual) {
         assertTrue("value should be > " + expected + ", but was " + actual, actual > expected);
     }
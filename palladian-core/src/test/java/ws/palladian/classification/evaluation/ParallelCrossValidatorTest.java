@@ -0,0 +1,73 @@
+package ws.palladian.classification.evaluation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static ws.palladian.helper.io.ResourceHelper.getResourceFile;
+
+import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import ws.palladian.classification.numeric.KnnClassifier;
+import ws.palladian.classification.numeric.KnnLearner;
+import ws.palladian.classification.utils.CsvDatasetReaderConfig;
+import ws.palladian.core.Instance;
+import ws.palladian.core.dataset.Dataset;
+import ws.palladian.core.dataset.RandomDataset;
+import ws.palladian.core.dataset.split.TrainTestSplit;
+import ws.palladian.helper.collection.CollectionHelper;
+import ws.palladian.helper.functional.Factories;
+import ws.palladian.helper.math.ConfusionMatrix;
+
+public class ParallelCrossValidatorTest {
+
+	@Test
+	public void testCrossValidator() {
+		Dataset data = new RandomDataset(100);
+		checkFolds(new ParallelCrossValidator(data, 10, new Random(1)));
+		checkFolds(new ParallelCrossValidator(data, 10, "index"));
+	}
+
+	private static void checkFolds(CrossValidator crossValidator) {
+		int numFolds = 0;
+		for (TrainTestSplit fold : crossValidator) {
+			assertEquals(90, fold.getTrain().size());
+			assertEquals(10, fold.getTest().size());
+
+			// test that train and test are disjunct
+			Set<Instance> trainSet = CollectionHelper.newHashSet(fold.getTrain());
+			Set<Instance> testSet = CollectionHelper.newHashSet(fold.getTest());
+			trainSet.removeAll(testSet);
+			assertEquals(90, trainSet.size());
+			numFolds++;
+		}
+		assertEquals(10, numFolds);
+	}
+
+	@Test
+	public void testEvaluate() throws FileNotFoundException {
+		Dataset data = CsvDatasetReaderConfig.filePath(getResourceFile("/classifier/wineData.csv")).create();
+		ParallelCrossValidator crossValidator = new ParallelCrossValidator(data, 5, new Random(1));
+		ConfusionMatrix confusionMatrix = crossValidator.evaluate(Factories.constant(new KnnLearner()),
+				Factories.constant(new KnnClassifier()), 4);
+		assertEquals(178, confusionMatrix.getTotalDocuments());
+		assertTrue(confusionMatrix.getAccuracy() > 0.9);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		List<ConfusionMatrix> results = crossValidator.evaluate(Factories.constant(new KnnLearner()),
+				Factories.constant(new KnnClassifier()), new ConfusionMatrixEvaluator(), executor);
+		executor.shutdown();
+		assertEquals(5, results.size());
+		int total = 0;
+		for (ConfusionMatrix result : results) {
+			total += result.getTotalDocuments();
+		}
+		assertEquals(178, total);
+	}
+
+}
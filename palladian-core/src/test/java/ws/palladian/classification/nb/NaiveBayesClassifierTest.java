@@ -21,6 +21,7 @@ import ws.palladian.core.CategoryEntries;
 import ws.palladian.core.FeatureVector;
 import ws.palladian.core.Instance;
 import ws.palladian.core.InstanceBuilder;
+import ws.palladian.core.dataset.DefaultDataset;
 import ws.palladian.helper.io.FileHelper;
 import ws.palladian.helper.math.ConfusionMatrix;
 /**
@@ -117,6 +118,23 @@ public class NaiveBayesClassifierTest {
         assertTrue(matrix.getAccuracy() > 0.77);
     }
     
+    @Test
+    public void testParallelTraining() throws FileNotFoundException {
+        List<Instance> instances = new CsvDatasetReader(getResourceFile("/classifier/diabetesData.txt"), false).readAll();
+        NaiveBayesModel model = new NaiveBayesLearner().train(instances);
+        NaiveBayesModel parallelModel = new NaiveBayesLearner().train(new DefaultDataset(instances), 3);
+        assertEquals(model.getCategories(), parallelModel.getCategories());
+        assertEquals(model.getLearnedFeatures(), parallelModel.getLearnedFeatures());
+        NaiveBayesClassifier classifier = new NaiveBayesClassifier();
+        for (Instance instance : instances) {
+            CategoryEntries result = classifier.classify(instance.getVector(), model);
+            CategoryEntries parallelResult = classifier.classify(instance.getVector(), parallelModel);
+            for (String category : model.getCategories()) {
+                assertEquals(result.getProbability(category), parallelResult.getProbability(category), 0.0001);
+            }
+        }
+    }
+
     @Test
     public void testSerialization() throws IOException {
         List<Instance> instances = new CsvDatasetReader(getResourceFile("/classifier/diabetesData.txt"), false).readAll();
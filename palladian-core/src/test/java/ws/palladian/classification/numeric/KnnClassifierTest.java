@@ -1,5 +1,6 @@
 package ws.palladian.classification.numeric;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static ws.palladian.helper.io.ResourceHelper.getResourceFile;
@@ -7,12 +8,15 @@ import static ws.palladian.helper.io.ResourceHelper.getResourceFile;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Random;
 
 import org.junit.Test;
 
 import ws.palladian.classification.evaluation.ConfusionMatrixEvaluator;
+import ws.palladian.classification.numeric.KnnLearner.Search;
 import ws.palladian.classification.utils.CsvDatasetReaderConfig;
 import ws.palladian.classification.utils.MinMaxNormalizer;
 import ws.palladian.classification.utils.NoNormalizer;
@@ -22,6 +26,7 @@ import ws.palladian.core.FeatureVector;
 import ws.palladian.core.Instance;
 import ws.palladian.core.InstanceBuilder;
 import ws.palladian.core.dataset.Dataset;
+import ws.palladian.core.dataset.DefaultDataset;
 import ws.palladian.core.dataset.split.RandomSplit;
 import ws.palladian.helper.io.FileHelper;
 import ws.palladian.helper.math.ConfusionMatrix;
@@ -121,6 +126,84 @@ public class KnnClassifierTest {
         assertTrue(confusionMatrix.getAccuracy() > 0.72);
     }
 
+    @Test
+    public void testExactSearch() {
+        // values are rounded, so that there are many ties
+        Random random = new Random(123);
+        List<Instance> instances = new ArrayList<>();
+        for (int i = 0; i < 30000; i++) {
+            InstanceBuilder builder = new InstanceBuilder();
+            for (int j = 0; j < 3; j++) {
+                builder.set("f" + j, Math.round(random.nextDouble() * 20) / 20.);
+            }
+            instances.add(builder.create(random.nextBoolean() ? "A" : "B"));
+        }
+        Dataset dataset = new DefaultDataset(instances);
+        KnnModel bruteForceModel = new KnnLearner(new NoNormalizer()).train(dataset);
+        KnnModel kdTreeModel = new KnnLearner(new NoNormalizer(), Search.KD_TREE).train(dataset);
+        for (int i = 0; i < 100; i++) {
+            double[] query = { random.nextDouble(), random.nextDouble(), random.nextDouble() };
+            int[] expected = getNeighbors(bruteForceModel.findNeighbors(query, 10, 1));
+            assertArrayEquals(expected, getNeighbors(bruteForceModel.findNeighbors(query, 10, 4)));
+            assertArrayEquals(expected, getNeighbors(kdTreeModel.findNeighbors(query, 10, 1)));
+        }
+    }
+
+    @Test
+    public void testRandomProjectionWithDuplicates() {
+        // equal vectors cannot be split, so leaves exceed their regular size
+        List<Instance> instances = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            instances.add(new InstanceBuilder().set("f0", 1.).set("f1", 0.).create("A"));
+        }
+        for (int i = 0; i < 50; i++) {
+            instances.add(new InstanceBuilder().set("f0", 0.).set("f1", 1.).create("B"));
+        }
+        Dataset dataset = new DefaultDataset(instances);
+        KnnModel bruteForceModel = new KnnLearner(new NoNormalizer()).train(dataset);
+        KnnModel randomProjectionModel = new KnnLearner(new NoNormalizer(), Search.RANDOM_PROJECTION).train(dataset);
+        double[][] queries = { { 1, 0 }, { 0, 1 }, { 0.5, 0.5 } };
+        for (double[] query : queries) {
+            int[] expected = getNeighbors(bruteForceModel.findNeighbors(query, 5, 1));
+            int[] actual = getNeighbors(randomProjectionModel.findNeighbors(query, 5, 1));
+            assertEquals(expected.length, actual.length);
+        }
+        FeatureVector query = new InstanceBuilder().set("f0", 1.).set("f1", 0.).create();
+        assertEquals("A", new KnnClassifier(3).classify(query, randomProjectionModel).getMostLikelyCategory());
+    }
+
+    @Test
+    public void testSearchStrategiesWithAdultIncomeData() throws FileNotFoundException {
+        Dataset instances = CsvDatasetReaderConfig.filePath(getResourceFile("/classifier/adultData.txt")).readHeader(false).create();
+        RandomSplit split = new RandomSplit(instances, 0.5, new Random(123));
+        ConfusionMatrixEvaluator evaluator = new ConfusionMatrixEvaluator();
+        ConfusionMatrix bruteForce = evaluator.evaluate(new KnnLearner(new MinMaxNormalizer()), new KnnClassifier(3), split.getTrain(), split.getTest());
+        ConfusionMatrix kdTree = evaluator.evaluate(new KnnLearner(new MinMaxNormalizer(), Search.KD_TREE), new KnnClassifier(3), split.getTrain(), split.getTest());
+        ConfusionMatrix randomProjection = evaluator.evaluate(new KnnLearner(new MinMaxNormalizer(), Search.RANDOM_PROJECTION), new KnnClassifier(3), split.getTrain(), split.getTest());
+        assertEquals(bruteForce.getAccuracy(), kdTree.getAccuracy(), 0);
+        assertTrue(randomProjection.getAccuracy() > 0.73);
+    }
+
+    /** @return The indices of the neighbors in the heap, sorted by distance and index. */
+    private static int[] getNeighbors(final NeighborHeap heap) {
+        Integer[] positions = new Integer[heap.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = i;
+        }
+        Arrays.sort(positions, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer p1, Integer p2) {
+                int result = Double.compare(heap.distance(p1), heap.distance(p2));
+                return result != 0 ? result : Integer.compare(heap.index(p1), heap.index(p2));
+            }
+        });
+        int[] neighbors = new int[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            neighbors[i] = heap.index(positions[i]);
+        }
+        return neighbors;
+    }
+
     private FeatureVector createTestInstance() {
         // create an instance to classify
         // 13.82;1.75;2.42;14;111;3.88;3.74;.32;1.87;7.05;1.01;3.26;1190;1 =>
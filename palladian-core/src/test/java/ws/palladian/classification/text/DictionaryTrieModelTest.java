@@ -1,11 +1,13 @@
 package ws.palladian.classification.text;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
 
+import org.apache.commons.lang3.SerializationUtils;
 import org.junit.Test;
 
 import ws.palladian.helper.io.FileHelper;
@@ -32,4 +34,26 @@ public class DictionaryTrieModelTest extends AbstractDictionaryModelTest {
 		assertEquals(4, model.getTermCounts().getCount(CATEGORY_2));
 	}
 
+	@Test
+	public void testAddDictionary() {
+		DictionaryTrieModel.Builder builder = new DictionaryTrieModel.Builder();
+		builder.addDictionary(model);
+		builder.addDictionary(model);
+		DictionaryModel mergedModel = builder.create();
+		assertEquals(4, mergedModel.getNumUniqTerms());
+		assertEquals(5, mergedModel.getNumEntries());
+		assertEquals(12, mergedModel.getNumDocuments());
+		assertEquals(6, mergedModel.getCategoryEntries(WORD_3).getCount(CATEGORY_1));
+		assertEquals(2, mergedModel.getCategoryEntries(WORD_3).getCount(CATEGORY_2));
+		assertEquals(0.75, mergedModel.getCategoryEntries(WORD_3).getProbability(CATEGORY_1), 0);
+		assertEquals(10, mergedModel.getTermCounts().getCount(CATEGORY_1));
+	}
+
+	@Test
+	public void testAddDictionaryKeepsCategoryOrder() {
+		DictionaryTrieModel.Builder builder = new DictionaryTrieModel.Builder();
+		builder.addDictionary(model);
+		assertArrayEquals(SerializationUtils.serialize(model), SerializationUtils.serialize(builder.create()));
+	}
+
 }
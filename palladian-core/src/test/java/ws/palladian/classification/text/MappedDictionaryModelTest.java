@@ -0,0 +1,94 @@
+package ws.palladian.classification.text;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ws.palladian.classification.text.DictionaryModel.DictionaryEntry;
+import ws.palladian.core.Category;
+import ws.palladian.core.CategoryEntries;
+import ws.palladian.helper.io.FileHelper;
+
+public class MappedDictionaryModelTest extends AbstractDictionaryModelTest {
+
+	private DictionaryModel originalModel;
+
+	private File tempFile;
+
+	@Before
+	public void compile() throws IOException {
+		originalModel = model;
+		tempFile = new File(FileHelper.getTempDir(), "dictionaryModel.mapped");
+		model = MappedDictionaryModel.compile(originalModel, tempFile);
+	}
+
+	@After
+	public void deleteFile() {
+		FileHelper.delete(tempFile);
+	}
+
+	@Test
+	public void testCompiledEntries() {
+		assertEquals(originalModel.getNumUniqTerms(), model.getNumUniqTerms());
+		assertEquals(originalModel.getNumEntries(), model.getNumEntries());
+		Map<String, Integer> mappedTotalCounts = new HashMap<>();
+		for (DictionaryEntry mappedEntry : model) {
+			mappedTotalCounts.put(mappedEntry.getTerm(), mappedEntry.getCategoryEntries().getTotalCount());
+		}
+		assertEquals(originalModel.getNumUniqTerms(), mappedTotalCounts.size());
+		for (DictionaryEntry entry : originalModel) {
+			assertEquals((Integer)entry.getCategoryEntries().getTotalCount(), mappedTotalCounts.get(entry.getTerm()));
+			assertEquals(entry.getCategoryEntries().getTotalCount(),
+					model.getCategoryEntries(entry.getTerm()).getTotalCount());
+		}
+		assertEquals(0, model.getCategoryEntries("äöü").size());
+		assertEquals(0, model.getCategoryEntries("").size());
+	}
+
+	@Test
+	public void testCategoryEntries() {
+		assertEquals(2, model.getCategoryEntries(WORD_1).getCount(CATEGORY_1));
+		assertEquals(0, model.getCategoryEntries(WORD_1).getCount(CATEGORY_2));
+		assertEquals(1., model.getCategoryEntries(WORD_1).getProbability(CATEGORY_1), 0);
+		assertEquals(1, model.getCategoryEntries(WORD_2).getCount(CATEGORY_2));
+		assertEquals(1., model.getCategoryEntries(WORD_2).getProbability(CATEGORY_2), 0);
+		assertEquals(3, model.getCategoryEntries(WORD_3).getCount(CATEGORY_1));
+		assertEquals(1, model.getCategoryEntries(WORD_3).getCount(CATEGORY_2));
+		assertEquals(0.75, model.getCategoryEntries(WORD_3).getProbability(CATEGORY_1), 0);
+		assertEquals(0.25, model.getCategoryEntries(WORD_3).getProbability(CATEGORY_2), 0);
+		assertEquals(CATEGORY_1, model.getCategoryEntries(WORD_3).getMostLikelyCategory());
+		assertEquals(3, model.getCategoryEntries(WORD_4).getCount(CATEGORY_2));
+		assertEquals(1., model.getCategoryEntries(WORD_4).getProbability(CATEGORY_2), 0);
+		assertEquals(0, model.getCategoryEntries(WORD_5).size());
+		assertEquals(0, model.getCategoryEntries(WORD_5).getTotalCount());
+		assertEquals(0., model.getCategoryEntries(WORD_5).getProbability(CATEGORY_1), 0);
+		assertEquals(0., model.getCategoryEntries(WORD_5).getProbability(CATEGORY_2), 0);
+		assertEquals(0.75, model.getCategoryEntries(new StringBuilder(WORD_3)).getProbability(CATEGORY_1), 0);
+		assertEquals(0, model.getCategoryEntries(new StringBuilder(WORD_5)).size());
+		assertEquals(6, model.getNumDocuments());
+		assertEquals(0.5, model.getDocumentCounts().getProbability(CATEGORY_1), 0);
+		assertEquals(5, model.getTermCounts().getCount(CATEGORY_1));
+		assertEquals(5, model.getTermCounts().getCount(CATEGORY_2));
+	}
+
+	@Test
+	public void testCharSequenceLookup() {
+		for (DictionaryEntry entry : originalModel) {
+			CategoryEntries categoryEntries = model.getCategoryEntries(new StringBuilder(entry.getTerm()));
+			assertEquals(entry.getCategoryEntries().getTotalCount(), categoryEntries.getTotalCount());
+			for (Category category : entry.getCategoryEntries()) {
+				assertEquals(category.getCount(), categoryEntries.getCount(category.getName()));
+			}
+		}
+		assertEquals(0, model.getCategoryEntries(new StringBuilder("äöü")).size());
+		assertEquals(0, model.getCategoryEntries(new StringBuilder("word")).size());
+	}
+
+}
@@ -1,17 +1,28 @@
 package ws.palladian.classification.text;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static ws.palladian.classification.text.BayesScorer.Options.COMPLEMENT;
 import static ws.palladian.classification.text.BayesScorer.Options.PRIORS;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map.Entry;
 
+import org.apache.commons.lang3.SerializationUtils;
 import org.junit.Test;
 
+import ws.palladian.classification.text.PalladianTextClassifier.Scorer;
+import ws.palladian.core.Category;
 import ws.palladian.core.CategoryEntries;
+import ws.palladian.core.CategoryEntriesBuilder;
 import ws.palladian.core.Instance;
 import ws.palladian.core.InstanceBuilder;
+import ws.palladian.core.dataset.DefaultDataset;
+import ws.palladian.helper.collection.Bag;
 
 public class PalladianTextClassifierTest {
 
@@ -61,4 +72,161 @@ public class PalladianTextClassifierTest {
         assertEquals(0.88, result.getMostLikely().getProbability(), 0.01);
     }
 
+    @Test
+    public void testParallelTraining() {
+        List<Instance> trainDocs = new ArrayList<>();
+        // more instances than fit into one chunk, so that the partial dictionaries are merged repeatedly
+        for (int i = 0; i < 2600; i++) {
+            trainDocs.addAll(docs);
+        }
+        FeatureSetting charSetting = FeatureSettingBuilder.chars(3, 5).create();
+        DictionaryModel sequentialModel = new PalladianTextClassifier(charSetting).train(trainDocs);
+        byte[] sequentialBytes = SerializationUtils.serialize(sequentialModel);
+        for (int numThreads : new int[] { 2, 3, 4, 7 }) {
+            DictionaryModel parallelModel = new PalladianTextClassifier(charSetting).train(
+                    new DefaultDataset(trainDocs), numThreads);
+            assertEquals(sequentialModel, parallelModel);
+            assertEquals(sequentialModel.getNumTerms(), parallelModel.getNumTerms());
+            assertEquals(sequentialModel.getNumEntries(), parallelModel.getNumEntries());
+            assertArrayEquals(sequentialBytes, SerializationUtils.serialize(parallelModel));
+        }
+    }
+
+    @Test
+    public void testScorerSubclassGetsTerms() {
+        final List<String> scoredTerms = new ArrayList<>();
+        @SuppressWarnings("deprecation")
+        Scorer scorer = new PalladianTextClassifier.DefaultScorer() {
+            @Override
+            public double score(String term, String category, int termCategoryCount, int dictCount, int docCount,
+                    int categorySum, int numUniqTerms, int numDocs, int numTerms) {
+                scoredTerms.add(term);
+                return super.score(term, category, termCategoryCount, dictCount, docCount, categorySum,
+                        numUniqTerms, numDocs, numTerms);
+            }
+        };
+        PalladianTextClassifier classifier = new PalladianTextClassifier(featureSetting, scorer);
+        classifier.classify(TEST_TEXT, classifier.train(docs));
+        assertTrue(scoredTerms.contains("tokyo"));
+        assertFalse(scoredTerms.contains(null));
+    }
+
+    @Test
+    public void testCharNGramScoring() {
+        FeatureSetting charSetting = FeatureSettingBuilder.chars(3, 5).characterPadding().maxTerms(40).create();
+        Scorer[] scorers = {PalladianTextClassifier.DEFAULT_SCORER, new BayesScorer(), new BayesScorer(PRIORS)};
+        String[] texts = {TEST_TEXT, "Tokyo ### Japan", "Macao", "", "Beijing Beijing Shanghai Beijing Tokyo Japan"};
+        for (Scorer scorer : scorers) {
+            PalladianTextClassifier classifier = new PalladianTextClassifier(charSetting, scorer);
+            DictionaryModel model = classifier.train(docs);
+            for (String text : texts) {
+                CategoryEntries expected = classifyReference(text, model, charSetting, scorer);
+                CategoryEntries actual = classifier.classify(text, model);
+                assertEquals(expected.size(), actual.size());
+                for (Category category : expected) {
+                    assertEquals(category.getProbability(), actual.getProbability(category.getName()), 1e-12);
+                }
+            }
+        }
+    }
+
+    /** The former, string-based scoring implementation, for comparison. */
+    private static CategoryEntries classifyReference(String text, DictionaryModel model, FeatureSetting featureSetting,
+            Scorer scorer) {
+        CategoryEntriesBuilder builder = new CategoryEntriesBuilder();
+        Iterator<String> iterator = new Preprocessor(featureSetting).apply(text);
+        Bag<String> termCounts = new Bag<>();
+        while (iterator.hasNext() && termCounts.uniqueItems().size() < featureSetting.getMaxTerms()) {
+            termCounts.add(iterator.next());
+        }
+        CategoryEntries termSums = model.getTermCounts();
+        for (Entry<String, Integer> termCount : termCounts.unique()) {
+            String term = termCount.getKey();
+            CategoryEntries categoryEntries = model.getCategoryEntries(term);
+            int dictCount = categoryEntries.getTotalCount();
+            for (Category category : termSums) {
+                int count = categoryEntries.getCount(category.getName());
+                if (count > 0 || scorer.scoreNonMatches()) {
+                    builder.add(category.getName(), scorer.score(term, category.getName(), count, dictCount,
+                            termCount.getValue(), category.getCount(), model.getNumUniqTerms(),
+                            model.getNumDocuments(), model.getNumTerms()));
+                }
+            }
+        }
+        boolean matched = builder.getTotalScore() != 0;
+        for (Category category : model.getDocumentCounts()) {
+            String name = category.getName();
+            builder.set(name, scorer.scoreCategory(name, builder.getScore(name), category.getProbability(), matched));
+        }
+        return builder.create();
+    }
+
+    @Test
+    public void testCategoryMissingInCounts() {
+        // "yes" and seven more categories fill the initial capacity (eight) of the classifier's score arrays, so that
+        // they need to grow for the category "no"
+        List<Instance> trainDocs = new ArrayList<>(docs);
+        for (int i = 0; i < 7; i++) {
+            trainDocs.add(new InstanceBuilder().setText("filler" + i).create("category" + i));
+        }
+        final DictionaryModel model = new PalladianTextClassifier(featureSetting).train(trainDocs);
+        // the term and document counts do not contain the category "no", which only occurs in the term entries
+        final CategoryEntries termCounts = withoutCategory(model.getTermCounts(), "no");
+        final CategoryEntries documentCounts = withoutCategory(model.getDocumentCounts(), "no");
+        DictionaryModel inconsistentModel = new AbstractDictionaryModel() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public String getName() {
+                return model.getName();
+            }
+
+            @Override
+            public FeatureSetting getFeatureSetting() {
+                return model.getFeatureSetting();
+            }
+
+            @Override
+            public CategoryEntries getCategoryEntries(String term) {
+                return model.getCategoryEntries(term);
+            }
+
+            @Override
+            public int getNumUniqTerms() {
+                return model.getNumUniqTerms();
+            }
+
+            @Override
+            public CategoryEntries getDocumentCounts() {
+                return documentCounts;
+            }
+
+            @Override
+            public CategoryEntries getTermCounts() {
+                return termCounts;
+            }
+
+            @Override
+            public Iterator<DictionaryEntry> iterator() {
+                return model.iterator();
+            }
+        };
+        PalladianTextClassifier classifier = new PalladianTextClassifier(featureSetting);
+        for (int i = 0; i < 2; i++) { // the second run reuses the grown arrays
+            CategoryEntries result = classifier.classify("Tokyo Japan", inconsistentModel);
+            assertEquals("no", result.getMostLikelyCategory());
+            assertTrue(result.getProbability("no") > 0);
+        }
+    }
+
+    private static CategoryEntries withoutCategory(CategoryEntries entries, String categoryName) {
+        CountingCategoryEntriesBuilder builder = new CountingCategoryEntriesBuilder();
+        for (Category category : entries) {
+            if (!category.getName().equals(categoryName)) {
+                builder.set(category.getName(), category.getCount());
+            }
+        }
+        return builder.create();
+    }
+
 }
@@ -0,0 +1,91 @@
+package ws.palladian.classification.text;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import ws.palladian.classification.text.FeatureSetting.TextFeatureType;
+import ws.palladian.classification.text.Preprocessor.TermConsumer;
+import ws.palladian.core.Token;
+import ws.palladian.extraction.token.CharacterNGramTokenizer;
+import ws.palladian.extraction.token.NGramWrapperIterator;
+import ws.palladian.extraction.token.WordTokenizer;
+
+public class PreprocessorTest {
+
+    private static final String TEXT = "The quick brown fox jumps over the lazy dog. It's 3.5 times faster, isn't it? "
+            + "Do it again, http://example.com";
+
+    @Test
+    public void testWordNGrams() {
+        assertMatchesReference(FeatureSettingBuilder.words(1, 3).create());
+        assertMatchesReference(FeatureSettingBuilder.words(2, 4).createSkipGrams().create());
+        assertMatchesReference(FeatureSettingBuilder.words(1, 2).termLength(3, 8).caseSensitive().create());
+        assertMatchesReference(FeatureSettingBuilder.words(5, 8).create());
+    }
+
+    @Test
+    public void testCharNGrams() {
+        assertMatchesReference(FeatureSettingBuilder.chars(3, 6).create());
+        assertMatchesReference(FeatureSettingBuilder.chars(2, 5).characterPadding().create());
+        assertMatchesReference(FeatureSettingBuilder.chars(4).caseSensitive().characterPadding().create());
+    }
+
+    @Test
+    public void testStopEarly() {
+        Preprocessor preprocessor = new Preprocessor(FeatureSettingBuilder.words(1).create());
+        final List<String> terms = new ArrayList<>();
+        preprocessor.apply(TEXT, new TermConsumer() {
+            @Override
+            public boolean accept(String term) {
+                terms.add(term);
+                return terms.size() < 3;
+            }
+        });
+        assertEquals(3, terms.size());
+        assertEquals("brown", terms.get(2));
+    }
+
+    private static void assertMatchesReference(FeatureSetting featureSetting) {
+        List<String> expected = toList(reference(featureSetting, TEXT));
+        List<String> actual = toList(new Preprocessor(featureSetting).apply(TEXT));
+        assertEquals(featureSetting.toString(), expected, actual);
+    }
+
+    /** The tokenizer-based pipeline, as it was used before the terms were streamed. */
+    private static Iterator<Token> reference(FeatureSetting featureSetting, String text) {
+        String content = featureSetting.isCaseSensitive() ? text : text.toLowerCase();
+        int min = featureSetting.getMinNGramLength();
+        int max = featureSetting.getMaxNGramLength();
+        if (featureSetting.getTextFeatureType() == TextFeatureType.CHAR_NGRAMS) {
+            return new CharacterNGramTokenizer(min, max, featureSetting.isCharacterPadding()).iterateTokens(content);
+        }
+        Iterator<Token> iterator = new NGramWrapperIterator(new WordTokenizer().iterateTokens(content), min, max);
+        if (featureSetting.isCreateSkipGrams()) {
+            iterator = new SkipGramWrapperIterator(iterator);
+        }
+        List<Token> tokens = new ArrayList<>();
+        while (iterator.hasNext()) {
+            Token token = iterator.next();
+            int length = token.getValue().length();
+            if (length >= featureSetting.getMinimumTermLength() && length <= featureSetting.getMaximumTermLength()) {
+                tokens.add(token);
+            }
+        }
+        return tokens.iterator();
+    }
+
+    private static List<String> toList(Iterator<?> iterator) {
+        List<String> result = new ArrayList<>();
+        while (iterator.hasNext()) {
+            Object next = iterator.next();
+            result.add(next instanceof Token ? ((Token)next).getValue() : (String)next);
+        }
+        return result;
+    }
+
+}
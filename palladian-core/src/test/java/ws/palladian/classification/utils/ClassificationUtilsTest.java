@@ -0,0 +1,63 @@
+package ws.palladian.classification.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+
+import ws.palladian.core.CategoryEntries;
+import ws.palladian.core.CategoryEntriesBuilder;
+import ws.palladian.core.Classifier;
+import ws.palladian.core.FeatureVector;
+import ws.palladian.core.Instance;
+import ws.palladian.core.Model;
+import ws.palladian.core.dataset.Dataset;
+import ws.palladian.core.dataset.RandomDataset;
+
+public class ClassificationUtilsTest {
+
+	/** Classifies by the parity of the index, and records the sizes of the batches. */
+	private static final class RecordingClassifier implements Classifier<Model> {
+		final List<Integer> batchSizes = new ArrayList<>();
+
+		@Override
+		public CategoryEntries classify(FeatureVector featureVector, Model model) {
+			int index = featureVector.getNumeric("index").getInt();
+			return new CategoryEntriesBuilder().set(String.valueOf(index % 2 == 0), 1).create();
+		}
+
+		@Override
+		public List<CategoryEntries> classify(List<? extends FeatureVector> featureVectors, Model model) {
+			batchSizes.add(featureVectors.size());
+			return Classifier.super.classify(featureVectors, model);
+		}
+	}
+
+	@Test
+	public void testClassifyBatched() {
+		Dataset dataset = new RandomDataset(2500);
+		RecordingClassifier classifier = new RecordingClassifier();
+		int count = 0;
+		Model model = new Model() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public Set<String> getCategories() {
+				return new HashSet<>(Arrays.asList("true", "false"));
+			}
+		};
+		for (Pair<Instance, CategoryEntries> result : ClassificationUtils.classify(classifier, model, dataset)) {
+			assertEquals(result.getLeft().getCategory(), result.getRight().getMostLikelyCategory());
+			count++;
+		}
+		assertEquals(2500, count);
+		assertEquals(Arrays.asList(1000, 1000, 500), classifier.batchSizes);
+	}
+
+}
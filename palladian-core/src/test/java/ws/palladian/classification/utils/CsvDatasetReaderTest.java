@@ -7,6 +7,8 @@ import static ws.palladian.helper.functional.Predicates.regex;
 import static ws.palladian.helper.io.ResourceHelper.getResourceFile;
 
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
 
 import org.junit.Test;
 
@@ -202,4 +204,33 @@ public class CsvDatasetReaderTest {
 		}		
 	}
 
+	@Test
+	public void testCsvReading_parallel() throws IOException {
+		Builder config = CsvDatasetReaderConfig.filePath(getResourceFile("/classifier/adultData.txt"));
+		config.readHeader(false);
+		config.setFieldSeparator(';');
+		List<Instance> expected = CollectionHelper.newArrayList(config.create().iterator());
+		config.parallel(4);
+		assertEquals(expected, CollectionHelper.newArrayList(config.create().iterator()));
+		config.ordered(false);
+		List<Instance> unordered = CollectionHelper.newArrayList(config.create().iterator());
+		assertEquals(expected.size(), unordered.size());
+		assertEquals(new HashSet<>(expected), new HashSet<>(unordered));
+		config.ordered(true).limit(10);
+		assertEquals(expected.subList(0, 10), CollectionHelper.newArrayList(config.create().iterator()));
+	}
+
+	@Test
+	public void testCsvReading_parallelTextWithLinebreaks() throws IOException {
+		Builder config = CsvDatasetReaderConfig.filePath(getResourceFile("/csvDatasetTextWithLinebreaks.csv"));
+		config.readHeader(true);
+		config.readClassFromLastColumn(false);
+		config.setFieldSeparator(';');
+		config.quoteCharacter('"');
+		config.defaultParsers(stringValue());
+		List<Instance> expected = CollectionHelper.newArrayList(config.create().iterator());
+		config.parallel(2);
+		assertEquals(expected, CollectionHelper.newArrayList(config.create().iterator()));
+	}
+
 }
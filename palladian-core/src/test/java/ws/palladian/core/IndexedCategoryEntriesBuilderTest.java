@@ -0,0 +1,75 @@
+package ws.palladian.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+public class IndexedCategoryEntriesBuilderTest {
+
+    private static final double DELTA = 0.0001;
+
+    private static final CategoryIndex INDEX = new CategoryIndex(Arrays.asList("A", "B", "C", "D"));
+
+    @Test
+    public void testIndexedCategoryEntriesBuilder() {
+        IndexedCategoryEntriesBuilder builder = new IndexedCategoryEntriesBuilder(INDEX);
+        builder.set("A", 10);
+        builder.set("B", 50);
+        builder.set(INDEX.indexOf("C"), 20);
+        builder.add("B", 20);
+
+        CategoryEntries categoryEntries = builder.create();
+        assertEquals("B", categoryEntries.getMostLikelyCategory());
+        assertEquals(0.1, categoryEntries.getProbability("A"), DELTA);
+        assertEquals(0.7, categoryEntries.getProbability("B"), DELTA);
+        assertEquals(0.2, categoryEntries.getProbability("C"), DELTA);
+        assertEquals(0, categoryEntries.getProbability("D"), DELTA);
+        assertEquals(0, categoryEntries.getProbability("E"), DELTA);
+        assertFalse(categoryEntries.contains("D"));
+        assertNull(categoryEntries.getCategory("D"));
+        assertEquals(3, categoryEntries.size());
+
+        // iteration order should be descending
+        Iterator<Category> iterator = categoryEntries.iterator();
+        assertEquals("B", iterator.next().getName());
+        assertEquals("C", iterator.next().getName());
+        assertEquals("A", iterator.next().getName());
+        assertFalse(iterator.hasNext());
+
+        // reuse the builder, all categories (dense)
+        builder.clear();
+        builder.setAll(0);
+        builder.add("D", 80);
+        builder.add("A", 20);
+        categoryEntries = builder.create();
+        assertEquals("D", categoryEntries.getMostLikelyCategory());
+        assertEquals(0.8, categoryEntries.getProbability("D"), DELTA);
+        assertEquals(0.2, categoryEntries.getProbability("A"), DELTA);
+        assertTrue(categoryEntries.contains("B"));
+        assertEquals(0, categoryEntries.getProbability("B"), DELTA);
+        assertEquals(2, categoryEntries.size());
+    }
+
+    @Test
+    public void testIndexedCategoryEntriesBuilder_negativeValues() {
+        IndexedCategoryEntriesBuilder builder = new IndexedCategoryEntriesBuilder(INDEX);
+        builder.set("A", -20);
+        builder.set("B", -21);
+        builder.set("D", -19);
+        CategoryEntries categoryEntries = builder.create();
+        assertEquals("D", categoryEntries.getMostLikely().getName());
+        assertEquals(0.6833, categoryEntries.getMostLikely().getProbability(), DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIndexedCategoryEntriesBuilder_unknownCategory() {
+        new IndexedCategoryEntriesBuilder(INDEX).set("E", 1);
+    }
+
+}
@@ -0,0 +1,134 @@
+package ws.palladian.core.dataset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+import ws.palladian.core.Instance;
+import ws.palladian.core.InstanceBuilder;
+import ws.palladian.core.value.ImmutableDoubleValue;
+import ws.palladian.core.value.ImmutableIntegerValue;
+import ws.palladian.core.value.ImmutableTextValue;
+import ws.palladian.core.value.NullValue;
+import ws.palladian.helper.collection.CollectionHelper;
+import ws.palladian.helper.io.CloseableIterator;
+import ws.palladian.helper.io.CloseableIteratorAdapter;
+
+public class ColumnarDatasetTest {
+
+	private static Dataset createDataset(int size) {
+		List<Instance> instances = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			InstanceBuilder builder = new InstanceBuilder();
+			builder.set("double", i * 0.5);
+			builder.set("float", (float) i);
+			builder.set("int", i);
+			builder.set("long", (long) i * Integer.MAX_VALUE);
+			builder.set("boolean", i % 3 == 0);
+			builder.set("nominal", "value" + i % 5);
+			builder.set("text", new ImmutableTextValue("text " + i));
+			if (i % 7 == 0) {
+				builder.setNull("nullable");
+			} else {
+				builder.set("nullable", i);
+			}
+			builder.weight(i % 10 == 0 ? 2 : 1);
+			instances.add(builder.create(i % 2 == 0 ? "even" : "odd"));
+		}
+		return new DefaultDataset(instances);
+	}
+
+	@Test
+	public void testColumnarDataset() {
+		Dataset original = createDataset(2500);
+		ColumnarDataset columnarDataset = new ColumnarDataset(original);
+		assertEquals(2500, columnarDataset.size());
+		assertEquals(original.getFeatureInformation(), columnarDataset.getFeatureInformation());
+		assertEquals(original, columnarDataset);
+		Instance instance = columnarDataset.iterator().next();
+		assertSame(NullValue.NULL, instance.getVector().get("nullable"));
+		assertNull(instance.getVector().get("nonExisting"));
+		assertEquals(2, instance.getWeight());
+		assertSame(columnarDataset, columnarDataset.buffer());
+	}
+
+	@Test
+	public void testTypeFallback() {
+		final List<Instance> instances = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			instances.add(new InstanceBuilder().set("value", i < 5 ? new ImmutableDoubleValue(i) : ImmutableIntegerValue.valueOf(i)).create("category"));
+		}
+		// declares a type which does not fit all values; must fall back to storing the values as objects
+		Dataset original = new AbstractDataset() {
+			@Override
+			public CloseableIterator<Instance> iterator() {
+				return new CloseableIteratorAdapter<>(instances.iterator());
+			}
+
+			@Override
+			public FeatureInformation getFeatureInformation() {
+				return new FeatureInformationBuilder().set("value", ImmutableDoubleValue.class).create();
+			}
+
+			@Override
+			public long size() {
+				return instances.size();
+			}
+		};
+		ColumnarDataset columnarDataset = new ColumnarDataset(original);
+		assertEquals(original, columnarDataset);
+	}
+
+	@Test
+	public void testFilterFeatures() {
+		Dataset original = createDataset(100);
+		Predicate<String> filter = new Predicate<String>() {
+			@Override
+			public boolean test(String name) {
+				return Arrays.asList("int", "nominal").contains(name);
+			}
+		};
+		Dataset filtered = new ColumnarDataset(original).filterFeatures(filter);
+		assertEquals(2, filtered.getFeatureInformation().count());
+		assertEquals(original.filterFeatures(filter).getFeatureInformation(), filtered.getFeatureInformation());
+		Iterator<Instance> expectedIterator = original.filterFeatures(filter).iterator();
+		for (Instance actual : filtered) {
+			assertEquals(expectedIterator.next().getVector(), actual.getVector());
+		}
+		Instance instance = filtered.iterator().next();
+		assertEquals(2, instance.getVector().size());
+		assertNull(instance.getVector().get("double"));
+	}
+
+	@Test
+	public void testSubset() {
+		Dataset original = createDataset(100);
+		Predicate<Instance> filter = new Predicate<Instance>() {
+			@Override
+			public boolean test(Instance instance) {
+				return instance.getCategory().equals("odd") && instance.getVector().getNumeric("int").getInt() > 50;
+			}
+		};
+		Dataset subset = new ColumnarDataset(original).subset(filter);
+		assertEquals(25, subset.size());
+		assertEquals(new DefaultDataset(CollectionHelper.newArrayList(original.subset(filter))), subset);
+		for (Instance instance : subset.filterFeatures(new Predicate<String>() {
+			@Override
+			public boolean test(String name) {
+				return name.equals("int");
+			}
+		})) {
+			assertTrue(instance.getVector().getNumeric("int").getInt() > 50);
+		}
+	}
+
+}
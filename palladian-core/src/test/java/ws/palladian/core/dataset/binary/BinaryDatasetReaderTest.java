@@ -0,0 +1,115 @@
+package ws.palladian.core.dataset.binary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+import ws.palladian.core.Instance;
+import ws.palladian.core.InstanceBuilder;
+import ws.palladian.core.dataset.Dataset;
+import ws.palladian.core.dataset.DefaultDataset;
+import ws.palladian.core.value.ImmutableTextValue;
+import ws.palladian.core.value.NullValue;
+import ws.palladian.helper.io.CloseableIterator;
+import ws.palladian.helper.io.FileHelper;
+
+public class BinaryDatasetReaderTest {
+
+	private static Dataset createDataset(int size) {
+		List<Instance> instances = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			InstanceBuilder builder = new InstanceBuilder();
+			builder.set("double", i * 0.5);
+			builder.set("float", (float) i / 3);
+			builder.set("int", i);
+			builder.set("long", (long) i * Integer.MAX_VALUE);
+			builder.set("boolean", i % 3 == 0);
+			builder.set("nominal", "välue" + i % 5);
+			builder.set("text", new ImmutableTextValue("text " + i));
+			if (i % 7 == 0) {
+				builder.setNull("nullable");
+				builder.setNull("nullableNominal");
+			} else {
+				builder.set("nullable", i);
+				builder.set("nullableNominal", "nominal" + i);
+			}
+			builder.weight(i % 10 == 0 ? 2 : 1);
+			instances.add(builder.create(i % 2 == 0 ? "even" : "odd"));
+		}
+		return new DefaultDataset(instances);
+	}
+
+	@Test
+	public void testWriteRead() {
+		Dataset dataset = createDataset(10000);
+		File file = FileHelper.getTempFile();
+		new BinaryDatasetWriter(file).write(dataset);
+		BinaryDatasetReader reader = new BinaryDatasetReader(file);
+		assertEquals(dataset.getFeatureInformation(), reader.getFeatureInformation());
+		assertEquals(10000, reader.size());
+		assertEquals(dataset, reader);
+		// read twice
+		assertEquals(dataset, reader);
+	}
+
+	@Test
+	public void testWriteReadCompressed() {
+		Dataset dataset = createDataset(5000);
+		File file = new File(FileHelper.getTempFile().getPath() + ".gz");
+		new BinaryDatasetWriter(file).write(dataset);
+		BinaryDatasetReader reader = new BinaryDatasetReader(file);
+		assertEquals(5000, reader.size());
+		assertEquals(dataset, reader);
+	}
+
+	@Test
+	public void testFilterFeatures() {
+		Dataset dataset = createDataset(5000);
+		File file = FileHelper.getTempFile();
+		new BinaryDatasetWriter(file).write(dataset);
+		Predicate<String> filter = new Predicate<String>() {
+			@Override
+			public boolean test(String name) {
+				return name.equals("int") || name.equals("nullableNominal");
+			}
+		};
+		Dataset filtered = new BinaryDatasetReader(file).filterFeatures(filter);
+		assertEquals(dataset.filterFeatures(filter).getFeatureInformation(), filtered.getFeatureInformation());
+		Iterator<Instance> expectedIterator = dataset.iterator();
+		for (Instance actual : filtered) {
+			Instance expected = expectedIterator.next();
+			assertEquals(expected.getVector().filter(filter), actual.getVector());
+			assertEquals(expected.getCategory(), actual.getCategory());
+			assertEquals(expected.getWeight(), actual.getWeight());
+		}
+		assertFalse(expectedIterator.hasNext());
+	}
+
+	@Test
+	public void testNullValues() {
+		File file = FileHelper.getTempFile();
+		new BinaryDatasetWriter(file).write(createDataset(10));
+		CloseableIterator<Instance> iterator = new BinaryDatasetReader(file).iterator();
+		Instance instance = iterator.next();
+		FileHelper.close(iterator);
+		assertSame(NullValue.NULL, instance.getVector().get("nullable"));
+		assertSame(NullValue.NULL, instance.getVector().get("nullableNominal"));
+		assertEquals(2, instance.getWeight());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoOverwrite() {
+		File file = FileHelper.getTempFile();
+		new BinaryDatasetWriter(file).write(createDataset(10));
+		new BinaryDatasetWriter(file);
+	}
+
+}
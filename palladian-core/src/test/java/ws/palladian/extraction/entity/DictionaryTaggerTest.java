@@ -0,0 +1,92 @@
+package ws.palladian.extraction.entity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import ws.palladian.core.Annotation;
+
+public class DictionaryTaggerTest {
+
+    private static final String TEXT = "The St. Louis-based company opened offices in New York City, New Jersey "
+            + "and St. Louisiana; the new york times reported from New Delhi.";
+
+    @Test
+    public void testLongestMatches() {
+        DictionaryTagger tagger = new DictionaryTagger.Builder(false) //
+                .add("New York", "LOC") //
+                .add("New York City", "LOC") //
+                .add("York City Council", "ORG") //
+                .add("St. Louis", "LOC") //
+                .add("City", "MISC") //
+                .add("New Delhi", "LOC") //
+                .add("New Delhi", "ORG") // ignored, already added
+                .add("Delhi", "LOC") //
+                .add("Jersey", "LOC") //
+                .create();
+        List<Annotation> annotations = tagger.getAnnotations(TEXT);
+        assertEquals(4, annotations.size());
+        assertAnnotation(annotations.get(0), "St. Louis", 4, "LOC");
+        assertAnnotation(annotations.get(1), "New York City", 46, "LOC");
+        assertAnnotation(annotations.get(2), "Jersey", 65, "LOC");
+        assertAnnotation(annotations.get(3), "New Delhi", 124, "LOC");
+    }
+
+    @Test
+    public void testFailureLinks() {
+        // "a b c x" fails at "d", the automaton must continue with "b c d"
+        DictionaryTagger tagger = new DictionaryTagger.Builder(false).add("a b c x", "1").add("b c d", "2")
+                .add("c", "3").create();
+        List<Annotation> annotations = tagger.getAnnotations("a b c d c");
+        assertEquals(2, annotations.size());
+        assertAnnotation(annotations.get(0), "b c d", 2, "2");
+        assertAnnotation(annotations.get(1), "c", 8, "3");
+    }
+
+    @Test
+    public void testIgnoreCase() {
+        DictionaryTagger tagger = new DictionaryTagger.Builder(true).add("New York", "LOC").create();
+        List<Annotation> annotations = tagger.getAnnotations(TEXT);
+        assertEquals(2, annotations.size());
+        assertAnnotation(annotations.get(0), "New York", 46, "LOC");
+        assertAnnotation(annotations.get(1), "new york", 95, "LOC");
+    }
+
+    @Test
+    public void testContains() {
+        DictionaryTagger tagger = new DictionaryTagger.Builder(true).add("St. Louis", "LOC").add("U.S.", "LOC")
+                .create();
+        assertTrue(tagger.contains("st. louis"));
+        assertTrue(tagger.contains("St.  Louis"));
+        assertTrue(tagger.contains("u.s."));
+        assertFalse(tagger.contains("St."));
+        assertFalse(tagger.contains("St. Louisiana"));
+        assertFalse(tagger.contains(""));
+    }
+
+    @Test
+    public void testIgnoreAccents() {
+        DictionaryTagger tagger = new DictionaryTagger.Builder(true, true).add("Zürich", "LOC").add("Sao Paulo", "LOC")
+                .create();
+        assertTrue(tagger.contains("zurich"));
+        assertTrue(tagger.contains("ZÜRICH"));
+        assertTrue(tagger.contains("Zu\u0308rich")); // decomposed umlaut
+        assertTrue(tagger.contains("São Paulo"));
+        List<Annotation> annotations = tagger.getAnnotations("From Zurich to São Paulo.");
+        assertEquals(2, annotations.size());
+        assertAnnotation(annotations.get(0), "Zurich", 5, "LOC");
+        assertAnnotation(annotations.get(1), "São Paulo", 15, "LOC");
+        assertFalse(new DictionaryTagger.Builder(true).add("Zürich", "LOC").create().contains("zurich"));
+    }
+
+    private static void assertAnnotation(Annotation annotation, String value, int start, String tag) {
+        assertEquals(value, annotation.getValue());
+        assertEquals(start, annotation.getStartPosition());
+        assertEquals(tag, annotation.getTag());
+    }
+
+}
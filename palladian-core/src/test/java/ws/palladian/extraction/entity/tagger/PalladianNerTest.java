@@ -4,6 +4,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -12,6 +15,8 @@ import org.junit.Test;
 
 import ws.palladian.core.Annotation;
 import ws.palladian.core.ImmutableAnnotation;
+import ws.palladian.helper.io.FileHelper;
+import ws.palladian.helper.io.ResourceHelper;
 
 public class PalladianNerTest {
 
@@ -73,4 +78,35 @@ public class PalladianNerTest {
         assertTrue(caseDictionary.contains("involvement"));
     }
 
+    @Test
+    public void testTagEntityDictionary() throws IOException {
+        File modelFile = new File(FileHelper.getTempDir(), "palladianNerTest.model.gz");
+        try {
+            PalladianNer ner = new PalladianNer(PalladianNerTrainingSettings.Builder.languageIndependent().create());
+            ner.train(ResourceHelper.getResourcePath("/ner/training.txt"), modelFile.getPath());
+            String text = "Yesterday, Loyola de Palacio met Vasco da Gama; the interior ministry said nothing.";
+            assertFalse(ner.getTaggingSettings().isTagEntityDictionary());
+            List<String> values = getValues(ner.getAnnotations(text));
+            assertFalse(values.contains("Loyola de Palacio"));
+            assertFalse(values.contains("interior ministry"));
+
+            // multi-token entries of the entity dictionary are tagged as a whole
+            ner.getTaggingSettings().setTagEntityDictionary(true);
+            values = getValues(ner.getAnnotations(text));
+            assertTrue(values.contains("Loyola de Palacio"));
+            assertTrue(values.contains("Vasco da Gama"));
+            assertTrue(values.contains("interior ministry"));
+        } finally {
+            FileHelper.delete(modelFile);
+        }
+    }
+
+    private static List<String> getValues(List<? extends Annotation> annotations) {
+        List<String> values = new ArrayList<>();
+        for (Annotation annotation : annotations) {
+            values.add(annotation.getValue());
+        }
+        return values;
+    }
+
 }
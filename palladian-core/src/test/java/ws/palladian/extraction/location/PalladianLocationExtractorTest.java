@@ -0,0 +1,106 @@
+package ws.palladian.extraction.location;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ws.palladian.core.Annotation;
+import ws.palladian.core.ImmutableAnnotation;
+import ws.palladian.extraction.entity.DictionaryTagger;
+import ws.palladian.extraction.location.persistence.MappedLocationSource;
+import ws.palladian.extraction.location.sources.MultiQueryLocationSource;
+import ws.palladian.helper.collection.MultiMap;
+import ws.palladian.helper.constants.Language;
+import ws.palladian.helper.io.FileHelper;
+
+public class PalladianLocationExtractorTest {
+
+    private static File file;
+
+    private static MappedLocationSource source;
+
+    @BeforeClass
+    public static void writeLocations() throws IOException {
+        file = new File(FileHelper.getTempDir(), "gazetteerLocations.mapped");
+        MappedLocationSource.Writer writer = new MappedLocationSource.Writer(file);
+        writer.startImport();
+        writer.save(new LocationBuilder().setId(2950159).setPrimaryName("Berlin").setType(LocationType.CITY)
+                .addAlternativeName("Berlino", Language.ITALIAN).create());
+        writer.save(new LocationBuilder().setId(2658434).setPrimaryName("Zürich").setType(LocationType.CITY)
+                .create());
+        writer.save(new LocationBuilder().setId(5391959).setPrimaryName("San Francisco").setType(LocationType.CITY)
+                .create());
+        writer.finishImport();
+        source = MappedLocationSource.open(file);
+    }
+
+    @AfterClass
+    public static void deleteFile() {
+        source = null;
+        FileHelper.delete(file);
+    }
+
+    @Test
+    public void testCreateGazetteer() {
+        DictionaryTagger gazetteer = PalladianLocationExtractor.createGazetteer(source);
+        assertTrue(gazetteer.contains("berlin"));
+        assertTrue(gazetteer.contains("Berlino"));
+        assertTrue(gazetteer.contains("zürich"));
+        assertTrue(gazetteer.contains("zurich"));
+        assertTrue(gazetteer.contains("san francisco"));
+        assertFalse(gazetteer.contains("san"));
+        assertFalse(gazetteer.contains("paris"));
+    }
+
+    @Test
+    public void testFetchLocationsWithGazetteer() {
+        DictionaryTagger gazetteer = PalladianLocationExtractor.createGazetteer(source);
+        List<Annotation> annotations = Arrays.<Annotation> asList(new ImmutableAnnotation(0, "Berlino"),
+                new ImmutableAnnotation(10, "Zurich"), new ImmutableAnnotation(20, "ZÜRICH"),
+                new ImmutableAnnotation(30, "San Francisco"), new ImmutableAnnotation(50, "Paris"));
+        MultiMap<Annotation, Location> unfiltered = PalladianLocationExtractor.fetchLocations(source, annotations);
+        RecordingLocationSource recordingSource = new RecordingLocationSource();
+        MultiMap<Annotation, Location> filtered = PalladianLocationExtractor.fetchLocations(recordingSource,
+                annotations, gazetteer);
+        assertEquals(unfiltered, filtered);
+        assertEquals(2658434, filtered.getFirst(annotations.get(1)).getId());
+        assertEquals(2658434, filtered.getFirst(annotations.get(2)).getId());
+        assertTrue(filtered.get(annotations.get(4)).isEmpty());
+        // the name which is not in the gazetteer is not looked up, the source is not queried without candidates
+        assertEquals(1, recordingSource.requests.size());
+        assertFalse(recordingSource.requests.get(0).contains("paris"));
+        PalladianLocationExtractor.fetchLocations(recordingSource,
+                Collections.<Annotation> singletonList(new ImmutableAnnotation(0, "Paris")), gazetteer);
+        assertEquals(1, recordingSource.requests.size());
+    }
+
+    /** Delegates to the source and records the names of each request. */
+    private static final class RecordingLocationSource extends MultiQueryLocationSource {
+        final List<Collection<String>> requests = new ArrayList<>();
+
+        @Override
+        public MultiMap<String, Location> getLocations(Collection<String> locationNames, Set<Language> languages) {
+            requests.add(new ArrayList<>(locationNames));
+            return source.getLocations(locationNames, languages);
+        }
+
+        @Override
+        public List<Location> getLocations(List<Integer> locationIds) {
+            return source.getLocations(locationIds);
+        }
+    }
+
+}
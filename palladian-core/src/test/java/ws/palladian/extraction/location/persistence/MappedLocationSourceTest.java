@@ -0,0 +1,121 @@
+package ws.palladian.extraction.location.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ws.palladian.extraction.location.AlternativeName;
+import ws.palladian.extraction.location.Location;
+import ws.palladian.extraction.location.LocationBuilder;
+import ws.palladian.extraction.location.LocationType;
+import ws.palladian.helper.collection.MultiMap;
+import ws.palladian.helper.constants.Language;
+import ws.palladian.helper.geo.ImmutableGeoCoordinate;
+import ws.palladian.helper.io.FileHelper;
+
+public class MappedLocationSourceTest {
+
+    private static File file;
+
+    private static MappedLocationSource source;
+
+    @BeforeClass
+    public static void writeLocations() throws IOException {
+        file = new File(FileHelper.getTempDir(), "locations.mapped");
+        MappedLocationSource.Writer writer = new MappedLocationSource.Writer(file);
+        writer.startImport();
+        writer.save(new LocationBuilder().setId(2950159).setPrimaryName("Berlin").setType(LocationType.CITY)
+                .setCoordinate(52.52437, 13.41053).setPopulation(3426354l).setAncestorIds(2921044, 6255148)
+                .addAlternativeName("Berlino", Language.ITALIAN).create());
+        writer.save(new LocationBuilder().setId(2921044).setPrimaryName("Germany").setType(LocationType.COUNTRY)
+                .create());
+        writer.save(new LocationBuilder().setId(2658434).setPrimaryName("Zürich").setType(LocationType.CITY)
+                .create());
+        writer.save(new LocationBuilder().setId(1).setPrimaryName("Obsolete").create());
+        writer.save(new LocationBuilder().setId(1).setPrimaryName("Springfield").setType(LocationType.CITY)
+                .create());
+        writer.addAlternativeNames(2921044, Arrays.asList(new AlternativeName("Deutschland", Language.GERMAN),
+                new AlternativeName("BRD", null)));
+        writer.addAlternativeNames(12345, Collections.singletonList(new AlternativeName("Nowhere", null)));
+        writer.finishImport();
+        assertEquals(2950159, writer.getHighestId());
+        source = MappedLocationSource.open(file);
+    }
+
+    @AfterClass
+    public static void deleteFile() {
+        FileHelper.delete(file);
+    }
+
+    @Test
+    public void testGetLocation() {
+        assertEquals(4, source.size());
+        Location location = source.getLocation(2950159);
+        assertEquals("Berlin", location.getPrimaryName());
+        assertEquals(LocationType.CITY, location.getType());
+        assertEquals(52.52437, location.getCoordinate().getLatitude(), 0);
+        assertEquals(13.41053, location.getCoordinate().getLongitude(), 0);
+        assertEquals((Long)3426354l, location.getPopulation());
+        assertEquals(Arrays.asList(2921044, 6255148), location.getAncestorIds());
+        assertEquals(Collections.singletonList(new AlternativeName("Berlino", Language.ITALIAN)),
+                new ArrayList<>(location.getAlternativeNames()));
+
+        location = source.getLocation(2921044);
+        assertNull(location.getCoordinate());
+        assertNull(location.getPopulation());
+        assertEquals(2, location.getAlternativeNames().size());
+
+        assertEquals("Springfield", source.getLocation(1).getPrimaryName());
+        assertNull(source.getLocation(12345));
+        assertEquals(2, source.getLocations(Arrays.asList(1, 12345, 2658434)).size());
+
+        Iterator<Location> iterator = source.getLocations();
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        assertEquals(4, count);
+    }
+
+    @Test
+    public void testGetLocationsByName() {
+        EnumSet<Language> english = EnumSet.of(Language.ENGLISH);
+        assertEquals(1, source.getLocations("berlin", english).size());
+        assertEquals(1, source.getLocations("ZURICH", english).size());
+        assertEquals(1, source.getLocations("brd", english).size());
+        assertEquals(0, source.getLocations("Deutschland", english).size());
+        assertEquals(1, source.getLocations("Deutschland", EnumSet.of(Language.GERMAN)).size());
+        assertEquals(0, source.getLocations("Obsolete", english).size());
+        assertEquals(0, source.getLocations("Nowhere", english).size());
+
+        List<String> names = Arrays.asList("Berlin", "Berlino", "Springfield", "Atlantis");
+        MultiMap<String, Location> result = source.getLocations(names, EnumSet.of(Language.ITALIAN));
+        assertEquals(2950159, result.getFirst("Berlin").getId());
+        assertEquals(2950159, result.getFirst("Berlino").getId());
+        assertEquals(1, result.getFirst("Springfield").getId());
+        assertTrue(result.get("Atlantis").isEmpty());
+    }
+
+    @Test
+    public void testGetLocationsByCoordinate() {
+        List<Location> locations = source.getLocations(new ImmutableGeoCoordinate(52.5, 13.4), 10);
+        assertEquals(1, locations.size());
+        assertEquals(2950159, locations.get(0).getId());
+        assertTrue(source.getLocations(new ImmutableGeoCoordinate(48.1, 11.6), 100).isEmpty());
+    }
+
+}
@@ -0,0 +1,123 @@
+package ws.palladian.extraction.location.sources;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import ws.palladian.extraction.location.Location;
+import ws.palladian.extraction.location.LocationBuilder;
+import ws.palladian.extraction.location.LocationType;
+import ws.palladian.helper.collection.DefaultMultiMap;
+import ws.palladian.helper.collection.MultiMap;
+import ws.palladian.helper.constants.Language;
+
+public class ParallelizedRequestLocationSourceTest {
+
+    /** Source which creates one location per name (with the name's length as ID) and counts its requests. */
+    private static final class CountingLocationSource extends MultiQueryLocationSource {
+        final AtomicInteger requests = new AtomicInteger();
+        final CountDownLatch release;
+
+        CountingLocationSource(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public MultiMap<String, Location> getLocations(Collection<String> locationNames, Set<Language> languages) {
+            requests.incrementAndGet();
+            await();
+            MultiMap<String, Location> result = DefaultMultiMap.createWithSet();
+            for (String locationName : locationNames) {
+                result.add(locationName, createLocation(locationName.length(), locationName));
+            }
+            return result;
+        }
+
+        @Override
+        public List<Location> getLocations(List<Integer> locationIds) {
+            requests.incrementAndGet();
+            await();
+            List<Location> result = new ArrayList<>();
+            for (Integer locationId : locationIds) {
+                if (locationId > 0) {
+                    result.add(createLocation(locationId, "location" + locationId));
+                }
+            }
+            return result;
+        }
+
+        private void await() {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static Location createLocation(int id, String name) {
+            return new LocationBuilder().setId(id).setPrimaryName(name).setType(LocationType.CITY).create();
+        }
+    }
+
+    @Test
+    public void testBatches() {
+        CountingLocationSource source = new CountingLocationSource(new CountDownLatch(0));
+        try (ParallelizedRequestLocationSource parallelSource = new ParallelizedRequestLocationSource(source, 4, 2)) {
+            List<String> names = Arrays.asList("a", "bb", "ccc", "dddd", "eeeee", "a");
+            MultiMap<String, Location> result = parallelSource.getLocations(names, EnumSet.of(Language.ENGLISH));
+            assertEquals(5, result.size());
+            assertEquals(3, result.getFirst("ccc").getId());
+            assertEquals(3, source.requests.get());
+            assertEquals(2, parallelSource.getBatchSizeStats().getMax(), 0);
+
+            List<Location> locations = parallelSource.getLocations(Arrays.asList(5, -1, 3, 5));
+            assertEquals(3, locations.size());
+            assertEquals(5, locations.get(0).getId());
+            assertEquals(3, locations.get(1).getId());
+            assertEquals(5, locations.get(2).getId());
+            assertEquals(5, parallelSource.getLatencyStats().getCount());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCoalescing() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountingLocationSource source = new CountingLocationSource(release);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try (final ParallelizedRequestLocationSource parallelSource = new ParallelizedRequestLocationSource(source, 4)) {
+            List<Future<MultiMap<String, Location>>> futures = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                futures.add(callers.submit(() -> parallelSource.getLocations(Collections.singletonList("Berlin"),
+                        EnumSet.of(Language.GERMAN))));
+            }
+            // wait until the second request was attached to the pending one (bounded by the test's timeout)
+            while (parallelSource.getCoalescedItems() == 0) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            for (Future<MultiMap<String, Location>> future : futures) {
+                assertEquals(6, future.get().getFirst("Berlin").getId());
+            }
+            assertEquals(1, source.requests.get());
+            assertTrue(parallelSource.toString().contains("CoalescedItems=1"));
+        } finally {
+            release.countDown();
+            callers.shutdown();
+        }
+    }
+
+}
@@ -10,17 +10,26 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
+import org.junit.After;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import ws.palladian.extraction.location.AlternativeName;
 import ws.palladian.extraction.location.Location;
 import ws.palladian.extraction.location.LocationType;
+import ws.palladian.extraction.location.persistence.MappedLocationSource;
 import ws.palladian.extraction.location.sources.CollectionLocationStore;
+import ws.palladian.extraction.location.sources.LocationStore;
 import ws.palladian.extraction.location.sources.importers.GeonamesImporter.InputStreamProvider;
 import ws.palladian.helper.constants.Language;
+import ws.palladian.helper.geo.GeoCoordinate;
+import ws.palladian.helper.io.FileHelper;
 
 public class GeonamesImporterTest {
 
@@ -39,10 +48,16 @@ public class GeonamesImporterTest {
 
     private static CollectionLocationStore locationStore;
 
+    private final File mappedFile = new File(FileHelper.getTempDir(), "geonames.mapped");
+
     @BeforeClass
     public static void readData() throws FileNotFoundException, IOException {
         locationStore = new CollectionLocationStore();
-        GeonamesImporter importer = new GeonamesImporter(locationStore, null);
+        importInto(locationStore);
+    }
+
+    private static void importInto(LocationStore store) throws FileNotFoundException, IOException {
+        GeonamesImporter importer = new GeonamesImporter(store, null);
         InputStreamProvider hierarchyFile = new FileInputStreamProvider(getResourceFile("/geonames.org/hierarchy.txt"));
         InputStreamProvider locationFile = new FileInputStreamProvider(
                 getResourceFile("/geonames.org/locationData.txt"));
@@ -51,6 +66,47 @@ public class GeonamesImporterTest {
         importer.importLocations(locationFile, hierarchyFile, alternateNamesFile);
     }
 
+    private static Set<Integer> getIds(List<Location> locations) {
+        Set<Integer> ids = new HashSet<>();
+        for (Location location : locations) {
+            ids.add(location.getId());
+        }
+        return ids;
+    }
+
+    @After
+    public void deleteMappedFile() {
+        FileHelper.delete(mappedFile);
+    }
+
+    @Test
+    public void testImportIntoMappedLocationSource() throws FileNotFoundException, IOException {
+        importInto(new MappedLocationSource.Writer(mappedFile));
+        MappedLocationSource mappedSource = MappedLocationSource.open(mappedFile);
+        assertTrue(mappedSource.size() > 0);
+        Iterator<Location> iterator = mappedSource.getLocations();
+        while (iterator.hasNext()) {
+            Location location = iterator.next();
+            Location expected = locationStore.getLocation(location.getId());
+            assertEquals(expected.getPrimaryName(), location.getPrimaryName());
+            assertEquals(expected.getType(), location.getType());
+            assertEquals(expected.getCoordinate(), location.getCoordinate());
+            assertEquals(expected.getPopulation(), location.getPopulation());
+            assertEquals(expected.getAncestorIds(), location.getAncestorIds());
+            assertEquals(new HashSet<>(expected.getAlternativeNames()), new HashSet<>(location.getAlternativeNames()));
+        }
+        Collection<Location> locations = mappedSource.getLocations("stuttgart", EnumSet.of(Language.GERMAN));
+        assertEquals(1, locations.size());
+        assertEquals(2825297, locations.iterator().next().getId());
+
+        // both stores answer coordinate queries through a spatial index
+        GeoCoordinate stuttgart = locationStore.getLocation(2825297).getCoordinate();
+        Set<Integer> nearbyIds = getIds(locationStore.getLocations(stuttgart, 50));
+        assertEquals(9, nearbyIds.size());
+        assertTrue(nearbyIds.contains(2926304));
+        assertEquals(nearbyIds, getIds(mappedSource.getLocations(stuttgart, 50)));
+    }
+
     @Test
     public void testGeneralData() {
         Location location = locationStore.getLocation(2926304);
@@ -0,0 +1,125 @@
+package ws.palladian.extraction.text.similarity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+import org.junit.Test;
+
+import ws.palladian.extraction.text.similarity.WordMoverDistanceIndex.Result;
+import ws.palladian.extraction.text.vector.WordVectorDictionary;
+
+public class WordMoverDistanceIndexTest {
+
+	private static final int VECTOR_SIZE = 8;
+
+	/** A dictionary with random vectors for the words "zqa", "zqb", ... */
+	private static WordVectorDictionary createDictionary(Random random, List<String> words) {
+		final Map<String, float[]> entries = new HashMap<>();
+		for (int w = 0; w < 100; w++) {
+			String word = "zq" + (char)('a' + w / 26) + (char)('a' + w % 26);
+			float[] vector = new float[VECTOR_SIZE];
+			for (int i = 0; i < VECTOR_SIZE; i++) {
+				vector[i] = (float)random.nextGaussian();
+			}
+			entries.put(word, vector);
+			words.add(word);
+		}
+		return new WordVectorDictionary() {
+			@Override
+			public float[] getVector(String word) {
+				return entries.get(word);
+			}
+
+			@Override
+			public void forEach(BiConsumer<String, float[]> action) {
+				for (Map.Entry<String, float[]> entry : entries.entrySet()) {
+					action.accept(entry.getKey(), entry.getValue());
+				}
+			}
+
+			@Override
+			public int size() {
+				return entries.size();
+			}
+
+			@Override
+			public int vectorSize() {
+				return VECTOR_SIZE;
+			}
+
+			@Override
+			public boolean isCaseSensitive() {
+				return false;
+			}
+		};
+	}
+
+	private static String createText(Random random, List<String> words) {
+		StringBuilder text = new StringBuilder();
+		int numWords = 3 + random.nextInt(10);
+		for (int i = 0; i < numWords; i++) {
+			text.append(words.get(random.nextInt(words.size()))).append(' ');
+		}
+		return text.toString();
+	}
+
+	@Test
+	public void testTransportationProblem() {
+		assertEquals(2, TransportationProblem.solve(new double[] { .5, .5 }, new double[] { 1 }, new double[] { 1, 3 }),
+				0.00001);
+		assertEquals(0, TransportationProblem.solve(new double[] { .5, .5 }, new double[] { .5, .5 },
+				new double[] { 1, 0, 0, 1 }), 0.00001);
+		assertEquals(1.1, TransportationProblem.solve(new double[] { .6, .4 }, new double[] { .5, .5 },
+				new double[] { 1, 2, 3, 1 }), 0.00001);
+	}
+
+	@Test
+	public void testGetNearest() {
+		Random random = new Random(1);
+		List<String> words = new ArrayList<>();
+		WordVectorDictionary dictionary = createDictionary(random, words);
+		WordMoverDistanceIndex index = new WordMoverDistanceIndex(dictionary, 2);
+		try {
+			checkGetNearest(index, random, words);
+		} finally {
+			index.close();
+		}
+	}
+
+	private static void checkGetNearest(WordMoverDistanceIndex index, Random random, List<String> words) {
+		List<String> texts = new ArrayList<>();
+		for (int d = 0; d < 300; d++) {
+			String text = createText(random, words);
+			assertTrue(index.add("document" + d, text));
+			texts.add(text);
+		}
+		assertFalse(index.add("unknown", "the unknown words"));
+		assertEquals(300, index.size());
+		assertEquals(0, index.getDistance(texts.get(0), texts.get(0)), 0.00001);
+
+		for (int q = 0; q < 10; q++) {
+			String query = createText(random, words);
+			List<Double> expected = new ArrayList<>();
+			for (String text : texts) {
+				expected.add(index.getDistance(query, text));
+			}
+			Collections.sort(expected);
+			List<Result> results = index.getNearest(query, 5);
+			assertEquals(5, results.size());
+			for (int i = 0; i < 5; i++) {
+				assertEquals(expected.get(i), results.get(i).getDistance(), 0.00001);
+			}
+		}
+		assertTrue(index.getNearest("the unknown words", 5).isEmpty());
+	}
+
+}
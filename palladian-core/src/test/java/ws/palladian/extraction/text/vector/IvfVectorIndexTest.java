@@ -0,0 +1,112 @@
+package ws.palladian.extraction.text.vector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Test;
+
+import ws.palladian.extraction.text.vector.VectorIndex.Neighbor;
+import ws.palladian.helper.io.FileHelper;
+
+public class IvfVectorIndexTest {
+
+	private final File file = new File(FileHelper.getTempDir(), "vectorIndex.ivf");
+
+	@After
+	public void deleteFile() {
+		FileHelper.delete(file);
+	}
+
+	private static final int VECTOR_SIZE = 16;
+
+	private static final int NUM_VECTORS = 2000;
+
+	/** Vectors scattered around a couple of random cluster centers. */
+	private static float[][] createVectors(Random random) {
+		float[][] centers = new float[20][VECTOR_SIZE];
+		for (float[] center : centers) {
+			for (int i = 0; i < VECTOR_SIZE; i++) {
+				center[i] = (float)random.nextGaussian();
+			}
+		}
+		float[][] vectors = new float[NUM_VECTORS][VECTOR_SIZE];
+		for (int v = 0; v < NUM_VECTORS; v++) {
+			float[] center = centers[random.nextInt(centers.length)];
+			for (int i = 0; i < VECTOR_SIZE; i++) {
+				vectors[v][i] = center[i] + 0.3f * (float)random.nextGaussian();
+			}
+		}
+		return vectors;
+	}
+
+	@Test
+	public void testIvfVectorIndex() throws IOException {
+		Random random = new Random(1);
+		float[][] vectors = createVectors(random);
+		ExactVectorIndex exactIndex = new ExactVectorIndex(VECTOR_SIZE);
+		IvfVectorIndex.Builder builder = new IvfVectorIndex.Builder(VECTOR_SIZE).numLists(20).numThreads(2);
+		for (int v = 0; v < NUM_VECTORS; v++) {
+			exactIndex.add("vector" + v, vectors[v]);
+			builder.add("vector" + v, vectors[v]);
+		}
+		IvfVectorIndex ivfIndex = builder.build(file);
+		assertEquals(NUM_VECTORS, ivfIndex.size());
+		assertEquals(VECTOR_SIZE, ivfIndex.vectorSize());
+		assertEquals(20, ivfIndex.getNumLists());
+		assertEquals(2, ivfIndex.getNumProbes());
+		assertEquals("vector42", ivfIndex.getLabel(42));
+
+		// probing all lists gives the exact result
+		IvfVectorIndex allProbesIndex = IvfVectorIndex.open(file, 20);
+		int hits = 0;
+		for (int q = 0; q < 50; q++) {
+			float[] query = vectors[random.nextInt(NUM_VECTORS)].clone();
+			query[0] += 0.1f;
+			List<Neighbor> expected = exactIndex.getNearest(query, 10);
+			List<Neighbor> actual = allProbesIndex.getNearest(query, 10);
+			assertEquals(10, actual.size());
+			for (int i = 0; i < 10; i++) {
+				assertEquals(expected.get(i).getIndex(), actual.get(i).getIndex());
+				assertEquals(expected.get(i).getLabel(), actual.get(i).getLabel());
+				assertEquals(expected.get(i).getSimilarity(), actual.get(i).getSimilarity(), 0.0001);
+			}
+			assertEquals(exactIndex.getWithinRadius(query, 0.9f).size(),
+					allProbesIndex.getWithinRadius(query, 0.9f).size());
+
+			Set<Integer> expectedIndices = new HashSet<>();
+			for (Neighbor neighbor : expected) {
+				expectedIndices.add(neighbor.getIndex());
+			}
+			for (Neighbor neighbor : ivfIndex.getNearest(query, 10)) {
+				if (expectedIndices.contains(neighbor.getIndex())) {
+					hits++;
+				}
+			}
+		}
+		double recall = hits / 500.;
+		assertTrue("recall was " + recall, recall > 0.8);
+	}
+
+	@Test
+	public void testExactVectorIndex() {
+		ExactVectorIndex index = new ExactVectorIndex(2);
+		index.add("a", new float[] { 1, 0 });
+		index.add("b", new float[] { 0, 1 });
+		index.add("c", new float[] { 1, 1 });
+		List<Neighbor> nearest = index.getNearest(new float[] { 2, 0.1f }, 2);
+		assertEquals(2, nearest.size());
+		assertEquals("a", nearest.get(0).getLabel());
+		assertEquals("c", nearest.get(1).getLabel());
+		assertEquals(3, index.getWithinRadius(new float[] { 1, 1 }, 0).size());
+		assertEquals(1, index.getWithinRadius(new float[] { 1, 1 }, 0.99f).size());
+	}
+
+}
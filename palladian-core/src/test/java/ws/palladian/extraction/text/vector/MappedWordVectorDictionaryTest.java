@@ -0,0 +1,121 @@
+package ws.palladian.extraction.text.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import ws.palladian.extraction.text.vector.MappedWordVectorDictionary.Quantization;
+import ws.palladian.helper.io.FileHelper;
+
+public class MappedWordVectorDictionaryTest {
+
+	private static final String VEC_FILE_CONTENT = "the 0.418 0.24968 -0.41242 0.1217\n" + //
+			"Berlin -0.039 -0.8 1.5 0\n" + //
+			"café 2.5 -3.25 0.001 -0.0001\n" + //
+			"of 0.70853 0.57088 -0.4716 0.18048\n" + //
+			"über 0 0 0 0\n";
+
+	private final List<File> tempFiles = new ArrayList<>();
+
+	@After
+	public void deleteFiles() {
+		for (File tempFile : tempFiles) {
+			FileHelper.delete(tempFile);
+		}
+	}
+
+	private File tempFile(String name) {
+		File file = new File(FileHelper.getTempDir(), name);
+		tempFiles.add(file);
+		return file;
+	}
+
+	private File writeVecFile(String content) throws IOException {
+		File vecFile = tempFile("vectors.vec");
+		FileHelper.writeToFile(vecFile.getPath(), content);
+		return vecFile;
+	}
+
+	@Test
+	public void testConvertVecFile() throws IOException {
+		File vecFile = writeVecFile(VEC_FILE_CONTENT);
+		MapWordVectorDictionary expected = MapWordVectorDictionary.readFromVecFile(vecFile);
+		for (Quantization quantization : Quantization.values()) {
+			File file = tempFile("vectors_" + quantization + ".mapped");
+			MappedWordVectorDictionary dictionary = MappedWordVectorDictionary.convertVecFile(vecFile, file,
+					quantization);
+			assertEquals(5, dictionary.size());
+			assertEquals(4, dictionary.vectorSize());
+			assertTrue(dictionary.isCaseSensitive());
+			assertEquals(quantization, dictionary.getQuantization());
+			float delta = quantization == Quantization.FLOAT32 ? 0 : 0.03f;
+			for (String word : new String[] { "the", "Berlin", "café", "of", "über" }) {
+				assertArrayEquals(expected.getVector(word), dictionary.getVector(word), delta);
+				assertEquals(word, dictionary.getWord(dictionary.indexOf(word)));
+			}
+			assertNull(dictionary.getVector("berlin"));
+			assertEquals(-1, dictionary.indexOf("missing"));
+
+			float[] destination = new float[4];
+			assertTrue(dictionary.getVector("of", destination));
+			assertArrayEquals(expected.getVector("of"), destination, delta);
+			assertFalse(dictionary.getVector("missing", destination));
+
+			// re-open from disk
+			MappedWordVectorDictionary reopened = MappedWordVectorDictionary.open(file);
+			assertArrayEquals(dictionary.getVector("café"), reopened.getVector("café"), 0);
+		}
+	}
+
+	@Test
+	public void testWriter() throws IOException {
+		File file = tempFile("vectors_writer.mapped");
+		try (MappedWordVectorDictionary.Writer writer = new MappedWordVectorDictionary.Writer(file, 2,
+				Quantization.FLOAT32)) {
+			writer.add("a", new float[] { 1, 2 });
+			writer.add("b", new float[] { 3, 4 });
+			writer.add("a", new float[] { 5, 6 });
+		}
+		MappedWordVectorDictionary dictionary = MappedWordVectorDictionary.open(file);
+		assertEquals(2, dictionary.size());
+		assertFalse(dictionary.isCaseSensitive());
+		// the first vector wins for duplicate words
+		assertArrayEquals(new float[] { 1, 2 }, dictionary.getVector("a"), 0);
+		assertArrayEquals(new float[] { 3, 4 }, dictionary.getVector("b"), 0);
+	}
+
+	@Test
+	public void testDuplicateWords() throws IOException {
+		File vecFile = writeVecFile(VEC_FILE_CONTENT + "of 1 2 3 4\n");
+		MapWordVectorDictionary mapDictionary = MapWordVectorDictionary.readFromVecFile(vecFile);
+		MappedWordVectorDictionary mappedDictionary = MappedWordVectorDictionary.convertVecFile(vecFile,
+				tempFile("vectors_duplicates.mapped"), Quantization.FLOAT32);
+		// both keep the first vector for duplicate words
+		float[] expected = { 0.70853f, 0.57088f, -0.4716f, 0.18048f };
+		assertEquals(5, mapDictionary.size());
+		assertEquals(5, mappedDictionary.size());
+		assertArrayEquals(expected, mapDictionary.getVector("of"), 0);
+		assertArrayEquals(expected, mappedDictionary.getVector("of"), 0);
+	}
+
+	@Test
+	public void testHalfConversion() {
+		float[] values = { 0, 1, -1, 0.5f, 65504, 1e-4f, -2.71828f, Float.POSITIVE_INFINITY };
+		for (float value : values) {
+			float converted = MappedWordVectorDictionary.fromHalf(MappedWordVectorDictionary.toHalf(value));
+			assertEquals(value, converted, Math.abs(value) / 1000);
+		}
+		assertTrue(Float.isNaN(MappedWordVectorDictionary.fromHalf(MappedWordVectorDictionary.toHalf(Float.NaN))));
+	}
+
+}
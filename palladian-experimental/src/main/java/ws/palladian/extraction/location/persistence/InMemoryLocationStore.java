@@ -1,5 +1,6 @@
 package ws.palladian.extraction.location.persistence;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -12,6 +13,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import ws.palladian.extraction.location.AlternativeName;
 import ws.palladian.extraction.location.Location;
 import ws.palladian.extraction.location.LocationBuilder;
@@ -25,6 +27,7 @@ import ws.palladian.helper.collection.AbstractIterator;
 import ws.palladian.helper.constants.Language;
 import ws.palladian.helper.geo.GeoCoordinate;
 import ws.palladian.helper.geo.ImmutableGeoCoordinate;
+import ws.palladian.helper.geo.SpatialIndex;
 
 /**
  * <p>
@@ -46,6 +49,9 @@ public final class InMemoryLocationStore extends SingleQueryLocationSource imple
     private final LocationContainer[] locations;
     private int size;
 
+    /** Index over the slots with coordinates, created on demand and reset when locations are saved. */
+    private SpatialIndex spatialIndex;
+
     public InMemoryLocationStore(int capacity) {
         keys = new int[capacity];
         locations = new LocationContainer[capacity];
@@ -103,6 +109,32 @@ public final class InMemoryLocationStore extends SingleQueryLocationSource imple
         return null;
     }
 
+    @Override
+    public synchronized List<Location> getLocations(GeoCoordinate coordinate, double distance) {
+        Validate.notNull(coordinate, "coordinate must not be null");
+        if (spatialIndex == null) {
+            spatialIndex = createSpatialIndex();
+        }
+        List<Location> result = new ArrayList<>();
+        for (int index : spatialIndex.findWithin(coordinate.getLatitude(), coordinate.getLongitude(), distance)) {
+            result.add(locations[index].createLocation());
+        }
+        return result;
+    }
+
+    /** Index the first slot of each location (a location occupies one slot for each of its names). */
+    private SpatialIndex createSpatialIndex() {
+        SpatialIndex.Builder builder = new SpatialIndex.Builder();
+        IntOpenHashSet indexedIds = new IntOpenHashSet();
+        for (int index = 0; index < locations.length; index++) {
+            LocationContainer location = locations[index];
+            if (location != null && !Float.isNaN(location.lat) && indexedIds.add(location.id)) {
+                builder.add(index, location.lat, location.lng);
+            }
+        }
+        return builder.create();
+    }
+
     @Override
     public Iterator<Location> getLocations() {
         // FIXME iterator gives duplicates; only return locations here, where hash key matches primary name?
@@ -134,6 +166,7 @@ public final class InMemoryLocationStore extends SingleQueryLocationSource imple
             add(name, locationContainer);
         }
         size++;
+        spatialIndex = null;
     }
 
     private void add(String name, LocationContainer location) {
@@ -0,0 +1,76 @@
+package ws.palladian.extraction.text.vector;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import ws.palladian.extraction.text.vector.VectorIndex.Neighbor;
+import ws.palladian.helper.StopWatch;
+import ws.palladian.helper.math.FatStats;
+import ws.palladian.helper.math.Stats;
+
+/**
+ * Compares recall and latency of an approximate {@link VectorIndex} against
+ * the exact search, using the vectors of randomly chosen words as queries.
+ *
+ * @author Philipp Katz
+ */
+public class VectorIndexBenchmark {
+
+	private static final File WORD_VECTORS = new File("/Users/pk/Downloads/GoogleNews-vectors-negative300.mapped");
+	private static final File INDEX_FILE = new File("/Users/pk/Downloads/GoogleNews-vectors-negative300.ivf");
+	private static final int NUM_QUERIES = 1000;
+	private static final int K = 10;
+
+	public static void main(String[] args) throws IOException {
+		MappedWordVectorDictionary dictionary = MappedWordVectorDictionary.open(WORD_VECTORS);
+		ExactVectorIndex exactIndex = ExactVectorIndex.create(dictionary);
+		if (!INDEX_FILE.exists()) {
+			new IvfVectorIndex.Builder(dictionary.vectorSize()).addAll(dictionary).build(INDEX_FILE);
+		}
+		for (int numProbes : new int[] { 1, 5, 10, 50, 100, 500 }) {
+			benchmark(dictionary, exactIndex, IvfVectorIndex.open(INDEX_FILE, numProbes));
+		}
+	}
+
+	public static void benchmark(MappedWordVectorDictionary dictionary, VectorIndex exactIndex,
+			VectorIndex approximateIndex) {
+		Random random = new Random(0);
+		Stats recall = new FatStats();
+		Stats exactTime = new FatStats();
+		Stats approximateTime = new FatStats();
+		float[] query = new float[dictionary.vectorSize()];
+		for (int i = 0; i < NUM_QUERIES; i++) {
+			dictionary.getVector(random.nextInt(dictionary.size()), query);
+
+			StopWatch stopWatch = new StopWatch();
+			List<Neighbor> expected = exactIndex.getNearest(query, K);
+			exactTime.add(stopWatch.getElapsedTime());
+
+			stopWatch = new StopWatch();
+			List<Neighbor> actual = approximateIndex.getNearest(query, K);
+			approximateTime.add(stopWatch.getElapsedTime());
+
+			Set<Integer> expectedIndices = new HashSet<>();
+			for (Neighbor neighbor : expected) {
+				expectedIndices.add(neighbor.getIndex());
+			}
+			int hits = 0;
+			for (Neighbor neighbor : actual) {
+				if (expectedIndices.contains(neighbor.getIndex())) {
+					hits++;
+				}
+			}
+			recall.add((double)hits / expected.size());
+		}
+		System.out.println(approximateIndex);
+		System.out.println("recall@" + K + ": " + recall.getMean());
+		System.out.println("exact: mean " + exactTime.getMean() + " ms, p99 " + exactTime.getPercentile(99) + " ms");
+		System.out.println("approximate: mean " + approximateTime.getMean() + " ms, p99 "
+				+ approximateTime.getPercentile(99) + " ms");
+	}
+
+}
@@ -3,6 +3,9 @@
  */
 package ws.palladian.classification;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.commons.lang.Validate;
 
 import libsvm.svm;
@@ -45,4 +48,33 @@ public final class LibSvmClassifier extends AbstractClassifier<LibSvmModel> {
         return builder.create();
     }
 
+    /**
+     * Classifies all feature vectors, sharing the schema, category names and probability buffer among them.
+     */
+    @Override
+    public List<CategoryEntries> classify(List<? extends FeatureVector> featureVectors, LibSvmModel model) {
+        Validate.notNull(featureVectors, "featureVectors must not be null");
+        Validate.notNull(model, "model must not be null");
+
+        List<String> schema = model.getSchema();
+        String[] categories = new String[model.getCategories().size()];
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = model.transformClassToString(i);
+        }
+        double[] probabilities = new double[categories.length];
+
+        List<CategoryEntries> results = new ArrayList<>(featureVectors.size());
+        for (FeatureVector featureVector : featureVectors) {
+            svm_node[] libsvmFeatureVector = LibSvmLearner.convertFeatureVector(featureVector, schema,
+                    model.getNormalization(), model.getDummyCoder());
+            svm.svm_predict_probability(model.getModel(), libsvmFeatureVector, probabilities);
+            CategoryEntriesBuilder builder = new CategoryEntriesBuilder();
+            for (int i = 0; i < probabilities.length; i++) {
+                builder.set(categories[i], probabilities[i]);
+            }
+            results.add(builder.create());
+        }
+        return results;
+    }
+
 }
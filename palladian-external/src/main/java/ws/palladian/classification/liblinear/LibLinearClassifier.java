@@ -1,11 +1,16 @@
 package ws.palladian.classification.liblinear;
 
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import de.bwaldvogel.liblinear.Feature;
 import de.bwaldvogel.liblinear.Linear;
 import ws.palladian.core.AbstractClassifier;
 import ws.palladian.core.CategoryEntries;
@@ -54,4 +59,44 @@ public final class LibLinearClassifier extends AbstractClassifier<LibLinearModel
         return categoryEntriesBuilder.create();
     }
 
+    /**
+     * Classifies all feature vectors, sharing the lookup tables and the instance buffers among them.
+     */
+    @Override
+    public List<CategoryEntries> classify(List<? extends FeatureVector> featureVectors, LibLinearModel model) {
+        Validate.notNull(featureVectors, "featureVectors must not be null");
+        Validate.notNull(model, "model must not be null");
+        de.bwaldvogel.liblinear.Model llModel = model.getLLModel();
+        Map<String, Integer> featureLabelIndices = model.getFeatureLabelIndices();
+        double bias = llModel.getBias();
+        int numCategories = model.getCategories().size();
+        String[] categories = new String[numCategories];
+        for (int i = 0; i < numCategories; i++) {
+            categories[i] = model.getCategoryForIndex(i);
+        }
+        boolean probabilityModel = llModel.isProbabilityModel();
+        double[] probabilities = new double[numCategories];
+        LibLinearLearner.InstanceBuffer buffer = new LibLinearLearner.InstanceBuffer();
+
+        List<CategoryEntries> results = new ArrayList<>(featureVectors.size());
+        for (FeatureVector featureVector : featureVectors) {
+            featureVector = model.getNormalization().normalize(featureVector);
+            featureVector = model.getDummyCoder().convert(featureVector);
+            Feature[] instance = LibLinearLearner.makeInstance(featureLabelIndices, featureVector, bias, buffer);
+            CategoryEntriesBuilder categoryEntriesBuilder = new CategoryEntriesBuilder();
+            if (probabilityModel) {
+                Linear.predictProbability(llModel, instance, probabilities);
+                for (int i = 0; i < probabilities.length; i++) {
+                    categoryEntriesBuilder.add(categories[i], probabilities[i]);
+                }
+            } else {
+                int classIdx = (int)Linear.predict(llModel, instance);
+                categoryEntriesBuilder.set(Arrays.asList(categories), 0.);
+                categoryEntriesBuilder.add(categories[classIdx], 1.);
+            }
+            results.add(categoryEntriesBuilder.create());
+        }
+        return results;
+    }
+
 }
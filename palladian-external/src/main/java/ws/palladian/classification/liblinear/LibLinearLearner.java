@@ -2,8 +2,7 @@ package ws.palladian.classification.liblinear;
 
 import java.io.PrintStream;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -11,7 +10,6 @@ import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import de.bwaldvogel.liblinear.Feature;
 import de.bwaldvogel.liblinear.FeatureNode;
 import de.bwaldvogel.liblinear.Linear;
 import de.bwaldvogel.liblinear.Model;
@@ -140,6 +138,7 @@ public final class LibLinearLearner extends AbstractLearner<LibLinearModel> {
         List<String> categoryToIndex = new ArrayList<>();
         List<de.bwaldvogel.liblinear.Feature[]> features = new ArrayList<>();
         List<Integer> assignedClassIndices = new ArrayList<>();
+        InstanceBuffer buffer = new InstanceBuffer();
 		for (Instance instance : dataset) {
 			problem.l++;
 			if (problem.l % 10000 == 0) {
@@ -147,7 +146,7 @@ public final class LibLinearLearner extends AbstractLearner<LibLinearModel> {
 			}
 			FeatureVector featureVector = normalization.normalize(instance.getVector());
 			featureVector = dummyCoder.convert(featureVector);
-			features.add(makeInstance(featureLabelIndices, featureVector, bias));
+			features.add(makeInstance(featureLabelIndices, featureVector, bias, buffer));
 			if (!categoryToIndex.contains(instance.getCategory())) {
 				categoryToIndex.add(instance.getCategory());
 			}
@@ -163,9 +162,24 @@ public final class LibLinearLearner extends AbstractLearner<LibLinearModel> {
         return new LibLinearModel(model, featureLabelIndices, categoryToIndex, normalization, dummyCoder);
     }
 
+	/**
+	 * Buffers for {@link LibLinearLearner#makeInstance(Map, FeatureVector, double, InstanceBuffer)}, which can be
+	 * reused for subsequent instances; not thread-safe.
+	 */
+	static final class InstanceBuffer {
+		/** The feature index in the upper, and the position in the values in the lower bits, for sorting. */
+		long[] keys = new long[16];
+		double[] values = new double[16];
+	}
+
 	static de.bwaldvogel.liblinear.Feature[] makeInstance(Map<String, Integer> featureLabelIndices,
 			FeatureVector featureVector, double bias) {
-		List<de.bwaldvogel.liblinear.Feature> features = new ArrayList<>();
+		return makeInstance(featureLabelIndices, featureVector, bias, new InstanceBuffer());
+	}
+
+	static de.bwaldvogel.liblinear.Feature[] makeInstance(Map<String, Integer> featureLabelIndices,
+			FeatureVector featureVector, double bias, InstanceBuffer buffer) {
+		int size = 0;
 		for (VectorEntry<String, Value> vectorEntry : featureVector) {
 			Value value = vectorEntry.value();
 			Integer featureIndex = featureLabelIndices.get(vectorEntry.key());
@@ -174,19 +188,25 @@ public final class LibLinearLearner extends AbstractLearner<LibLinearModel> {
 				if (Math.abs(floatValue) < 2 * Float.MIN_VALUE) {
 					continue;
 				}
-				features.add(new FeatureNode(featureIndex + 1 /* 1-indexed */, floatValue));
+				if (size == buffer.keys.length) {
+					buffer.keys = Arrays.copyOf(buffer.keys, 2 * size);
+					buffer.values = Arrays.copyOf(buffer.values, 2 * size);
+				}
+				buffer.keys[size] = (long) featureIndex << 32 | size;
+				buffer.values[size] = floatValue;
+				size++;
 			}
 		}
+		Arrays.sort(buffer.keys, 0, size);
+		de.bwaldvogel.liblinear.Feature[] features = new de.bwaldvogel.liblinear.Feature[bias >= 0 ? size + 1 : size];
+		for (int i = 0; i < size; i++) {
+			int featureIndex = (int) (buffer.keys[i] >>> 32);
+			features[i] = new FeatureNode(featureIndex + 1 /* 1-indexed */, buffer.values[(int) buffer.keys[i]]);
+		}
 		if (bias >= 0) {
-			features.add(new FeatureNode(featureLabelIndices.size() + 1, bias)); // bias term
+			features[size] = new FeatureNode(featureLabelIndices.size() + 1, bias); // bias term
 		}
-		Collections.sort(features, new Comparator<de.bwaldvogel.liblinear.Feature>() {
-			@Override
-			public int compare(Feature o1, Feature o2) {
-				return Integer.compare(o1.getIndex(), o2.getIndex());
-			}
-		});
-		return features.toArray(new de.bwaldvogel.liblinear.Feature[features.size()]);
+		return features;
 	}
 
 	@Override
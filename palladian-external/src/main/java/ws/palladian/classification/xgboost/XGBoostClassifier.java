@@ -1,7 +1,12 @@
 package ws.palladian.classification.xgboost;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import gnu.trove.list.array.TFloatArrayList;
 import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
 import ml.dmlc.xgboost4j.java.DMatrix;
 import ml.dmlc.xgboost4j.java.XGBoostError;
 import ws.palladian.core.CategoryEntries;
@@ -27,22 +32,60 @@ public class XGBoostClassifier implements Classifier<XGBoostModel> {
 			float[][] predictionMatrix = model.getBooster().predict(matrix);
 			float[] prediction = predictionMatrix[0];
 
-			CategoryEntriesBuilder builder = new CategoryEntriesBuilder();
+			return createCategoryEntries(prediction, model);
 
-			if (prediction.length == 1) {
-				builder.set(model.getLabel(0), 1 - prediction[0]);
-				builder.set(model.getLabel(1), prediction[0]);
-			} else {
-				for (int i = 0; i < prediction.length; i++) {
-					builder.set(model.getLabel(i), prediction[i]);
-				}
-			}
+		} catch (XGBoostError e) {
+			throw new IllegalStateException(e);
+		}
+	}
 
-			return builder.create();
+	/**
+	 * Classifies all feature vectors with one sparse matrix and one call to the booster, which avoids the native
+	 * overhead of creating a matrix and predicting for each feature vector individually.
+	 */
+	@Override
+	public List<CategoryEntries> classify(List<? extends FeatureVector> featureVectors, XGBoostModel model) {
+		List<CategoryEntries> results = new ArrayList<>(featureVectors.size());
+		if (featureVectors.isEmpty()) {
+			return results;
+		}
+
+		Map<String, Integer> featureIndices = model.getFeatureIndices();
+		TFloatArrayList data = new TFloatArrayList();
+		TIntArrayList index = new TIntArrayList();
+		TLongArrayList headers = new TLongArrayList(featureVectors.size() + 1);
+		long rowheader = 0;
+		headers.add(rowheader);
+		for (FeatureVector featureVector : featureVectors) {
+			rowheader += XGBoostLearner.makeRow(featureIndices, data, index, featureVector);
+			headers.add(rowheader);
+		}
+
+		try {
+
+			DMatrix matrix = new DMatrix(headers.toArray(), index.toArray(), data.toArray(), DMatrix.SparseType.CSR);
+			float[][] predictionMatrix = model.getBooster().predict(matrix);
+			for (float[] prediction : predictionMatrix) {
+				results.add(createCategoryEntries(prediction, model));
+			}
+			return results;
 
 		} catch (XGBoostError e) {
 			throw new IllegalStateException(e);
 		}
 	}
 
+	private static CategoryEntries createCategoryEntries(float[] prediction, XGBoostModel model) {
+		CategoryEntriesBuilder builder = new CategoryEntriesBuilder();
+		if (prediction.length == 1) {
+			builder.set(model.getLabel(0), 1 - prediction[0]);
+			builder.set(model.getLabel(1), prediction[0]);
+		} else {
+			for (int i = 0; i < prediction.length; i++) {
+				builder.set(model.getLabel(i), prediction[i]);
+			}
+		}
+		return builder.create();
+	}
+
 }